@@ -0,0 +1,34 @@
+// Copyright (c) 2023 Goosebump Designs LLC
+
+package com.goosebumpdesigns.pe;
+
+import java.util.List;
+import com.goosebumpdesigns.pe.model.BoundImport;
+import lombok.Value;
+
+/**
+ * This class contains the bound import directory of a Personal Executable (Microsoft Dynamic Link
+ * Library or .exe file): the DLLs whose addresses were written into the import address table when
+ * the image was bound, with their time stamps. The loader uses the bound addresses only if the
+ * time stamps still match.
+ */
+@Value
+public class PEBoundImports {
+  private List<BoundImport> libraries;
+
+  /**
+   * Find a library by name. Windows ignores the case of DLL names, so this does too.
+   *
+   * @param name The DLL name, like "kernel32.dll".
+   * @return The entry for the DLL, or {@code null} if it is not bound.
+   */
+  public BoundImport getLibrary(String name) {
+    for(BoundImport library : libraries) {
+      if(library.getName().equalsIgnoreCase(name)) {
+        return library;
+      }
+    }
+
+    return null;
+  }
+}
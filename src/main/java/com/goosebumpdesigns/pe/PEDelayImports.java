@@ -0,0 +1,48 @@
+// Copyright (c) 2023 Goosebump Designs LLC
+
+package com.goosebumpdesigns.pe;
+
+import java.util.ArrayList;
+import java.util.List;
+import com.goosebumpdesigns.pe.model.DelayImportedLibrary;
+import lombok.Value;
+
+/**
+ * This class contains the delay-load import directory of a Personal Executable (Microsoft Dynamic
+ * Link Library or .exe file): one {@link DelayImportedLibrary} per delay-load descriptor, in file
+ * order. These DLLs are not in the import directory ({@link PEImports}), but the image depends on
+ * them as well.
+ */
+@Value
+public class PEDelayImports {
+  private List<DelayImportedLibrary> libraries;
+
+  /**
+   * Find a library by name. Windows ignores the case of DLL names, so this does too.
+   *
+   * @param name The DLL name, like "user32.dll".
+   * @return The first descriptor for the DLL, or {@code null} if it is not delay-loaded.
+   */
+  public DelayImportedLibrary getLibrary(String name) {
+    for(DelayImportedLibrary library : libraries) {
+      if(library.getName().equalsIgnoreCase(name)) {
+        return library;
+      }
+    }
+
+    return null;
+  }
+
+  /**
+   * @return The names of the delay-loaded DLLs in descriptor order.
+   */
+  public List<String> getLibraryNames() {
+    List<String> names = new ArrayList<>(libraries.size());
+
+    for(DelayImportedLibrary library : libraries) {
+      names.add(library.getName());
+    }
+
+    return names;
+  }
+}
@@ -4,22 +4,39 @@ package com.goosebumpdesigns.pe;
 
 import static com.goosebumpdesigns.pe.model.type.FieldData.value;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import com.goosebumpdesigns.pe.exception.PEFileException;
 import com.goosebumpdesigns.pe.file.ByteOrderBuffer;
 import com.goosebumpdesigns.pe.model.Export;
+import com.goosebumpdesigns.pe.model.ExportAddressTable;
+import com.goosebumpdesigns.pe.model.ExportEntry;
+import com.goosebumpdesigns.pe.model.LazyValue;
 import com.goosebumpdesigns.pe.model.Version;
 import com.goosebumpdesigns.pe.model.type.ExportDirectoryField;
 import com.goosebumpdesigns.pe.model.type.FieldData;
+import lombok.AccessLevel;
+import lombok.EqualsAndHashCode;
 import lombok.Getter;
+import lombok.ToString;
 
 /**
  * This class contains data from the exports section of a Personal Executable (Microsoft Dynamic
  * Link Library or .exe file). It contains the common exports header as well as the export names and
  * ordinal values.
+ *
+ * The ordinal of an {@link Export} is its index in the export address table. The ordinal that an
+ * importer uses is that index plus the ordinal base; this is the ordinal of an {@link ExportEntry}
+ * and the argument of {@link #byOrdinal(long)}. Lookups by ordinal read the export address table
+ * directly. Lookups by name use a hash table that is built on the first lookup.
  */
 @Getter
+@ToString
+@EqualsAndHashCode
 public class PEExports {
   // @formatter:off
   private static final Map<Enum<?>, FieldData> fields = Map.ofEntries(
@@ -49,8 +66,34 @@ public class PEExports {
   private long ordinalTableRva;
   private Set<Export> exports;
 
+  @ToString.Exclude
+  private ExportAddressTable addressTable;
+
+  @Getter(AccessLevel.NONE)
+  @ToString.Exclude
+  @EqualsAndHashCode.Exclude
+  private final LazyValue<NameIndex> nameIndex = LazyValue.of(this::buildNameIndex);
+
   /**
-   * Create a new exports object.
+   * This maps names to export address table indexes and back.
+   */
+  private static class NameIndex {
+    final Map<String, Integer> indexes;
+    final String[] names;
+
+    /**
+     * @param indexes
+     * @param names
+     */
+    NameIndex(Map<String, Integer> indexes, String[] names) {
+      this.indexes = indexes;
+      this.names = names;
+    }
+  }
+
+  /**
+   * Create a new exports object without an export address table. The export names and ordinals are
+   * available, but {@link #byOrdinal(long)} and {@link #byName(String)} find nothing.
    * 
    * @param headerBuffer The exports header as a byte array.
    * @param fileName The name of the parsed file. Why this is present in the exports section is
@@ -58,6 +101,20 @@ public class PEExports {
    * @param exports The list of export names and ordinal values.
    */
   public PEExports(ByteOrderBuffer headerBuffer, String fileName, Set<Export> exports) {
+    this(headerBuffer, fileName, exports, ExportAddressTable.EMPTY);
+  }
+
+  /**
+   * Create a new exports object.
+   * 
+   * @param headerBuffer The exports header as a byte array.
+   * @param fileName The name of the parsed file. Why this is present in the exports section is
+   *        anyone's guess.
+   * @param exports The list of export names and ordinal values.
+   * @param addressTable The export address table.
+   */
+  public PEExports(ByteOrderBuffer headerBuffer, String fileName, Set<Export> exports,
+      ExportAddressTable addressTable) {
     this.exportFlags = readFlags(headerBuffer);
     this.timestamp = readTimestamp(headerBuffer);
     this.version = readVersion(headerBuffer);
@@ -69,6 +126,82 @@ public class PEExports {
     this.nameTableRva = readNameTableRva(headerBuffer);
     this.ordinalTableRva = readOrdinalTableRva(headerBuffer);
     this.exports = exports;
+    this.addressTable = addressTable;
+  }
+
+  /**
+   * Find an export by ordinal.
+   *
+   * @param ordinal The ordinal, including the ordinal base.
+   * @return The export, or {@code null} if the ordinal is not used.
+   */
+  public ExportEntry byOrdinal(long ordinal) {
+    long index = ordinal - ordinalBase;
+
+    if(index < 0 || index >= addressTable.size() || addressTable.getAddress((int)index) == 0) {
+      return null;
+    }
+
+    return entry((int)index);
+  }
+
+  /**
+   * Find an export by name.
+   *
+   * @param name The name.
+   * @return The export, or {@code null} if there is no export with the name.
+   */
+  public ExportEntry byName(String name) {
+    Integer index = nameIndex.get().indexes.get(name);
+
+    if(Objects.isNull(index) || index >= addressTable.size()) {
+      return null;
+    }
+
+    return entry(index);
+  }
+
+  /**
+   * @return The exports that have no name and are only exported by ordinal.
+   */
+  public List<ExportEntry> getUnnamedExports() {
+    String[] names = nameIndex.get().names;
+    List<ExportEntry> unnamed = new ArrayList<>();
+
+    for(int index = 0; index < addressTable.size(); index++) {
+      if(addressTable.getAddress(index) != 0 && Objects.isNull(names[index])) {
+        unnamed.add(entry(index));
+      }
+    }
+
+    return unnamed;
+  }
+
+  /**
+   * @param index The index in the export address table.
+   * @return The entry.
+   */
+  private ExportEntry entry(int index) {
+    return new ExportEntry(ordinalBase + index, nameIndex.get().names[index],
+        addressTable.getAddress(index), addressTable.getForwarder(index));
+  }
+
+  /**
+   * @return
+   */
+  private NameIndex buildNameIndex() {
+    Map<String, Integer> indexes = new HashMap<>(exports.size() * 4 / 3 + 1);
+    String[] names = new String[addressTable.size()];
+
+    for(Export export : exports) {
+      indexes.put(export.getName(), export.getOrdinal());
+
+      if(export.getOrdinal() < names.length) {
+        names[export.getOrdinal()] = export.getName();
+      }
+    }
+
+    return new NameIndex(indexes, names);
   }
 
   /**
@@ -2,16 +2,33 @@
 
 package com.goosebumpdesigns.pe;
 
+import java.util.Objects;
+import java.util.function.Supplier;
+import com.goosebumpdesigns.pe.model.LazyValue;
+import lombok.AccessLevel;
 import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
 import lombok.Value;
 
 /**
  * This file is normally populated by {@link PEFileBuilder#build()}. It contains an in-memory of the
  * data in a Portable Executable file (Dynamic Link Library or .exe file).
- * 
+ *
  * Note that the Lombok @Value annotation creates an immutable object. The @Builder annotation
  * supplies a builder class that allows this class to be populated. See the
  * <a href="https://projectlombok.org/features/Builder">Lombok documentation</a> for details.
+ *
+ * Parts of the file that were not selected in the
+ * {@link com.goosebumpdesigns.pe.builder.ParseOptions} are {@code null}. The exports, the import,
+ * delay-load import and bound import directories and the resources may be supplied lazily, in which
+ * case each is decoded the first time its getter is called.
+ *
+ * Two files are equal if their headers, section tables, exports and import directories are equal,
+ * whether those were decoded eagerly or lazily, so {@code equals}, {@code hashCode} and
+ * {@code toString} decode any lazy part that has not been decoded yet. The resources are a view of
+ * the file data rather than a decoded value, so they are not compared or printed.
  */
 @Value
 @Builder
@@ -19,6 +36,233 @@ public class PEFile {
   private PEHeader header;
   private PEOptionalHeader optionalHeader;
   private PESectionTable sectionTable;
-  private PEExports exports;
 
+  @Getter(AccessLevel.NONE)
+  @EqualsAndHashCode.Exclude
+  @ToString.Exclude
+  private LazyValue<PEExports> exports;
+
+  @Getter(AccessLevel.NONE)
+  @EqualsAndHashCode.Exclude
+  @ToString.Exclude
+  private LazyValue<PEImports> imports;
+
+  @Getter(AccessLevel.NONE)
+  @EqualsAndHashCode.Exclude
+  @ToString.Exclude
+  private LazyValue<PEDelayImports> delayImports;
+
+  @Getter(AccessLevel.NONE)
+  @EqualsAndHashCode.Exclude
+  @ToString.Exclude
+  private LazyValue<PEBoundImports> boundImports;
+
+  @Getter(AccessLevel.NONE)
+  @EqualsAndHashCode.Exclude
+  @ToString.Exclude
+  private LazyValue<PEResources> resources;
+
+  /**
+   * Returns the exports, decoding them if they were supplied lazily and this is the first call.
+   *
+   * @return The exports, or {@code null} if the file has no exports or they were not parsed.
+   */
+  @EqualsAndHashCode.Include
+  @ToString.Include(name = "exports")
+  public PEExports getExports() {
+    return Objects.isNull(exports) ? null : exports.get();
+  }
+
+  /**
+   * Returns {@code true} if the exports have been decoded.
+   *
+   * @return {@code true} if {@link #getExports()} will not read the file.
+   */
+  public boolean isExportsLoaded() {
+    return Objects.isNull(exports) || exports.isLoaded();
+  }
+
+  /**
+   * Returns the imports, decoding them if they were supplied lazily and this is the first call.
+   *
+   * @return The imports, or {@code null} if the file has no import directory or it was not parsed.
+   */
+  @EqualsAndHashCode.Include
+  @ToString.Include(name = "imports")
+  public PEImports getImports() {
+    return Objects.isNull(imports) ? null : imports.get();
+  }
+
+  /**
+   * Returns {@code true} if the imports have been decoded.
+   *
+   * @return {@code true} if {@link #getImports()} will not read the file.
+   */
+  public boolean isImportsLoaded() {
+    return Objects.isNull(imports) || imports.isLoaded();
+  }
+
+  /**
+   * Returns the delay-load imports, decoding them if they were supplied lazily and this is the
+   * first call.
+   *
+   * @return The delay-load imports, or {@code null} if the file has no delay-load import directory
+   *         or it was not parsed.
+   */
+  @EqualsAndHashCode.Include
+  @ToString.Include(name = "delayImports")
+  public PEDelayImports getDelayImports() {
+    return Objects.isNull(delayImports) ? null : delayImports.get();
+  }
+
+  /**
+   * Returns {@code true} if the delay-load imports have been decoded.
+   *
+   * @return {@code true} if {@link #getDelayImports()} will not read the file.
+   */
+  public boolean isDelayImportsLoaded() {
+    return Objects.isNull(delayImports) || delayImports.isLoaded();
+  }
+
+  /**
+   * Returns the bound imports, decoding them if they were supplied lazily and this is the first
+   * call.
+   *
+   * @return The bound imports, or {@code null} if the file has no bound import directory or it was
+   *         not parsed.
+   */
+  @EqualsAndHashCode.Include
+  @ToString.Include(name = "boundImports")
+  public PEBoundImports getBoundImports() {
+    return Objects.isNull(boundImports) ? null : boundImports.get();
+  }
+
+  /**
+   * Returns {@code true} if the bound imports have been decoded.
+   *
+   * @return {@code true} if {@link #getBoundImports()} will not read the file.
+   */
+  public boolean isBoundImportsLoaded() {
+    return Objects.isNull(boundImports) || boundImports.isLoaded();
+  }
+
+  /**
+   * Returns the resources, creating the navigator if they were supplied lazily and this is the
+   * first call. For a file that was not parsed from memory, the first call maps the file.
+   *
+   * @return The resources, or {@code null} if the file has no resource directory or it was not
+   *         parsed.
+   */
+  public PEResources getResources() {
+    return Objects.isNull(resources) ? null : resources.get();
+  }
+
+  /**
+   * Returns {@code true} if the resource navigator has been created.
+   *
+   * @return {@code true} if {@link #getResources()} will not map the file.
+   */
+  public boolean isResourcesLoaded() {
+    return Objects.isNull(resources) || resources.isLoaded();
+  }
+
+  /**
+   * This is the builder generated by Lombok, with setters that accept the exports, the import
+   * directories and the resources directly or as a supplier that is called on first access.
+   */
+  public static class PEFileBuilder {
+
+    /**
+     * @param exports The exports.
+     * @return This builder.
+     */
+    public PEFileBuilder exports(PEExports exports) {
+      this.exports = LazyValue.loaded(exports);
+      return this;
+    }
+
+    /**
+     * @param exports A supplier that decodes the exports the first time they are requested.
+     * @return This builder.
+     */
+    public PEFileBuilder exports(Supplier<PEExports> exports) {
+      this.exports = LazyValue.of(exports);
+      return this;
+    }
+
+    /**
+     * @param imports The imports.
+     * @return This builder.
+     */
+    public PEFileBuilder imports(PEImports imports) {
+      this.imports = LazyValue.loaded(imports);
+      return this;
+    }
+
+    /**
+     * @param imports A supplier that decodes the imports the first time they are requested.
+     * @return This builder.
+     */
+    public PEFileBuilder imports(Supplier<PEImports> imports) {
+      this.imports = LazyValue.of(imports);
+      return this;
+    }
+
+    /**
+     * @param delayImports The delay-load imports.
+     * @return This builder.
+     */
+    public PEFileBuilder delayImports(PEDelayImports delayImports) {
+      this.delayImports = LazyValue.loaded(delayImports);
+      return this;
+    }
+
+    /**
+     * @param delayImports A supplier that decodes the delay-load imports the first time they are
+     *        requested.
+     * @return This builder.
+     */
+    public PEFileBuilder delayImports(Supplier<PEDelayImports> delayImports) {
+      this.delayImports = LazyValue.of(delayImports);
+      return this;
+    }
+
+    /**
+     * @param boundImports The bound imports.
+     * @return This builder.
+     */
+    public PEFileBuilder boundImports(PEBoundImports boundImports) {
+      this.boundImports = LazyValue.loaded(boundImports);
+      return this;
+    }
+
+    /**
+     * @param boundImports A supplier that decodes the bound imports the first time they are
+     *        requested.
+     * @return This builder.
+     */
+    public PEFileBuilder boundImports(Supplier<PEBoundImports> boundImports) {
+      this.boundImports = LazyValue.of(boundImports);
+      return this;
+    }
+
+    /**
+     * @param resources The resources.
+     * @return This builder.
+     */
+    public PEFileBuilder resources(PEResources resources) {
+      this.resources = LazyValue.loaded(resources);
+      return this;
+    }
+
+    /**
+     * @param resources A supplier that creates the resource navigator the first time it is
+     *        requested.
+     * @return This builder.
+     */
+    public PEFileBuilder resources(Supplier<PEResources> resources) {
+      this.resources = LazyValue.of(resources);
+      return this;
+    }
+  }
 }
@@ -0,0 +1,83 @@
+// Copyright (c) 2023 Goosebump Designs LLC
+
+package com.goosebumpdesigns.pe;
+
+import java.util.ArrayList;
+import java.util.List;
+import com.goosebumpdesigns.pe.model.ImportedFunction;
+import com.goosebumpdesigns.pe.model.ImportedLibrary;
+import lombok.Value;
+
+/**
+ * This class contains the import directory of a Personal Executable (Microsoft Dynamic Link Library
+ * or .exe file): one {@link ImportedLibrary} per import descriptor, in file order. DLL and function
+ * names are interned across files (see {@link com.goosebumpdesigns.pe.file.PEFileReader}), so the
+ * imports of a large batch of files share one copy of each common name.
+ */
+@Value
+public class PEImports {
+  private List<ImportedLibrary> libraries;
+
+  /**
+   * Find a library by name. Windows ignores the case of DLL names, so this does too.
+   *
+   * @param name The DLL name, like "kernel32.dll".
+   * @return The first descriptor for the DLL, or {@code null} if it is not imported.
+   */
+  public ImportedLibrary getLibrary(String name) {
+    for(ImportedLibrary library : libraries) {
+      if(library.getName().equalsIgnoreCase(name)) {
+        return library;
+      }
+    }
+
+    return null;
+  }
+
+  /**
+   * @return The names of the imported DLLs in descriptor order.
+   */
+  public List<String> getLibraryNames() {
+    List<String> names = new ArrayList<>(libraries.size());
+
+    for(ImportedLibrary library : libraries) {
+      names.add(library.getName());
+    }
+
+    return names;
+  }
+
+  /**
+   * @return The number of imported functions in all libraries.
+   */
+  public int getFunctionCount() {
+    int count = 0;
+
+    for(ImportedLibrary library : libraries) {
+      count += library.getFunctions().size();
+    }
+
+    return count;
+  }
+
+  /**
+   * Find a function imported by name from the given library.
+   *
+   * @param library The DLL name (the case is ignored).
+   * @param function The function name.
+   * @return The function, or {@code null} if it is not imported by name from the library.
+   */
+  public ImportedFunction getFunction(String library, String function) {
+    for(ImportedLibrary candidate : libraries) {
+      if(candidate.getName().equalsIgnoreCase(library)) {
+        for(ImportedFunction imported : candidate.getFunctions()) {
+          if(function.equals(imported.getName())) {
+            return imported;
+          }
+        }
+      }
+    }
+
+    return null;
+  }
+}
@@ -0,0 +1,106 @@
+// Copyright (c) 2023 Goosebump Designs LLC
+
+package com.goosebumpdesigns.pe;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import com.goosebumpdesigns.pe.file.ByteOrderBuffer;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * This contains the application manifest (RT_MANIFEST resource) of a Portable Executable. The XML
+ * is decoded when the object is created, and the requested execution level, which is what most
+ * callers want, is picked out of it with a pattern match rather than an XML parser.
+ */
+@Getter
+@ToString
+public class PEManifest {
+  // @formatter:off
+  private static final Pattern EXECUTION_LEVEL = Pattern.compile(
+      "<(?:[\\w.-]+:)?requestedExecutionLevel\\b([^>]*)>");
+  private static final Pattern LEVEL = Pattern.compile(
+      "(?:^|\\s)level\\s*=\\s*(?:\"([^\"]*)\"|'([^']*)')");
+  private static final Pattern UI_ACCESS = Pattern.compile(
+      "(?:^|\\s)uiAccess\\s*=\\s*(?:\"([^\"]*)\"|'([^']*)')");
+  // @formatter:on
+
+  /** The manifest XML. */
+  @ToString.Exclude
+  private final String xml;
+
+  /** The requested execution level, like "asInvoker", or {@code null} if there is none. */
+  private final String requestedExecutionLevel;
+
+  /** The uiAccess attribute of the requested execution level, or {@code null}. */
+  private final String uiAccess;
+
+  /**
+   * Decode a manifest. The XML is UTF-8 unless it starts with a UTF-16 byte order mark.
+   *
+   * @param buffer The resource data.
+   */
+  public PEManifest(ByteOrderBuffer buffer) {
+    this.xml = decode(buffer);
+
+    Matcher element = EXECUTION_LEVEL.matcher(xml);
+    String attributes = element.find() ? element.group(1) : null;
+
+    this.requestedExecutionLevel = attribute(LEVEL, attributes);
+    this.uiAccess = attribute(UI_ACCESS, attributes);
+  }
+
+  /**
+   * @param buffer
+   * @return The XML, without the byte order mark or trailing nulls.
+   */
+  private static String decode(ByteOrderBuffer buffer) {
+    int size = buffer.size();
+    int start = 0;
+    Charset charset = StandardCharsets.UTF_8;
+
+    if(size >= 3 && buffer.getUnsignedByte(0) == 0xef && buffer.getUnsignedByte(1) == 0xbb
+        && buffer.getUnsignedByte(2) == 0xbf) {
+      start = 3;
+    }
+    else if(size >= 2 && buffer.getUnsignedByte(0) == 0xff && buffer.getUnsignedByte(1) == 0xfe) {
+      start = 2;
+      charset = StandardCharsets.UTF_16LE;
+    }
+    else if(size >= 2 && buffer.getUnsignedByte(0) == 0xfe && buffer.getUnsignedByte(1) == 0xff) {
+      start = 2;
+      charset = StandardCharsets.UTF_16BE;
+    }
+
+    String text = buffer.getString(start, size - start, charset);
+    int end = text.length();
+
+    while(end > 0 && text.charAt(end - 1) == 0) {
+      end--;
+    }
+
+    return text.substring(0, end);
+  }
+
+  /**
+   * @param pattern
+   * @param attributes
+   * @return The value of the attribute, or {@code null} if there is none.
+   */
+  private static String attribute(Pattern pattern, String attributes) {
+    if(Objects.isNull(attributes)) {
+      return null;
+    }
+
+    Matcher matcher = pattern.matcher(attributes);
+
+    if(!matcher.find()) {
+      return null;
+    }
+
+    return Objects.nonNull(matcher.group(1)) ? matcher.group(1) : matcher.group(2);
+  }
+}
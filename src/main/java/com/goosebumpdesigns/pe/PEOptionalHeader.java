@@ -9,6 +9,7 @@ import com.goosebumpdesigns.pe.file.ByteOrderBuffer;
 import com.goosebumpdesigns.pe.model.Directory;
 import com.goosebumpdesigns.pe.model.DirectoryTable;
 import com.goosebumpdesigns.pe.model.MemSize;
+import com.goosebumpdesigns.pe.model.Unsigned;
 import com.goosebumpdesigns.pe.model.Version;
 import com.goosebumpdesigns.pe.model.type.FieldData;
 import com.goosebumpdesigns.pe.model.type.MagicNumber;
@@ -28,6 +29,10 @@ import lombok.ToString;
  * and the PE32+ form is specified in class {@link OptionalHeaderPlus}. The DLL or .exe file has a
  * value in the optional header that tells which header to use. You can use the
  * {@link OptionalHeaderFactory} class to choose the correct one.
+ * 
+ * The image base and the stack and heap sizes are 64 bits wide in a PE32+ file. They are stored as
+ * unsigned values in a long. {@link #getRawImageBase()} returns the image base without allocating
+ * anything. {@link #getImageBase()} is a convenience method that returns a {@link BigInteger}.
  */
 @Getter
 @ToString
@@ -44,7 +49,7 @@ public abstract class PEOptionalHeader {
   private long entryPointAddress;
   private long codeBaseAddress;
   private long dataBaseAddress;
-  private BigInteger imageBase;
+  private long imageBase;
   private long sectionAlignment;
   private long fileAlignment;
   private Version operatingSystemVersion;
@@ -62,6 +67,20 @@ public abstract class PEOptionalHeader {
   private long numberOfRvaAndSizes;
   private DirectoryTable directoryTable;
 
+  /**
+   * @return The image base as a BigInteger.
+   */
+  public BigInteger getImageBase() {
+    return Unsigned.toBigInteger(imageBase);
+  }
+
+  /**
+   * @return The unsigned image base as a long.
+   */
+  public long getRawImageBase() {
+    return imageBase;
+  }
+
   /**
    * This method loads the instance variables from the byte array buffer read from the Portable
    * Executable file. It is called by a derived class' constructor ({@link OptionalHeaderStd} or
@@ -162,8 +181,8 @@ public abstract class PEOptionalHeader {
    * @return
    */
   private MemSize loadHeapMemorySize(ByteOrderBuffer buffer) {
-    BigInteger reserve = loadHeapReserveSize(buffer);
-    BigInteger commit = loadHeapCommitSize(buffer);
+    long reserve = loadHeapReserveSize(buffer);
+    long commit = loadHeapCommitSize(buffer);
 
     return new MemSize(reserve, commit);
   }
@@ -173,8 +192,8 @@ public abstract class PEOptionalHeader {
    * @return
    */
   private MemSize loadStackMemorySize(ByteOrderBuffer buffer) {
-    BigInteger reserve = loadStackReserveSize(buffer);
-    BigInteger commit = loadStackCommitSize(buffer);
+    long reserve = loadStackReserveSize(buffer);
+    long commit = loadStackCommitSize(buffer);
 
     return new MemSize(reserve, commit);
   }
@@ -251,7 +270,7 @@ public abstract class PEOptionalHeader {
    * @param buffer
    * @return
    */
-  private BigInteger loadHeapCommitSize(ByteOrderBuffer buffer) {
+  private long loadHeapCommitSize(ByteOrderBuffer buffer) {
     return readUnsignedLongOrInt(buffer, OptionalHeaderField.SIZE_OF_HEAP_COMMIT);
   }
 
@@ -259,7 +278,7 @@ public abstract class PEOptionalHeader {
    * @param buffer
    * @return
    */
-  private BigInteger loadHeapReserveSize(ByteOrderBuffer buffer) {
+  private long loadHeapReserveSize(ByteOrderBuffer buffer) {
     return readUnsignedLongOrInt(buffer, OptionalHeaderField.SIZE_OF_HEAP_RESERVE);
   }
 
@@ -267,7 +286,7 @@ public abstract class PEOptionalHeader {
    * @param buffer
    * @return
    */
-  private BigInteger loadStackCommitSize(ByteOrderBuffer buffer) {
+  private long loadStackCommitSize(ByteOrderBuffer buffer) {
     return readUnsignedLongOrInt(buffer, OptionalHeaderField.SIZE_OF_STACK_COMMIT);
   }
 
@@ -275,7 +294,7 @@ public abstract class PEOptionalHeader {
    * @param buffer
    * @return
    */
-  protected BigInteger loadStackReserveSize(ByteOrderBuffer buffer) {
+  protected long loadStackReserveSize(ByteOrderBuffer buffer) {
     return readUnsignedLongOrInt(buffer, OptionalHeaderField.SIZE_OF_STACK_RESERVE);
   }
 
@@ -283,15 +302,9 @@ public abstract class PEOptionalHeader {
    * @param buffer
    * @return
    */
-  private BigInteger readUnsignedLongOrInt(ByteOrderBuffer buffer, OptionalHeaderField field) {
+  private long readUnsignedLongOrInt(ByteOrderBuffer buffer, OptionalHeaderField field) {
     FieldData data = dataForField(field);
-
-    if(data.getSize() == Integer.BYTES) {
-      long value = buffer.getUnsignedInt(data.getOffset());
-      return new BigInteger(Long.toString(value));
-    }
-
-    return buffer.getUnsignedLong(data.getOffset());
+    return buffer.getUnsigned(data.getOffset(), data.getSize());
   }
 
   /**
@@ -433,9 +446,8 @@ public abstract class PEOptionalHeader {
    * @param buffer
    * @return
    */
-  private BigInteger loadImageBase(ByteOrderBuffer buffer) {
-    FieldData data = dataForField(OptionalHeaderField.IMAGE_BASE);
-    return buffer.getUnsignedLong(data.getOffset());
+  private long loadImageBase(ByteOrderBuffer buffer) {
+    return readUnsignedLongOrInt(buffer, OptionalHeaderField.IMAGE_BASE);
   }
 
   /**
@@ -0,0 +1,200 @@
+// Copyright (c) 2023 Goosebump Designs LLC
+
+package com.goosebumpdesigns.pe;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Objects;
+import com.goosebumpdesigns.pe.file.ByteOrderBuffer;
+import com.goosebumpdesigns.pe.model.ResourceData;
+import com.goosebumpdesigns.pe.model.ResourceDirectory;
+import com.goosebumpdesigns.pe.model.ResourceEntry;
+import com.goosebumpdesigns.pe.model.ResourceTree;
+import com.goosebumpdesigns.pe.model.StringBundle;
+import com.goosebumpdesigns.pe.model.type.ResourceType;
+
+/**
+ * This class navigates the resource directory of a Personal Executable (Microsoft Dynamic Link
+ * Library or .exe file). The directory is a tree with three levels: resource type, then resource
+ * name or ID, then language. The tree is not decoded up front. Each directory is decoded as the
+ * caller descends to it, names are decoded when they are requested and resource data is returned
+ * as a read-only view of the file (see {@link ResourceTree}). So a file with hundreds of megabytes
+ * of resources can be navigated without copying any of them onto the heap.
+ */
+public class PEResources {
+  private final ResourceTree tree;
+
+  /**
+   * @param tree The resource directory tree.
+   */
+  public PEResources(ResourceTree tree) {
+    this.tree = tree;
+  }
+
+  /**
+   * @return The root directory, whose entries are the resource types.
+   */
+  public ResourceDirectory getRoot() {
+    return tree.getRoot();
+  }
+
+  /**
+   * @return The entries of the root directory, one for each resource type.
+   */
+  public List<ResourceEntry> getTypes() {
+    return getRoot().getEntries();
+  }
+
+  /**
+   * @param type The predefined resource type.
+   * @return The directory of the resources of the type, or {@code null} if there are none.
+   */
+  public ResourceDirectory getType(ResourceType type) {
+    return getType(type.value());
+  }
+
+  /**
+   * @param id The resource type ID.
+   * @return The directory of the resources of the type, or {@code null} if there are none.
+   */
+  public ResourceDirectory getType(int id) {
+    return directoryOf(getRoot().findEntry(id));
+  }
+
+  /**
+   * @param name The name of an application-defined resource type. Case is ignored.
+   * @return The directory of the resources of the type, or {@code null} if there are none.
+   */
+  public ResourceDirectory getType(String name) {
+    return directoryOf(getRoot().findEntry(name));
+  }
+
+  /**
+   * Find a resource in the first language in which it is available. Only the directories on the
+   * path to the resource are decoded.
+   *
+   * @param type The resource type ID.
+   * @param name The resource ID.
+   * @return The data entry, or {@code null} if there is no such resource.
+   */
+  public ResourceData find(int type, int name) {
+    ResourceDirectory languages = findLanguages(type, name);
+
+    if(Objects.isNull(languages) || languages.size() == 0) {
+      return null;
+    }
+
+    return languages.getEntry(0).getData();
+  }
+
+  /**
+   * Find a resource in a given language. Only the directories on the path to the resource are
+   * decoded.
+   *
+   * @param type The resource type ID.
+   * @param name The resource ID.
+   * @param language The language ID, like 0x0409 for US English.
+   * @return The data entry, or {@code null} if there is no such resource in the language.
+   */
+  public ResourceData find(int type, int name, int language) {
+    ResourceDirectory languages = findLanguages(type, name);
+
+    if(Objects.isNull(languages)) {
+      return null;
+    }
+
+    ResourceEntry entry = languages.findEntry(language);
+    return Objects.isNull(entry) ? null : entry.getData();
+  }
+
+  /**
+   * @return The version resource in the first language in which it is available, or {@code null}
+   *         if there is none.
+   */
+  public PEVersionInfo getVersionInfo() {
+    ByteOrderBuffer buffer = first(ResourceType.RT_VERSION);
+    return Objects.isNull(buffer) ? null : new PEVersionInfo(buffer);
+  }
+
+  /**
+   * @return The first application manifest in the first language in which it is available, or
+   *         {@code null} if there is none.
+   */
+  public PEManifest getManifest() {
+    ByteOrderBuffer buffer = first(ResourceType.RT_MANIFEST);
+    return Objects.isNull(buffer) ? null : new PEManifest(buffer);
+  }
+
+  /**
+   * Return one string of the string table. Only the bundle that holds the string is decoded (see
+   * {@link StringBundle}).
+   *
+   * @param id The string ID, from 0 to 65535.
+   * @return The string in the first language in which it is available, or {@code null} if there is
+   *         no such string.
+   */
+  public String getString(int id) {
+    ResourceData data = find(ResourceType.RT_STRING.value(), StringBundle.bundleId(id));
+    return Objects.isNull(data) ? null : StringBundle.getString(buffer(data), id);
+  }
+
+  /**
+   * Returns the number of bytes of heap memory that the resources hold on to. Resources of a mapped
+   * file hold none.
+   *
+   * @return The number of bytes.
+   */
+  public long getHeapSize() {
+    return tree.getHeapSize();
+  }
+
+  /**
+   * @param type
+   * @param name
+   * @return The language directory of the resource, or {@code null} if there is no such resource.
+   */
+  private ResourceDirectory findLanguages(int type, int name) {
+    ResourceDirectory names = getType(type);
+    return Objects.isNull(names) ? null : directoryOf(names.findEntry(name));
+  }
+
+  /**
+   * @param type
+   * @return The data of the first resource of the type in its first language, or {@code null} if
+   *         there is none.
+   */
+  private ByteOrderBuffer first(ResourceType type) {
+    ResourceDirectory names = getType(type);
+
+    if(Objects.isNull(names) || names.size() == 0) {
+      return null;
+    }
+
+    ResourceDirectory languages = names.getEntry(0).getDirectory();
+
+    if(Objects.isNull(languages) || languages.size() == 0) {
+      return null;
+    }
+
+    ResourceData data = languages.getEntry(0).getData();
+    return Objects.isNull(data) ? null : buffer(data);
+  }
+
+  /**
+   * @param data
+   * @return A buffer over the view of the data.
+   */
+  private static ByteOrderBuffer buffer(ResourceData data) {
+    ByteBuffer view = data.getData();
+    return new ByteOrderBuffer(view, view.order());
+  }
+
+  /**
+   * @param entry
+   * @return The directory the entry leads to, or {@code null} if there is no entry or it leads to
+   *         data.
+   */
+  private static ResourceDirectory directoryOf(ResourceEntry entry) {
+    return Objects.isNull(entry) ? null : entry.getDirectory();
+  }
+}
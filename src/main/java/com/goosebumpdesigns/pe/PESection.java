@@ -37,6 +37,7 @@ public class PESection {
   );
   // @formatter:on
 
+  private int index;
   private String name;
   private long virtualSize;
   private long virtualAddress;
@@ -49,11 +50,23 @@ public class PESection {
   private List<SectionCharacteristic> characteristics;
 
   /**
-   * Load the section header data from the given section buffer.
+   * Load the section header data from the given section buffer. The section has index zero.
    * 
    * @param sectionBuffer The section table header.
    */
   public PESection(SectionBuffer sectionBuffer) {
+    this(sectionBuffer, 0);
+  }
+
+  /**
+   * Load the section header data from the given section buffer.
+   * 
+   * @param sectionBuffer The section table header.
+   * @param index The position of the section in the section table, starting at zero. Section names
+   *        need not be unique, but indexes are.
+   */
+  public PESection(SectionBuffer sectionBuffer, int index) {
+    this.index = index;
     name = readSectionName(sectionBuffer);
     virtualSize = readVirtualSize(sectionBuffer);
     virtualAddress = readVirtualAddress(sectionBuffer);
@@ -20,8 +20,10 @@ public class PESectionTable extends TreeMap<String, PESection> {
    * @param sectionTableBuffer The section table buffer.
    */
   public PESectionTable(SectionTableBuffer sectionTableBuffer) {
+    int index = 0;
+
     for(SectionBuffer buffer : sectionTableBuffer) {
-      PESection section = new PESection(buffer);
+      PESection section = new PESection(buffer, index++);
       put(section.getName(), section);
     }
   }
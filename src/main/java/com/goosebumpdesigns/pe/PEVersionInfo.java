@@ -0,0 +1,312 @@
+// Copyright (c) 2023 Goosebump Designs LLC
+
+package com.goosebumpdesigns.pe;
+
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import com.goosebumpdesigns.pe.file.ByteOrderBuffer;
+import lombok.Getter;
+import lombok.ToString;
+import lombok.Value;
+
+/**
+ * This contains the version resource (VS_VERSIONINFO) of a Portable Executable: the fixed file
+ * information and the version strings, like "FileVersion" and "ProductName". A buffer holding the
+ * resource data is supplied to this class, and everything is decoded before the constructor
+ * returns, so the buffer can be reused afterwards.
+ *
+ * The resource is a tree of blocks. Each block has a length, a value length, a type, a
+ * null-terminated UTF-16 key and a value, followed by its children, and each part starts on a
+ * 32-bit boundary. Version resources are written by many tools and are often a little wrong, so
+ * blocks are read leniently: a block never extends past its parent, and a block that does not fit
+ * ends the list of its parent's children.
+ */
+@Getter
+@ToString
+public class PEVersionInfo {
+  private static final long SIGNATURE = 0xfeef04bdL;
+  private static final int LENGTH_OFFSET = 0;
+  private static final int VALUE_LENGTH_OFFSET = 2;
+  private static final int TYPE_OFFSET = 4;
+  private static final int KEY_OFFSET = 6;
+  private static final int TEXT = 1;
+  private static final int FIXED_INFO_SIZE = 52;
+  private static final int FILE_VERSION_OFFSET = 8;
+  private static final int PRODUCT_VERSION_OFFSET = 16;
+  private static final int FILE_FLAGS_OFFSET = 28;
+  private static final int FILE_OS_OFFSET = 32;
+  private static final int FILE_TYPE_OFFSET = 36;
+  private static final int FILE_SUBTYPE_OFFSET = 40;
+  private static final String STRING_FILE_INFO = "StringFileInfo";
+  private static final String VAR_FILE_INFO = "VarFileInfo";
+  private static final String TRANSLATION = "Translation";
+
+  /** The file version from the fixed file information, like "10.0.19041.1", or {@code null}. */
+  private String fixedFileVersion;
+
+  /** The product version from the fixed file information, or {@code null}. */
+  private String fixedProductVersion;
+
+  private long fileFlags;
+  private long fileOS;
+  private long fileType;
+  private long fileSubtype;
+
+  /** The string tables, keyed by language and code page in hex, like "040904b0". */
+  private Map<String, Map<String, String>> stringTables;
+
+  /** The languages and code pages of the file in hex, like "040904b0". */
+  private List<String> translations;
+
+  /**
+   * This is the header of one block of the resource.
+   */
+  @Value
+  private static class Block {
+    int end;
+    String key;
+    int type;
+    int valueOffset;
+    int valueSize;
+    int childrenOffset;
+  }
+
+  /**
+   * Decode a version resource.
+   *
+   * @param buffer The resource data.
+   */
+  public PEVersionInfo(ByteOrderBuffer buffer) {
+    Charset charset = buffer.getByteOrder() == ByteOrder.LITTLE_ENDIAN ? StandardCharsets.UTF_16LE
+        : StandardCharsets.UTF_16BE;
+    Map<String, Map<String, String>> tables = new LinkedHashMap<>();
+    List<String> languages = new ArrayList<>();
+    Block root = readBlock(buffer, 0, buffer.size(), charset);
+
+    if(Objects.nonNull(root)) {
+      readFixedInfo(buffer, root);
+
+      for(Block child : readChildren(buffer, root, charset)) {
+        if(STRING_FILE_INFO.equals(child.getKey())) {
+          readStringTables(buffer, child, charset, tables);
+        }
+        else if(VAR_FILE_INFO.equals(child.getKey())) {
+          readTranslations(buffer, child, charset, languages);
+        }
+      }
+    }
+
+    this.stringTables = Collections.unmodifiableMap(tables);
+    this.translations = Collections.unmodifiableList(languages);
+  }
+
+  /**
+   * Find a version string in the first string table that has it.
+   *
+   * @param key The key, like "CompanyName".
+   * @return The value, or {@code null} if no string table has the key.
+   */
+  public String getString(String key) {
+    for(Map<String, String> table : stringTables.values()) {
+      String value = table.get(key);
+
+      if(Objects.nonNull(value)) {
+        return value;
+      }
+    }
+
+    return null;
+  }
+
+  /**
+   * @return The "FileVersion" string, or {@code null} if there is none.
+   */
+  public String getFileVersion() {
+    return getString("FileVersion");
+  }
+
+  /**
+   * @return The "ProductName" string, or {@code null} if there is none.
+   */
+  public String getProductName() {
+    return getString("ProductName");
+  }
+
+  /**
+   * @param buffer
+   * @param root
+   */
+  private void readFixedInfo(ByteOrderBuffer buffer, Block root) {
+    int start = root.getValueOffset();
+
+    if(root.getValueSize() < FIXED_INFO_SIZE || buffer.getUnsignedInt(start) != SIGNATURE) {
+      return;
+    }
+
+    fixedFileVersion = readVersion(buffer, start + FILE_VERSION_OFFSET);
+    fixedProductVersion = readVersion(buffer, start + PRODUCT_VERSION_OFFSET);
+    fileFlags = buffer.getUnsignedInt(start + FILE_FLAGS_OFFSET);
+    fileOS = buffer.getUnsignedInt(start + FILE_OS_OFFSET);
+    fileType = buffer.getUnsignedInt(start + FILE_TYPE_OFFSET);
+    fileSubtype = buffer.getUnsignedInt(start + FILE_SUBTYPE_OFFSET);
+  }
+
+  /**
+   * @param buffer
+   * @param offset
+   * @return The version in the two DWORDs at the offset, like "1.2.3.4".
+   */
+  private static String readVersion(ByteOrderBuffer buffer, int offset) {
+    long high = buffer.getUnsignedInt(offset);
+    long low = buffer.getUnsignedInt(offset + Integer.BYTES);
+
+    return (high >>> 16) + "." + (high & 0xffff) + "." + (low >>> 16) + "." + (low & 0xffff);
+  }
+
+  /**
+   * @param buffer
+   * @param stringFileInfo
+   * @param charset
+   * @param tables
+   */
+  private static void readStringTables(ByteOrderBuffer buffer, Block stringFileInfo,
+      Charset charset, Map<String, Map<String, String>> tables) {
+    for(Block table : readChildren(buffer, stringFileInfo, charset)) {
+      Map<String, String> strings = new LinkedHashMap<>();
+
+      for(Block string : readChildren(buffer, table, charset)) {
+        strings.put(string.getKey(), readText(buffer, string, charset));
+      }
+
+      tables.putIfAbsent(table.getKey().toLowerCase(Locale.ROOT),
+          Collections.unmodifiableMap(strings));
+    }
+  }
+
+  /**
+   * @param buffer
+   * @param varFileInfo
+   * @param charset
+   * @param languages
+   */
+  private static void readTranslations(ByteOrderBuffer buffer, Block varFileInfo, Charset charset,
+      List<String> languages) {
+    for(Block var : readChildren(buffer, varFileInfo, charset)) {
+      if(!TRANSLATION.equals(var.getKey())) {
+        continue;
+      }
+
+      int end = var.getValueOffset() + var.getValueSize() - Integer.BYTES;
+
+      for(int pos = var.getValueOffset(); pos <= end; pos += Integer.BYTES) {
+        languages.add(String.format("%04x%04x", buffer.getUnsignedShort(pos),
+            buffer.getUnsignedShort(pos + Short.BYTES)));
+      }
+    }
+  }
+
+  /**
+   * @param buffer
+   * @param parent
+   * @param charset
+   * @return The children of the block.
+   */
+  private static List<Block> readChildren(ByteOrderBuffer buffer, Block parent, Charset charset) {
+    List<Block> children = new ArrayList<>();
+    int pos = parent.getChildrenOffset();
+
+    while(pos < parent.getEnd()) {
+      Block child = readBlock(buffer, pos, parent.getEnd(), charset);
+
+      if(Objects.isNull(child)) {
+        break;
+      }
+
+      children.add(child);
+      pos = align(child.getEnd());
+    }
+
+    return children;
+  }
+
+  /**
+   * Read the header of a block.
+   *
+   * @param buffer
+   * @param start The offset of the block.
+   * @param limit The end of the parent block.
+   * @param charset
+   * @return The block, or {@code null} if no block fits at the offset.
+   */
+  private static Block readBlock(ByteOrderBuffer buffer, int start, int limit, Charset charset) {
+    if(start + KEY_OFFSET > limit) {
+      return null;
+    }
+
+    int length = buffer.getUnsignedShort(start + LENGTH_OFFSET);
+
+    if(length < KEY_OFFSET) {
+      return null;
+    }
+
+    int end = Math.min(start + length, limit);
+    int valueLength = buffer.getUnsignedShort(start + VALUE_LENGTH_OFFSET);
+    int type = buffer.getUnsignedShort(start + TYPE_OFFSET);
+    int keyEnd = findNull(buffer, start + KEY_OFFSET, end);
+    String key = buffer.getString(start + KEY_OFFSET, keyEnd - start - KEY_OFFSET, charset);
+    int valueOffset = Math.min(align(keyEnd + Character.BYTES), end);
+    int valueSize = Math.min(type == TEXT ? valueLength * Character.BYTES : valueLength,
+        end - valueOffset);
+
+    return new Block(end, key, type, valueOffset, valueSize, align(valueOffset + valueSize));
+  }
+
+  /**
+   * Decode a text value. The value length is meant to count characters, but some tools count
+   * bytes, so the text ends at the first null.
+   *
+   * @param buffer
+   * @param block
+   * @param charset
+   * @return The text.
+   */
+  private static String readText(ByteOrderBuffer buffer, Block block, Charset charset) {
+    int start = block.getValueOffset();
+    int end = findNull(buffer, start, start + block.getValueSize());
+
+    return buffer.getString(start, end - start, charset);
+  }
+
+  /**
+   * @param buffer
+   * @param start
+   * @param limit
+   * @return The offset of the first null character at or after the start, or the last character
+   *         boundary before the limit if there is none.
+   */
+  private static int findNull(ByteOrderBuffer buffer, int start, int limit) {
+    int pos = start;
+
+    while(pos + Character.BYTES <= limit && buffer.getShort(pos) != 0) {
+      pos += Character.BYTES;
+    }
+
+    return pos;
+  }
+
+  /**
+   * @param offset
+   * @return The offset rounded up to a multiple of four.
+   */
+  private static int align(int offset) {
+    return (offset + 3) & ~3;
+  }
+}
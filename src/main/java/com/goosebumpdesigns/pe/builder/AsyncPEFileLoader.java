@@ -0,0 +1,131 @@
+// Copyright (c) 2023 Goosebump Designs LLC
+
+package com.goosebumpdesigns.pe.builder;
+
+import java.io.IOException;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import com.goosebumpdesigns.pe.PEFile;
+import com.goosebumpdesigns.pe.exception.PEFileException;
+import com.goosebumpdesigns.pe.file.AsyncFileSource;
+import com.goosebumpdesigns.pe.file.AsyncFileSource.RegionNotLoadedException;
+
+/**
+ * This parses one file without blocking. The file is parsed from an {@link AsyncFileSource}. When
+ * the parse needs a range that has not been loaded, the range is read asynchronously and the parse
+ * is run again when the read completes. No thread waits for I/O; the parse runs on the thread that
+ * completes each read. The channel is closed when the parse completes or fails.
+ */
+class AsyncPEFileLoader {
+  private final ParseOptions options;
+  private final AsynchronousFileChannel channel;
+  private final AsyncFileSource source;
+  private final CompletableFuture<PEFile> result = new CompletableFuture<>();
+
+  /**
+   * @param channel The open channel.
+   * @param source The source that reads the channel.
+   * @param options The parts of the file to parse.
+   */
+  private AsyncPEFileLoader(AsynchronousFileChannel channel, AsyncFileSource source,
+      ParseOptions options) {
+    this.channel = channel;
+    this.source = source;
+    this.options = options;
+  }
+
+  /**
+   * Start parsing a file.
+   *
+   * @param path The path of the file.
+   * @param options The parts of the file to parse.
+   * @param executor The executor that runs the reads and the parse, or {@code null} to use the
+   *        default thread pool of {@link AsynchronousFileChannel}.
+   * @return A future that completes with the parsed file, or fails with a
+   *         {@link com.goosebumpdesigns.pe.exception.PEException}.
+   */
+  static CompletableFuture<PEFile> load(Path path, ParseOptions options, ExecutorService executor) {
+    AsynchronousFileChannel channel = null;
+
+    try {
+      channel = Objects.isNull(executor) ? AsynchronousFileChannel.open(path)
+          : AsynchronousFileChannel.open(path, Set.of(StandardOpenOption.READ), executor);
+
+      AsyncPEFileLoader loader =
+          new AsyncPEFileLoader(channel, new AsyncFileSource(channel, path), options);
+
+      loader.parse();
+      return loader.result;
+    }
+    catch(IOException e) {
+      close(channel);
+      return CompletableFuture.failedFuture(new PEFileException("Unable to open " + path, e));
+    }
+  }
+
+  /**
+   * Parse the file with the ranges loaded so far. If a range is missing, load it and parse again.
+   */
+  private void parse() {
+    try {
+      PEFile file = PEFileBuilder.build(source, options);
+
+      close(channel);
+      result.complete(file);
+    }
+    catch(RegionNotLoadedException e) {
+      source.load(e.getOffset(), e.getLength()).whenComplete((loaded, error) -> {
+        if(Objects.isNull(error)) {
+          parse();
+        }
+        else {
+          fail(new PEFileException("Error reading " + e.getLength() + " bytes at position "
+              + e.getOffset() + " in " + source.getName(), unwrap(error)));
+        }
+      });
+    }
+    catch(RuntimeException e) {
+      fail(e);
+    }
+  }
+
+  /**
+   * @param error
+   */
+  private void fail(Throwable error) {
+    close(channel);
+    result.completeExceptionally(error);
+  }
+
+  /**
+   * @param error
+   * @return
+   */
+  private static Throwable unwrap(Throwable error) {
+    return error instanceof CompletionException && Objects.nonNull(error.getCause())
+        ? error.getCause()
+        : error;
+  }
+
+  /**
+   * @param channel
+   */
+  private static void close(AsynchronousFileChannel channel) {
+    if(Objects.isNull(channel)) {
+      return;
+    }
+
+    try {
+      channel.close();
+    }
+    catch(IOException e) {
+      // The file has been read, so there is nothing to recover.
+    }
+  }
+}
@@ -2,23 +2,69 @@
 
 package com.goosebumpdesigns.pe.builder;
 
+import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Flow;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import com.goosebumpdesigns.pe.PEBoundImports;
+import com.goosebumpdesigns.pe.PEDelayImports;
 import com.goosebumpdesigns.pe.PEExports;
 import com.goosebumpdesigns.pe.PEFile;
 import com.goosebumpdesigns.pe.PEHeader;
+import com.goosebumpdesigns.pe.PEImports;
+import com.goosebumpdesigns.pe.PEManifest;
 import com.goosebumpdesigns.pe.PEOptionalHeader;
+import com.goosebumpdesigns.pe.PEResources;
 import com.goosebumpdesigns.pe.PESectionTable;
+import com.goosebumpdesigns.pe.PEVersionInfo;
+import com.goosebumpdesigns.pe.exception.PEFileException;
+import com.goosebumpdesigns.pe.builder.ParseOptions.Component;
 import com.goosebumpdesigns.pe.file.ByteOrderBuffer;
+import com.goosebumpdesigns.pe.file.InputStreamSource;
+import com.goosebumpdesigns.pe.file.MemorySource;
 import com.goosebumpdesigns.pe.file.PEFileReader;
+import com.goosebumpdesigns.pe.file.PESource;
+import com.goosebumpdesigns.pe.file.ReadMode;
+import com.goosebumpdesigns.pe.file.RvaResolver;
 import com.goosebumpdesigns.pe.file.SectionTableBuffer;
 import com.goosebumpdesigns.pe.file.PEFileReader.ExportBuffers;
+import com.goosebumpdesigns.pe.model.BoundImport;
+import com.goosebumpdesigns.pe.model.DelayImportedLibrary;
+import com.goosebumpdesigns.pe.model.ImportedLibrary;
+import com.goosebumpdesigns.pe.model.ResourceTree;
+import com.goosebumpdesigns.pe.model.StringBundle;
+import com.goosebumpdesigns.pe.model.type.OptionalHeaderField;
+import com.goosebumpdesigns.pe.model.type.ResourceType;
 import com.goosebumpdesigns.pe.optionalheader.OptionalHeaderFactory;
 
 /**
  * This class reads data in the Personal Executable file and loads a {@link PEFile} object with the
- * data. The static {@link #build(Path)} method is used for this.
+ * data. The static {@link #build(Path)} method is used for this. Use
+ * {@link #build(Path, ParseOptions)} to parse only some of the file or to decode the exports on
+ * first access.
  */
 public class PEFileBuilder {
+  /** The components that are data directories, with their data directory entries. */
+  // @formatter:off
+  private static final Map<Component, OptionalHeaderField> DIRECTORIES = new EnumMap<>(Map.of(
+      Component.EXPORTS, OptionalHeaderField.EXPORT_TABLE,
+      Component.IMPORTS, OptionalHeaderField.IMPORT_TABLE,
+      Component.DELAY_IMPORTS, OptionalHeaderField.DELAY_IMPORT_DESCRIPTOR,
+      Component.BOUND_IMPORTS, OptionalHeaderField.BOUND_IMPORT_TABLE,
+      Component.RESOURCES, OptionalHeaderField.RESOURCE_TABLE));
+  // @formatter:on
+
   /**
    * Read the file data and return a {@link PEFile} object with the data.
    * 
@@ -26,38 +72,573 @@ public class PEFileBuilder {
    * @return A {@link PEFile} object.
    */
   public static PEFile build(Path path) {
-    return new PEFileBuilder().newPEFile(path);
+    return build(path, ReadMode.RANDOM_ACCESS);
   }
 
   /**
-   * @param path
-   * @return
+   * Read the file data using the given read mode and return a {@link PEFile} object with the data.
+   * Use {@link ReadMode#MEMORY_MAPPED} to parse the entire file with a single open and a single
+   * mapping instead of a seek and read for each field.
+   * 
+   * @param path The path to the PE file on the local file system.
+   * @param readMode The method used to read the file.
+   * @return A {@link PEFile} object.
+   */
+  public static PEFile build(Path path, ReadMode readMode) {
+    return build(path, readMode, ParseOptions.ALL);
+  }
+
+  /**
+   * Read the parts of the file selected by the options and return a {@link PEFile} object with the
+   * data. Parts that are not selected are {@code null}. For example, this reads only the COFF and
+   * optional headers with a single read call:
+   * 
+   * <pre>
+   * PEFile file = PEFileBuilder.build(path, ParseOptions.HEADERS_ONLY);
+   * </pre>
+   * 
+   * @param path The path to the PE file on the local file system.
+   * @param options The parts of the file to parse.
+   * @return A {@link PEFile} object.
+   */
+  public static PEFile build(Path path, ParseOptions options) {
+    return build(path, ReadMode.RANDOM_ACCESS, options);
+  }
+
+  /**
+   * Read the parts of the file selected by the options using the given read mode and return a
+   * {@link PEFile} object with the data. If the options are lazy, the file is memory-mapped
+   * whatever the read mode (see {@link ParseOptions}).
+   * 
+   * @param path The path to the PE file on the local file system.
+   * @param readMode The method used to read the file.
+   * @param options The parts of the file to parse.
+   * @return A {@link PEFile} object.
+   */
+  public static PEFile build(Path path, ReadMode readMode, ParseOptions options) {
+    return build(PESource.open(path, options.readMode(readMode)), options);
+  }
+
+  /**
+   * Parse an image that is already in memory. The array is not copied and no file system I/O is
+   * done.
+   * 
+   * @param image The bytes of the PE image.
+   * @return A {@link PEFile} object.
+   */
+  public static PEFile build(byte[] image) {
+    return build(new MemorySource(image), ParseOptions.ALL);
+  }
+
+  /**
+   * Parse an image that is already in memory, between the position and limit of the buffer. The
+   * buffer can be a heap buffer or a direct (off-heap) buffer. It is not copied and its position
+   * and limit are not changed.
+   * 
+   * @param image The bytes of the PE image.
+   * @return A {@link PEFile} object.
+   */
+  public static PEFile build(ByteBuffer image) {
+    return build(new MemorySource(image), ParseOptions.ALL);
+  }
+
+  /**
+   * Parse an image from a stream in a single forward pass, without buffering the whole image. The
+   * stream is read up to the end of the export names and is not closed. See
+   * {@link InputStreamSource} for the limits of this mode.
+   * 
+   * @param in The stream, positioned at the first byte of the PE image.
+   * @return A {@link PEFile} object.
+   */
+  public static PEFile build(InputStream in) {
+    return build(new InputStreamSource(in), ParseOptions.ALL);
+  }
+
+  /**
+   * Parse the parts of the image in the source selected by the options. The source is closed before
+   * this method returns. Lazy options only defer decoding for in-memory sources (see
+   * {@link PESource#asByteBuffer()}); the parts of other sources are decoded before the source is
+   * closed.
+   * 
+   * @param source The source of the PE image.
+   * @param options The parts of the image to parse.
+   * @return A {@link PEFile} object.
    */
-  private PEFile newPEFile(Path path) {
-    try(PEFileReader reader = new PEFileReader(path)) {
-      PEHeader header = readHeader(reader);
-      PEOptionalHeader optionalHeader = readOptionalHeader(reader);
-      PESectionTable sectionTable = readSectionTable(reader);
-      PEExports exports = readExports(reader);
+  public static PEFile build(PESource source, ParseOptions options) {
+    return new PEFileBuilder().newPEFile(source, options);
+  }
 
-      // @formatter:off
-      return PEFile.builder()
-          .header(header)
-          .optionalHeader(optionalHeader)
-          .sectionTable(sectionTable)
-          .exports(exports)
-          .build();
-      // @formatter:on
+  /**
+   * Parse the parts of the image that an open reader is reading. The reader is not closed, so a
+   * reusable reader (see {@link PEFileReader#reusable()}) can be reopened for the next file as soon
+   * as this method returns. The exports and import directories are always decoded before this
+   * method returns, even if the options are lazy, because the reader may not be reading the same
+   * image later. The resources of an image that is not in memory are read from a mapping of the
+   * file that is made when they are first requested.
+   * 
+   * @param reader The reader.
+   * @param options The parts of the image to parse.
+   * @return A {@link PEFile} object.
+   */
+  public static PEFile build(PEFileReader reader, ParseOptions options) {
+    return new PEFileBuilder().newPEFile(reader, options, false);
+  }
+
+  /**
+   * Compute the import hash ("imphash") of a file. See {@link #imphash(PEFileReader)}.
+   * 
+   * @param path The path to the PE file on the local file system.
+   * @return The import hash as 32 lower-case hex digits, or {@code null} if the file has no import
+   *         directory.
+   */
+  public static String imphash(Path path) {
+    return imphash(path, ReadMode.RANDOM_ACCESS);
+  }
+
+  /**
+   * Compute the import hash ("imphash") of a file using the given read mode. See
+   * {@link #imphash(PEFileReader)}.
+   * 
+   * @param path The path to the PE file on the local file system.
+   * @param readMode The method used to read the file.
+   * @return The import hash as 32 lower-case hex digits, or {@code null} if the file has no import
+   *         directory.
+   */
+  public static String imphash(Path path, ReadMode readMode) {
+    try(PEFileReader reader = new PEFileReader(path, readMode)) {
+      return imphash(reader);
+    }
+  }
+
+  /**
+   * Compute the import hash ("imphash") of the image that an open reader is reading: the MD5 digest
+   * of the normalized "library.function" list (see {@link PEFileReader#readImpHash()}). Only the
+   * headers and the import directory are read. The names are hashed straight from the file data,
+   * so no {@link PEImports} is built. The reader is not closed.
+   * 
+   * @param reader The reader.
+   * @return The import hash as 32 lower-case hex digits, or {@code null} if the image has no import
+   *         directory.
+   */
+  public static String imphash(PEFileReader reader) {
+    byte[] digest = reader.readImpHash();
+    return Objects.isNull(digest) ? null : HexFormat.of().formatHex(digest);
+  }
+
+  /**
+   * Map a file and return a navigator for its resource directory. Only the headers are read. The
+   * directory is decoded as it is navigated and resource data is returned as views of the mapping
+   * (see {@link PEResources}).
+   * 
+   * @param path The path to the PE file on the local file system.
+   * @return The resources, or {@code null} if the file has no resource directory.
+   */
+  public static PEResources resources(Path path) {
+    try(PEFileReader reader = new PEFileReader(path, ReadMode.MEMORY_MAPPED)) {
+      return readResources(reader);
+    }
+  }
+
+  /**
+   * Read the version resource of a file. See {@link #versionInfo(PEFileReader)}.
+   * 
+   * @param path The path to the PE file on the local file system.
+   * @return The version resource, or {@code null} if the file has none.
+   */
+  public static PEVersionInfo versionInfo(Path path) {
+    try(PEFileReader reader = new PEFileReader(path, ReadMode.RANDOM_ACCESS)) {
+      return versionInfo(reader);
+    }
+  }
+
+  /**
+   * Read the version resource of the image that an open reader is reading. Only the headers, the
+   * resource directory entries on the path to the resource and the resource itself are read (see
+   * {@link PEFileReader#readResource(int, int)}), so a reusable reader extracts the versions of a
+   * batch of files with a handful of small reads per file. The reader is not closed.
+   * 
+   * @param reader The reader.
+   * @return The version resource in its first language, or {@code null} if the image has none.
+   */
+  public static PEVersionInfo versionInfo(PEFileReader reader) {
+    ByteOrderBuffer buffer =
+        reader.readResource(ResourceType.RT_VERSION.value(), PEFileReader.FIRST_RESOURCE);
+    return Objects.isNull(buffer) ? null : new PEVersionInfo(buffer);
+  }
+
+  /**
+   * Read the application manifest of a file. See {@link #manifest(PEFileReader)}.
+   * 
+   * @param path The path to the PE file on the local file system.
+   * @return The manifest, or {@code null} if the file has none.
+   */
+  public static PEManifest manifest(Path path) {
+    try(PEFileReader reader = new PEFileReader(path, ReadMode.RANDOM_ACCESS)) {
+      return manifest(reader);
+    }
+  }
+
+  /**
+   * Read the application manifest of the image that an open reader is reading, the same way as
+   * {@link #versionInfo(PEFileReader)}. The reader is not closed.
+   * 
+   * @param reader The reader.
+   * @return The first manifest in its first language, or {@code null} if the image has none.
+   */
+  public static PEManifest manifest(PEFileReader reader) {
+    ByteOrderBuffer buffer =
+        reader.readResource(ResourceType.RT_MANIFEST.value(), PEFileReader.FIRST_RESOURCE);
+    return Objects.isNull(buffer) ? null : new PEManifest(buffer);
+  }
+
+  /**
+   * Read one string of the string table of a file. See {@link #string(PEFileReader, int)}.
+   * 
+   * @param path The path to the PE file on the local file system.
+   * @param id The string ID.
+   * @return The string, or {@code null} if the file does not have it.
+   */
+  public static String string(Path path, int id) {
+    try(PEFileReader reader = new PEFileReader(path, ReadMode.RANDOM_ACCESS)) {
+      return string(reader, id);
+    }
+  }
+
+  /**
+   * Read one string of the string table of the image that an open reader is reading. Only the
+   * bundle that holds the string is read (see {@link StringBundle}). The reader is not closed.
+   * 
+   * @param reader The reader.
+   * @param id The string ID, from 0 to 65535.
+   * @return The string in its first language, or {@code null} if the image does not have it.
+   */
+  public static String string(PEFileReader reader, int id) {
+    ByteOrderBuffer buffer =
+        reader.readResource(ResourceType.RT_STRING.value(), StringBundle.bundleId(id));
+    return Objects.isNull(buffer) ? null : StringBundle.getString(buffer, id);
+  }
+
+  /**
+   * Parse a file without blocking the calling thread. See
+   * {@link #buildAsync(Path, ParseOptions, ExecutorService)}.
+   * 
+   * @param path The path to the PE file on the local file system.
+   * @return A future that completes with the {@link PEFile}.
+   */
+  public static CompletableFuture<PEFile> buildAsync(Path path) {
+    return buildAsync(path, ParseOptions.ALL, null);
+  }
+
+  /**
+   * Parse the parts of a file selected by the options without blocking the calling thread. See
+   * {@link #buildAsync(Path, ParseOptions, ExecutorService)}.
+   * 
+   * @param path The path to the PE file on the local file system.
+   * @param options The parts of the file to parse.
+   * @return A future that completes with the {@link PEFile}.
+   */
+  public static CompletableFuture<PEFile> buildAsync(Path path, ParseOptions options) {
+    return buildAsync(path, options, null);
+  }
+
+  /**
+   * Parse the parts of a file selected by the options without blocking the calling thread. The
+   * file is read with an {@link java.nio.channels.AsynchronousFileChannel} in dependent stages: the
+   * header block, then the section table (if it is not in the header block), then the export and
+   * import directories and their names. Each stage is started when the one before it completes, and
+   * no thread waits for a read, so thousands of parses can be in flight at once. Each parse keeps
+   * its file open until it completes. Lazy options decode the exports and import directories before
+   * the future completes.
+   * 
+   * @param path The path to the PE file on the local file system.
+   * @param options The parts of the file to parse.
+   * @param executor The executor that runs the reads and the parse, or {@code null} to use the
+   *        default thread pool of {@link java.nio.channels.AsynchronousFileChannel}.
+   * @return A future that completes with the {@link PEFile}, or fails with a
+   *         {@link com.goosebumpdesigns.pe.exception.PEException}.
+   */
+  public static CompletableFuture<PEFile> buildAsync(Path path, ParseOptions options,
+      ExecutorService executor) {
+    return AsyncPEFileLoader.load(path, options, executor);
+  }
+
+  /**
+   * Parse every regular file in a directory tree with the default {@link ScanOptions}.
+   * 
+   * @param root The root of the tree.
+   * @param consumer The consumer of the results (see {@link #scan(Path, ScanOptions, Consumer)}).
+   */
+  public static void scan(Path root, Consumer<ScanResult> consumer) {
+    scan(root, ScanOptions.DEFAULTS, consumer);
+  }
+
+  /**
+   * Parse the files in a directory tree in parallel. Each result is passed to the consumer as soon
+   * as the file has been parsed. A file that cannot be parsed is reported as a failed
+   * {@link ScanResult} and the scan continues. The consumer is called from several threads at once,
+   * so it must be thread-safe. This method returns when every file has been parsed and reported.
+   * 
+   * The walk waits while {@link ScanOptions#getMaxInFlight()} parses are unfinished, and no more
+   * than {@link ScanOptions#getMaxOpenFiles()} files are open at once.
+   * 
+   * @param root The root of the tree.
+   * @param options The scan options.
+   * @param consumer The consumer of the results.
+   * @throws PEFileException thrown if the scan is interrupted.
+   * @throws RuntimeException the first exception thrown by the consumer. The scan stops submitting
+   *         files once the consumer fails.
+   */
+  public static void scan(Path root, ScanOptions options, Consumer<ScanResult> consumer) {
+    new PEFileScanner(options, consumer).scan(root);
+  }
+
+  /**
+   * Publish the results of parsing a stream of paths with the default {@link ScanOptions}. See
+   * {@link #publish(Stream, ScanOptions)}.
+   * 
+   * @param paths The paths of the files to parse.
+   * @return The publisher.
+   */
+  public static Flow.Publisher<ScanResult> publish(Stream<Path> paths) {
+    return publish(paths, ScanOptions.DEFAULTS);
+  }
+
+  /**
+   * Publish the results of parsing a stream of paths, such as {@code Files.walk(root)} or the lines
+   * of a file list. Files are parsed only as fast as the subscriber requests results: no more than
+   * {@link ScanOptions#getParallelism()} parses run at once, and no more than
+   * {@link ScanOptions#getPrefetch()} results are parsed ahead of demand. Memory use therefore does
+   * not depend on the length of the stream, however slow the subscriber is.
+   * 
+   * Results are published in the order the parses finish. A file that cannot be parsed is published
+   * as a failed {@link ScanResult}. The stream is read once, so the publisher accepts a single
+   * subscriber. The stream is closed when it is exhausted, when the subscription is cancelled or
+   * when the publisher fails. The executor, parallelism, open-file limit, filter, read mode and
+   * parse options are taken from the options. The directory walk options are not used.
+   * 
+   * @param paths The paths of the files to parse.
+   * @param options The scan options.
+   * @return The publisher.
+   */
+  public static Flow.Publisher<ScanResult> publish(Stream<Path> paths, ScanOptions options) {
+    return new PEFilePublisher(paths, options);
+  }
+
+  /**
+   * @param source
+   * @param options
+   * @return
+   */
+  private PEFile newPEFile(PESource source, ParseOptions options) {
+    try(PEFileReader reader = new PEFileReader(source)) {
+      return newPEFile(reader, options, reader.isInMemory());
     }
   }
 
   /**
    * @param reader
+   * @param options
+   * @param deferDirectories {@code true} if the exports and import directories may be decoded after
+   *        this method returns.
    * @return
    */
+  private PEFile newPEFile(PEFileReader reader, ParseOptions options, boolean deferDirectories) {
+    PEFile.PEFileBuilder builder = PEFile.builder();
+
+    if(options.includes(Component.HEADER)) {
+      builder.header(readHeader(reader));
+    }
+
+    if(options.includes(Component.OPTIONAL_HEADER)) {
+      builder.optionalHeader(readOptionalHeader(reader));
+    }
+
+    if(options.includes(Component.SECTION_TABLE)) {
+      builder.sectionTable(readSectionTable(reader));
+    }
+
+    boolean defer = options.isLazy() && deferDirectories;
+
+    for(Component directory : findDirectories(reader, options)) {
+      switch(directory) {
+        case EXPORTS:
+          addExports(builder, reader, defer);
+          break;
+
+        case IMPORTS:
+          addImports(builder, reader, defer);
+          break;
+
+        case DELAY_IMPORTS:
+          addDelayImports(builder, reader, defer);
+          break;
+
+        case BOUND_IMPORTS:
+          addBoundImports(builder, reader, defer);
+          break;
+
+        case RESOURCES:
+          addResources(builder, reader);
+          break;
+
+        default:
+          break;
+      }
+    }
+
+    return builder.build();
+  }
+
+  /**
+   * Return the selected directories in file order, so that a source that can only be read forward
+   * (see {@link InputStreamSource}) can supply all of them.
+   * 
+   * @param reader
+   * @param options
+   * @return The selected directory components, ordered by file offset.
+   */
+  private List<Component> findDirectories(PEFileReader reader, ParseOptions options) {
+    List<Component> directories = new ArrayList<>(DIRECTORIES.size());
+
+    for(Component directory : DIRECTORIES.keySet()) {
+      if(options.includes(directory)) {
+        directories.add(directory);
+      }
+    }
+
+    if(directories.size() > 1) {
+      directories.sort(Comparator.comparingLong(
+          directory -> reader.findDirectoryFileOffset(DIRECTORIES.get(directory))));
+    }
+
+    return directories;
+  }
+
+  /**
+   * @param builder
+   * @param reader
+   * @param defer {@code true} to decode the exports on first access.
+   */
+  private void addExports(PEFile.PEFileBuilder builder, PEFileReader reader, boolean defer) {
+    if(defer) {
+      builder.exports(() -> readExports(reader));
+    }
+    else {
+      builder.exports(readExports(reader));
+    }
+  }
+
+  /**
+   * @param builder
+   * @param reader
+   * @param defer {@code true} to decode the imports on first access.
+   */
+  private void addImports(PEFile.PEFileBuilder builder, PEFileReader reader, boolean defer) {
+    if(defer) {
+      builder.imports(() -> readImports(reader));
+    }
+    else {
+      builder.imports(readImports(reader));
+    }
+  }
+
+  /**
+   * @param builder
+   * @param reader
+   * @param defer {@code true} to decode the delay-load imports on first access.
+   */
+  private void addDelayImports(PEFile.PEFileBuilder builder, PEFileReader reader, boolean defer) {
+    if(defer) {
+      builder.delayImports(() -> readDelayImports(reader));
+    }
+    else {
+      builder.delayImports(readDelayImports(reader));
+    }
+  }
+
+  /**
+   * @param builder
+   * @param reader
+   * @param defer {@code true} to decode the bound imports on first access.
+   */
+  private void addBoundImports(PEFile.PEFileBuilder builder, PEFileReader reader, boolean defer) {
+    if(defer) {
+      builder.boundImports(() -> readBoundImports(reader));
+    }
+    else {
+      builder.boundImports(readBoundImports(reader));
+    }
+  }
+
+  /**
+   * Add the resources. Resources are only a view of the image, so the navigator is created at once
+   * if the image is in memory. Otherwise the file is mapped the first time the resources are
+   * requested, so a file whose resources are not used is never mapped. An image that is neither in
+   * memory nor in a file (a stream) has no resources.
+   * 
+   * @param builder
+   * @param reader
+   */
+  private void addResources(PEFile.PEFileBuilder builder, PEFileReader reader) {
+    if(reader.isInMemory()) {
+      builder.resources(readResources(reader));
+    }
+    else if(Objects.nonNull(reader.getPath()) && reader
+        .findDirectoryFileOffset(OptionalHeaderField.RESOURCE_TABLE) != RvaResolver.UNMAPPED) {
+      Path path = reader.getPath();
+      builder.resources(() -> resources(path));
+    }
+  }
+
+  /**
+   * @param reader
+   * @return The resources, or {@code null} if the file has no resource directory.
+   */
+  private static PEResources readResources(PEFileReader reader) {
+    ResourceTree tree = reader.readResourceTree();
+    return Objects.isNull(tree) ? null : new PEResources(tree);
+  }
+
+  /**
+   * @param reader
+   * @return The delay-load imports, or {@code null} if the file has no delay-load import directory.
+   */
+  private PEDelayImports readDelayImports(PEFileReader reader) {
+    List<DelayImportedLibrary> libraries = reader.readDelayImports();
+    return Objects.isNull(libraries) ? null : new PEDelayImports(libraries);
+  }
+
+  /**
+   * @param reader
+   * @return The bound imports, or {@code null} if the file has no bound import directory.
+   */
+  private PEBoundImports readBoundImports(PEFileReader reader) {
+    List<BoundImport> libraries = reader.readBoundImports();
+    return Objects.isNull(libraries) ? null : new PEBoundImports(libraries);
+  }
+
+  /**
+   * @param reader
+   * @return The imports, or {@code null} if the file has no import directory.
+   */
+  private PEImports readImports(PEFileReader reader) {
+    List<ImportedLibrary> libraries = reader.readImports();
+    return Objects.isNull(libraries) ? null : new PEImports(libraries);
+  }
+
+  /**
+   * @param reader
+   * @return The exports, or {@code null} if the file has no export directory.
+   */
   private PEExports readExports(PEFileReader reader) {
     ExportBuffers buffers = reader.readExportBuffers();
-    return new PEExports(buffers.getHeader(), buffers.getFileName(), buffers.getExports());
+
+    if(Objects.isNull(buffers)) {
+      return null;
+    }
+
+    return new PEExports(buffers.getHeader(), buffers.getFileName(), buffers.getExports(),
+        buffers.getAddressTable());
   }
 
   /**
@@ -0,0 +1,278 @@
+// Copyright (c) 2023 Goosebump Designs LLC
+
+package com.goosebumpdesigns.pe.builder;
+
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * This publishes the results of parsing a stream of paths. It is created by
+ * {@link PEFileBuilder#publish(Stream, ScanOptions)}.
+ *
+ * Files are parsed only as fast as the subscriber asks for results. A parse is started when fewer
+ * than {@link ScanOptions#getParallelism()} parses are running and the results that are running or
+ * waiting to be delivered do not cover the unmet demand plus {@link ScanOptions#getPrefetch()}. So
+ * however large the stream is, no more than {@code parallelism + prefetch} results are held while
+ * the subscriber is busy.
+ *
+ * All signals to the subscriber are sent by {@link #drain()}, which only one thread runs at a time.
+ * The paths are also taken from the stream by the draining thread, so the stream is only ever used
+ * by one thread at a time.
+ */
+final class PEFilePublisher implements Flow.Publisher<ScanResult> {
+  private final Stream<Path> paths;
+  private final ScanOptions options;
+  private final AtomicBoolean subscribed = new AtomicBoolean();
+
+  /**
+   * @param paths The paths to parse.
+   * @param options The scan options.
+   */
+  PEFilePublisher(Stream<Path> paths, ScanOptions options) {
+    this.paths = paths;
+    this.options = options;
+  }
+
+  /**
+   * The stream can only be read once, so only the first subscriber receives results. Every other
+   * subscriber is sent an error.
+   */
+  @Override
+  public void subscribe(Flow.Subscriber<? super ScanResult> subscriber) {
+    Objects.requireNonNull(subscriber, "subscriber");
+
+    if(!subscribed.compareAndSet(false, true)) {
+      subscriber.onSubscribe(new Flow.Subscription() {
+        @Override
+        public void request(long n) {}
+
+        @Override
+        public void cancel() {}
+      });
+      subscriber.onError(new IllegalStateException("The publisher already has a subscriber"));
+      return;
+    }
+
+    new ParseSubscription(subscriber).start();
+  }
+
+  /**
+   * This is the subscription of the only subscriber. It holds the state of the pipeline.
+   */
+  private class ParseSubscription implements Flow.Subscription {
+    private final Flow.Subscriber<? super ScanResult> subscriber;
+    private final PEFileScanner scanner = new PEFileScanner(options, result -> {});
+    private final ExecutorService pool;
+    private final Executor executor;
+    private final Iterator<Path> iterator;
+
+    private final Queue<ScanResult> ready = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicLong requested = new AtomicLong();
+    private final AtomicInteger wip = new AtomicInteger();
+
+    private volatile boolean cancelled;
+    private volatile Throwable error;
+
+    /* These are only used by the draining thread. */
+    private long emitted;
+    private boolean exhausted;
+    private boolean done;
+
+    /**
+     * @param subscriber The subscriber.
+     */
+    ParseSubscription(Flow.Subscriber<? super ScanResult> subscriber) {
+      this.subscriber = subscriber;
+      this.pool = Objects.isNull(options.getExecutor()) ? scanner.newPool() : null;
+      this.executor = Objects.isNull(pool) ? options.getExecutor() : pool;
+      this.iterator = paths.iterator();
+    }
+
+    /**
+     * Send the subscription to the subscriber. Nothing is parsed until it requests results.
+     */
+    void start() {
+      try {
+        subscriber.onSubscribe(this);
+      }
+      catch(RuntimeException e) {
+        cancel();
+      }
+    }
+
+    @Override
+    public void request(long n) {
+      if(n <= 0) {
+        error = new IllegalArgumentException("Requested " + n + " results (must be positive)");
+      }
+      else {
+        requested.accumulateAndGet(n, (current, added) -> {
+          long sum = current + added;
+          return sum < 0 ? Long.MAX_VALUE : sum;
+        });
+      }
+
+      drain();
+    }
+
+    @Override
+    public void cancel() {
+      cancelled = true;
+      drain();
+    }
+
+    /**
+     * Deliver the results that have been requested, start the parses that the demand allows and
+     * complete the subscription when everything has been delivered. If another thread is draining,
+     * it is told to make one more pass instead.
+     */
+    private void drain() {
+      if(wip.getAndIncrement() != 0) {
+        return;
+      }
+
+      int missed = 1;
+
+      do {
+        if(!done) {
+          drainOnce();
+        }
+
+        if(done) {
+          ready.clear();
+        }
+
+        missed = wip.addAndGet(-missed);
+      }
+      while(missed != 0);
+    }
+
+    /**
+     * Make one pass of the drain loop.
+     */
+    private void drainOnce() {
+      if(cancelled) {
+        finish();
+        return;
+      }
+
+      if(Objects.nonNull(error)) {
+        finish();
+        subscriber.onError(error);
+        return;
+      }
+
+      try {
+        emit();
+        submit();
+      }
+      catch(RuntimeException e) {
+        finish();
+        subscriber.onError(e);
+        return;
+      }
+
+      if(cancelled) {
+        finish();
+      }
+      else if(exhausted && running.get() == 0 && ready.isEmpty()) {
+        finish();
+        subscriber.onComplete();
+      }
+    }
+
+    /**
+     * Pass ready results to the subscriber while it has demand. If the subscriber throws, the
+     * subscription is cancelled.
+     */
+    private void emit() {
+      while(!cancelled && emitted < requested.get()) {
+        ScanResult result = ready.poll();
+
+        if(Objects.isNull(result)) {
+          return;
+        }
+
+        emitted++;
+
+        try {
+          subscriber.onNext(result);
+        }
+        catch(RuntimeException e) {
+          cancelled = true;
+        }
+      }
+    }
+
+    /**
+     * Start parses until the parallelism or the demand is used up, or the stream has no more paths.
+     * Paths rejected by {@link ScanOptions#getFilter()} are skipped.
+     */
+    private void submit() {
+      while(!exhausted && !cancelled && running.get() < options.getParallelism()
+          && running.get() + ready.size() - demand() < options.getPrefetch()) {
+        if(!iterator.hasNext()) {
+          exhausted = true;
+          paths.close();
+          return;
+        }
+
+        Path file = iterator.next();
+
+        if(options.getFilter().test(file)) {
+          running.incrementAndGet();
+          execute(file);
+        }
+      }
+    }
+
+    /**
+     * @param file
+     */
+    private void execute(Path file) {
+      try {
+        executor.execute(() -> {
+          ready.offer(scanner.parse(file));
+          running.decrementAndGet();
+          drain();
+        });
+      }
+      catch(RejectedExecutionException e) {
+        running.decrementAndGet();
+        throw e;
+      }
+    }
+
+    /**
+     * @return The number of results that have been requested and not delivered.
+     */
+    private long demand() {
+      return requested.get() - emitted;
+    }
+
+    /**
+     * End the subscription: close the stream and shut down the pool. Parses that are running finish
+     * in the background and their results are dropped.
+     */
+    private void finish() {
+      done = true;
+      paths.close();
+
+      if(Objects.nonNull(pool)) {
+        pool.shutdown();
+      }
+    }
+  }
+}
@@ -0,0 +1,267 @@
+// Copyright (c) 2023 Goosebump Designs LLC
+
+package com.goosebumpdesigns.pe.builder;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.EnumSet;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import com.goosebumpdesigns.pe.PEFile;
+import com.goosebumpdesigns.pe.exception.PEException;
+import com.goosebumpdesigns.pe.exception.PEFileException;
+import com.goosebumpdesigns.pe.file.PEFileReader;
+import com.goosebumpdesigns.pe.file.ReadMode;
+
+/**
+ * This class walks a directory tree and parses the files in it in parallel. It is used by
+ * {@link PEFileBuilder#scan(Path, ScanOptions, Consumer)}.
+ *
+ * The walk runs on the calling thread and submits one task per file to the executor. Two semaphores
+ * bound the work: one limits the tasks that have been submitted and have not finished (so the walk
+ * waits for the parsers instead of queuing the whole tree), the other limits the files that are
+ * open. Each result is passed to the consumer as soon as it is available.
+ *
+ * Each thread that parses files keeps a reusable {@link PEFileReader} for the scan, so its read
+ * buffers are recycled from file to file. Lazy parse options map each file instead (see
+ * {@link PEFileBuilder#build(Path, ReadMode, ParseOptions)}).
+ */
+final class PEFileScanner {
+  private final ScanOptions options;
+  private final Consumer<ScanResult> consumer;
+  private final Function<Path, PEFile> parser;
+  private final Semaphore inFlight;
+  private final Semaphore openFiles;
+  private final AtomicReference<RuntimeException> consumerError = new AtomicReference<>();
+  private final ThreadLocal<PEFileReader> readers = ThreadLocal.withInitial(PEFileReader::reusable);
+
+  /**
+   * @param options The scan options.
+   * @param consumer The consumer of the results.
+   */
+  PEFileScanner(ScanOptions options, Consumer<ScanResult> consumer) {
+    this(options, consumer, null);
+  }
+
+  /**
+   * @param options The scan options.
+   * @param consumer The consumer of the results.
+   * @param parser Parses each file while it holds an open file permit, or {@code null} to parse
+   *        with this thread's reader.
+   */
+  PEFileScanner(ScanOptions options, Consumer<ScanResult> consumer,
+      Function<Path, PEFile> parser) {
+    this.options = options;
+    this.consumer = consumer;
+    this.parser = Objects.isNull(parser) ? this::build : parser;
+    this.inFlight = new Semaphore(options.getMaxInFlight());
+    this.openFiles = new Semaphore(options.getMaxOpenFiles());
+  }
+
+  /**
+   * Walk the tree and parse the files. This returns when every file has been parsed and its result
+   * has been passed to the consumer.
+   *
+   * @param root The root of the tree.
+   * @throws PEFileException thrown if the scan is interrupted.
+   * @throws RuntimeException the first exception thrown by the consumer, after the files already
+   *         submitted have been parsed. No more files are submitted after the consumer fails.
+   */
+  void scan(Path root) {
+    ExecutorService pool = Objects.isNull(options.getExecutor()) ? newPool() : null;
+    Executor executor = Objects.isNull(pool) ? options.getExecutor() : pool;
+
+    try {
+      Files.walkFileTree(root, EnumSet.noneOf(FileVisitOption.class), options.getMaxDepth(),
+          new Visitor(executor));
+      inFlight.acquire(options.getMaxInFlight());
+      inFlight.release(options.getMaxInFlight());
+    }
+    catch(IOException e) {
+      throw new PEFileException("Unable to scan " + root, e);
+    }
+    catch(InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new PEFileException("The scan of " + root + " was interrupted", e);
+    }
+    finally {
+      if(Objects.nonNull(pool)) {
+        pool.shutdown();
+      }
+    }
+
+    RuntimeException error = consumerError.get();
+
+    if(Objects.nonNull(error)) {
+      throw error;
+    }
+  }
+
+  /**
+   * This submits the regular files found by the walk and reports the files that cannot be visited.
+   */
+  class Visitor extends SimpleFileVisitor<Path> {
+    private final Executor executor;
+
+    Visitor(Executor executor) {
+      this.executor = executor;
+    }
+
+    @Override
+    public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+      if(attrs.isRegularFile() && options.getFilter().test(file)) {
+        submit(executor, file);
+      }
+
+      return Objects.isNull(consumerError.get()) ? FileVisitResult.CONTINUE
+          : FileVisitResult.TERMINATE;
+    }
+
+    @Override
+    public FileVisitResult visitFileFailed(Path file, IOException e) {
+      deliver(ScanResult.failure(file, new PEFileException("Unable to read " + file, e)));
+      return FileVisitResult.CONTINUE;
+    }
+
+    @Override
+    public FileVisitResult postVisitDirectory(Path dir, IOException e) {
+      if(Objects.nonNull(e)) {
+        deliver(ScanResult.failure(dir, new PEFileException("Unable to read " + dir, e)));
+      }
+
+      return FileVisitResult.CONTINUE;
+    }
+  }
+
+  /**
+   * Submit a parse to the executor, waiting if the maximum number of parses are in flight.
+   *
+   * @param executor The executor.
+   * @param file The file to parse.
+   * @throws InterruptedIOException thrown if the wait is interrupted.
+   */
+  private void submit(Executor executor, Path file) throws InterruptedIOException {
+    try {
+      inFlight.acquire();
+    }
+    catch(InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while submitting " + file);
+    }
+
+    try {
+      executor.execute(() -> parseAndDeliver(file));
+    }
+    catch(RejectedExecutionException e) {
+      inFlight.release();
+      throw e;
+    }
+  }
+
+  /**
+   * @param file
+   */
+  private void parseAndDeliver(Path file) {
+    try {
+      deliver(parse(file));
+    }
+    finally {
+      inFlight.release();
+    }
+  }
+
+  /**
+   * Parse a file. Any exception is returned as a failed result. Exceptions that are not
+   * {@link PEException}s (from a corrupt file, for example) are wrapped in a
+   * {@link PEFileException}.
+   *
+   * @param file The file to parse.
+   * @return The result.
+   */
+  ScanResult parse(Path file) {
+    openFiles.acquireUninterruptibly();
+
+    try {
+      return ScanResult.success(file, parser.apply(file));
+    }
+    catch(PEException e) {
+      return ScanResult.failure(file, e);
+    }
+    catch(RuntimeException e) {
+      return ScanResult.failure(file, new PEFileException("Unable to parse " + file, e));
+    }
+    finally {
+      openFiles.release();
+    }
+  }
+
+  /**
+   * Parse a file with this thread's reader. The file is closed before this method returns.
+   *
+   * @param file The file to parse.
+   * @return The parsed file.
+   */
+  private PEFile build(Path file) {
+    ParseOptions parseOptions = options.getParseOptions();
+
+    if(parseOptions.isLazy()) {
+      return PEFileBuilder.build(file, options.getReadMode(), parseOptions);
+    }
+
+    PEFileReader reader = readers.get();
+
+    try {
+      return PEFileBuilder.build(reader.reopen(file, options.getReadMode()), parseOptions);
+    }
+    finally {
+      reader.close();
+    }
+  }
+
+  /**
+   * Pass a result to the consumer. After the consumer has failed once, results are dropped.
+   *
+   * @param result The result.
+   */
+  private void deliver(ScanResult result) {
+    if(Objects.nonNull(consumerError.get())) {
+      return;
+    }
+
+    try {
+      consumer.accept(result);
+    }
+    catch(RuntimeException e) {
+      consumerError.compareAndSet(null, e);
+    }
+  }
+
+  /**
+   * @return A pool of daemon threads for a single scan.
+   */
+  ExecutorService newPool() {
+    AtomicInteger count = new AtomicInteger();
+    ThreadFactory factory = task -> {
+      Thread thread = new Thread(task, "pe-scan-" + count.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+
+    return Executors.newFixedThreadPool(options.getParallelism(), factory);
+  }
+}
@@ -0,0 +1,133 @@
+// Copyright (c) 2023 Goosebump Designs LLC
+
+package com.goosebumpdesigns.pe.builder;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+import com.goosebumpdesigns.pe.file.ReadMode;
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * These options control which parts of a Portable Executable file are parsed by
+ * {@link PEFileBuilder#build(java.nio.file.Path, ParseOptions)}. Parts that are not included are
+ * not read from the file and are {@code null} in the returned
+ * {@link com.goosebumpdesigns.pe.PEFile}. The headers are always read from the file with a single
+ * read, so {@link #HEADERS_ONLY} parses a file with one read call.
+ *
+ * If {@link #isLazy()} is {@code true}, the exports and the import, delay-load import and bound
+ * import directories are not decoded until they are first requested from the
+ * {@link com.goosebumpdesigns.pe.PEFile}. The file is memory-mapped so that they can be read from
+ * the mapping after the file has been closed. The mapping is released when the
+ * {@link com.goosebumpdesigns.pe.PEFile} is garbage collected. A file that does not use a directory
+ * costs nothing for it beyond the check of its data directory entry. The resource directory is
+ * navigated on demand whether or not the options are lazy.
+ *
+ * Use the constants or create the options like this:
+ *
+ * <pre>
+ * ParseOptions options = ParseOptions.builder()
+ *     .components(EnumSet.of(Component.HEADER, Component.SECTION_TABLE))
+ *     .lazy(true)
+ *     .build();
+ * </pre>
+ */
+@Value
+@Builder(toBuilder = true)
+public class ParseOptions {
+
+  /**
+   * These are the parts of a PE file that can be selected for parsing.
+   */
+  public enum Component {
+    /** The COFF file header. */
+    HEADER,
+
+    /** The optional header, including the data directories. */
+    OPTIONAL_HEADER,
+
+    /** The section table. */
+    SECTION_TABLE,
+
+    /** The export directory, including every export name. */
+    EXPORTS,
+
+    /** The import directory, including every imported DLL and function. */
+    IMPORTS,
+
+    /** The delay-load import directory, including every delay-loaded DLL and function. */
+    DELAY_IMPORTS,
+
+    /** The bound import directory. */
+    BOUND_IMPORTS,
+
+    /**
+     * The resource directory. It is always decoded as it is navigated (see
+     * {@link com.goosebumpdesigns.pe.PEResources}).
+     */
+    RESOURCES
+  }
+
+  /** Parse everything. This is what {@link PEFileBuilder#build(java.nio.file.Path)} does. */
+  public static final ParseOptions ALL = of(Component.values());
+
+  /** Parse only the COFF header and the optional header. */
+  public static final ParseOptions HEADERS_ONLY = of(Component.HEADER, Component.OPTIONAL_HEADER);
+
+  /** Parse the COFF header, the optional header and the section table. */
+  public static final ParseOptions HEADERS_AND_SECTIONS =
+      of(Component.HEADER, Component.OPTIONAL_HEADER, Component.SECTION_TABLE);
+
+  /** Parse everything, but decode the exports and the import directories on first access. */
+  public static final ParseOptions LAZY = ALL.toBuilder().lazy(true).build();
+
+  @Builder.Default
+  private Set<Component> components = Collections.unmodifiableSet(EnumSet.allOf(Component.class));
+
+  private boolean lazy;
+
+  /**
+   * Create options that eagerly parse the given components.
+   * 
+   * @param components The components to parse.
+   * @return The options.
+   */
+  public static ParseOptions of(Component... components) {
+    Set<Component> set = EnumSet.noneOf(Component.class);
+    Collections.addAll(set, components);
+
+    return builder().components(Collections.unmodifiableSet(set)).build();
+  }
+
+  /**
+   * Returns {@code true} if the given component should be parsed.
+   * 
+   * @param component The component.
+   * @return {@code true} if the component is selected.
+   */
+  public boolean includes(Component component) {
+    return components.contains(component);
+  }
+
+  /**
+   * Returns the read mode to use with these options. Lazy parsing requires a memory mapping that
+   * outlives the reader, so {@link ReadMode#MEMORY_MAPPED} is used for lazy parsing regardless of
+   * the requested mode.
+   * 
+   * @param requested The requested read mode.
+   * @return The read mode to use.
+   */
+  ReadMode readMode(ReadMode requested) {
+    return lazy && includesDirectories() ? ReadMode.MEMORY_MAPPED : requested;
+  }
+
+  /**
+   * @return {@code true} if any of the parts that can be decoded lazily is selected.
+   */
+  boolean includesDirectories() {
+    return includes(Component.EXPORTS) || includes(Component.IMPORTS)
+        || includes(Component.DELAY_IMPORTS) || includes(Component.BOUND_IMPORTS)
+        || includes(Component.RESOURCES);
+  }
+}
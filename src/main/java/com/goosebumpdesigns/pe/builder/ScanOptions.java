@@ -0,0 +1,85 @@
+// Copyright (c) 2023 Goosebump Designs LLC
+
+package com.goosebumpdesigns.pe.builder;
+
+import java.nio.file.Path;
+import java.util.concurrent.Executor;
+import java.util.function.Predicate;
+import com.goosebumpdesigns.pe.file.ReadMode;
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * These options control a scan of a directory tree by
+ * {@link PEFileBuilder#scan(Path, ScanOptions, java.util.function.Consumer)}. All options have
+ * defaults, so only the options that differ from the defaults need to be set:
+ *
+ * <pre>
+ * ScanOptions options = ScanOptions.builder()
+ *     .filter(path -&gt; path.toString().endsWith(".dll"))
+ *     .parseOptions(ParseOptions.HEADERS_ONLY)
+ *     .build();
+ * </pre>
+ */
+@Value
+@Builder(toBuilder = true)
+public class ScanOptions {
+  /** The default options. */
+  public static final ScanOptions DEFAULTS = builder().build();
+
+  /**
+   * The number of threads used to parse files if no executor is given. The default is the number
+   * of available processors. A publisher also never runs more parses than this at once, even on an
+   * executor.
+   */
+  @Builder.Default
+  private int parallelism = Runtime.getRuntime().availableProcessors();
+
+  /**
+   * The executor that runs the parses. If this is {@code null} (the default), a fixed pool of
+   * {@link #getParallelism()} threads is created for the scan and shut down when the scan ends.
+   */
+  private Executor executor;
+
+  /**
+   * The maximum number of files that are open at the same time. This matters if the executor has
+   * more threads than the process may have open files.
+   */
+  @Builder.Default
+  private int maxOpenFiles = 256;
+
+  /**
+   * The maximum number of parses that have been submitted to the executor and have not finished.
+   * The directory walk waits when this is reached, so the executor's queue does not grow with the
+   * size of the tree.
+   */
+  @Builder.Default
+  private int maxInFlight = 1024;
+
+  /**
+   * The number of results that {@link PEFileBuilder#publish(java.util.stream.Stream, ScanOptions)}
+   * parses ahead of the subscriber's demand. With zero, a file is only parsed once it has been
+   * requested.
+   */
+  @Builder.Default
+  private int prefetch = 32;
+
+  /** The maximum depth of the directory walk. The root is depth zero. */
+  @Builder.Default
+  private int maxDepth = Integer.MAX_VALUE;
+
+  /**
+   * Only regular files accepted by this filter are parsed. By default every regular file is parsed
+   * and files that are not PE files are reported as failures.
+   */
+  @Builder.Default
+  private Predicate<Path> filter = path -> true;
+
+  /** The read mode used to parse each file. */
+  @Builder.Default
+  private ReadMode readMode = ReadMode.RANDOM_ACCESS;
+
+  /** The parts of each file to parse. */
+  @Builder.Default
+  private ParseOptions parseOptions = ParseOptions.ALL;
+}
@@ -0,0 +1,44 @@
+// Copyright (c) 2023 Goosebump Designs LLC
+
+package com.goosebumpdesigns.pe.builder;
+
+import java.nio.file.Path;
+import java.util.Objects;
+import com.goosebumpdesigns.pe.PEFile;
+import com.goosebumpdesigns.pe.exception.PEException;
+import lombok.Value;
+
+/**
+ * This is the outcome of parsing one file in a scan. Either the file or the error is set.
+ */
+@Value
+public class ScanResult {
+  private Path path;
+  private PEFile file;
+  private PEException error;
+
+  /**
+   * @param path The path of the parsed file.
+   * @param file The parsed file.
+   * @return A successful result.
+   */
+  public static ScanResult success(Path path, PEFile file) {
+    return new ScanResult(path, file, null);
+  }
+
+  /**
+   * @param path The path of the file that could not be parsed.
+   * @param error The reason.
+   * @return A failed result.
+   */
+  public static ScanResult failure(Path path, PEException error) {
+    return new ScanResult(path, null, error);
+  }
+
+  /**
+   * @return {@code true} if the file was parsed.
+   */
+  public boolean isSuccess() {
+    return Objects.isNull(error);
+  }
+}
@@ -0,0 +1,17 @@
+// Copyright (c) 2023 Goosebump Designs LLC
+
+package com.goosebumpdesigns.pe.cache;
+
+import lombok.Value;
+
+/**
+ * This is a snapshot of the counters of a {@link PEFileCache}.
+ */
+@Value
+public class CacheStats {
+  private long hits;
+  private long misses;
+  private long evictions;
+  private int entries;
+  private long retainedBytes;
+}
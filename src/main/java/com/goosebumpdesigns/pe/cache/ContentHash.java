@@ -0,0 +1,76 @@
+// Copyright (c) 2023 Goosebump Designs LLC
+
+package com.goosebumpdesigns.pe.cache;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import com.goosebumpdesigns.pe.exception.PEFileException;
+import lombok.Value;
+
+/**
+ * This is the SHA-256 digest of the contents of an image. Identical copies of a file have the same
+ * hash wherever they are stored.
+ */
+@Value
+public class ContentHash {
+  private static final String ALGORITHM = "SHA-256";
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private String value;
+
+  /**
+   * Hash the contents of a file.
+   *
+   * @param path The path of the file.
+   * @return The hash.
+   * @throws PEFileException thrown if the file cannot be read.
+   */
+  public static ContentHash of(Path path) {
+    MessageDigest digest = newDigest();
+    byte[] buffer = new byte[BUFFER_SIZE];
+
+    try(InputStream in = Files.newInputStream(path)) {
+      int count;
+
+      while((count = in.read(buffer)) > 0) {
+        digest.update(buffer, 0, count);
+      }
+    }
+    catch(IOException e) {
+      throw new PEFileException("Unable to hash " + path, e);
+    }
+
+    return new ContentHash(HexFormat.of().formatHex(digest.digest()));
+  }
+
+  /**
+   * Hash an image in memory. The position and limit of the buffer are not changed.
+   *
+   * @param image The image, between the position and limit of the buffer.
+   * @return The hash.
+   */
+  public static ContentHash of(ByteBuffer image) {
+    MessageDigest digest = newDigest();
+    digest.update(image.duplicate());
+
+    return new ContentHash(HexFormat.of().formatHex(digest.digest()));
+  }
+
+  /**
+   * @return A new SHA-256 digest.
+   */
+  private static MessageDigest newDigest() {
+    try {
+      return MessageDigest.getInstance(ALGORITHM);
+    }
+    catch(NoSuchAlgorithmException e) {
+      throw new IllegalStateException(ALGORITHM + " is not available", e);
+    }
+  }
+}
@@ -0,0 +1,54 @@
+// Copyright (c) 2023 Goosebump Designs LLC
+
+package com.goosebumpdesigns.pe.cache;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import com.goosebumpdesigns.pe.exception.PEFileException;
+import lombok.Value;
+
+/**
+ * This identifies a version of a file without reading it. The file key is the file system's
+ * identity for the file (the device and inode on Unix). If a file is modified, its size or
+ * modification time changes and so does its identity. If the file system does not supply a file
+ * key, the real path of the file is used instead.
+ */
+@Value
+public class FileIdentity {
+  private Object fileKey;
+  private Path path;
+  private long size;
+  private long modifiedNanos;
+
+  /**
+   * Read the identity of a file from its attributes.
+   *
+   * @param path The path of the file.
+   * @return The identity.
+   * @throws PEFileException thrown if the attributes cannot be read.
+   */
+  public static FileIdentity of(Path path) {
+    try {
+      BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class);
+      Object fileKey = attrs.fileKey();
+      Path keyPath = Objects.isNull(fileKey) ? path.toRealPath() : null;
+
+      return new FileIdentity(fileKey, keyPath, attrs.size(),
+          attrs.lastModifiedTime().to(TimeUnit.NANOSECONDS));
+    }
+    catch(IOException e) {
+      throw new PEFileException("Unable to read the attributes of " + path, e);
+    }
+  }
+
+  /**
+   * @return {@code true} if the file system supplied a file key for the file.
+   */
+  public boolean hasFileKey() {
+    return Objects.nonNull(fileKey);
+  }
+}
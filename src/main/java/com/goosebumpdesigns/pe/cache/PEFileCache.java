@@ -0,0 +1,306 @@
+// Copyright (c) 2023 Goosebump Designs LLC
+
+package com.goosebumpdesigns.pe.cache;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+import com.goosebumpdesigns.pe.PEFile;
+import com.goosebumpdesigns.pe.builder.PEFileBuilder;
+import com.goosebumpdesigns.pe.builder.ParseOptions;
+import com.goosebumpdesigns.pe.exception.PEFileException;
+import com.goosebumpdesigns.pe.file.MemorySource;
+import com.goosebumpdesigns.pe.file.ReadMode;
+import lombok.Builder;
+
+/**
+ * This is an in-memory cache of parsed files that sits in front of {@link PEFileBuilder}. Files are
+ * looked up by their {@link FileIdentity} (device, inode, size and modification time), so a file
+ * is not read at all if it is in the cache. If the file system does not supply a file key, or the
+ * cache is content-addressed, files are looked up by the {@link ContentHash} of their contents
+ * instead. A content-addressed cache parses identical copies of a file (the same system DLL
+ * extracted from thousands of images, for example) only once. The hash of each file identity is
+ * remembered, so an unchanged file is only hashed once.
+ *
+ * The cache holds at most {@code maxEntries} files and at most {@code maxRetainedBytes} of
+ * (estimated) parsed data. When either limit is exceeded, the least recently used files are
+ * evicted.
+ *
+ * The cache is safe for concurrent use. If several threads request the same file at once, it is
+ * parsed by one of them and the others wait for the result. A parse that fails is not cached, so
+ * the next request for the file parses it again. A request that waits for a parse is counted as a
+ * hit when the parse succeeds and as a miss when it fails.
+ *
+ * The same {@link PEFile} is returned to every caller, so callers must not modify it (its section
+ * table is a map, for example). Lazy parse options are not allowed: a lazily parsed file keeps its
+ * whole image mapped until it is collected, and the size of its directories is not known when it
+ * is added to the cache. Create the cache with the builder:
+ *
+ * <pre>
+ * PEFileCache cache = PEFileCache.builder()
+ *     .maxEntries(10_000)
+ *     .maxRetainedBytes(256L * 1024 * 1024)
+ *     .contentAddressed(true)
+ *     .build();
+ * </pre>
+ */
+public class PEFileCache {
+  private static final int ALIASES_PER_ENTRY = 8;
+
+  private final int maxEntries;
+  private final long maxRetainedBytes;
+  private final boolean contentAddressed;
+  private final ReadMode readMode;
+  private final ParseOptions parseOptions;
+
+  private final Object lock = new Object();
+  private final LinkedHashMap<Object, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+  private final LinkedHashMap<FileIdentity, ContentHash> aliases;
+
+  private long retainedBytes;
+  private long hits;
+  private long misses;
+  private long evictions;
+
+  /**
+   * This is a cached file, or a file that is being parsed. The size is zero until the parse
+   * finishes.
+   */
+  private static class Entry {
+    final CompletableFuture<PEFile> file = new CompletableFuture<>();
+    long size;
+  }
+
+  /**
+   * Create a cache. Use {@link #builder()} to call this.
+   *
+   * @param maxEntries The maximum number of files in the cache. The default is 1,024.
+   * @param maxRetainedBytes The maximum estimated size of the files in the cache. The default is
+   *        64 MiB.
+   * @param contentAddressed {@code true} to look up files by the hash of their contents so that
+   *        copies of a file share an entry. The default is {@code false}.
+   * @param readMode The read mode used to parse files. The default is
+   *        {@link ReadMode#RANDOM_ACCESS}.
+   * @param parseOptions The parts of each file to parse. The default is {@link ParseOptions#ALL}.
+   * @throws IllegalArgumentException thrown if the parse options are lazy.
+   */
+  @Builder
+  private PEFileCache(Integer maxEntries, Long maxRetainedBytes, boolean contentAddressed,
+      ReadMode readMode, ParseOptions parseOptions) {
+    this.maxEntries = Objects.requireNonNullElse(maxEntries, 1024);
+    this.maxRetainedBytes = Objects.requireNonNullElse(maxRetainedBytes, 64L * 1024 * 1024);
+    this.contentAddressed = contentAddressed;
+    this.readMode = Objects.requireNonNullElse(readMode, ReadMode.RANDOM_ACCESS);
+    this.parseOptions = Objects.requireNonNullElse(parseOptions, ParseOptions.ALL);
+
+    if(this.parseOptions.isLazy()) {
+      throw new IllegalArgumentException("A cache cannot use lazy parse options");
+    }
+
+    int maxAliases = (int)Math.min((long)this.maxEntries * ALIASES_PER_ENTRY, Integer.MAX_VALUE);
+
+    this.aliases = new LinkedHashMap<>(16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<FileIdentity, ContentHash> eldest) {
+        return size() > maxAliases;
+      }
+    };
+  }
+
+  /**
+   * Return the parsed file, parsing it if it is not in the cache.
+   *
+   * @param path The path of the file.
+   * @return The parsed file.
+   * @throws com.goosebumpdesigns.pe.exception.PEException thrown if the file cannot be parsed.
+   */
+  public PEFile get(Path path) {
+    return get(keyFor(path), () -> PEFileBuilder.build(path, readMode, parseOptions));
+  }
+
+  /**
+   * Return the parsed image, parsing it if it is not in the cache. In-memory images have no file
+   * identity, so they are always looked up by their content hash. The cached file may read the
+   * image after this method returns (lazily decoded parts and the resources are views of the image
+   * data), so the image is copied before it is parsed and the caller is free to reuse the array.
+   *
+   * @param image The image. It must not be modified while this method runs.
+   * @return The parsed image.
+   * @throws com.goosebumpdesigns.pe.exception.PEException thrown if the image cannot be parsed.
+   */
+  public PEFile get(byte[] image) {
+    return get(ContentHash.of(ByteBuffer.wrap(image)), () -> PEFileBuilder.build(
+        new MemorySource(ByteBuffer.wrap(image.clone())), parseOptions));
+  }
+
+  /**
+   * Remove every file from the cache. Parses that are in progress are not affected, but their
+   * results are not cached.
+   */
+  public void invalidateAll() {
+    synchronized(lock) {
+      entries.clear();
+      aliases.clear();
+      retainedBytes = 0;
+    }
+  }
+
+  /**
+   * @return A snapshot of the cache counters.
+   */
+  public CacheStats stats() {
+    synchronized(lock) {
+      return new CacheStats(hits, misses, evictions, entries.size(), retainedBytes);
+    }
+  }
+
+  /**
+   * Find the key of a file. This is the file identity, unless the cache is content-addressed or the
+   * file system has no file keys, in which case it is the content hash.
+   *
+   * @param path The path of the file.
+   * @return The key.
+   */
+  private Object keyFor(Path path) {
+    FileIdentity identity = FileIdentity.of(path);
+
+    if(!contentAddressed && identity.hasFileKey()) {
+      return identity;
+    }
+
+    synchronized(lock) {
+      ContentHash hash = aliases.get(identity);
+
+      if(Objects.nonNull(hash)) {
+        return hash;
+      }
+    }
+
+    ContentHash hash = ContentHash.of(path);
+
+    synchronized(lock) {
+      aliases.put(identity, hash);
+    }
+
+    return hash;
+  }
+
+  /**
+   * Return the cached file with the given key. If there is none, the calling thread parses the file
+   * and every other thread that asks for the same key waits for it.
+   *
+   * @param key The key.
+   * @param parser Parses the file.
+   * @return The file.
+   */
+  PEFile get(Object key, Supplier<PEFile> parser) {
+    Entry entry;
+    boolean parse = false;
+
+    synchronized(lock) {
+      entry = entries.get(key);
+
+      if(Objects.isNull(entry)) {
+        entry = new Entry();
+        entries.put(key, entry);
+        parse = true;
+        misses++;
+      }
+    }
+
+    return parse ? parse(key, entry, parser) : join(entry);
+  }
+
+  /**
+   * Parse a file, complete its entry and evict files if the cache is now too large.
+   *
+   * @param key The key.
+   * @param entry The entry.
+   * @param parser Parses the file.
+   * @return The file.
+   */
+  private PEFile parse(Object key, Entry entry, Supplier<PEFile> parser) {
+    PEFile file;
+
+    try {
+      file = parser.get();
+    }
+    catch(RuntimeException e) {
+      synchronized(lock) {
+        entries.remove(key, entry);
+      }
+
+      entry.file.completeExceptionally(e);
+      throw e;
+    }
+
+    long size = SizeEstimator.estimate(file);
+
+    synchronized(lock) {
+      if(entries.get(key) == entry) {
+        entry.size = size;
+        retainedBytes += size;
+        evict();
+      }
+    }
+
+    entry.file.complete(file);
+    return file;
+  }
+
+  /**
+   * Evict the least recently used files until the cache is within its limits. Files that are still
+   * being parsed are not evicted. The caller holds the lock.
+   */
+  private void evict() {
+    Iterator<Entry> iterator = entries.values().iterator();
+
+    while((entries.size() > maxEntries || retainedBytes > maxRetainedBytes) && iterator.hasNext()) {
+      Entry entry = iterator.next();
+
+      if(entry.size > 0) {
+        iterator.remove();
+        retainedBytes -= entry.size;
+        evictions++;
+      }
+    }
+  }
+
+  /**
+   * Wait for a file that is being parsed by another thread. The request is counted as a hit if the
+   * parse succeeds and as a miss if it fails.
+   *
+   * @param entry The entry.
+   * @return The file.
+   */
+  private PEFile join(Entry entry) {
+    try {
+      PEFile file = entry.file.join();
+
+      synchronized(lock) {
+        hits++;
+      }
+
+      return file;
+    }
+    catch(CompletionException e) {
+      synchronized(lock) {
+        misses++;
+      }
+
+      if(e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+
+      throw new PEFileException(e.getCause());
+    }
+  }
+}
@@ -0,0 +1,665 @@
+// Copyright (c) 2023 Goosebump Designs LLC
+
+package com.goosebumpdesigns.pe.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import com.goosebumpdesigns.pe.PEBoundImports;
+import com.goosebumpdesigns.pe.PEDelayImports;
+import com.goosebumpdesigns.pe.PEExports;
+import com.goosebumpdesigns.pe.PEFile;
+import com.goosebumpdesigns.pe.PEHeader;
+import com.goosebumpdesigns.pe.PEImports;
+import com.goosebumpdesigns.pe.PESectionTable;
+import com.goosebumpdesigns.pe.builder.PEFileBuilder;
+import com.goosebumpdesigns.pe.exception.PEFileException;
+import com.goosebumpdesigns.pe.file.ByteOrderBuffer;
+import com.goosebumpdesigns.pe.file.PEFileReader;
+import com.goosebumpdesigns.pe.file.PEFileReader.ExportBuffers;
+import com.goosebumpdesigns.pe.file.RvaResolver;
+import com.goosebumpdesigns.pe.file.SectionBuffer;
+import com.goosebumpdesigns.pe.file.SectionTableBuffer;
+import com.goosebumpdesigns.pe.model.BoundImport;
+import com.goosebumpdesigns.pe.model.DelayImportedLibrary;
+import com.goosebumpdesigns.pe.model.Export;
+import com.goosebumpdesigns.pe.model.ExportAddressTable;
+import com.goosebumpdesigns.pe.model.ImportedFunction;
+import com.goosebumpdesigns.pe.model.ImportedLibrary;
+import com.goosebumpdesigns.pe.model.type.OptionalHeaderField;
+import com.goosebumpdesigns.pe.optionalheader.OptionalHeaderFactory;
+import lombok.Value;
+
+/**
+ * This class converts the data needed to build a {@link PEFile} to and from a compact binary
+ * encoding. The encoding holds the raw bytes of the COFF header, the optional header, the section
+ * table and the export directory header, together with the decoded export file name, names,
+ * ordinals and export address table and the decoded import, delay-load import and bound import
+ * directories. A {@link PEFile} is built from the raw bytes with the same constructors that are
+ * used when the file is parsed, so a decoded file is identical to a parsed one. Decoding does not
+ * translate addresses or search for strings, which is most of the work of parsing the exports.
+ * The resource directory is not encoded, since it is navigated in the image itself. Only whether
+ * the file has one is recorded, so that a file built with {@link #toPEFile(RawImage, Path)} maps
+ * the file for its resources on first access, as {@link PEFileBuilder#build(Path)} does.
+ *
+ * The encoding starts with a magic number and {@link #VERSION}. The version must be incremented
+ * whenever the encoding or the parsed representation changes, which invalidates stored entries.
+ */
+public final class PEFileCodec {
+  /** The version of the encoding. */
+  public static final int VERSION = 5;
+
+  private static final int MAGIC = 0x50454346;
+  private static final int SECTION_SIZE = 40;
+
+  // @formatter:off
+  private static final List<OptionalHeaderField> DIRECTORIES = List.of(
+      OptionalHeaderField.EXPORT_TABLE,
+      OptionalHeaderField.IMPORT_TABLE,
+      OptionalHeaderField.DELAY_IMPORT_DESCRIPTOR,
+      OptionalHeaderField.BOUND_IMPORT_TABLE);
+  // @formatter:on
+
+  private PEFileCodec() {}
+
+  /**
+   * These are the raw header bytes and decoded export names of a PE file.
+   */
+  @Value
+  public static class RawImage {
+    private ByteOrder byteOrder;
+    private byte[] header;
+    private byte[] optionalHeader;
+    private byte[] sectionTable;
+    private byte[] exportsHeader;
+    private String exportsFileName;
+    private Set<Export> exports;
+    private ExportAddressTable exportAddressTable;
+    private PEImports imports;
+    private PEDelayImports delayImports;
+    private PEBoundImports boundImports;
+    private boolean resourceDirectory;
+
+    /**
+     * @return {@code true} if the file has an export directory.
+     */
+    public boolean hasExports() {
+      return Objects.nonNull(exportsHeader);
+    }
+
+    /**
+     * @return {@code true} if the file has an import directory.
+     */
+    public boolean hasImports() {
+      return Objects.nonNull(imports);
+    }
+
+    /**
+     * @return {@code true} if the file has a delay-load import directory.
+     */
+    public boolean hasDelayImports() {
+      return Objects.nonNull(delayImports);
+    }
+
+    /**
+     * @return {@code true} if the file has a bound import directory.
+     */
+    public boolean hasBoundImports() {
+      return Objects.nonNull(boundImports);
+    }
+
+    /**
+     * @return {@code true} if the file has a resource directory.
+     */
+    public boolean hasResources() {
+      return resourceDirectory;
+    }
+  }
+
+  /**
+   * Read the raw image data from an open reader.
+   *
+   * @param reader The reader.
+   * @return The raw image.
+   */
+  public static RawImage read(PEFileReader reader) {
+    ByteOrderBuffer header = reader.readHeaderBuffer();
+    ByteOrderBuffer optionalHeader = reader.readOptionalHeaderBuffer();
+    ByteArrayOutputStream sections = new ByteArrayOutputStream();
+
+    for(SectionBuffer section : reader.readSectionTableBuffer()) {
+      sections.writeBytes(section.getBytes());
+    }
+
+    ExportBuffers exports = null;
+    PEImports imports = null;
+    PEDelayImports delayImports = null;
+    PEBoundImports boundImports = null;
+
+    for(OptionalHeaderField directory : inFileOrder(reader)) {
+      switch(directory) {
+        case EXPORT_TABLE:
+          exports = reader.readExportBuffers();
+          break;
+
+        case IMPORT_TABLE:
+          imports = readImports(reader);
+          break;
+
+        case DELAY_IMPORT_DESCRIPTOR:
+          delayImports = readDelayImports(reader);
+          break;
+
+        case BOUND_IMPORT_TABLE:
+          boundImports = readBoundImports(reader);
+          break;
+
+        default:
+          break;
+      }
+    }
+
+    boolean resources = reader
+        .findDirectoryFileOffset(OptionalHeaderField.RESOURCE_TABLE) != RvaResolver.UNMAPPED;
+
+    if(Objects.isNull(exports)) {
+      return new RawImage(header.getByteOrder(), header.getBytes(), optionalHeader.getBytes(),
+          sections.toByteArray(), null, null, null, null, imports, delayImports, boundImports,
+          resources);
+    }
+
+    return new RawImage(header.getByteOrder(), header.getBytes(), optionalHeader.getBytes(),
+        sections.toByteArray(), exports.getHeader().getBytes(), exports.getFileName(),
+        exports.getExports(), exports.getAddressTable(), imports, delayImports, boundImports,
+        resources);
+  }
+
+  /**
+   * Build a {@link PEFile} from the raw image data. The file has no resources. See
+   * {@link #toPEFile(RawImage, Path)}.
+   *
+   * @param image The raw image.
+   * @return The file.
+   */
+  public static PEFile toPEFile(RawImage image) {
+    return toPEFile(image, null);
+  }
+
+  /**
+   * Build a {@link PEFile} from the raw image data. If the image has a resource directory, the
+   * resources are supplied lazily: the file at the path is mapped on the first call to
+   * {@link PEFile#getResources()}, as it is for a file built with
+   * {@link PEFileBuilder#build(Path)}.
+   *
+   * @param image The raw image.
+   * @param path The path of a file with the content of the image, or {@code null} if the file is
+   *        to have no resources.
+   * @return The file.
+   */
+  public static PEFile toPEFile(RawImage image, Path path) {
+    ByteOrder order = image.getByteOrder();
+    SectionTableBuffer sections =
+        new SectionTableBuffer(new ByteOrderBuffer(image.getSectionTable(), order),
+            image.getSectionTable().length / SECTION_SIZE, SECTION_SIZE);
+    PEExports exports = null;
+
+    if(image.hasExports()) {
+      exports = new PEExports(new ByteOrderBuffer(image.getExportsHeader(), order),
+          image.getExportsFileName(), image.getExports(), image.getExportAddressTable());
+    }
+
+    // @formatter:off
+    PEFile.PEFileBuilder builder = PEFile.builder()
+        .header(new PEHeader(new ByteOrderBuffer(image.getHeader(), order)))
+        .optionalHeader(OptionalHeaderFactory.createOptionalHeader(
+            new ByteOrderBuffer(image.getOptionalHeader(), order)))
+        .sectionTable(new PESectionTable(sections))
+        .exports(exports)
+        .imports(image.getImports())
+        .delayImports(image.getDelayImports())
+        .boundImports(image.getBoundImports());
+    // @formatter:on
+
+    if(image.hasResources() && Objects.nonNull(path)) {
+      builder.resources(() -> PEFileBuilder.resources(path));
+    }
+
+    return builder.build();
+  }
+
+  /**
+   * Encode the raw image data.
+   *
+   * @param image The raw image.
+   * @return The encoded data.
+   */
+  public static byte[] encode(RawImage image) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+    try(DataOutputStream out = new DataOutputStream(bytes)) {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeBoolean(image.getByteOrder() == ByteOrder.BIG_ENDIAN);
+      writeBytes(out, image.getHeader());
+      writeBytes(out, image.getOptionalHeader());
+      writeBytes(out, image.getSectionTable());
+      out.writeBoolean(image.hasExports());
+
+      if(image.hasExports()) {
+        writeBytes(out, image.getExportsHeader());
+        out.writeUTF(image.getExportsFileName());
+        out.writeInt(image.getExports().size());
+
+        for(Export export : image.getExports()) {
+          out.writeUTF(export.getName());
+          out.writeInt(export.getOrdinal());
+        }
+
+        writeAddressTable(out, image.getExportAddressTable());
+      }
+
+      out.writeBoolean(image.hasImports());
+
+      if(image.hasImports()) {
+        writeImports(out, image.getImports());
+      }
+
+      out.writeBoolean(image.hasDelayImports());
+
+      if(image.hasDelayImports()) {
+        writeDelayImports(out, image.getDelayImports());
+      }
+
+      out.writeBoolean(image.hasBoundImports());
+
+      if(image.hasBoundImports()) {
+        writeBoundImports(out, image.getBoundImports());
+      }
+
+      out.writeBoolean(image.hasResources());
+    }
+    catch(IOException e) {
+      throw new PEFileException("Unable to encode the image", e);
+    }
+
+    return bytes.toByteArray();
+  }
+
+  /**
+   * Decode raw image data.
+   *
+   * @param data The encoded data.
+   * @return The raw image.
+   * @throws PEFileException thrown if the data is not a valid encoding of the current
+   *         {@link #VERSION}.
+   */
+  public static RawImage decode(byte[] data) {
+    try(DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+      if(in.readInt() != MAGIC || in.readInt() != VERSION) {
+        throw new PEFileException("The data is not an encoded image of version " + VERSION);
+      }
+
+      ByteOrder order = in.readBoolean() ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN;
+      byte[] header = readBytes(in);
+      byte[] optionalHeader = readBytes(in);
+      byte[] sectionTable = readBytes(in);
+
+      byte[] exportsHeader = null;
+      String fileName = null;
+      Set<Export> exports = null;
+      ExportAddressTable addressTable = null;
+
+      if(in.readBoolean()) {
+        exportsHeader = readBytes(in);
+        fileName = in.readUTF();
+        int count = in.readInt();
+        exports = new TreeSet<>();
+
+        for(int pos = 0; pos < count; pos++) {
+          exports.add(new Export(in.readUTF(), in.readInt()));
+        }
+
+        addressTable = readAddressTable(in);
+      }
+
+      PEImports imports = in.readBoolean() ? readImports(in) : null;
+      PEDelayImports delayImports = in.readBoolean() ? readDelayImports(in) : null;
+      PEBoundImports boundImports = in.readBoolean() ? readBoundImports(in) : null;
+      boolean resources = in.readBoolean();
+
+      return new RawImage(order, header, optionalHeader, sectionTable, exportsHeader, fileName,
+          exports, addressTable, imports, delayImports, boundImports, resources);
+    }
+    catch(IOException e) {
+      throw new PEFileException("The encoded image is truncated or corrupt", e);
+    }
+  }
+
+  /**
+   * The directories are read in file order, as
+   * {@link com.goosebumpdesigns.pe.builder.PEFileBuilder} reads them, so that a source that can
+   * only be read forward can supply all of them.
+   *
+   * @param reader
+   * @return
+   */
+  private static List<OptionalHeaderField> inFileOrder(PEFileReader reader) {
+    List<OptionalHeaderField> directories = new ArrayList<>(DIRECTORIES);
+    directories.sort(Comparator.comparingLong(reader::findDirectoryFileOffset));
+
+    return directories;
+  }
+
+  /**
+   * @param reader
+   * @return The imports, or {@code null} if the file has no import directory.
+   */
+  private static PEImports readImports(PEFileReader reader) {
+    List<ImportedLibrary> libraries = reader.readImports();
+    return Objects.isNull(libraries) ? null : new PEImports(libraries);
+  }
+
+  /**
+   * @param reader
+   * @return The delay-load imports, or {@code null} if the file has no delay-load import directory.
+   */
+  private static PEDelayImports readDelayImports(PEFileReader reader) {
+    List<DelayImportedLibrary> libraries = reader.readDelayImports();
+    return Objects.isNull(libraries) ? null : new PEDelayImports(libraries);
+  }
+
+  /**
+   * @param reader
+   * @return The bound imports, or {@code null} if the file has no bound import directory.
+   */
+  private static PEBoundImports readBoundImports(PEFileReader reader) {
+    List<BoundImport> libraries = reader.readBoundImports();
+    return Objects.isNull(libraries) ? null : new PEBoundImports(libraries);
+  }
+
+  /**
+   * Write the imports: for each library its name, time stamp, forwarder chain and functions.
+   *
+   * @param out The output.
+   * @param imports The imports.
+   * @throws IOException thrown if the imports cannot be written.
+   */
+  private static void writeImports(DataOutputStream out, PEImports imports) throws IOException {
+    out.writeInt(imports.getLibraries().size());
+
+    for(ImportedLibrary library : imports.getLibraries()) {
+      out.writeUTF(library.getName());
+      out.writeLong(library.getTimestamp());
+      out.writeLong(library.getForwarderChain());
+      writeFunctions(out, library.getFunctions());
+    }
+  }
+
+  /**
+   * @param in
+   * @return
+   * @throws IOException
+   */
+  private static PEImports readImports(DataInputStream in) throws IOException {
+    int count = readCount(in);
+    List<ImportedLibrary> libraries = new ArrayList<>(count);
+
+    for(int pos = 0; pos < count; pos++) {
+      String name = in.readUTF();
+      long timestamp = in.readLong();
+      long forwarderChain = in.readLong();
+      libraries.add(new ImportedLibrary(name, timestamp, forwarderChain, readFunctions(in)));
+    }
+
+    return new PEImports(libraries);
+  }
+
+  /**
+   * Write the delay-load imports: for each library its name, whether it is RVA-based, its table
+   * addresses, its time stamp and its functions.
+   *
+   * @param out The output.
+   * @param imports The delay-load imports.
+   * @throws IOException thrown if the imports cannot be written.
+   */
+  private static void writeDelayImports(DataOutputStream out, PEDelayImports imports)
+      throws IOException {
+    out.writeInt(imports.getLibraries().size());
+
+    for(DelayImportedLibrary library : imports.getLibraries()) {
+      out.writeUTF(library.getName());
+      out.writeBoolean(library.isRvaBased());
+      out.writeLong(library.getModuleHandleRva());
+      out.writeLong(library.getAddressTableRva());
+      out.writeLong(library.getNameTableRva());
+      out.writeLong(library.getBoundAddressTableRva());
+      out.writeLong(library.getUnloadInformationTableRva());
+      out.writeLong(library.getTimestamp());
+      writeFunctions(out, library.getFunctions());
+    }
+  }
+
+  /**
+   * @param in
+   * @return
+   * @throws IOException
+   */
+  private static PEDelayImports readDelayImports(DataInputStream in) throws IOException {
+    int count = readCount(in);
+    List<DelayImportedLibrary> libraries = new ArrayList<>(count);
+
+    for(int pos = 0; pos < count; pos++) {
+      // @formatter:off
+      libraries.add(new DelayImportedLibrary(
+          in.readUTF(),
+          in.readBoolean(),
+          in.readLong(),
+          in.readLong(),
+          in.readLong(),
+          in.readLong(),
+          in.readLong(),
+          in.readLong(),
+          readFunctions(in)));
+      // @formatter:on
+    }
+
+    return new PEDelayImports(libraries);
+  }
+
+  /**
+   * Write the bound imports: for each library its name, time stamp and forwarders.
+   *
+   * @param out The output.
+   * @param imports The bound imports.
+   * @throws IOException thrown if the imports cannot be written.
+   */
+  private static void writeBoundImports(DataOutputStream out, PEBoundImports imports)
+      throws IOException {
+    out.writeInt(imports.getLibraries().size());
+
+    for(BoundImport library : imports.getLibraries()) {
+      out.writeUTF(library.getName());
+      out.writeLong(library.getTimestamp());
+      out.writeInt(library.getForwarders().size());
+
+      for(BoundImport forwarder : library.getForwarders()) {
+        out.writeUTF(forwarder.getName());
+        out.writeLong(forwarder.getTimestamp());
+      }
+    }
+  }
+
+  /**
+   * @param in
+   * @return
+   * @throws IOException
+   */
+  private static PEBoundImports readBoundImports(DataInputStream in) throws IOException {
+    int count = readCount(in);
+    List<BoundImport> libraries = new ArrayList<>(count);
+
+    for(int pos = 0; pos < count; pos++) {
+      String name = in.readUTF();
+      long timestamp = in.readLong();
+      int forwarderCount = readCount(in);
+      List<BoundImport> forwarders = new ArrayList<>(forwarderCount);
+
+      for(int index = 0; index < forwarderCount; index++) {
+        forwarders.add(new BoundImport(in.readUTF(), in.readLong(), Collections.emptyList()));
+      }
+
+      libraries.add(new BoundImport(name, timestamp, Collections.unmodifiableList(forwarders)));
+    }
+
+    return new PEBoundImports(libraries);
+  }
+
+  /**
+   * @param out
+   * @param functions
+   * @throws IOException
+   */
+  private static void writeFunctions(DataOutputStream out, List<ImportedFunction> functions)
+      throws IOException {
+    out.writeInt(functions.size());
+
+    for(ImportedFunction function : functions) {
+      out.writeBoolean(function.isByOrdinal());
+
+      if(function.isByOrdinal()) {
+        out.writeInt(function.getOrdinal());
+      }
+      else {
+        out.writeUTF(function.getName());
+        out.writeInt(function.getHint());
+      }
+
+      out.writeLong(function.getAddressTableRva());
+    }
+  }
+
+  /**
+   * @param in
+   * @return
+   * @throws IOException
+   */
+  private static List<ImportedFunction> readFunctions(DataInputStream in) throws IOException {
+    int count = readCount(in);
+    List<ImportedFunction> functions = new ArrayList<>(count);
+
+    for(int index = 0; index < count; index++) {
+      if(in.readBoolean()) {
+        functions.add(new ImportedFunction(null, 0, in.readInt(), in.readLong()));
+      }
+      else {
+        functions.add(new ImportedFunction(in.readUTF(), in.readInt(), 0, in.readLong()));
+      }
+    }
+
+    return Collections.unmodifiableList(functions);
+  }
+
+  /**
+   * Read a count and make sure that it is not larger than the remaining data, so that a corrupt
+   * count cannot cause a huge allocation.
+   *
+   * @param in
+   * @return
+   * @throws IOException
+   */
+  private static int readCount(DataInputStream in) throws IOException {
+    int count = in.readInt();
+
+    if(count < 0 || count > in.available()) {
+      throw new IOException("Invalid count " + count);
+    }
+
+    return count;
+  }
+
+  /**
+   * Write the export address table: the entries, the export directory address and size, and the
+   * export directory bytes if the table has forwarders.
+   *
+   * @param out The output.
+   * @param table The table.
+   * @throws IOException thrown if the table cannot be written.
+   */
+  private static void writeAddressTable(DataOutputStream out, ExportAddressTable table)
+      throws IOException {
+    out.writeInt(table.size());
+
+    for(int index = 0; index < table.size(); index++) {
+      out.writeInt((int)table.getAddress(index));
+    }
+
+    out.writeLong(table.getDirectoryAddress());
+    out.writeLong(table.getDirectorySize());
+    out.writeBoolean(Objects.nonNull(table.getDirectoryData()));
+
+    if(Objects.nonNull(table.getDirectoryData())) {
+      writeBytes(out, table.getDirectoryData());
+    }
+  }
+
+  /**
+   * @param in
+   * @return
+   * @throws IOException
+   */
+  private static ExportAddressTable readAddressTable(DataInputStream in) throws IOException {
+    int size = in.readInt();
+
+    if(size < 0 || (long)size * Integer.BYTES > in.available()) {
+      throw new IOException("Invalid export address table size " + size);
+    }
+
+    int[] addresses = new int[size];
+
+    for(int index = 0; index < size; index++) {
+      addresses[index] = in.readInt();
+    }
+
+    long directoryAddress = in.readLong();
+    long directorySize = in.readLong();
+    byte[] directoryData = in.readBoolean() ? readBytes(in) : null;
+
+    return new ExportAddressTable(addresses, directoryAddress, directorySize, directoryData);
+  }
+
+  /**
+   * @param out
+   * @param bytes
+   * @throws IOException
+   */
+  private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  /**
+   * @param in
+   * @return
+   * @throws IOException
+   */
+  private static byte[] readBytes(DataInputStream in) throws IOException {
+    int length = in.readInt();
+
+    if(length < 0 || length > in.available()) {
+      throw new IOException("Invalid length " + length);
+    }
+
+    return in.readNBytes(length);
+  }
+}
@@ -0,0 +1,369 @@
+// Copyright (c) 2023 Goosebump Designs LLC
+
+package com.goosebumpdesigns.pe.cache;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import com.goosebumpdesigns.pe.PEFile;
+import com.goosebumpdesigns.pe.exception.PEException;
+import com.goosebumpdesigns.pe.exception.PEFileException;
+import com.goosebumpdesigns.pe.file.PEFileReader;
+import com.goosebumpdesigns.pe.file.ReadMode;
+import com.goosebumpdesigns.pe.cache.PEFileCodec.RawImage;
+
+/**
+ * This is a cache of parsed files that is stored in a directory, so that it survives a restart of
+ * the process. Each parsed file is stored once, under its {@link ContentHash}, in the encoding of
+ * {@link PEFileCodec}. An index maps each {@link FileIdentity} that has been seen to the hash of
+ * its contents, so an unchanged file is found without reading it.
+ *
+ * Entries are invalidated automatically:
+ * <ul>
+ * <li>If a file changes, its identity (size or modification time) changes. The file is hashed and,
+ * unless the new contents are already in the cache, parsed again.</li>
+ * <li>The cache is stored in a subdirectory named for {@link PEFileCodec#VERSION}, so entries
+ * written with another version of the encoding are never read. Old version directories can be
+ * deleted.</li>
+ * <li>An entry that cannot be decoded is deleted and the file is parsed again.</li>
+ * </ul>
+ *
+ * The layout of the directory is:
+ *
+ * <pre>
+ * v&lt;VERSION&gt;/index               one line per file identity: the identity key and the hash
+ * v&lt;VERSION&gt;/entries/ab/ab....pec  the encoded files, by content hash
+ * </pre>
+ *
+ * The index is only appended to while the cache is open. When the cache is opened, the index is
+ * compacted: it is rewritten with one line per identity if it has replaced or incomplete lines, and
+ * entries (and temporary files left by a crash) that no index line refers to are deleted. A cache
+ * directory must therefore not be open in more than one cache at a time.
+ *
+ * The cache is safe for concurrent use. Entries are written to a temporary file and moved into
+ * place, so a crash never leaves a partial entry. Two threads that miss on the same file may both
+ * parse it; the result is the same. Close the cache to close the index.
+ */
+public class PersistentPEFileCache implements AutoCloseable {
+  private static final String INDEX = "index";
+  private static final String ENTRIES = "entries";
+  private static final String ENTRY_SUFFIX = ".pec";
+  private static final String SEPARATOR = " ";
+
+  private final Path directory;
+  private final ReadMode readMode;
+  private final Map<String, String> index = new ConcurrentHashMap<>();
+  private final BufferedWriter indexWriter;
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+
+  /**
+   * Open (or create) a cache in the given directory. Files are parsed with
+   * {@link ReadMode#RANDOM_ACCESS}.
+   *
+   * @param directory The cache directory.
+   * @throws PEFileException thrown if the directory cannot be created or the index cannot be read.
+   */
+  public PersistentPEFileCache(Path directory) {
+    this(directory, ReadMode.RANDOM_ACCESS);
+  }
+
+  /**
+   * Open (or create) a cache in the given directory.
+   *
+   * @param directory The cache directory.
+   * @param readMode The read mode used to parse files that are not in the cache.
+   * @throws PEFileException thrown if the directory cannot be created or the index cannot be read.
+   */
+  public PersistentPEFileCache(Path directory, ReadMode readMode) {
+    this.directory = directory.resolve("v" + PEFileCodec.VERSION);
+    this.readMode = readMode;
+
+    try {
+      Files.createDirectories(this.directory.resolve(ENTRIES));
+
+      if(loadIndex() > index.size()) {
+        writeIndex();
+      }
+
+      deleteUnreferencedEntries();
+      this.indexWriter = Files.newBufferedWriter(this.directory.resolve(INDEX),
+          StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+    catch(IOException e) {
+      throw new PEFileException("Unable to open the cache in " + directory, e);
+    }
+  }
+
+  /**
+   * Return the parsed file from the cache, or parse it and add it to the cache. The resources are
+   * not stored in the cache. If the file has a resource directory, the file at the path is mapped
+   * the first time {@link PEFile#getResources()} is called, as it is for a file returned by
+   * {@link com.goosebumpdesigns.pe.builder.PEFileBuilder#build(Path)}.
+   *
+   * @param path The path of the file.
+   * @return The parsed file.
+   * @throws PEException thrown if the file cannot be parsed.
+   */
+  public PEFile get(Path path) {
+    String identityKey = identityKey(FileIdentity.of(path));
+    String hash = index.get(identityKey);
+
+    if(Objects.nonNull(hash)) {
+      PEFile file = load(hash, path);
+
+      if(Objects.nonNull(file)) {
+        hits.incrementAndGet();
+        return file;
+      }
+    }
+
+    hash = ContentHash.of(path).getValue();
+    PEFile file = load(hash, path);
+
+    if(Objects.nonNull(file)) {
+      hits.incrementAndGet();
+      record(identityKey, hash);
+      return file;
+    }
+
+    misses.incrementAndGet();
+
+    RawImage image;
+
+    try(PEFileReader reader = new PEFileReader(path, readMode)) {
+      image = PEFileCodec.read(reader);
+    }
+
+    store(hash, PEFileCodec.encode(image));
+    record(identityKey, hash);
+
+    return PEFileCodec.toPEFile(image, path);
+  }
+
+  /**
+   * @return The number of requests that were answered from the cache.
+   */
+  public long getHits() {
+    return hits.get();
+  }
+
+  /**
+   * @return The number of requests that required the file to be parsed.
+   */
+  public long getMisses() {
+    return misses.get();
+  }
+
+  /**
+   * Close the index.
+   *
+   * @throws PEFileException thrown if the index cannot be closed.
+   */
+  @Override
+  public void close() {
+    synchronized(indexWriter) {
+      try {
+        indexWriter.close();
+      }
+      catch(IOException e) {
+        throw new PEFileException("Unable to close the cache index in " + directory, e);
+      }
+    }
+  }
+
+  /**
+   * Read the index. Later lines replace earlier lines for the same identity. Lines that are not
+   * complete (from a crash during a write) are ignored.
+   *
+   * @return The number of lines in the index.
+   * @throws IOException thrown if the index cannot be read.
+   */
+  private int loadIndex() throws IOException {
+    int lines = 0;
+
+    try(BufferedReader reader =
+        Files.newBufferedReader(directory.resolve(INDEX), StandardCharsets.UTF_8)) {
+      String line;
+
+      while(Objects.nonNull(line = reader.readLine())) {
+        String[] fields = line.split(SEPARATOR);
+        lines++;
+
+        if(fields.length == 2) {
+          index.put(fields[0], fields[1]);
+        }
+      }
+    }
+    catch(NoSuchFileException e) {
+      // A new cache has no index.
+    }
+
+    return lines;
+  }
+
+  /**
+   * Replace the index with one line for each identity. The new index is written to a temporary
+   * file and moved into place, so a crash leaves either the old or the new index.
+   *
+   * @throws IOException thrown if the index cannot be written.
+   */
+  private void writeIndex() throws IOException {
+    Path temp = Files.createTempFile(directory, INDEX, ".tmp");
+
+    try(BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+      for(Map.Entry<String, String> line : index.entrySet()) {
+        writer.write(line.getKey() + SEPARATOR + line.getValue());
+        writer.newLine();
+      }
+    }
+
+    Files.move(temp, directory.resolve(INDEX), StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /**
+   * Delete the entries that no index line refers to: entries whose identities were replaced, and
+   * entries (or temporary files) written just before a crash.
+   *
+   * @throws IOException thrown if the entries cannot be listed.
+   */
+  private void deleteUnreferencedEntries() throws IOException {
+    Set<String> live = new HashSet<>(index.values());
+
+    try(Stream<Path> files = Files.walk(directory.resolve(ENTRIES), 2)) {
+      // @formatter:off
+      files
+          .filter(Files::isRegularFile)
+          .filter(file -> !live.contains(hashOf(file)))
+          .forEach(this::delete);
+      // @formatter:on
+    }
+  }
+
+  /**
+   * Add an identity to the index if it is not already there with the same hash.
+   *
+   * @param identityKey The identity key.
+   * @param hash The content hash.
+   */
+  private void record(String identityKey, String hash) {
+    if(hash.equals(index.put(identityKey, hash))) {
+      return;
+    }
+
+    synchronized(indexWriter) {
+      try {
+        indexWriter.write(identityKey + SEPARATOR + hash);
+        indexWriter.newLine();
+        indexWriter.flush();
+      }
+      catch(IOException e) {
+        throw new PEFileException("Unable to write the cache index in " + directory, e);
+      }
+    }
+  }
+
+  /**
+   * Load and decode an entry.
+   *
+   * @param hash The content hash.
+   * @param path The path of the file, which supplies the resources.
+   * @return The file, or {@code null} if there is no valid entry.
+   */
+  private PEFile load(String hash, Path path) {
+    Path entry = entryPath(hash);
+
+    try {
+      return PEFileCodec.toPEFile(PEFileCodec.decode(Files.readAllBytes(entry)), path);
+    }
+    catch(NoSuchFileException e) {
+      return null;
+    }
+    catch(IOException | PEException e) {
+      delete(entry);
+      return null;
+    }
+  }
+
+  /**
+   * Write an entry to a temporary file and move it into place.
+   *
+   * @param hash The content hash.
+   * @param data The encoded file.
+   */
+  private void store(String hash, byte[] data) {
+    Path entry = entryPath(hash);
+
+    try {
+      Files.createDirectories(entry.getParent());
+
+      Path temp = Files.createTempFile(entry.getParent(), hash, ".tmp");
+      Files.write(temp, data);
+      Files.move(temp, entry, StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    }
+    catch(IOException e) {
+      throw new PEFileException("Unable to write cache entry " + entry, e);
+    }
+  }
+
+  /**
+   * @param entry
+   */
+  private void delete(Path entry) {
+    try {
+      Files.deleteIfExists(entry);
+    }
+    catch(IOException e) {
+      // The entry is read again next time and replaced when the file is parsed.
+    }
+  }
+
+  /**
+   * @param hash
+   * @return
+   */
+  private Path entryPath(String hash) {
+    return directory.resolve(ENTRIES).resolve(hash.substring(0, 2)).resolve(hash + ENTRY_SUFFIX);
+  }
+
+  /**
+   * @param entry
+   * @return The content hash of an entry file, or {@code null} if the file is not an entry.
+   */
+  private static String hashOf(Path entry) {
+    String name = entry.getFileName().toString();
+
+    return name.endsWith(ENTRY_SUFFIX) ? name.substring(0, name.length() - ENTRY_SUFFIX.length())
+        : null;
+  }
+
+  /**
+   * The identity key is a hash of the identity, so that it is safe to store in the index whatever
+   * characters the path contains.
+   *
+   * @param identity The file identity.
+   * @return The key.
+   */
+  private String identityKey(FileIdentity identity) {
+    String text = identity.getFileKey() + "|" + identity.getPath() + "|" + identity.getSize() + "|"
+        + identity.getModifiedNanos();
+
+    return ContentHash.of(ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8))).getValue();
+  }
+}
@@ -0,0 +1,147 @@
+// Copyright (c) 2023 Goosebump Designs LLC
+
+package com.goosebumpdesigns.pe.cache;
+
+import java.util.Objects;
+import com.goosebumpdesigns.pe.PEBoundImports;
+import com.goosebumpdesigns.pe.PEDelayImports;
+import com.goosebumpdesigns.pe.PEExports;
+import com.goosebumpdesigns.pe.PEFile;
+import com.goosebumpdesigns.pe.PEImports;
+import com.goosebumpdesigns.pe.model.BoundImport;
+import com.goosebumpdesigns.pe.model.DelayImportedLibrary;
+import com.goosebumpdesigns.pe.model.Export;
+import com.goosebumpdesigns.pe.model.ExportAddressTable;
+import com.goosebumpdesigns.pe.model.ImportedLibrary;
+
+/**
+ * This estimates the heap retained by a {@link PEFile}. The figures are approximate sizes of the
+ * objects on a 64-bit JVM with compressed references. They only need to be good enough to bound the
+ * memory used by a cache.
+ */
+final class SizeEstimator {
+  private static final long FILE = 64;
+  private static final long HEADER = 160;
+  private static final long OPTIONAL_HEADER = 1600;
+  private static final long SECTION = 320;
+  private static final long EXPORTS = 240;
+  private static final long EXPORT = 104;
+  private static final long IMPORTS = 48;
+  private static final long LIBRARY = 96;
+  private static final long FUNCTION = 48;
+  private static final long DELAY_LIBRARY = 128;
+  private static final long BOUND_LIBRARY = 56;
+  private static final long RESOURCES = 96;
+
+  private SizeEstimator() {}
+
+  /**
+   * Estimate the retained size of a file. Exports and import directories that have not been loaded
+   * yet are not counted. Interned names are shared with other files, so they are not counted
+   * either. Resources are a view of the image, which is only counted if it is on the heap.
+   *
+   * @param file The file.
+   * @return The estimated size in bytes.
+   */
+  static long estimate(PEFile file) {
+    long size = FILE;
+
+    if(Objects.nonNull(file.getHeader())) {
+      size += HEADER;
+    }
+
+    if(Objects.nonNull(file.getOptionalHeader())) {
+      size += OPTIONAL_HEADER;
+    }
+
+    if(Objects.nonNull(file.getSectionTable())) {
+      size += SECTION * file.getSectionTable().size();
+    }
+
+    if(file.isExportsLoaded() && Objects.nonNull(file.getExports())) {
+      size += estimate(file.getExports());
+    }
+
+    if(file.isImportsLoaded() && Objects.nonNull(file.getImports())) {
+      size += estimate(file.getImports());
+    }
+
+    if(file.isDelayImportsLoaded() && Objects.nonNull(file.getDelayImports())) {
+      size += estimate(file.getDelayImports());
+    }
+
+    if(file.isBoundImportsLoaded() && Objects.nonNull(file.getBoundImports())) {
+      size += estimate(file.getBoundImports());
+    }
+
+    if(file.isResourcesLoaded() && Objects.nonNull(file.getResources())) {
+      size += RESOURCES + file.getResources().getHeapSize();
+    }
+
+    return size;
+  }
+
+  /**
+   * @param imports
+   * @return
+   */
+  private static long estimate(PEImports imports) {
+    long size = IMPORTS;
+
+    for(ImportedLibrary library : imports.getLibraries()) {
+      size += LIBRARY + FUNCTION * library.getFunctions().size();
+    }
+
+    return size;
+  }
+
+  /**
+   * @param imports
+   * @return
+   */
+  private static long estimate(PEDelayImports imports) {
+    long size = IMPORTS;
+
+    for(DelayImportedLibrary library : imports.getLibraries()) {
+      size += DELAY_LIBRARY + FUNCTION * library.getFunctions().size();
+    }
+
+    return size;
+  }
+
+  /**
+   * @param imports
+   * @return
+   */
+  private static long estimate(PEBoundImports imports) {
+    long size = IMPORTS;
+
+    for(BoundImport library : imports.getLibraries()) {
+      size += BOUND_LIBRARY * (1 + library.getForwarders().size());
+    }
+
+    return size;
+  }
+
+  /**
+   * @param exports
+   * @return
+   */
+  private static long estimate(PEExports exports) {
+    long size = EXPORTS;
+
+    for(Export export : exports.getExports()) {
+      size += EXPORT + export.getName().length();
+    }
+
+    ExportAddressTable table = exports.getAddressTable();
+
+    size += (long)Integer.BYTES * table.size();
+
+    if(Objects.nonNull(table.getDirectoryData())) {
+      size += (long)table.getDirectoryData().length + (long)Long.BYTES * table.size();
+    }
+
+    return size;
+  }
+}
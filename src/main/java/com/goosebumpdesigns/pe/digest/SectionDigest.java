@@ -0,0 +1,46 @@
+// Copyright (c) 2023 Goosebump Designs LLC
+
+package com.goosebumpdesigns.pe.digest;
+
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Objects;
+import lombok.Value;
+
+/**
+ * These are the digests of the raw data of one section, by algorithm name (like "SHA-256"). The
+ * digests are held as lower-case hex, so two digests of the same data are equal.
+ */
+@Value
+public class SectionDigest {
+  /** The position of the section in the section table. */
+  private int index;
+
+  private String name;
+
+  /** The file offset of the hashed data. */
+  private long offset;
+
+  /** The number of bytes hashed. This is less than the raw data size if the file is truncated. */
+  private long size;
+
+  /** The digests as lower-case hex, by algorithm name. */
+  private Map<String, String> digests;
+
+  /**
+   * @param algorithm The algorithm name.
+   * @return The digest, or {@code null} if the algorithm was not used.
+   */
+  public byte[] getDigest(String algorithm) {
+    String digest = digests.get(algorithm);
+    return Objects.isNull(digest) ? null : HexFormat.of().parseHex(digest);
+  }
+
+  /**
+   * @param algorithm The algorithm name.
+   * @return The digest as lower-case hex, or {@code null} if the algorithm was not used.
+   */
+  public String getHex(String algorithm) {
+    return digests.get(algorithm);
+  }
+}
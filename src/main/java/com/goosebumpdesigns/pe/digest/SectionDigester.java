@@ -0,0 +1,167 @@
+// Copyright (c) 2023 Goosebump Designs LLC
+
+package com.goosebumpdesigns.pe.digest;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import com.goosebumpdesigns.pe.PESection;
+import com.goosebumpdesigns.pe.exception.PEException;
+import com.goosebumpdesigns.pe.file.MemorySource;
+import com.goosebumpdesigns.pe.file.PEFileReader;
+import com.goosebumpdesigns.pe.file.ReadMode;
+import lombok.Builder;
+import lombok.Singular;
+
+/**
+ * This computes digests of the raw data of every section of a file, so that sections can be
+ * compared across files without reading the files again. Each (section, algorithm) pair is hashed
+ * as its own task on a {@link ForkJoinPool}, so the sections of a large file, and the algorithms
+ * for each section, are hashed on all cores at once. Files are memory-mapped and every task reads its
+ * section from the shared mapping, so no section data is copied onto the heap.
+ *
+ * A single digest cannot be split across threads, so the time to hash a file is bounded by its
+ * largest section. Create the digester with the builder:
+ *
+ * <pre>
+ * SectionDigester digester = SectionDigester.builder()
+ *     .algorithm("SHA-256")
+ *     .algorithm("SHA-1")
+ *     .build();
+ *
+ * Map&lt;Integer, SectionDigest&gt; digests = digester.digest(path);
+ * String textHash = digests.get(0).getHex("SHA-256");
+ * </pre>
+ *
+ * A digester is safe for concurrent use.
+ */
+public class SectionDigester {
+  /** The algorithm used if none is given. */
+  public static final String DEFAULT_ALGORITHM = "SHA-256";
+
+  private final List<String> algorithms;
+  private final ForkJoinPool pool;
+
+  /**
+   * Create a digester. Use {@link #builder()} to call this.
+   *
+   * @param algorithms The names of the {@link MessageDigest} algorithms. The default is
+   *        {@value #DEFAULT_ALGORITHM}.
+   * @param pool The pool that runs the tasks. The default is the common pool.
+   * @throws IllegalArgumentException thrown if an algorithm is not available.
+   */
+  @Builder
+  private SectionDigester(@Singular List<String> algorithms, ForkJoinPool pool) {
+    this.algorithms = algorithms.isEmpty() ? List.of(DEFAULT_ALGORITHM) : List.copyOf(algorithms);
+    this.pool = Objects.requireNonNullElseGet(pool, ForkJoinPool::commonPool);
+
+    for(String algorithm : this.algorithms) {
+      newDigest(algorithm);
+    }
+  }
+
+  /**
+   * Digest the sections of a file. The file is memory-mapped.
+   *
+   * @param path The path of the file.
+   * @return The digests by section index, in section table order.
+   * @throws PEException thrown if the file cannot be read.
+   */
+  public Map<Integer, SectionDigest> digest(Path path) {
+    try(PEFileReader reader = new PEFileReader(path, ReadMode.MEMORY_MAPPED)) {
+      return digest(reader);
+    }
+  }
+
+  /**
+   * Digest the sections of an image in memory.
+   *
+   * @param image The image.
+   * @return The digests by section index, in section table order.
+   * @throws PEException thrown if the image cannot be read.
+   */
+  public Map<Integer, SectionDigest> digest(byte[] image) {
+    try(PEFileReader reader = new PEFileReader(new MemorySource(image))) {
+      return digest(reader);
+    }
+  }
+
+  /**
+   * Digest the sections of an open reader. If the reader is not in memory, the data of each section
+   * is read onto the heap before it is hashed.
+   *
+   * @param reader The reader.
+   * @return The digests by section index, in section table order.
+   * @throws PEException thrown if the section data cannot be read.
+   */
+  public Map<Integer, SectionDigest> digest(PEFileReader reader) {
+    List<PESection> sections = reader.getSections();
+    List<ByteBuffer> data = new ArrayList<>(sections.size());
+    List<ForkJoinTask<byte[]>> tasks = new ArrayList<>(sections.size() * algorithms.size());
+
+    for(PESection section : sections) {
+      ByteBuffer sectionData = reader.readSectionData(section);
+
+      data.add(sectionData);
+
+      for(String algorithm : algorithms) {
+        tasks.add(pool.submit(() -> hash(algorithm, sectionData)));
+      }
+    }
+
+    Map<Integer, SectionDigest> digests = new TreeMap<>();
+    int task = 0;
+
+    for(int pos = 0; pos < sections.size(); pos++) {
+      PESection section = sections.get(pos);
+      ByteBuffer sectionData = data.get(pos);
+      Map<String, String> sectionDigests = new LinkedHashMap<>();
+
+      for(String algorithm : algorithms) {
+        sectionDigests.put(algorithm, HexFormat.of().formatHex(tasks.get(task++).join()));
+      }
+
+      digests.put(section.getIndex(), new SectionDigest(section.getIndex(), section.getName(),
+          section.getRawDataPointer(), sectionData.remaining(),
+          Collections.unmodifiableMap(sectionDigests)));
+    }
+
+    return Collections.unmodifiableMap(digests);
+  }
+
+  /**
+   * @param algorithm
+   * @param data
+   * @return
+   */
+  private static byte[] hash(String algorithm, ByteBuffer data) {
+    MessageDigest digest = newDigest(algorithm);
+
+    digest.update(data.duplicate());
+    return digest.digest();
+  }
+
+  /**
+   * @param algorithm
+   * @return
+   */
+  private static MessageDigest newDigest(String algorithm) {
+    try {
+      return MessageDigest.getInstance(algorithm);
+    }
+    catch(NoSuchAlgorithmException e) {
+      throw new IllegalArgumentException(algorithm + " is not available", e);
+    }
+  }
+}
@@ -0,0 +1,196 @@
+// Copyright (c) 2023 Goosebump Designs LLC
+
+package com.goosebumpdesigns.pe.file;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.CompletionHandler;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import lombok.Getter;
+
+/**
+ * This source serves reads from ranges of a file that have been loaded with an
+ * {@link AsynchronousFileChannel}, so that a file can be parsed without blocking a thread on I/O.
+ * A read (or {@link #prefetch(long, long)}) of a range that has not been loaded throws a
+ * {@link RegionNotLoadedException} that names the range. The caller loads the range with
+ * {@link #load(long, long)} and, when the load completes, parses the file again. Each parse gets
+ * further, so the parse completes after one load for each dependent step: the header block, the
+ * section table (if it is not in the header block), and then each selected directory followed by
+ * the tables and names that it points to (the export names, the import lookup tables and their
+ * hint/name entries, and the delay-load import tables and names).
+ *
+ * The channel belongs to the caller and is not closed by this source. The loaded ranges are kept
+ * until the source is garbage collected, so the source can be closed by one parse and reused by
+ * the next.
+ */
+public class AsyncFileSource implements PESource {
+  /**
+   * The largest range that a prefetch asks to be loaded. Larger ranges are loaded as they are read.
+   */
+  public static final long MAX_PREFETCH = 64L * 1024 * 1024;
+
+  private final AsynchronousFileChannel channel;
+
+  @Getter
+  private final Path path;
+
+  private final long length;
+  private final SparseRegions regions = new SparseRegions();
+
+  /**
+   * This is thrown by a read of a range that has not been loaded. It is a signal to load the range
+   * and parse again, not an error, so it has no stack trace.
+   */
+  public static class RegionNotLoadedException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    @Getter
+    private final long offset;
+
+    @Getter
+    private final long length;
+
+    /**
+     * @param offset The offset of the range.
+     * @param length The length of the range.
+     */
+    RegionNotLoadedException(long offset, long length) {
+      super("Bytes " + offset + " to " + (offset + length) + " have not been loaded", null, false,
+          false);
+      this.offset = offset;
+      this.length = length;
+    }
+  }
+
+  /**
+   * Create a source for an open channel.
+   *
+   * @param channel The channel.
+   * @param path The path of the file.
+   * @throws IOException thrown if the size of the file cannot be read.
+   */
+  public AsyncFileSource(AsynchronousFileChannel channel, Path path) throws IOException {
+    this.channel = channel;
+    this.path = path;
+    this.length = channel.size();
+  }
+
+  @Override
+  public String getName() {
+    return path.toString();
+  }
+
+  @Override
+  public long length() {
+    return length;
+  }
+
+  /**
+   * Copy bytes from the loaded ranges.
+   *
+   * @throws RegionNotLoadedException thrown if part of the range has not been loaded.
+   */
+  @Override
+  public synchronized void read(long offset, byte[] buffer, int start, int length) {
+    long current = offset;
+    long end = offset + length;
+    int index = start;
+
+    while(current < end) {
+      int count = regions.copy(current, buffer, index, (int)(end - current));
+
+      if(count == 0) {
+        throw new RegionNotLoadedException(current, end - current);
+      }
+
+      current += count;
+      index += count;
+    }
+  }
+
+  /**
+   * Ask for a range to be loaded before it is read, so that it is loaded in one request rather
+   * than one request for each read. Ranges larger than {@link #MAX_PREFETCH} are ignored.
+   *
+   * @throws RegionNotLoadedException thrown if part of the range has not been loaded.
+   */
+  @Override
+  public synchronized void prefetch(long offset, long length) {
+    long end = Math.min(offset + length, this.length);
+
+    if(length <= 0 || offset < 0 || end - offset > MAX_PREFETCH) {
+      return;
+    }
+
+    long missing = regions.firstMissing(offset, end);
+
+    if(missing < end) {
+      throw new RegionNotLoadedException(missing, end - missing);
+    }
+  }
+
+  /**
+   * Load a range asynchronously. Parts of the range that are already loaded are not read again.
+   * The range is cut short at the end of the file.
+   *
+   * @param offset The offset of the range.
+   * @param length The length of the range.
+   * @return A future that completes when the first missing part of the range has been loaded. It
+   *         fails if there is nothing to load, because the range is past the end of the file or
+   *         has already been loaded.
+   */
+  public CompletableFuture<Void> load(long offset, long length) {
+    long start;
+    long end;
+
+    synchronized(this) {
+      start = regions.firstMissing(offset, Math.min(offset + length, this.length));
+      end = Math.min(Math.min(offset + length, this.length), regions.nextStart(start));
+    }
+
+    CompletableFuture<Void> loaded = new CompletableFuture<>();
+
+    if(start >= end) {
+      loaded.completeExceptionally(new EOFException("Offset " + offset + " is past the end of "
+          + path + " or has already been loaded"));
+      return loaded;
+    }
+
+    ByteBuffer buffer = ByteBuffer.allocate((int)Math.min(end - start, Integer.MAX_VALUE - 8));
+    channel.read(buffer, start, buffer, new CompletionHandler<Integer, ByteBuffer>() {
+      @Override
+      public void completed(Integer count, ByteBuffer data) {
+        if(count < 0) {
+          failed(new EOFException("Offset " + (start + data.position()) + " is past the end of "
+              + path), data);
+        }
+        else if(data.hasRemaining()) {
+          channel.read(data, start + data.position(), data, this);
+        }
+        else {
+          synchronized(AsyncFileSource.this) {
+            regions.put(start, data.array());
+          }
+
+          loaded.complete(null);
+        }
+      }
+
+      @Override
+      public void failed(Throwable error, ByteBuffer data) {
+        loaded.completeExceptionally(error);
+      }
+    });
+
+    return loaded;
+  }
+
+  /**
+   * The channel belongs to the caller, so there is nothing to do.
+   */
+  @Override
+  public void close() {}
+}
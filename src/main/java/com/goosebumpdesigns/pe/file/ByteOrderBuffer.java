@@ -2,13 +2,16 @@
 
 package com.goosebumpdesigns.pe.file;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.math.BigInteger;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
-import java.time.Instant;
+import java.nio.charset.Charset;
 import java.time.LocalDateTime;
-import java.time.ZoneId;
-import java.util.Arrays;
+import java.time.ZoneOffset;
+import java.util.Objects;
+import com.goosebumpdesigns.pe.model.Unsigned;
 import lombok.Getter;
 
 /**
@@ -16,9 +19,11 @@ import lombok.Getter;
  * little-endian). PE files are written by C/C++, which stores numeric values in little-endian
  * order. Java is big-endian. This class converts between the two methods.
  * 
- * I could have used a {@link ByteBuffer} to handle these operations but ByteBuffer isn't a simple
- * class. There is a lot of support for mapping physical file buffers to memory buffers, which is a
- * little beyond the scope of requirements. It's way overkill, so I wrote my own.
+ * A buffer is a byte-order-aware window (offset and length) over a shared {@link ByteBuffer}
+ * store. The store wraps a byte array or is a buffer supplied by the caller, such as a
+ * memory-mapped file. Calling {@link #slice(int, int)} returns a new window over the same store,
+ * so sub-buffers for sections, tables and directory entries don't copy any data. Only
+ * {@link #getBytes(int, int)} and {@link #getBytes()} copy data out of the store.
  * 
  * This class supports retrieving longs, ints, shorts, and bytes in a signed and unsigned manner in
  * either big-endian or little-endian ordered buffers.
@@ -26,23 +31,51 @@ import lombok.Getter;
  * This class also supports timestamps as the number of seconds since 1-Jan-1970 stored as an
  * unsigned int value.
  * 
+ * Primitive values are read straight from the backing store using {@link VarHandle} views in the
+ * byte order of the buffer. No temporary arrays are created and the bytes are not assembled one at
+ * a time.
+ * 
  * Because Java does not support unsigned values, this class returns unsigned values in the next
  * largest integer type. So, unsigned bytes are returned as shorts, unsigned shorts are returned as
- * ints, etc.
+ * ints, etc. There is no larger primitive than a long, so unsigned 64-bit values are returned
+ * either as the raw bits in a long (see {@link #getUnsignedLongBits(int)} and {@link Unsigned}) or
+ * as a {@link BigInteger}.
  */
 public class ByteOrderBuffer {
-  private static final String UTC_TIME_ZONE = "UTC";
+  // @formatter:off
+  private static final VarHandle SHORT_BE = view(short[].class, ByteOrder.BIG_ENDIAN);
+  private static final VarHandle SHORT_LE = view(short[].class, ByteOrder.LITTLE_ENDIAN);
+  private static final VarHandle INT_BE = view(int[].class, ByteOrder.BIG_ENDIAN);
+  private static final VarHandle INT_LE = view(int[].class, ByteOrder.LITTLE_ENDIAN);
+  private static final VarHandle LONG_BE = view(long[].class, ByteOrder.BIG_ENDIAN);
+  private static final VarHandle LONG_LE = view(long[].class, ByteOrder.LITTLE_ENDIAN);
+  // @formatter:on
+
+  private static final long LOW_BITS = 0x0101010101010101L;
+  private static final long HIGH_BITS = 0x8080808080808080L;
 
   /**
-   * We can't easily extend ByteBuffer as it's an abstract class with a BUNCH of abstract methods. A
-   * class we *could* use is java.nio.HeapByteBufferR, but it's a package-access class and it's too
-   * complex to reliably copy to another package.
+   * The backing store is only ever read with the absolute get methods. Its position, limit and
+   * order are never changed, which means that the same store can be safely shared between any
+   * number of buffer windows.
    */
-  private byte[] buffer;
+  private ByteBuffer store;
+
+  /** The index of the first byte of this window in the backing store. */
+  private int base;
+
+  /** The number of bytes in this window. */
+  private int length;
 
   @Getter
   private ByteOrder byteOrder;
 
+  /**
+   * This is resolved once when the buffer is created so that a read is a single branch followed by
+   * a single load from the backing store.
+   */
+  private boolean bigEndian;
+
   /**
    * Create and initialize a new buffer object.
    * 
@@ -50,8 +83,82 @@ public class ByteOrderBuffer {
    * @param byteOrder The order of integers within the buffer.
    */
   public ByteOrderBuffer(byte[] buffer, ByteOrder byteOrder) {
-    this.buffer = buffer;
+    this(ByteBuffer.wrap(buffer), 0, buffer.length, byteOrder);
+  }
+
+  /**
+   * Create a buffer that is a window over the remaining bytes (position to limit) of the given
+   * {@link ByteBuffer}. The bytes are not copied.
+   * 
+   * @param buffer The backing store.
+   * @param byteOrder The order of integers within the buffer.
+   */
+  public ByteOrderBuffer(ByteBuffer buffer, ByteOrder byteOrder) {
+    this(buffer, buffer.position(), buffer.remaining(), byteOrder);
+  }
+
+  /**
+   * Create a buffer that is a window of the given size starting at the given (absolute) index of
+   * the given {@link ByteBuffer}. The bytes are not copied.
+   * 
+   * @param buffer The backing store.
+   * @param offset The index in the backing store of the first byte in the window.
+   * @param size The number of bytes in the window.
+   * @param byteOrder The order of integers within the buffer.
+   * @throws IndexOutOfBoundsException thrown if the window extends beyond the backing store.
+   */
+  public ByteOrderBuffer(ByteBuffer buffer, int offset, int size, ByteOrder byteOrder) {
+    Objects.checkFromIndexSize(offset, size, buffer.limit());
+
+    this.store = buffer;
+    this.base = offset;
+    this.length = size;
     this.byteOrder = byteOrder;
+    this.bigEndian = byteOrder == ByteOrder.BIG_ENDIAN;
+  }
+
+  /**
+   * Create a buffer that is a window over part of another buffer. This is used by subclasses that
+   * give a view a different name (like {@link SectionBuffer}).
+   * 
+   * @param source The buffer that contains the window.
+   * @param offset The offset of the window within the source buffer.
+   * @param size The number of bytes in the window.
+   * @throws IndexOutOfBoundsException thrown if the window extends beyond the source buffer.
+   */
+  protected ByteOrderBuffer(ByteOrderBuffer source, int offset, int size) {
+    Objects.checkFromIndexSize(offset, size, source.length);
+
+    this.store = source.store;
+    this.base = source.base + offset;
+    this.length = size;
+    this.byteOrder = source.byteOrder;
+    this.bigEndian = source.bigEndian;
+  }
+
+  /**
+   * Create a {@link VarHandle} that reads values of the given array type from a {@link ByteBuffer}
+   * in the given byte order.
+   * 
+   * @param viewArrayClass The array class of the value type (i.e., int[].class).
+   * @param order The byte order of the values.
+   * @return The var handle.
+   */
+  private static VarHandle view(Class<?> viewArrayClass, ByteOrder order) {
+    return MethodHandles.byteBufferViewVarHandle(viewArrayClass, order);
+  }
+
+  /**
+   * Returns a new buffer that is a window over part of this buffer. The new buffer shares this
+   * buffer's backing store and byte order. No bytes are copied.
+   * 
+   * @param offset The offset of the window within this buffer.
+   * @param size The number of bytes in the window.
+   * @return The new buffer.
+   * @throws IndexOutOfBoundsException thrown if the window extends beyond this buffer.
+   */
+  public ByteOrderBuffer slice(int offset, int size) {
+    return new ByteOrderBuffer(this, offset, size);
   }
 
   /**
@@ -60,7 +167,7 @@ public class ByteOrderBuffer {
    * @return The length of the buffer.
    */
   public int size() {
-    return buffer.length;
+    return length;
   }
 
   /**
@@ -68,9 +175,32 @@ public class ByteOrderBuffer {
    */
   @Override
   public String toString() {
+    StringBuilder bytes = new StringBuilder(length * 5 + 2).append('[');
+
+    for(int pos = 0; pos < length; pos++) {
+      if(pos > 0) {
+        bytes.append(", ");
+      }
+
+      bytes.append(store.get(base + pos));
+    }
+
+    bytes.append(']');
 
     return String.format("%s [order=%s, length=%d, buffer=%s]", getClass().getSimpleName(),
-        getByteOrder(), size(), Arrays.toString(getBytes()));
+        getByteOrder(), size(), bytes);
+  }
+
+  /**
+   * Returns the index in the backing store of a value with the given offset and size. This also
+   * verifies that the value lies completely within this window.
+   * 
+   * @param offset The offset of the value within this buffer.
+   * @param size The size of the value.
+   * @return The index in the backing store.
+   */
+  private int index(int offset, int size) {
+    return base + Objects.checkFromIndexSize(offset, size, length);
   }
 
   /**
@@ -80,15 +210,8 @@ public class ByteOrderBuffer {
    * @return The signed int.
    */
   public int getInt(int offset) {
-    byte[] buf = Arrays.copyOfRange(buffer, offset, offset + Integer.BYTES);
-    int result = 0;
-
-    for(int i = 0; i < Integer.BYTES; i++) {
-      int pos = getByteOrder() == ByteOrder.BIG_ENDIAN ? i : Integer.BYTES - i - 1;
-      result = (int)((result << 8) + (buf[pos] & 0xff));
-    }
-
-    return result;
+    int index = index(offset, Integer.BYTES);
+    return bigEndian ? (int)INT_BE.get(store, index) : (int)INT_LE.get(store, index);
   }
 
   /**
@@ -98,15 +221,8 @@ public class ByteOrderBuffer {
    * @return The signed short.
    */
   public short getShort(int offset) {
-    byte[] buf = Arrays.copyOfRange(buffer, offset, offset + Short.BYTES);
-    short result = 0;
-
-    for(int i = 0; i < Short.BYTES; i++) {
-      int pos = getByteOrder() == ByteOrder.BIG_ENDIAN ? i : Short.BYTES - i - 1;
-      result = (short)((result << 8) + (short)(buf[pos] & 0xff));
-    }
-
-    return result;
+    int index = index(offset, Short.BYTES);
+    return bigEndian ? (short)SHORT_BE.get(store, index) : (short)SHORT_LE.get(store, index);
   }
 
   /**
@@ -116,7 +232,7 @@ public class ByteOrderBuffer {
    * @return The signed byte.
    */
   public byte getByte(int offset) {
-    return buffer[offset];
+    return store.get(index(offset, Byte.BYTES));
   }
 
   /**
@@ -136,19 +252,7 @@ public class ByteOrderBuffer {
    * @return The unsigned int value as a long.
    */
   public long getUnsignedInt(int offset) {
-    int value = getInt(offset);
-
-    if(value >= 0) {
-      return value;
-    }
-
-    // value is unsigned, so copy the bits into a long.
-    long lo1 = ((value >>> 24) & (long)0xff) << 24;
-    long lo2 = ((value >>> 16) & (long)0xff) << 16;
-    long lo3 = ((value >>> 8) & (long)0xff) << 8;
-    long lo4 = value & (long)0xff;
-
-    return lo1 + lo2 + lo3 + lo4;
+    return Integer.toUnsignedLong(getInt(offset));
   }
 
   /**
@@ -158,36 +262,50 @@ public class ByteOrderBuffer {
    * @return The unsigned short value as an int.
    */
   public int getUnsignedShort(int offset) {
-    short value = getShort(offset);
-
-    if(value >= 0) {
-      return value;
-    }
-
-    int i1 = ((value >> 8) & (int)0xff) << 8;
-    int i2 = value & (int)0xff;
-
-    return i1 + i2;
+    return Short.toUnsignedInt(getShort(offset));
   }
 
   /**
-   * Returns an unsigned 64-bit value as a BigInteger.
+   * Returns an unsigned 64-bit value as a BigInteger. This allocates a BigInteger on every call.
+   * Use {@link #getUnsignedLongBits(int)} to read the value without allocating anything.
    * 
    * @param offset The offset of the unsigned long.
    * @return The unsigned long value as a BigInteger.
    */
   public BigInteger getUnsignedLong(int offset) {
-    long value = getLong(offset);
-
-    if(value >= 0) {
-      return BigInteger.valueOf(value);
-    }
+    return Unsigned.toBigInteger(getUnsignedLongBits(offset));
+  }
 
-    int upper = (int)(value >>> 32);
-    int lower = (int)value;
+  /**
+   * Returns an unsigned 64-bit value as the raw bits in a long. Values above
+   * {@link Long#MAX_VALUE} are negative when treated as signed values, so use the {@link Unsigned}
+   * helpers (or the unsigned methods in {@link Long}) to compare or display the value.
+   * 
+   * @param offset The offset of the unsigned long.
+   * @return The unsigned long value as a long.
+   */
+  public long getUnsignedLongBits(int offset) {
+    return getLong(offset);
+  }
 
-    return (BigInteger.valueOf(Integer.toUnsignedLong(upper))).shiftLeft(32)
-        .add(BigInteger.valueOf(Integer.toUnsignedLong(lower)));
+  /**
+   * Returns an unsigned value of the given size as a long. This is used for fields that are 32 bits
+   * in one format and 64 bits in another (i.e., PE32 and PE32+ optional headers). A 64-bit value is
+   * returned as the raw bits as described in {@link #getUnsignedLongBits(int)}.
+   * 
+   * @param offset The offset of the unsigned value.
+   * @param size The size of the value in bytes: 1, 2, 4 or 8.
+   * @return The unsigned value as a long.
+   * @throws IllegalArgumentException thrown if the size is not one of the supported sizes.
+   */
+  public long getUnsigned(int offset, int size) {
+    return switch(size) {
+      case Byte.BYTES -> getUnsignedByte(offset);
+      case Short.BYTES -> getUnsignedShort(offset);
+      case Integer.BYTES -> getUnsignedInt(offset);
+      case Long.BYTES -> getUnsignedLongBits(offset);
+      default -> throw new IllegalArgumentException("Unsupported unsigned value size: " + size);
+    };
   }
 
   /**
@@ -197,27 +315,22 @@ public class ByteOrderBuffer {
    * @return The signed long value.
    */
   public long getLong(int offset) {
-    int size = Long.BYTES;
-    byte[] buf = Arrays.copyOfRange(buffer, offset, offset + size);
-    long result = 0;
-
-    for(int i = 0; i < size; i++) {
-      int pos = getByteOrder() == ByteOrder.BIG_ENDIAN ? i : size - i - 1;
-      result = (long)((result << 8) + (buf[pos] & 0xff));
-    }
-
-    return result;
+    int index = index(offset, Long.BYTES);
+    return bigEndian ? (long)LONG_BE.get(store, index) : (long)LONG_LE.get(store, index);
   }
 
   /**
-   * Returns a subset of the buffer at the given offset and size.
+   * Returns a copy of the subset of the buffer at the given offset and size. Use
+   * {@link #slice(int, int)} to get a view of the subset without copying it.
    * 
    * @param offset The start of the buffer to return.
    * @param size The size of the returned buffer.
    * @return The buffer.
    */
   public byte[] getBytes(int offset, int size) {
-    return Arrays.copyOfRange(buffer, offset, offset + size);
+    byte[] bytes = new byte[size];
+    store.get(index(offset, size), bytes);
+    return bytes;
   }
 
   /**
@@ -230,9 +343,7 @@ public class ByteOrderBuffer {
    */
   public LocalDateTime getTimestamp(int offset) {
     long seconds = getUnsignedInt(offset);
-    long millis = seconds * 1000;
-
-    return Instant.ofEpochMilli(millis).atZone(ZoneId.of(UTC_TIME_ZONE)).toLocalDateTime();
+    return LocalDateTime.ofEpochSecond(seconds, 0, ZoneOffset.UTC);
   }
 
   /**
@@ -242,4 +353,68 @@ public class ByteOrderBuffer {
     return getBytes(0, size());
   }
 
+  /**
+   * Returns the offset of the first byte with the given value at or after the given offset. The
+   * search reads eight bytes at a time and tests all of them at once, so it is much faster than
+   * testing each byte in turn. This is mostly used to find the end of a null-terminated string.
+   * 
+   * @param value The byte value to find.
+   * @param fromOffset The offset at which to start searching.
+   * @return The offset of the byte, or -1 if the value is not found before the end of the buffer.
+   */
+  public int indexOf(byte value, int fromOffset) {
+    long pattern = LOW_BITS * (value & 0xff);
+    int pos = Math.max(fromOffset, 0);
+
+    for(; pos + Long.BYTES <= length; pos += Long.BYTES) {
+      long word = (long)LONG_LE.get(store, base + pos) ^ pattern;
+      long found = (word - LOW_BITS) & ~word & HIGH_BITS;
+
+      if(found != 0) {
+        return pos + (Long.numberOfTrailingZeros(found) >>> 3);
+      }
+    }
+
+    for(; pos < length; pos++) {
+      if(store.get(base + pos) == value) {
+        return pos;
+      }
+    }
+
+    return -1;
+  }
+
+  /**
+   * Decode a string of the given size at the given offset. If the backing store is a byte array,
+   * the string is decoded directly from the array. Otherwise, the bytes are copied once before they
+   * are decoded.
+   * 
+   * @param offset The offset of the string.
+   * @param size The number of bytes in the string.
+   * @param charset The character set used to decode the string.
+   * @return The string.
+   */
+  public String getString(int offset, int size, Charset charset) {
+    int index = index(offset, size);
+
+    if(store.hasArray()) {
+      return new String(store.array(), store.arrayOffset() + index, size, charset);
+    }
+
+    return new String(getBytes(offset, size), charset);
+  }
+
+  /**
+   * Decode the null-terminated string at the given offset.
+   * 
+   * @param offset The offset of the string.
+   * @param charset The character set used to decode the string.
+   * @return The string, or {@code null} if there is no terminating null before the end of the
+   *         buffer.
+   */
+  public String getNullTerminatedString(int offset, Charset charset) {
+    int end = indexOf((byte)0, offset);
+    return end < 0 ? null : getString(offset, end - offset, charset);
+  }
+
 }
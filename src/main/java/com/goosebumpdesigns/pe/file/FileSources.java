@@ -0,0 +1,30 @@
+// Copyright (c) 2023 Goosebump Designs LLC
+
+package com.goosebumpdesigns.pe.file;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * This class contains helpers shared by the file sources.
+ */
+final class FileSources {
+
+  private FileSources() {}
+
+  /**
+   * Resolve the real path of the file so that error messages show the file that was read. If the
+   * path cannot be resolved, it is used as given and the error is reported when the file is opened.
+   * 
+   * @param path The path.
+   * @return The real path or the given path.
+   */
+  static Path findRealPath(Path path) {
+    try {
+      return path.toRealPath();
+    }
+    catch(IOException e) {
+      return path;
+    }
+  }
+}
@@ -0,0 +1,192 @@
+// Copyright (c) 2023 Goosebump Designs LLC
+
+package com.goosebumpdesigns.pe.file;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * This computes an import hash ("imphash") from the names of the imports as they are read. The
+ * hash is the MD5 digest of the entries "library.function" in import order, separated by commas.
+ * Names are lower-cased, and a ".dll", ".ocx" or ".sys" extension is dropped from library names.
+ * Functions imported by ordinal are named from {@link ImportOrdinals} if the library is known, and
+ * "ord" followed by the ordinal otherwise. Functions with an empty name are left out. This is the
+ * definition used by most malware analysis tools.
+ *
+ * Names are passed in as bytes and are lower-cased into scratch arrays that are reused, so no
+ * strings are created. Only ASCII letters are lower-cased; other bytes are hashed as they are.
+ *
+ * A hasher computes one hash and is not thread-safe.
+ */
+final class ImportHasher {
+  private static final String ALGORITHM = "MD5";
+  private static final byte[][] EXTENSIONS = {ascii("dll"), ascii("ocx"), ascii("sys")};
+  private static final byte[] ORDINAL_PREFIX = ascii("ord");
+
+  private final MessageDigest digest = newDigest();
+  private byte[] library = new byte[64];
+  private int libraryLength;
+  private byte[][] ordinalNames;
+  private byte[] scratch = new byte[128];
+  private boolean first = true;
+
+  /**
+   * Start the entries of a library.
+   *
+   * @param buffer The buffer that holds the library name.
+   * @param offset The offset of the name.
+   * @param length The length of the name, not including the terminating null.
+   */
+  void library(ByteOrderBuffer buffer, int offset, int length) {
+    if(library.length < length) {
+      library = new byte[Math.max(length, library.length * 2)];
+    }
+
+    lowerCase(buffer, offset, length, library);
+    ordinalNames = ImportOrdinals.forLibrary(library, length);
+    libraryLength = withoutExtension(library, length);
+  }
+
+  /**
+   * Add a function that is imported by name.
+   *
+   * @param buffer The buffer that holds the function name.
+   * @param offset The offset of the name.
+   * @param length The length of the name, not including the terminating null.
+   */
+  void function(ByteOrderBuffer buffer, int offset, int length) {
+    if(length == 0) {
+      return;
+    }
+
+    if(scratch.length < length) {
+      scratch = new byte[Math.max(length, scratch.length * 2)];
+    }
+
+    lowerCase(buffer, offset, length, scratch);
+    entry(scratch, 0, length);
+  }
+
+  /**
+   * Add a function that is imported by ordinal.
+   *
+   * @param ordinal The ordinal.
+   */
+  void ordinal(int ordinal) {
+    if(Objects.nonNull(ordinalNames) && ordinal < ordinalNames.length
+        && Objects.nonNull(ordinalNames[ordinal])) {
+      byte[] name = ordinalNames[ordinal];
+      entry(name, 0, name.length);
+      return;
+    }
+
+    int length = ORDINAL_PREFIX.length;
+    System.arraycopy(ORDINAL_PREFIX, 0, scratch, 0, length);
+    int end = length + digits(ordinal);
+
+    for(int pos = end - 1, value = ordinal; pos >= length; pos--, value /= 10) {
+      scratch[pos] = (byte)('0' + value % 10);
+    }
+
+    entry(scratch, 0, end);
+  }
+
+  /**
+   * @return The MD5 digest of the entries added so far.
+   */
+  byte[] digest() {
+    return digest.digest();
+  }
+
+  /**
+   * @param name
+   * @param offset
+   * @param length
+   */
+  private void entry(byte[] name, int offset, int length) {
+    if(!first) {
+      digest.update((byte)',');
+    }
+
+    first = false;
+    digest.update(library, 0, libraryLength);
+    digest.update((byte)'.');
+    digest.update(name, offset, length);
+  }
+
+  /**
+   * @param buffer
+   * @param offset
+   * @param length
+   * @param target
+   */
+  private static void lowerCase(ByteOrderBuffer buffer, int offset, int length, byte[] target) {
+    for(int pos = 0; pos < length; pos++) {
+      byte value = buffer.getByte(offset + pos);
+      target[pos] = value >= 'A' && value <= 'Z' ? (byte)(value + ('a' - 'A')) : value;
+    }
+  }
+
+  /**
+   * @param name A lower-case library name.
+   * @param length
+   * @return The length of the name without a ".dll", ".ocx" or ".sys" extension.
+   */
+  private static int withoutExtension(byte[] name, int length) {
+    int dot = length - 1;
+
+    while(dot >= 0 && name[dot] != '.') {
+      dot--;
+    }
+
+    if(dot < 0) {
+      return length;
+    }
+
+    for(byte[] extension : EXTENSIONS) {
+      if(Arrays.equals(name, dot + 1, length, extension, 0, extension.length)) {
+        return dot;
+      }
+    }
+
+    return length;
+  }
+
+  /**
+   * @param value A value from 0 to 65535.
+   * @return The number of decimal digits in the value.
+   */
+  private static int digits(int value) {
+    int count = 1;
+
+    while(value >= 10) {
+      value /= 10;
+      count++;
+    }
+
+    return count;
+  }
+
+  /**
+   * @param text
+   * @return
+   */
+  private static byte[] ascii(String text) {
+    return text.getBytes(StandardCharsets.US_ASCII);
+  }
+
+  /**
+   * @return
+   */
+  private static MessageDigest newDigest() {
+    try {
+      return MessageDigest.getInstance(ALGORITHM);
+    }
+    catch(NoSuchAlgorithmException e) {
+      throw new IllegalStateException(ALGORITHM + " is not available", e);
+    }
+  }
+}
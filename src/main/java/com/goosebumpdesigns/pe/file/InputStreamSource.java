@@ -0,0 +1,201 @@
+// Copyright (c) 2023 Goosebump Designs LLC
+
+package com.goosebumpdesigns.pe.file;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Objects;
+import lombok.ToString;
+
+/**
+ * This source reads an image from an {@link InputStream} in a single forward pass, so an image can
+ * be parsed from a pipe, an HTTP response body or a decompression stream without buffering the
+ * whole file. The stream is never rewound.
+ *
+ * Only the ranges that the reader asks for are kept in memory. {@link PEFileReader} works out the
+ * ranges it needs from the headers (the header block, the export directory and the export name
+ * strings) and announces them with {@link #prefetch(long, long)}. The stream is read up to the
+ * start of each range and everything before it is skipped without being stored. Reads of ranges
+ * that are kept are served from memory. A read of data that the stream has already passed, and that
+ * was not kept, fails with an {@link IOException}. This happens only if the image is laid out in an
+ * unusual order (for example, an export name table that precedes the export directory).
+ *
+ * The number of bytes kept is limited, so memory use is bounded regardless of the file size. The
+ * length of the image is not known until the end of the stream is reached, so {@link #length()}
+ * returns {@link Long#MAX_VALUE} until then.
+ *
+ * The stream is not closed by this source. Instances are not thread-safe.
+ */
+@ToString(onlyExplicitlyIncluded = true)
+public class InputStreamSource implements PESource {
+  /** The default limit on the number of bytes kept in memory. */
+  public static final int DEFAULT_MAX_RETAINED = 64 * 1024 * 1024;
+
+  private static final String DEFAULT_NAME = "(input stream)";
+
+  private final InputStream in;
+
+  @ToString.Include
+  private final String name;
+
+  private final int maxRetained;
+  private final SparseRegions regions = new SparseRegions();
+  private long position;
+  private long length = Long.MAX_VALUE;
+
+  /**
+   * Create a source that reads the stream, keeping at most {@value #DEFAULT_MAX_RETAINED} bytes.
+   *
+   * @param in The stream, positioned at the first byte of the image.
+   */
+  public InputStreamSource(InputStream in) {
+    this(in, DEFAULT_NAME, DEFAULT_MAX_RETAINED);
+  }
+
+  /**
+   * Create a source that reads the stream.
+   *
+   * @param in The stream, positioned at the first byte of the image.
+   * @param name The name of the image, used in error messages.
+   * @param maxRetained The maximum number of bytes to keep in memory.
+   */
+  public InputStreamSource(InputStream in, String name, int maxRetained) {
+    this.in = Objects.requireNonNull(in);
+    this.name = name;
+    this.maxRetained = maxRetained;
+  }
+
+  @Override
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Returns the length of the image if the end of the stream has been reached.
+   *
+   * @return The length of the image, or {@link Long#MAX_VALUE} if it is not yet known.
+   */
+  @Override
+  public long length() {
+    return length;
+  }
+
+  /**
+   * Read bytes from the kept ranges, reading forward in the stream for any part of the range that
+   * has not been reached yet.
+   *
+   * @throws EOFException thrown if the stream ends before the range.
+   * @throws IOException thrown if part of the range has already been passed or the limit on kept
+   *         bytes is exceeded.
+   */
+  @Override
+  public void read(long offset, byte[] buffer, int start, int length) throws IOException {
+    long current = offset;
+    long end = offset + length;
+    int index = start;
+
+    while(current < end) {
+      int count = regions.copy(current, buffer, index, (int)(end - current));
+
+      if(count == 0) {
+        if(fill(current, end - current) == 0) {
+          throw new EOFException("Offset " + current + " is past the end of " + name);
+        }
+
+        continue;
+      }
+
+      current += count;
+      index += count;
+    }
+  }
+
+  /**
+   * Read forward in the stream to the given range and keep the range in memory. The parts of the
+   * range that are already kept are not read again. The range is cut short at the end of the
+   * stream, after which {@link #length()} returns the length of the image. If the range has already
+   * been passed or does not fit in the limit on kept bytes, nothing is done and the error is
+   * reported when the range is read.
+   */
+  @Override
+  public void prefetch(long offset, long length) throws IOException {
+    long current = offset;
+    long end = Math.min(offset + length, this.length);
+
+    if(length <= 0 || offset < 0 || length > maxRetained - regions.getRetained()) {
+      return;
+    }
+
+    while((current = regions.firstMissing(current, end)) < end) {
+      if(current < position || fill(current, end - current) == 0) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * The kept ranges are released. The stream is left open because it belongs to the caller.
+   */
+  @Override
+  public void close() {
+    regions.clear();
+  }
+
+  /**
+   * Skip forward in the stream to the offset and keep up to the given number of bytes from there.
+   *
+   * @param offset The offset of the range.
+   * @param size The size of the range.
+   * @return The number of bytes kept, which is less than the size only at the end of the stream.
+   * @throws IOException thrown if the offset has already been passed or the limit on kept bytes is
+   *         exceeded.
+   */
+  private int fill(long offset, long size) throws IOException {
+    if(offset < position) {
+      throw new IOException(
+          "Offset " + offset + " has already been passed in " + name + " (at " + position + ")");
+    }
+
+    if(size > maxRetained - regions.getRetained()) {
+      throw new IOException("Keeping " + size + " more bytes of " + name + " would exceed the "
+          + maxRetained + " byte limit");
+    }
+
+    skipTo(offset);
+
+    byte[] data = in.readNBytes((int)size);
+    position += data.length;
+
+    if(data.length < size) {
+      length = position;
+    }
+
+    regions.put(offset, data);
+
+    return data.length;
+  }
+
+  /**
+   * Discard bytes from the stream up to the offset.
+   *
+   * @param offset The offset.
+   * @throws IOException thrown if the stream cannot be read.
+   */
+  private void skipTo(long offset) throws IOException {
+    while(position < offset) {
+      long skipped = in.skip(offset - position);
+
+      if(skipped <= 0) {
+        if(in.read() < 0) {
+          length = position;
+          return;
+        }
+
+        skipped = 1;
+      }
+
+      position += skipped;
+    }
+  }
+}
@@ -0,0 +1,91 @@
+// Copyright (c) 2023 Goosebump Designs LLC
+
+package com.goosebumpdesigns.pe.file;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+import com.goosebumpdesigns.pe.exception.PEFileException;
+import lombok.ToString;
+
+/**
+ * This source maps an entire file into memory with a single {@link FileChannel#map} call. The file
+ * is closed as soon as it is mapped. The mapping remains valid until the source is garbage
+ * collected, so the source can still be read after {@link #close()} is called. This is the source
+ * used for {@link ReadMode#MEMORY_MAPPED}.
+ */
+@ToString(onlyExplicitlyIncluded = true)
+public class MappedFileSource implements PESource {
+  @ToString.Include
+  private Path path;
+
+  /** Resolved on first use, since resolving it costs a file system call per path component. */
+  private Path realPath;
+
+  private MappedByteBuffer mappedFile;
+
+  /**
+   * Open the file, map the entire file into memory and close the file. A mapping is limited to
+   * {@link Integer#MAX_VALUE} bytes, which is well above the size of any PE file seen in practice.
+   * 
+   * @param path The path to the PE file in the local file system.
+   * @throws PEFileException thrown if the file cannot be opened or mapped.
+   */
+  public MappedFileSource(Path path) {
+    this.path = path;
+
+    try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      long size = channel.size();
+
+      if(size > Integer.MAX_VALUE) {
+        throw new PEFileException(
+            "File " + getPath() + " is too large to map (" + size + " bytes)");
+      }
+
+      this.mappedFile = channel.map(MapMode.READ_ONLY, 0, size);
+    }
+    catch(IOException e) {
+      throw new PEFileException("Unable to map file " + getPath(), e);
+    }
+  }
+
+  @Override
+  public Path getPath() {
+    if(Objects.isNull(realPath)) {
+      realPath = FileSources.findRealPath(path);
+    }
+
+    return realPath;
+  }
+
+  @Override
+  public String getName() {
+    return getPath().toString();
+  }
+
+  @Override
+  public long length() {
+    return mappedFile.capacity();
+  }
+
+  @Override
+  public void read(long offset, byte[] buffer, int start, int length) {
+    mappedFile.get((int)offset, buffer, start, length);
+  }
+
+  @Override
+  public ByteBuffer asByteBuffer() {
+    return mappedFile;
+  }
+
+  /**
+   * The file was closed when it was mapped, so there is nothing to do.
+   */
+  @Override
+  public void close() {}
+}
@@ -0,0 +1,79 @@
+// Copyright (c) 2023 Goosebump Designs LLC
+
+package com.goosebumpdesigns.pe.file;
+
+import java.nio.ByteBuffer;
+import lombok.ToString;
+
+/**
+ * This source wraps an image that is already in memory, such as a binary received from a message
+ * queue or extracted from an archive. The image can be a byte array or a heap or direct
+ * {@link ByteBuffer}. Parsing it does no file system I/O and the image bytes are not copied.
+ */
+@ToString
+public class MemorySource implements PESource {
+  private static final String DEFAULT_NAME = "(in-memory image)";
+
+  private String name;
+
+  @ToString.Exclude
+  private ByteBuffer image;
+
+  /**
+   * Create a source for the image in the byte array. The array is not copied, so it must not be
+   * modified while the image is being parsed.
+   * 
+   * @param image The image bytes.
+   */
+  public MemorySource(byte[] image) {
+    this(ByteBuffer.wrap(image), DEFAULT_NAME);
+  }
+
+  /**
+   * Create a source for the image between the position and limit of the buffer. The buffer is not
+   * copied and its position and limit are not changed.
+   * 
+   * @param image The image bytes.
+   */
+  public MemorySource(ByteBuffer image) {
+    this(image, DEFAULT_NAME);
+  }
+
+  /**
+   * Create a source for the image between the position and limit of the buffer with a name that is
+   * used in error messages (the object key of the image in a store, for example).
+   * 
+   * @param image The image bytes.
+   * @param name The name of the image.
+   */
+  public MemorySource(ByteBuffer image, String name) {
+    this.image = image.slice();
+    this.name = name;
+  }
+
+  @Override
+  public String getName() {
+    return name;
+  }
+
+  @Override
+  public long length() {
+    return image.limit();
+  }
+
+  @Override
+  public void read(long offset, byte[] buffer, int start, int length) {
+    image.get((int)offset, buffer, start, length);
+  }
+
+  @Override
+  public ByteBuffer asByteBuffer() {
+    return image;
+  }
+
+  /**
+   * There are no resources to release.
+   */
+  @Override
+  public void close() {}
+}
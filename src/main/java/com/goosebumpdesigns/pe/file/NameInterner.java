@@ -0,0 +1,119 @@
+// Copyright (c) 2023 Goosebump Designs LLC
+
+package com.goosebumpdesigns.pe.file;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * This shares one copy of each name that is read again and again, like the names of system DLLs
+ * and their functions. It is a direct-mapped table: each name has one slot, chosen by its hash, and
+ * a name replaces whatever was in its slot. So the table never grows and a rare name cannot push
+ * out more than one common name. A name that is found in the table is returned without creating a
+ * string.
+ *
+ * The hash of an ASCII name is computed from its bytes exactly as {@link String#hashCode()}
+ * computes it from the characters, so names read from a file and names that are already strings
+ * share the table. Names that are not ASCII are not interned.
+ *
+ * The table is safe for concurrent use without locking. Two threads that read the same new name at
+ * once may both create a string, which only costs an allocation.
+ */
+final class NameInterner {
+  private final AtomicReferenceArray<String> slots;
+  private final int mask;
+
+  /**
+   * @param size The number of slots. This must be a power of two.
+   */
+  NameInterner(int size) {
+    this.slots = new AtomicReferenceArray<>(size);
+    this.mask = size - 1;
+  }
+
+  /**
+   * Return the name in the given bytes of a buffer.
+   *
+   * @param buffer The buffer.
+   * @param offset The offset of the name.
+   * @param length The number of bytes in the name, not including any terminating null.
+   * @return The interned name.
+   */
+  String intern(ByteOrderBuffer buffer, int offset, int length) {
+    int hash = 0;
+
+    for(int pos = 0; pos < length; pos++) {
+      byte value = buffer.getByte(offset + pos);
+
+      if(value < 0) {
+        return buffer.getString(offset, length, StandardCharsets.UTF_8);
+      }
+
+      hash = 31 * hash + value;
+    }
+
+    int slot = slot(hash);
+    String cached = slots.get(slot);
+
+    if(Objects.nonNull(cached) && matches(cached, buffer, offset, length)) {
+      return cached;
+    }
+
+    String name = buffer.getString(offset, length, StandardCharsets.ISO_8859_1);
+    slots.set(slot, name);
+
+    return name;
+  }
+
+  /**
+   * Return the interned copy of a name.
+   *
+   * @param name The name, or {@code null}.
+   * @return The interned name, or {@code null} if the name is {@code null}.
+   */
+  String intern(String name) {
+    if(Objects.isNull(name)) {
+      return null;
+    }
+
+    int slot = slot(name.hashCode());
+    String cached = slots.get(slot);
+
+    if(name.equals(cached)) {
+      return cached;
+    }
+
+    slots.set(slot, name);
+    return name;
+  }
+
+  /**
+   * @param hash
+   * @return
+   */
+  private int slot(int hash) {
+    return (hash ^ (hash >>> 16)) & mask;
+  }
+
+  /**
+   * @param name
+   * @param buffer
+   * @param offset
+   * @param length
+   * @return
+   */
+  private static boolean matches(String name, ByteOrderBuffer buffer, int offset, int length) {
+    if(name.length() != length) {
+      return false;
+    }
+
+    for(int pos = 0; pos < length; pos++) {
+      if(name.charAt(pos) != buffer.getByte(offset + pos)) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+}
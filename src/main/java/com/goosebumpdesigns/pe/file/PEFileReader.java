@@ -2,35 +2,70 @@
 
 package com.goosebumpdesigns.pe.file;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.function.BiFunction;
+import java.util.function.Predicate;
 import com.goosebumpdesigns.pe.PEHeader;
+import com.goosebumpdesigns.pe.PESection;
 import com.goosebumpdesigns.pe.exception.PEFileException;
 import com.goosebumpdesigns.pe.exception.PESignatureException;
+import com.goosebumpdesigns.pe.model.BoundImport;
+import com.goosebumpdesigns.pe.model.DelayImportedLibrary;
 import com.goosebumpdesigns.pe.model.Export;
+import com.goosebumpdesigns.pe.model.ExportAddressTable;
+import com.goosebumpdesigns.pe.model.ImportedFunction;
+import com.goosebumpdesigns.pe.model.ImportedLibrary;
+import com.goosebumpdesigns.pe.model.ResourceTree;
 import com.goosebumpdesigns.pe.model.type.MachineType;
+import com.goosebumpdesigns.pe.model.type.OptionalHeaderField;
 import lombok.Getter;
 import lombok.ToString;
 import lombok.Value;
 
 /**
- * This class loads and parses a Personal Executable file. It uses a {@link RandomAccessFile} to
- * load the file data. Note that some of the file data is parsed by this class in order to read
- * additional data pointed to by header data. This data is also parsed by the data-representation
+ * This class loads and parses a Personal Executable file. The file data is read from a
+ * {@link PESource}. A file is read with a {@link RandomAccessFile} by default, or with a single
+ * memory mapping of the file if {@link ReadMode#MEMORY_MAPPED} is requested. An image that is
+ * already in memory is read through a {@link MemorySource} without any file system I/O. Note that
+ * some of the file data is parsed by this class in order to read additional data pointed to by
+ * header data. This data is also parsed by the data-representation
  * classes (i.e., {@link PEHeader}). This double parsing is unavoidable to maintain the separation
  * of concerns in these classes. This class is concerned with reading file data and creating buffers
  * from the file data. Other classes parse the data buffers to create the in-memory data
  * representations of that data. This class is the only class that "knows" about the Personal
  * Executable file in the local file system.
+ * 
+ * The headers (DOS header, COFF header, optional header and section table) are read with a single
+ * read of the first {@value #HEADER_BLOCK_SIZE} bytes of the file when the reader is opened. If the
+ * headers are larger than that, the block is read once more at the required size. All header
+ * buffers returned by this class are views of that block, so parsing only the headers takes one
+ * read call.
+ * 
+ * Addresses in the data directories are relative virtual addresses (RVAs). They are translated to
+ * file offsets by an {@link RvaResolver} that is built from the section table when the file is
+ * opened.
+ * 
+ * Before each range that is found through the headers is read, it is announced to the source with
+ * {@link PESource#prefetch(long, long)}. The ranges are announced in file order, which allows an
+ * {@link InputStreamSource} to parse an image in a single forward pass.
+ * 
+ * For batch work, a reader created with {@link #reusable()} is moved from file to file with
+ * {@link #reopen(Path, ReadMode)}. Its buffers are carved out of scratch memory that it keeps
+ * between files, so once it has warmed up the only memory allocated for a file is the parsed
+ * result. Buffers returned by a reusable reader are only valid until it is reopened.
  */
 @ToString
 public class PEFileReader implements AutoCloseable {
@@ -43,6 +78,71 @@ public class PEFileReader implements AutoCloseable {
     private ByteOrderBuffer header;
     private String fileName;
     private Set<Export> exports;
+    private ExportAddressTable addressTable;
+  }
+
+  /**
+   * This is an import descriptor (IMAGE_IMPORT_DESCRIPTOR). The addresses are RVAs.
+   */
+  @Value
+  private static class ImportDescriptor {
+    long lookupTableRva;
+    long timestamp;
+    long forwarderChain;
+    long nameRva;
+    long addressTableRva;
+
+    /**
+     * @return {@code true} if this is the all-zero descriptor that ends the table.
+     */
+    boolean isEnd() {
+      return lookupTableRva == 0 && nameRva == 0 && addressTableRva == 0;
+    }
+  }
+
+  /**
+   * This is a delay-load descriptor (IMAGE_DELAYLOAD_DESCRIPTOR). The addresses are RVAs, converted
+   * from virtual addresses if the descriptor is not RVA-based.
+   */
+  @Value
+  private static class DelayDescriptor {
+    long attributes;
+    long nameRva;
+    long moduleHandleRva;
+    long addressTableRva;
+    long nameTableRva;
+    long boundAddressTableRva;
+    long unloadInformationTableRva;
+    long timestamp;
+
+    /**
+     * @return {@code true} if the descriptor holds RVAs rather than virtual addresses.
+     */
+    boolean isRvaBased() {
+      return (attributes & DELAY_RVA_BASED) != 0;
+    }
+
+    /**
+     * @return {@code true} if this is the empty descriptor that ends the table.
+     */
+    boolean isEnd() {
+      return nameRva == 0;
+    }
+  }
+
+  /**
+   * This holds an import table (of the import or the delay-load import directory) as it is read
+   * from the file, before any names are decoded. The string offsets are those of each descriptor's
+   * DLL name followed by the hint/name entries of its thunks ({@link RvaResolver#UNMAPPED} for
+   * ordinal imports). The name index of a descriptor is the position of its DLL name in the string
+   * offsets.
+   */
+  @Value
+  private static class ImportTables {
+    long[][] thunks;
+    long[] stringOffsets;
+    int[] nameIndexes;
+    StringRegion strings;
   }
 
   /** The type of optional header as determined by a byte in the PE file. */
@@ -60,6 +160,10 @@ public class PEFileReader implements AutoCloseable {
     int size;
   }
 
+  /** Passed to {@link #readResource(int, int)} to select the first resource of a type. */
+  public static final int FIRST_RESOURCE = -1;
+
+  private static final int HEADER_BLOCK_SIZE = 4096;
   private static final int SIGNATURE_LOCATION = 60;
   private static final byte[] SIGNATURE = {'P', 'E', 0, 0};
   private static final int HEADER_SIZE = 20;
@@ -68,18 +172,106 @@ public class PEFileReader implements AutoCloseable {
   private static final int MACHINE_OFFSET = 0;
   private static final int NUMBER_OF_SECTIONS_OFFSET = 2;
 
-  private static final int EXPORT_STD = 96;
-  private static final int EXPORT_PLUS = 112;
+  private static final int DATA_DIRECTORIES_STD = 96;
+  private static final int DATA_DIRECTORIES_PLUS = 112;
+  private static final int EXPORT_DIRECTORY = 0;
+  private static final int IMPORT_DIRECTORY = 1;
+  private static final int RESOURCE_DIRECTORY = 2;
+  private static final int BOUND_IMPORT_DIRECTORY = 11;
+  private static final int DELAY_IMPORT_DIRECTORY = 13;
+  private static final int IMAGE_BASE_STD = 28;
+  private static final int IMAGE_BASE_PLUS = 24;
   private static final int EXPORT_NAME_RVA = 12;
   private static final int EXPORT_HEADER_SIZE = 40;
+  private static final int EXPORT_NUM_ADDRESSES_OFFSET = 20;
   private static final int EXPORT_NUM_NAMES_OFFSET = 24;
+  private static final int EXPORT_ADDRESS_TABLE_OFFSET = 28;
   private static final int EXPORT_NAME_POINTER_RVA_ADDRESS = 32;
   private static final int EXPORT_ORDINAL_TABLE_OFFSET = 36;
 
-  private static final String READ = "r";
+  private static final int IMPORT_DESCRIPTOR_SIZE = 20;
+  private static final int IMPORT_LOOKUP_TABLE_OFFSET = 0;
+  private static final int IMPORT_TIMESTAMP_OFFSET = 4;
+  private static final int IMPORT_FORWARDER_CHAIN_OFFSET = 8;
+  private static final int IMPORT_NAME_OFFSET = 12;
+  private static final int IMPORT_ADDRESS_TABLE_OFFSET = 16;
+  private static final long IMPORT_BY_ORDINAL_32 = 0x80000000L;
+  private static final long IMPORT_BY_ORDINAL_64 = Long.MIN_VALUE;
+  private static final long HINT_NAME_RVA_MASK = 0x7fffffffL;
+  private static final int ORDINAL_MASK = 0xffff;
+
+  private static final int DELAY_DESCRIPTOR_SIZE = 32;
+  private static final int DELAY_ATTRIBUTES_OFFSET = 0;
+  private static final int DELAY_NAME_OFFSET = 4;
+  private static final int DELAY_MODULE_HANDLE_OFFSET = 8;
+  private static final int DELAY_ADDRESS_TABLE_OFFSET = 12;
+  private static final int DELAY_NAME_TABLE_OFFSET = 16;
+  private static final int DELAY_BOUND_TABLE_OFFSET = 20;
+  private static final int DELAY_UNLOAD_TABLE_OFFSET = 24;
+  private static final int DELAY_TIMESTAMP_OFFSET = 28;
+  private static final long DELAY_RVA_BASED = 1;
+
+  private static final int BOUND_DESCRIPTOR_SIZE = 8;
+  private static final int BOUND_TIMESTAMP_OFFSET = 0;
+  private static final int BOUND_NAME_OFFSET = 4;
+  private static final int BOUND_FORWARDER_REFS_OFFSET = 6;
+
+  private static final int RESOURCE_DIRECTORY_SIZE = 16;
+  private static final int RESOURCE_NAMED_COUNT_OFFSET = 12;
+  private static final int RESOURCE_ID_COUNT_OFFSET = 14;
+  private static final int RESOURCE_ENTRY_SIZE = 8;
+  private static final int RESOURCE_ENTRY_DATA_OFFSET = 4;
+  private static final int RESOURCE_ENTRIES_PER_READ = 16;
+  private static final int RESOURCE_DATA_ENTRY_SIZE = 16;
+  private static final int RESOURCE_DATA_SIZE_OFFSET = 4;
+  private static final long RESOURCE_SUBDIRECTORY = 0x80000000L;
+  private static final long RESOURCE_OFFSET_MASK = 0x7fffffffL;
+
+  /** Import thunks are read this many at a time, doubling until the terminating zero is found. */
+  private static final int THUNKS_PER_READ = 64;
+
+  /**
+   * DLL and function names are shared by every reader. A batch of files imports the same few
+   * hundred names over and over, so after the first few files they are no longer allocated.
+   */
+  private static final NameInterner LIBRARY_NAMES = new NameInterner(1024);
+  private static final NameInterner FUNCTION_NAMES = new NameInterner(16 * 1024);
+
+  /**
+   * Names are read from a region of the file that spans all names in a table. The region extends
+   * this far past the start of the last name so that the last name is normally included.
+   */
+  private static final int STRING_READ_AHEAD = 256;
+
+  /** A string table region larger than this is not read as a single block. */
+  private static final int MAX_STRING_REGION_SIZE = 16 * 1024 * 1024;
+
+  private static final Charset STRING_CHARSET = StandardCharsets.UTF_8;
+
+  /**
+   * This is a block of file data that contains null-terminated strings. The offset is the file
+   * offset of the first byte in the buffer.
+   */
+  @Value
+  private static class StringRegion {
+    long offset;
+    ByteOrderBuffer buffer;
+  }
+
+  @ToString.Exclude
+  private final ReadArena arena;
+
+  private PESource source;
+  private boolean sourceOpen;
+  private ByteBuffer memory;
+  private ByteBuffer headerBlock;
 
-  private RandomAccessFile reader;
-  private long fileLength;
+  /** Views of the whole header block used for the reader's own reads, one for each byte order. */
+  @ToString.Exclude
+  private ByteOrderBuffer bigEndianHeader;
+
+  @ToString.Exclude
+  private ByteOrderBuffer littleEndianHeader;
 
   private ByteOrder byteOrder;
 
@@ -92,7 +284,11 @@ public class PEFileReader implements AutoCloseable {
   private PEType peType;
 
   @Getter
-  private Path path;
+  private RvaResolver rvaResolver;
+
+  /** The sections in section table order, including any with duplicate names. */
+  @Getter
+  private List<PESection> sections;
 
   /**
    * This method opens the PE file for random access. The {@link #close()} method must be called
@@ -106,35 +302,177 @@ public class PEFileReader implements AutoCloseable {
    * </code></pre>
    * 
    * After opening the file, various offsets are read from the file so that appropriate data can be
-   * extracted.
+   * extracted. The file is read using {@link ReadMode#RANDOM_ACCESS}.
    * 
    * @param path The path to the PE file in the local file system.
    * @throws PEFileException thrown if an error occurs locating or opening the PE file.
    */
   public PEFileReader(Path path) {
-    this.path = findRealPath(path);
-    this.reader = openFile(path);
-    this.fileLength = fileLength();
+    this(path, ReadMode.RANDOM_ACCESS);
+  }
 
-    findHeaderOffsets();
+  /**
+   * This method opens the PE file using the given read mode. If the mode is
+   * {@link ReadMode#MEMORY_MAPPED}, the file is opened, mapped into memory and closed again before
+   * this constructor returns. Every subsequent read is served from the mapping. The
+   * {@link #close()} method should still be called so that the reader can be used in a
+   * try-with-resources block regardless of the mode.
+   * 
+   * @param path The path to the PE file in the local file system.
+   * @param readMode The method used to read file data.
+   * @throws PEFileException thrown if an error occurs locating, opening or mapping the PE file.
+   */
+  public PEFileReader(Path path, ReadMode readMode) {
+    this(PESource.open(path, readMode));
   }
 
   /**
-   * @return
+   * This method creates a reader for the image in the given source. The source is closed when the
+   * reader is closed. If the source is in memory (see {@link PESource#asByteBuffer()}), all buffers
+   * returned by the reader are views of the source's memory and no data is copied.
+   * 
+   * @param source The source of the image data.
+   * @throws PEFileException thrown if the image headers cannot be read.
+   * @throws PESignatureException thrown if the image is not a PE image.
    */
-  private long fileLength() {
+  public PEFileReader(PESource source) {
+    this((ReadArena)null);
+    open(source);
+  }
+
+  /**
+   * @param arena The scratch memory of a reusable reader, or {@code null} to allocate each buffer.
+   */
+  private PEFileReader(ReadArena arena) {
+    this.arena = arena;
+  }
+
+  /**
+   * Create a reader that is reused for many files. No file is open until
+   * {@link #reopen(Path, ReadMode)} or {@link #reopen(PESource)} is called. The reader keeps its
+   * scratch memory between files, so it should be kept by a single thread for the whole batch:
+   * 
+   * <pre><code>
+   * try({@link PEFileReader} reader = PEFileReader.reusable()) {
+   *    for(Path path : paths) {
+   *      reader.reopen(path);
+   *      // Read the file...
+   *    }
+   * }
+   * </code></pre>
+   * 
+   * @return The reader.
+   */
+  public static PEFileReader reusable() {
+    return new PEFileReader(new ReadArena());
+  }
+
+  /**
+   * Close the current file and open another one with {@link ReadMode#RANDOM_ACCESS}. See
+   * {@link #reopen(PESource)}.
+   * 
+   * @param path The path to the PE file in the local file system.
+   * @return This reader.
+   * @throws PEFileException thrown if an error occurs locating or opening the PE file.
+   * @throws PESignatureException thrown if the file is not a PE image.
+   */
+  public PEFileReader reopen(Path path) {
+    return reopen(path, ReadMode.RANDOM_ACCESS);
+  }
+
+  /**
+   * Close the current file and open another one with the given read mode. See
+   * {@link #reopen(PESource)}.
+   * 
+   * @param path The path to the PE file in the local file system.
+   * @param readMode The method used to read file data.
+   * @return This reader.
+   * @throws PEFileException thrown if an error occurs locating, opening or mapping the PE file.
+   * @throws PESignatureException thrown if the file is not a PE image.
+   */
+  public PEFileReader reopen(Path path, ReadMode readMode) {
+    closeSource();
+    open(PESource.open(path, readMode));
+    return this;
+  }
+
+  /**
+   * Close the current source and read the image in another one. Every buffer returned for the
+   * previous image may be overwritten, so the previous image must be fully parsed first. If the new
+   * image cannot be read, its source is closed and the reader can be reopened again.
+   * 
+   * @param source The source of the image data.
+   * @return This reader.
+   * @throws PEFileException thrown if the image headers cannot be read.
+   * @throws PESignatureException thrown if the image is not a PE image.
+   */
+  public PEFileReader reopen(PESource source) {
+    closeSource();
+    open(source);
+    return this;
+  }
+
+  /**
+   * Returns the path of the file being read.
+   * 
+   * @return The path, or {@code null} if the image is not read from a file.
+   */
+  public Path getPath() {
+    return Objects.isNull(source) ? null : source.getPath();
+  }
+
+  /**
+   * Returns {@code true} if the image is in memory. Buffers returned by an in-memory reader are
+   * views of the image, so they remain readable after the reader is closed.
+   * 
+   * @return {@code true} if the image is in memory.
+   */
+  public boolean isInMemory() {
+    return Objects.nonNull(memory);
+  }
+
+  /**
+   * Start reading the image in the source. The scratch memory of a reusable reader is released
+   * first.
+   * 
+   * @param source The source of the image data.
+   */
+  private void open(PESource source) {
+    if(Objects.nonNull(arena)) {
+      arena.reset();
+    }
+
+    this.source = source;
+    this.sourceOpen = true;
+    this.memory = source.asByteBuffer();
+
     try {
-      return reader.length();
+      findHeaderOffsets();
     }
-    catch(IOException e) {
-      throw new PEFileException(e);
+    catch(RuntimeException e) {
+      closeSource();
+      throw e;
     }
   }
 
   /**
-   * 
+   * Close the source, if it is open. The source is kept so that an in-memory image can still be
+   * read (and named in error messages) after the reader is closed.
+   */
+  private void closeSource() {
+    if(sourceOpen) {
+      sourceOpen = false;
+      source.close();
+    }
+  }
+
+  /**
+   * Read the header block and find the offsets of the headers within it. Once the section table
+   * offset is known, the block is extended (if needed) to include the entire section table.
    */
   private void findHeaderOffsets() {
+    setHeaderBlock(readHeaderBlock(HEADER_BLOCK_SIZE));
+
     signatureOffset = readAndVerifySignature();
     headerOffset = signatureOffset + SIGNATURE.length;
 
@@ -145,7 +483,102 @@ public class PEFileReader implements AutoCloseable {
     numberOfSections = findNumberOfSections();
 
     sectionTableOffset = findSectionTableOffset();
+    ensureHeaderBlock(sectionTableOffset + (long)SECTION_SIZE * numberOfSections);
+
     peType = readPEType();
+    sections = Collections.unmodifiableList(readSections());
+    rvaResolver = new RvaResolver(sections);
+  }
+
+  /**
+   * Read the sections from the section table. A list is used rather than a
+   * {@link com.goosebumpdesigns.pe.PESectionTable} so that sections with duplicate names are kept.
+   * 
+   * @return The sections in file order.
+   */
+  private List<PESection> readSections() {
+    List<PESection> sections = new ArrayList<>(numberOfSections);
+
+    for(SectionBuffer buffer : readSectionTableBuffer()) {
+      sections.add(new PESection(buffer, sections.size()));
+    }
+
+    return sections;
+  }
+
+  /**
+   * Read the block at the start of the file that contains the headers. If the image is in memory,
+   * the whole image is used as the block.
+   * 
+   * @param size The number of bytes to read. This is reduced to the file length if necessary.
+   * @return The header block.
+   */
+  private ByteBuffer readHeaderBlock(long size) {
+    if(isInMemory()) {
+      return memory;
+    }
+
+    prefetch(0, size);
+    return readBytes(0, (int)Math.min(size, fileLength()));
+  }
+
+  /**
+   * Make sure that the header block contains at least the given number of bytes. If it doesn't, the
+   * block is read again at the required size. This only happens if the headers are larger than
+   * {@value #HEADER_BLOCK_SIZE} bytes.
+   * 
+   * @param size The required size of the header block.
+   * @throws PEFileException thrown if the file is shorter than the required size.
+   */
+  private void ensureHeaderBlock(long size) {
+    if(size <= headerBlock.limit()) {
+      return;
+    }
+
+    prefetch(0, size);
+
+    if(size > fileLength()) {
+      throw newReadError(null, fileLength(), (int)(size - fileLength()));
+    }
+
+    setHeaderBlock(readHeaderBlock(size));
+  }
+
+  /**
+   * @param block The header block.
+   */
+  private void setHeaderBlock(ByteBuffer block) {
+    headerBlock = block;
+    bigEndianHeader = new ByteOrderBuffer(block, 0, block.limit(), ByteOrder.BIG_ENDIAN);
+    littleEndianHeader = new ByteOrderBuffer(block, 0, block.limit(), ByteOrder.LITTLE_ENDIAN);
+  }
+
+  /**
+   * Returns a view of the header block with the given offset and length.
+   * 
+   * @param offset The file offset of the view.
+   * @param length The length of the view.
+   * @param order The byte order of the view.
+   * @return The buffer.
+   */
+  private ByteOrderBuffer headerBuffer(long offset, int length, ByteOrder order) {
+    ensureHeaderBlock(offset + length);
+    return new ByteOrderBuffer(headerBlock, (int)offset, length, order);
+  }
+
+  /**
+   * Returns a view of the whole header block that contains the given range. This is used for the
+   * reader's own reads so that they do not create a buffer for each value. The range is read at its
+   * file offset.
+   * 
+   * @param offset The file offset of the range.
+   * @param length The length of the range.
+   * @param order The byte order of the view.
+   * @return The view.
+   */
+  private ByteOrderBuffer headerView(long offset, int length, ByteOrder order) {
+    ensureHeaderBlock(offset + length);
+    return order == ByteOrder.BIG_ENDIAN ? bigEndianHeader : littleEndianHeader;
   }
 
   /**
@@ -174,19 +607,18 @@ public class PEFileReader implements AutoCloseable {
    * @return
    */
   private int readUnsignedShort(long offset) {
-    byte[] bytes = readBytes(offset, Short.BYTES);
-    ByteOrderBuffer buffer = new ByteOrderBuffer(bytes, byteOrder);
-    return buffer.getUnsignedShort(0);
+    ByteOrderBuffer buffer = headerView(offset, Short.BYTES, byteOrder);
+    return buffer.getUnsignedShort((int)offset);
   }
 
   /**
    * @return
    */
   private ByteOrder findByteOrder() {
-    byte[] bytes = readBytes(headerOffset + MACHINE_OFFSET, Short.BYTES);
-    ByteOrderBuffer buffer = new ByteOrderBuffer(bytes, ByteOrder.BIG_ENDIAN);
+    long offset = headerOffset + MACHINE_OFFSET;
+    ByteOrderBuffer buffer = headerView(offset, Short.BYTES, ByteOrder.BIG_ENDIAN);
 
-    short value = buffer.getShort(0);
+    short value = buffer.getShort((int)offset);
     MachineType type = MachineType.valueOf(value);
 
     return type == MachineType.IMAGE_FILE_MACHINE_UNKNOWN ? ByteOrder.LITTLE_ENDIAN
@@ -202,86 +634,187 @@ public class PEFileReader implements AutoCloseable {
   private long readAndVerifySignature() {
     long offset = readSignatureOffset();
 
-    byte[] signatureBytes = readBytes(offset, SIGNATURE.length);
+    ByteOrderBuffer buffer = headerView(offset, SIGNATURE.length, ByteOrder.BIG_ENDIAN);
 
-    if(!Arrays.equals(signatureBytes, SIGNATURE)) {
-      throw new PESignatureException(getPath() + " is not a valid DLL (signature mismatch)");
+    for(int pos = 0; pos < SIGNATURE.length; pos++) {
+      if(buffer.getByte((int)offset + pos) != SIGNATURE[pos]) {
+        throw new PESignatureException(
+            source.getName() + " is not a valid DLL (signature mismatch)");
+      }
     }
 
     return offset;
   }
 
   /**
-   * @param reader
-   * @throws IOException
+   * The signature offset (e_lfanew) is a 32-bit little-endian value in the MS-DOS stub header.
+   * 
+   * @return The file offset of the PE signature.
    */
   private long readSignatureOffset() {
-    return readUnsignedByte(SIGNATURE_LOCATION);
+    ByteOrderBuffer buffer =
+        headerView(SIGNATURE_LOCATION, Integer.BYTES, ByteOrder.LITTLE_ENDIAN);
+    return buffer.getUnsignedInt(SIGNATURE_LOCATION);
   }
 
   /**
-   * @param path
+   * Create and populate a buffer of the given length read from the given offset. A reusable reader
+   * takes the buffer from its scratch memory.
+   * 
+   * @param offset The offset to start reading.
+   * @param length The length to read.
+   * @return The populated buffer.
    */
-  private RandomAccessFile openFile(Path path) {
-    try {
-      return new RandomAccessFile(path.toFile(), READ);
-    }
-    catch(IOException e) {
-      throw new PEFileException("Unable to open file " + this.path, e);
-    }
+  private ByteBuffer readBytes(long offset, int length) {
+    checkRange(offset, length);
+    return readInto(offset, Objects.isNull(arena) ? ByteBuffer.allocate(length)
+        : arena.allocate(length));
   }
 
   /**
-   * @param path
+   * Fill a buffer with the file data at the given offset.
+   * 
+   * @param offset The offset to start reading.
+   * @param buffer An array-backed buffer. All of its capacity is filled.
+   * @return The buffer.
    */
-  private Path findRealPath(Path path) {
-    Path realPath;
+  private ByteBuffer readInto(long offset, ByteBuffer buffer) {
+    int length = buffer.capacity();
 
     try {
-      realPath = path.toRealPath();
+      source.read(offset, buffer.array(), buffer.arrayOffset(), length);
+      return buffer;
     }
-    catch(IOException e) {
-      realPath = path;
+    catch(IOException | IndexOutOfBoundsException e) {
+      throw newReadError(e, offset, length);
     }
-
-    return realPath;
   }
 
   /**
-   * Create and populate a buffer of the given length read from the given offset.
+   * Return a buffer containing the file data of the given length at the given offset. The buffer
+   * uses the byte order of the file.
    * 
    * @param offset The offset to start reading.
    * @param length The length to read.
-   * @return The populated buffer.
-   * @throws IOException
+   * @return The buffer.
    */
-  private byte[] readBytes(long offset, int length) {
-    try {
-      byte[] buffer = new byte[length];
+  private ByteOrderBuffer readBuffer(long offset, int length) {
+    return readBuffer(offset, length, byteOrder);
+  }
 
-      seek(offset);
-      reader.readFully(buffer);
+  /**
+   * Return a buffer containing the file data of the given length at the given offset. If the image
+   * is in memory, the buffer is a view of the image and no data is copied. Otherwise the data is
+   * read from the source into a new buffer.
+   * 
+   * @param offset The offset to start reading.
+   * @param length The length to read.
+   * @param order The byte order of the returned buffer.
+   * @return The buffer.
+   */
+  private ByteOrderBuffer readBuffer(long offset, int length, ByteOrder order) {
+    checkRange(offset, length);
 
-      return buffer;
+    if(isInMemory()) {
+      try {
+        return new ByteOrderBuffer(memory, toMemoryIndex(offset), length, order);
+      }
+      catch(IndexOutOfBoundsException e) {
+        throw newReadError(e, offset, length);
+      }
     }
-    catch(IOException e) {
-      throw newReadError(e, offset, length);
+
+    return new ByteOrderBuffer(readBytes(offset, length), 0, length, order);
+  }
+
+  /**
+   * Return a buffer containing the file data of the given length at the given RVA.
+   * 
+   * @param rva The relative virtual address of the data.
+   * @param length The length to read.
+   * @return The buffer.
+   * @throws PEFileException thrown if the RVA is not backed by file data.
+   */
+  private ByteOrderBuffer readBufferAtRva(long rva, int length) {
+    return readBuffer(toFileOffset(rva), length);
+  }
+
+  /**
+   * Translate an RVA to a file offset.
+   * 
+   * @param rva The relative virtual address.
+   * @return The file offset.
+   * @throws PEFileException thrown if the RVA is not backed by file data.
+   */
+  private long toFileOffset(long rva) {
+    long offset = rvaResolver.toFileOffset(rva);
+
+    if(offset == RvaResolver.UNMAPPED) {
+      throw new PEFileException(String.format("RVA 0x%08x is not mapped to file data in %s", rva,
+          source.getName()));
     }
+
+    return offset;
   }
 
   /**
-   * @param peSignatureLocation
-   * @return
-   * @throws IOException
+   * Returns the length of the file. If the source does not know the length yet, this is
+   * {@link Long#MAX_VALUE}.
+   * 
+   * @return The length of the file.
+   */
+  private long fileLength() {
+    return isInMemory() ? memory.limit() : source.length();
+  }
+
+  /**
+   * Tell the source that the given range is about to be read (see
+   * {@link PESource#prefetch(long, long)}).
+   * 
+   * @param offset The file offset of the range.
+   * @param length The length of the range.
+   * @throws PEFileException thrown if the source fails to read the range.
    */
-  private int readUnsignedByte(long position) {
+  private void prefetch(long offset, long length) {
+    if(isInMemory()) {
+      return;
+    }
+
     try {
-      seek(position);
-      return reader.readUnsignedByte();
+      source.prefetch(offset, length);
     }
     catch(IOException e) {
-      throw newReadError(e, position, Byte.BYTES);
+      throw newReadError(e, offset, (int)Math.min(length, Integer.MAX_VALUE));
+    }
+  }
+
+  /**
+   * Make sure that the given range is inside the file. Corrupt tables can produce negative or
+   * enormous lengths, so this is checked before any buffer is allocated.
+   * 
+   * @param offset The file offset of the range.
+   * @param length The length of the range.
+   * @throws PEFileException thrown if the range is not inside the file.
+   */
+  private void checkRange(long offset, int length) {
+    if(offset < 0 || length < 0 || offset + length > fileLength()) {
+      throw newReadError(null, offset, length);
+    }
+  }
+
+  /**
+   * Convert a file offset to an index into the in-memory image. Offsets beyond the image are
+   * rejected here so that the buffer's int index cannot silently wrap.
+   * 
+   * @param offset The file offset.
+   * @return The index into the image.
+   */
+  private int toMemoryIndex(long offset) {
+    if(offset < 0 || offset >= fileLength()) {
+      throw new IndexOutOfBoundsException("Offset " + offset + " is outside of the file");
     }
+
+    return (int)offset;
   }
 
   /**
@@ -292,59 +825,83 @@ public class PEFileReader implements AutoCloseable {
    */
   private PEFileException newReadError(Exception e, long position, int length) {
     String msg =
-        String.format("Error reading %d bytes at position %d in file %s", position, length, path);
+        String.format("Error reading %d bytes at position %d in %s", length, position,
+            source.getName());
 
-    return new PEFileException(msg);
+    return new PEFileException(msg, e);
   }
 
   /**
-   * Close the file reader. This throws an unchecked exception if something fails.
+   * Close the source. This throws an unchecked exception if something fails. A closed reader can be
+   * reopened.
    * 
    * @throws PEFileException thrown if the close operation fails.
    */
   @Override
   public void close() {
-    if(Objects.nonNull(reader)) {
-      try {
-        reader.close();
-      }
-      catch(IOException e) {
-        throw new PEFileException("Unable to close file " + path, e);
-      }
-    }
+    closeSource();
   }
 
   /**
-   * This reads the PE header in the file and returns a buffer containing the data.
+   * This reads the PE header in the file and returns a buffer containing the data. The buffer is a
+   * view of the header block read when the file was opened.
    * 
    * @return The buffer with header data.
    */
   public ByteOrderBuffer readHeaderBuffer() {
-    byte[] bytes = readBytes(headerOffset, HEADER_SIZE);
-    return new ByteOrderBuffer(bytes, byteOrder);
+    return headerBuffer(headerOffset, HEADER_SIZE, byteOrder);
   }
 
   /**
    * This returns the PE file optional header of the correct size for a PE32 file or a PE32+ file.
+   * The buffer is a view of the header block read when the file was opened.
    * 
    * @return The optional header buffer.
    */
   public ByteOrderBuffer readOptionalHeaderBuffer() {
-    byte[] bytes = readBytes(optionalHeaderOffset, optionalHeaderSize);
-    return new ByteOrderBuffer(bytes, byteOrder);
+    return headerBuffer(optionalHeaderOffset, optionalHeaderSize, byteOrder);
   }
 
   /**
-   * Read the section table header buffer.
+   * Read the section table header buffer. The buffer is a view of the header block read when the
+   * file was opened.
    * 
    * @return The buffer, which contains all the section table headers.
    */
   public SectionTableBuffer readSectionTableBuffer() {
-    byte[] bytes = readBytes(sectionTableOffset, SECTION_SIZE * numberOfSections);
-    ByteOrderBuffer buffer = new ByteOrderBuffer(bytes, byteOrder);
+    ByteOrderBuffer buffer =
+        headerBuffer(sectionTableOffset, SECTION_SIZE * numberOfSections, byteOrder);
     return new SectionTableBuffer(buffer, numberOfSections, SECTION_SIZE);
   }
 
+  /**
+   * Read the raw data of a section. If the section data runs past the end of the file, only the
+   * part in the file is returned. If the image is in memory, the buffer is a read-only view of the
+   * image and no data is copied, so it can be shared by several threads. Section data is never
+   * taken from the scratch memory of a reusable reader, so it remains valid after a reopen.
+   * 
+   * @param section The section.
+   * @return The section data, between the position and limit of the buffer.
+   * @throws PEFileException thrown if the data cannot be read or is larger than 2 GiB.
+   */
+  public ByteBuffer readSectionData(PESection section) {
+    long start = Math.min(section.getRawDataPointer(), fileLength());
+    long end = Math.min(section.getRawDataPointer() + section.getRawDataSize(), fileLength());
+
+    if(end - start > Integer.MAX_VALUE) {
+      throw new PEFileException("Section " + section.getName() + " is too large to read");
+    }
+
+    int length = (int)(end - start);
+
+    if(isInMemory()) {
+      return memory.slice(toMemoryIndex(start), length).asReadOnlyBuffer();
+    }
+
+    checkRange(start, length);
+    return readInto(start, ByteBuffer.allocate(length));
+  }
+
   /**
    * @return
    */
@@ -364,149 +921,998 @@ public class PEFileReader implements AutoCloseable {
    * 
    */
   private Directory readDirectory(long offset) {
-    byte[] bytes = readBytes(offset, Long.BYTES);
-
-    ByteOrderBuffer buffer = new ByteOrderBuffer(bytes, byteOrder);
-    long address = buffer.getUnsignedInt(0);
-    long size = buffer.getUnsignedInt(Integer.BYTES);
+    ByteOrderBuffer buffer = headerView(offset, Long.BYTES, byteOrder);
+    long address = buffer.getUnsignedInt((int)offset);
+    long size = buffer.getUnsignedInt((int)offset + Integer.BYTES);
 
     return new Directory(address, (int)size);
   }
 
   /**
-   * @return
+   * @return The export directory, or {@code null} if the file has no export directory.
    */
-  private ByteOrderBuffer readExportsHeaderBuffer() {
-    int dirOffset = peType == PEType.STANDARD ? EXPORT_STD : EXPORT_PLUS;
-    long offset = optionalHeaderOffset + dirOffset;
-    Directory exportsDirectory = readDirectory(offset);
-
-    byte[] exportsHeaderBuffer = readBytes(exportsDirectory.offset, EXPORT_HEADER_SIZE);
-    return new ByteOrderBuffer(exportsHeaderBuffer, byteOrder);
+  private Directory readExportDirectory() {
+    return readDataDirectory(EXPORT_DIRECTORY);
   }
 
   /**
-   * @return
+   * Read an entry of the data directory table in the optional header.
+   * 
+   * @param index The index of the entry (0 for the exports, 1 for the imports and so on).
+   * @return The directory, or {@code null} if the file does not have it.
    */
-  public ExportBuffers readExportBuffers() {
-    ByteOrderBuffer headerBuffer = readExportsHeaderBuffer();
+  private Directory readDataDirectory(int index) {
+    int dirOffset = peType == PEType.STANDARD ? DATA_DIRECTORIES_STD : DATA_DIRECTORIES_PLUS;
+    long offset = optionalHeaderOffset + dirOffset + (long)index * Long.BYTES;
+
+    if(offset + Long.BYTES > optionalHeaderOffset + optionalHeaderSize) {
+      return null;
+    }
+
+    Directory directory = readDirectory(offset);
 
-    String fileName = readExportFileName(headerBuffer);
-    Set<Export> exports = readExports(headerBuffer);
+    if(directory.offset == 0 || directory.size == 0) {
+      return null;
+    }
 
-    return new ExportBuffers(headerBuffer, fileName, exports);
+    return directory;
   }
 
   /**
-   * @param headerBuffer
-   * @return
+   * Returns the file offset of a data directory. This lets a caller that reads several directories
+   * read them in file order, which is required by an {@link InputStreamSource}.
+   * 
+   * @param directory The directory, from {@link OptionalHeaderField#EXPORT_TABLE} to
+   *        {@link OptionalHeaderField#RESERVED}.
+   * @return The file offset, or {@link RvaResolver#UNMAPPED} if the file does not have the
+   *         directory or it is not backed by file data.
    */
-  private Set<Export> readExports(ByteOrderBuffer headerBuffer) {
-    int numEntries = (int)headerBuffer.getUnsignedInt(EXPORT_NUM_NAMES_OFFSET);
-    long namePointerTableOffset = headerBuffer.getUnsignedInt(EXPORT_NAME_POINTER_RVA_ADDRESS);
-    List<Long> namePointerTable = readExportNameAddressTable(namePointerTableOffset, numEntries);
-    List<Integer> ordinalTable = readExportOrdinalTable(headerBuffer, numEntries);
-
-    Set<Export> exports = new TreeSet<>();
-
-    for(int pos = 0; pos < numEntries; pos++) {
-      long nameAddress = namePointerTable.get(pos);
-      String name = readNullTerminatedString(nameAddress);
-      int ordinal = ordinalTable.get(pos);
+  public long findDirectoryFileOffset(OptionalHeaderField directory) {
+    int index = directory.ordinal() - OptionalHeaderField.EXPORT_TABLE.ordinal();
 
-      exports.add(new Export(name, ordinal));
+    if(index < 0 || directory.ordinal() > OptionalHeaderField.RESERVED.ordinal()) {
+      throw new IllegalArgumentException(directory + " is not a data directory");
     }
 
-    return exports;
+    Directory found = readDataDirectory(index);
+    return Objects.isNull(found) ? RvaResolver.UNMAPPED : rvaResolver.toFileOffset(found.offset);
   }
 
   /**
-   * @param headerBuffer
-   * @param ordinalBase
-   * @return
+   * Read the export directory header, the file name, the export names and ordinals and the export
+   * address table. All addresses in the export directory are RVAs, which are translated to file
+   * offsets by the {@link RvaResolver}.
+   * 
+   * @return The export buffers, or {@code null} if the file has no export directory.
    */
-  private List<Integer> readExportOrdinalTable(ByteOrderBuffer headerBuffer, int numEntries) {
-    long tableAddress = headerBuffer.getUnsignedInt(EXPORT_ORDINAL_TABLE_OFFSET);
-    byte[] ordinalBytes = readBytes(tableAddress, Short.BYTES * numEntries);
-    ByteOrderBuffer ordinalBuffer = new ByteOrderBuffer(ordinalBytes, byteOrder);
+  public ExportBuffers readExportBuffers() {
+    Directory directory = readExportDirectory();
 
-    List<Integer> ordinals = new ArrayList<>();
-    int offset = 0;
+    if(Objects.isNull(directory)) {
+      return null;
+    }
 
-    for(int pos = 0; pos < numEntries; pos++) {
-      int ordinal = ordinalBuffer.getUnsignedShort(offset);
-      offset += Short.BYTES;
-      ordinals.add(ordinal);
+    long fileOffset = toFileOffset(directory.offset);
+    prefetch(fileOffset, Integer.toUnsignedLong(directory.size));
+
+    ByteOrderBuffer headerBuffer = readBuffer(fileOffset, EXPORT_HEADER_SIZE);
+    ExportAddressTable addressTable = readExportAddressTable(headerBuffer, directory);
+
+    int numEntries = (int)headerBuffer.getUnsignedInt(EXPORT_NUM_NAMES_OFFSET);
+    long[] nameAddresses =
+        rvaResolver.toFileOffsets(readExportNameAddressTable(headerBuffer, numEntries));
+    int[] ordinals = readExportOrdinalTable(headerBuffer, numEntries);
+    long fileNameAddress = rvaResolver.toFileOffset(headerBuffer.getUnsignedInt(EXPORT_NAME_RVA));
+
+    StringRegion names = readStringRegion(nameAddresses, fileNameAddress);
+    String fileName = readNullTerminatedString(names, fileNameAddress);
+    Set<Export> exports = readExports(names, nameAddresses, ordinals);
+
+    return new ExportBuffers(headerBuffer, fileName, exports, addressTable);
+  }
+
+  /**
+   * Read the import directory. The descriptors are read with one read, then the import lookup table
+   * of each descriptor (the import address table if there is no lookup table). The hint/name
+   * entries and DLL names of all descriptors are then read as a single region and decoded from it.
+   * DLL and function names are interned across readers.
+   * 
+   * @return The imported libraries in descriptor order, or {@code null} if the file has no import
+   *         directory.
+   * @throws PEFileException thrown if the import directory is not backed by file data.
+   */
+  public List<ImportedLibrary> readImports() {
+    Directory directory = readDataDirectory(IMPORT_DIRECTORY);
+
+    if(Objects.isNull(directory)) {
+      return null;
     }
 
-    return ordinals;
+    List<ImportDescriptor> descriptors = readImportDescriptors(directory);
+    ImportTables tables = readImportTables(descriptors);
+    List<ImportedLibrary> libraries = new ArrayList<>(descriptors.size());
+
+    for(int pos = 0; pos < descriptors.size(); pos++) {
+      ImportDescriptor descriptor = descriptors.get(pos);
+
+      // @formatter:off
+      libraries.add(new ImportedLibrary(
+          readLibraryName(tables, pos),
+          descriptor.getTimestamp(),
+          descriptor.getForwarderChain(),
+          readImportedFunctions(tables, pos, descriptor.getAddressTableRva())));
+      // @formatter:on
+    }
+
+    return libraries;
   }
 
   /**
-   * @param namePointerTableOffset
-   * @param numNames
+   * Compute the import hash ("imphash") of the image: the MD5 digest of the comma-separated list of
+   * "library.function" entries, in import order, with the names in lower case and the extension
+   * dropped from the library names. See {@link ImportHasher} for the details.
+   * 
+   * The import directory is read exactly as {@link #readImports()} reads it, but the names are
+   * passed to the digest straight from the bytes that were read. No strings are created and no
+   * import model is built.
+   * 
+   * @return The 16-byte MD5 digest, or {@code null} if the file has no import directory.
+   * @throws PEFileException thrown if the import directory is not backed by file data.
+   */
+  public byte[] readImpHash() {
+    Directory directory = readDataDirectory(IMPORT_DIRECTORY);
+
+    if(Objects.isNull(directory)) {
+      return null;
+    }
+
+    ImportTables tables = readImportTables(readImportDescriptors(directory));
+    long[][] thunks = tables.getThunks();
+    long[] stringOffsets = tables.getStringOffsets();
+    ImportHasher hasher = new ImportHasher();
+    int count = 0;
+
+    for(int pos = 0; pos < thunks.length; pos++) {
+      StringRegion names = regionWithString(tables.getStrings(), stringOffsets[count]);
+      int start = (int)(stringOffsets[count++] - names.getOffset());
+      hasher.library(names.getBuffer(), start, names.getBuffer().indexOf((byte)0, start) - start);
+
+      for(long thunk : thunks[pos]) {
+        long offset = stringOffsets[count++];
+
+        if(isImportByOrdinal(thunk)) {
+          hasher.ordinal((int)(thunk & ORDINAL_MASK));
+        }
+        else {
+          names = regionWithString(tables.getStrings(), offset + Short.BYTES);
+          start = (int)(offset + Short.BYTES - names.getOffset());
+          hasher.function(names.getBuffer(), start,
+              names.getBuffer().indexOf((byte)0, start) - start);
+        }
+      }
+    }
+
+    return hasher.digest();
+  }
+
+  /**
+   * Read the delay-load import directory. It is read like the import directory (see
+   * {@link #readImports()}): the descriptors, then the import name table of each descriptor, then
+   * the names of all descriptors as a single region. Descriptors written by old linkers hold
+   * virtual addresses instead of RVAs; their addresses (including the hint/name addresses in the
+   * name table) are converted to RVAs with the image base.
+   * 
+   * @return The delay-loaded libraries in descriptor order, or {@code null} if the file has no
+   *         delay-load import directory.
+   * @throws PEFileException thrown if the delay-load import directory is not backed by file data.
+   */
+  public List<DelayImportedLibrary> readDelayImports() {
+    Directory directory = readDataDirectory(DELAY_IMPORT_DIRECTORY);
+
+    if(Objects.isNull(directory)) {
+      return null;
+    }
+
+    List<DelayDescriptor> descriptors = readDescriptors(directory, DELAY_DESCRIPTOR_SIZE,
+        this::readDelayDescriptor, DelayDescriptor::isEnd);
+    long[] nameRvas = new long[descriptors.size()];
+    long[][] thunks = new long[descriptors.size()][];
+
+    for(int pos = 0; pos < descriptors.size(); pos++) {
+      DelayDescriptor descriptor = descriptors.get(pos);
+      nameRvas[pos] = descriptor.getNameRva();
+      thunks[pos] = descriptor.getNameTableRva() == 0 ? new long[0]
+          : readThunks(descriptor.getNameTableRva());
+
+      if(!descriptor.isRvaBased()) {
+        toRvaThunks(thunks[pos]);
+      }
+    }
+
+    ImportTables tables = readImportTables(nameRvas, thunks);
+    List<DelayImportedLibrary> libraries = new ArrayList<>(descriptors.size());
+
+    for(int pos = 0; pos < descriptors.size(); pos++) {
+      DelayDescriptor descriptor = descriptors.get(pos);
+
+      // @formatter:off
+      libraries.add(new DelayImportedLibrary(
+          readLibraryName(tables, pos),
+          descriptor.isRvaBased(),
+          descriptor.getModuleHandleRva(),
+          descriptor.getAddressTableRva(),
+          descriptor.getNameTableRva(),
+          descriptor.getBoundAddressTableRva(),
+          descriptor.getUnloadInformationTableRva(),
+          descriptor.getTimestamp(),
+          readImportedFunctions(tables, pos, descriptor.getAddressTableRva())));
+      // @formatter:on
+    }
+
+    return libraries;
+  }
+
+  /**
+   * Read the bound import directory. Unlike the other directories, its address is a file offset.
+   * It is normally in the header area, just after the section table, in which case it is read from
+   * the header block without further I/O. The names are decoded from the directory itself and are
+   * interned like the names of the import directory.
+   * 
+   * @return The bound imports in file order, or {@code null} if the file has no bound import
+   *         directory.
+   * @throws PEFileException thrown if the directory is not inside the file.
+   */
+  public List<BoundImport> readBoundImports() {
+    Directory directory = readDataDirectory(BOUND_IMPORT_DIRECTORY);
+
+    if(Objects.isNull(directory)) {
+      return null;
+    }
+
+    long offset = directory.offset;
+    ByteOrderBuffer buffer = readHeaderOrFileBuffer(offset, directory.size);
+    StringRegion names = new StringRegion(offset, buffer);
+    List<BoundImport> imports = new ArrayList<>();
+    int pos = 0;
+
+    while(pos + BOUND_DESCRIPTOR_SIZE <= buffer.size()) {
+      long timestamp = buffer.getUnsignedInt(pos + BOUND_TIMESTAMP_OFFSET);
+      int nameOffset = buffer.getUnsignedShort(pos + BOUND_NAME_OFFSET);
+      int forwarderCount = buffer.getUnsignedShort(pos + BOUND_FORWARDER_REFS_OFFSET);
+
+      if(timestamp == 0 && nameOffset == 0 && forwarderCount == 0) {
+        break;
+      }
+
+      String name = readName(names, offset + nameOffset, LIBRARY_NAMES);
+      List<BoundImport> forwarders = new ArrayList<>(forwarderCount);
+      pos += BOUND_DESCRIPTOR_SIZE;
+
+      for(int index = 0; index < forwarderCount && pos + BOUND_DESCRIPTOR_SIZE <= buffer.size();
+          index++, pos += BOUND_DESCRIPTOR_SIZE) {
+        long forwarderOffset = offset + buffer.getUnsignedShort(pos + BOUND_NAME_OFFSET);
+        forwarders.add(new BoundImport(readName(names, forwarderOffset, LIBRARY_NAMES),
+            buffer.getUnsignedInt(pos + BOUND_TIMESTAMP_OFFSET), Collections.emptyList()));
+      }
+
+      imports.add(new BoundImport(name, timestamp, Collections.unmodifiableList(forwarders)));
+    }
+
+    return imports;
+  }
+
+  /**
+   * Return a navigator for the resource directory. The tree is decoded as it is navigated, and
+   * resource data is returned as views of the image, so the image must stay in memory. If the image
+   * is in memory, the tree is a view of it. Otherwise the file is mapped, and the mapping outlives
+   * this reader. Nothing but the data directory entry is read here.
+   * 
+   * @return The tree, or {@code null} if the file has no resource directory.
+   * @throws PEFileException thrown if the resource directory is not backed by file data, or if the
+   *         image is neither in memory nor in a file that can be mapped.
+   */
+  public ResourceTree readResourceTree() {
+    Directory directory = readDataDirectory(RESOURCE_DIRECTORY);
+
+    if(Objects.isNull(directory)) {
+      return null;
+    }
+
+    long offset = toFileOffset(directory.offset);
+    ByteBuffer image = isInMemory() ? memory : mapImage();
+
+    return new ResourceTree(image, offset, rvaResolver, byteOrder, source.getName());
+  }
+
+  /**
+   * @return A mapping of the file that is being read.
+   * @throws PEFileException thrown if the image is not read from a file or cannot be mapped.
+   */
+  private ByteBuffer mapImage() {
+    Path path = getPath();
+
+    if(Objects.isNull(path)) {
+      throw new PEFileException("Unable to map " + source.getName() + " since it is not a file");
+    }
+
+    return new MappedFileSource(path).asByteBuffer();
+  }
+
+  /**
+   * Read the data of one resource, going straight down the resource directory to it. Only the
+   * directory headers and entries on the path are read, so this is much cheaper than navigating a
+   * {@link #readResourceTree()} when a file is opened just to read one resource. Each directory is
+   * read with its entries, normally in one read, and its ID entries are searched with a binary
+   * search. Resources with names are only reached with {@link #FIRST_RESOURCE}. The first language
+   * of the resource is returned.
+   * 
+   * @param type The resource type ID, like 16 for the version resource.
+   * @param name The resource ID, or {@link #FIRST_RESOURCE} for the first resource of the type.
+   * @return The resource data, or {@code null} if the file has no such resource. A reusable reader
+   *         returns the data in its scratch memory, which is overwritten by the next read.
+   * @throws PEFileException thrown if the path to the resource is not inside the file.
+   */
+  public ByteOrderBuffer readResource(int type, int name) {
+    Directory directory = readDataDirectory(RESOURCE_DIRECTORY);
+
+    if(Objects.isNull(directory)) {
+      return null;
+    }
+
+    long root = toFileOffset(directory.offset);
+    long field = RESOURCE_SUBDIRECTORY;
+
+    for(int id : new int[] {type, name, FIRST_RESOURCE}) {
+      if((field & RESOURCE_SUBDIRECTORY) == 0) {
+        return null;
+      }
+
+      field = findResourceEntry(root + (field & RESOURCE_OFFSET_MASK), id);
+
+      if(field < 0) {
+        return null;
+      }
+    }
+
+    if((field & RESOURCE_SUBDIRECTORY) != 0) {
+      return null;
+    }
+
+    ByteOrderBuffer entry = readHeaderOrFileBuffer(root + field, RESOURCE_DATA_ENTRY_SIZE);
+    long rva = entry.getUnsignedInt(0);
+    long size = entry.getUnsignedInt(RESOURCE_DATA_SIZE_OFFSET);
+
+    return readBufferAtRva(rva, (int)Math.min(size, Integer.MAX_VALUE));
+  }
+
+  /**
+   * Find an entry of a resource directory. The header is read together with the first entries, so
+   * a directory that is not large is searched with a single read.
+   * 
+   * @param offset The file offset of the directory.
+   * @param id The ID of the entry, or {@link #FIRST_RESOURCE} for the first entry.
+   * @return The data field of the entry, or -1 if the directory has no such entry.
+   */
+  private long findResourceEntry(long offset, int id) {
+    int length = (int)Math.min(RESOURCE_DIRECTORY_SIZE + RESOURCE_ENTRIES_PER_READ
+        * RESOURCE_ENTRY_SIZE, Math.max(fileLength() - offset, RESOURCE_DIRECTORY_SIZE));
+    ByteOrderBuffer buffer = readHeaderOrFileBuffer(offset, length);
+    int namedCount = buffer.getUnsignedShort(RESOURCE_NAMED_COUNT_OFFSET);
+    int count = namedCount + buffer.getUnsignedShort(RESOURCE_ID_COUNT_OFFSET);
+    int needed = RESOURCE_DIRECTORY_SIZE
+        + (id == FIRST_RESOURCE ? Math.min(count, 1) : count) * RESOURCE_ENTRY_SIZE;
+
+    if(needed > buffer.size()) {
+      buffer = readHeaderOrFileBuffer(offset, needed);
+    }
+
+    if(id == FIRST_RESOURCE) {
+      return count == 0 ? -1
+          : buffer.getUnsignedInt(RESOURCE_DIRECTORY_SIZE + RESOURCE_ENTRY_DATA_OFFSET);
+    }
+
+    int low = namedCount;
+    int high = count - 1;
+
+    while(low <= high) {
+      int middle = (low + high) >>> 1;
+      int entry = RESOURCE_DIRECTORY_SIZE + middle * RESOURCE_ENTRY_SIZE;
+      long found = buffer.getUnsignedInt(entry);
+
+      if(found < id) {
+        low = middle + 1;
+      }
+      else if(found > id) {
+        high = middle - 1;
+      }
+      else {
+        return buffer.getUnsignedInt(entry + RESOURCE_ENTRY_DATA_OFFSET);
+      }
+    }
+
+    return -1;
+  }
+
+  /**
+   * Return the file data at the given offset, as a view of the header block if the data is in it.
+   * 
+   * @param offset The file offset.
+   * @param length The length of the data.
+   * @return The buffer.
+   */
+  private ByteOrderBuffer readHeaderOrFileBuffer(long offset, int length) {
+    if(length >= 0 && offset + length <= headerBlock.limit()) {
+      return headerBuffer(offset, length, byteOrder);
+    }
+
+    prefetch(offset, Integer.toUnsignedLong(length));
+    return readBuffer(offset, length);
+  }
+
+  /**
+   * @param descriptors The import descriptors.
+   * @return The import tables of the descriptors.
+   */
+  private ImportTables readImportTables(List<ImportDescriptor> descriptors) {
+    long[] nameRvas = new long[descriptors.size()];
+    long[][] thunks = new long[descriptors.size()][];
+
+    for(int pos = 0; pos < descriptors.size(); pos++) {
+      nameRvas[pos] = descriptors.get(pos).getNameRva();
+      thunks[pos] = readThunks(descriptors.get(pos));
+    }
+
+    return readImportTables(nameRvas, thunks);
+  }
+
+  /**
+   * Find the file offsets of the DLL names and hint/name entries of a set of descriptors and read
+   * the region that holds them.
+   * 
+   * @param nameRvas The RVA of each descriptor's DLL name.
+   * @param thunks The thunks of each descriptor.
+   * @return The import tables.
+   */
+  private ImportTables readImportTables(long[] nameRvas, long[][] thunks) {
+    int[] nameIndexes = new int[nameRvas.length];
+    int stringCount = nameRvas.length;
+
+    for(long[] libraryThunks : thunks) {
+      stringCount += libraryThunks.length;
+    }
+
+    long[] stringOffsets = new long[stringCount];
+    int count = 0;
+
+    for(int pos = 0; pos < nameRvas.length; pos++) {
+      nameIndexes[pos] = count;
+      stringOffsets[count++] = rvaResolver.toFileOffset(nameRvas[pos]);
+
+      for(long thunk : thunks[pos]) {
+        stringOffsets[count++] = isImportByOrdinal(thunk) ? RvaResolver.UNMAPPED
+            : rvaResolver.toFileOffset(thunk & HINT_NAME_RVA_MASK);
+      }
+    }
+
+    StringRegion strings = readStringRegion(stringOffsets, RvaResolver.UNMAPPED);
+    return new ImportTables(thunks, stringOffsets, nameIndexes, strings);
+  }
+
+  /**
+   * @param tables
+   * @param library The index of the descriptor.
+   * @return The interned DLL name of the descriptor.
+   */
+  private String readLibraryName(ImportTables tables, int library) {
+    long offset = tables.getStringOffsets()[tables.getNameIndexes()[library]];
+    return readName(tables.getStrings(), offset, LIBRARY_NAMES);
+  }
+
+  /**
+   * @param tables
+   * @param library The index of the descriptor.
+   * @param addressTableRva The RVA of the descriptor's import address table.
+   * @return The functions imported by the descriptor.
+   */
+  private List<ImportedFunction> readImportedFunctions(ImportTables tables, int library,
+      long addressTableRva) {
+    long[] thunks = tables.getThunks()[library];
+    int first = tables.getNameIndexes()[library] + 1;
+    List<ImportedFunction> functions = new ArrayList<>(thunks.length);
+
+    for(int index = 0; index < thunks.length; index++) {
+      long slot = addressTableRva + (long)index * thunkSize();
+      long hintOffset = tables.getStringOffsets()[first + index];
+      functions.add(readImportedFunction(tables.getStrings(), thunks[index], hintOffset, slot));
+    }
+
+    return Collections.unmodifiableList(functions);
+  }
+
+  /**
+   * Read the import descriptors up to the all-zero descriptor that ends the table.
+   * 
+   * @param directory The import directory.
+   * @return The descriptors.
+   */
+  private List<ImportDescriptor> readImportDescriptors(Directory directory) {
+    return readDescriptors(directory, IMPORT_DESCRIPTOR_SIZE, this::readImportDescriptor,
+        ImportDescriptor::isEnd);
+  }
+
+  /**
+   * Read a table of fixed-size descriptors up to the descriptor that ends it. The table is read at
+   * the size in the data directory. If there is no terminating descriptor within that size, reading
+   * continues past it.
+   * 
+   * @param <T> The type of descriptor.
+   * @param directory The directory that holds the table.
+   * @param descriptorSize The size of a descriptor.
+   * @param decoder Decodes the descriptor at an offset in a buffer.
+   * @param isEnd Returns {@code true} for the descriptor that ends the table.
+   * @return The descriptors, not including the one that ends the table.
+   */
+  private <T> List<T> readDescriptors(Directory directory, int descriptorSize,
+      BiFunction<ByteOrderBuffer, Integer, T> decoder, Predicate<T> isEnd) {
+    long offset = toFileOffset(directory.offset);
+    long size = Math.max(Integer.toUnsignedLong(directory.size), descriptorSize);
+    List<T> descriptors = new ArrayList<>();
+
+    prefetch(offset, size);
+
+    while(true) {
+      int count = (int)Math.max(1, Math.min(size, fileLength() - offset) / descriptorSize);
+      ByteOrderBuffer buffer = readBuffer(offset, count * descriptorSize);
+
+      for(int pos = 0; pos < count; pos++) {
+        T descriptor = decoder.apply(buffer, pos * descriptorSize);
+
+        if(isEnd.test(descriptor)) {
+          return descriptors;
+        }
+
+        descriptors.add(descriptor);
+      }
+
+      offset += (long)count * descriptorSize;
+      size = (long)descriptorSize * THUNKS_PER_READ;
+    }
+  }
+
+  /**
+   * @param buffer
+   * @param start
+   * @return
+   */
+  private ImportDescriptor readImportDescriptor(ByteOrderBuffer buffer, int start) {
+    // @formatter:off
+    return new ImportDescriptor(
+        buffer.getUnsignedInt(start + IMPORT_LOOKUP_TABLE_OFFSET),
+        buffer.getUnsignedInt(start + IMPORT_TIMESTAMP_OFFSET),
+        buffer.getInt(start + IMPORT_FORWARDER_CHAIN_OFFSET),
+        buffer.getUnsignedInt(start + IMPORT_NAME_OFFSET),
+        buffer.getUnsignedInt(start + IMPORT_ADDRESS_TABLE_OFFSET));
+    // @formatter:on
+  }
+
+  /**
+   * Decode a delay-load descriptor. The addresses of a descriptor that is not RVA-based are
+   * converted from virtual addresses to RVAs.
+   * 
+   * @param buffer
+   * @param start
+   * @return
+   */
+  private DelayDescriptor readDelayDescriptor(ByteOrderBuffer buffer, int start) {
+    long attributes = buffer.getUnsignedInt(start + DELAY_ATTRIBUTES_OFFSET);
+    long base = (attributes & DELAY_RVA_BASED) != 0 ? 0 : readImageBase();
+
+    // @formatter:off
+    return new DelayDescriptor(
+        attributes,
+        toRva(buffer.getUnsignedInt(start + DELAY_NAME_OFFSET), base),
+        toRva(buffer.getUnsignedInt(start + DELAY_MODULE_HANDLE_OFFSET), base),
+        toRva(buffer.getUnsignedInt(start + DELAY_ADDRESS_TABLE_OFFSET), base),
+        toRva(buffer.getUnsignedInt(start + DELAY_NAME_TABLE_OFFSET), base),
+        toRva(buffer.getUnsignedInt(start + DELAY_BOUND_TABLE_OFFSET), base),
+        toRva(buffer.getUnsignedInt(start + DELAY_UNLOAD_TABLE_OFFSET), base),
+        buffer.getUnsignedInt(start + DELAY_TIMESTAMP_OFFSET));
+    // @formatter:on
+  }
+
+  /**
+   * @param address A virtual address, or zero.
+   * @param base The image base, or zero if the address is already an RVA.
+   * @return The RVA, or zero if the address is zero.
+   */
+  private static long toRva(long address, long base) {
+    return address == 0 ? 0 : address - base;
+  }
+
+  /**
+   * Convert the hint/name addresses in a table of thunks from virtual addresses to RVAs.
+   * 
+   * @param thunks The thunks.
+   */
+  private void toRvaThunks(long[] thunks) {
+    long base = readImageBase();
+
+    for(int pos = 0; pos < thunks.length; pos++) {
+      if(!isImportByOrdinal(thunks[pos])) {
+        thunks[pos] = toRva(thunks[pos], base);
+      }
+    }
+  }
+
+  /**
+   * @return The preferred address of the image in memory, from the optional header.
+   */
+  private long readImageBase() {
+    if(peType == PEType.PLUS) {
+      long offset = optionalHeaderOffset + IMAGE_BASE_PLUS;
+      return headerView(offset, Long.BYTES, byteOrder).getLong((int)offset);
+    }
+
+    long offset = optionalHeaderOffset + IMAGE_BASE_STD;
+    return headerView(offset, Integer.BYTES, byteOrder).getUnsignedInt((int)offset);
+  }
+
+  /**
+   * Read the thunks of an import descriptor. The import lookup table is read if there is one.
+   * Otherwise the import address table is read, unless it is bound, in which case it holds
+   * addresses instead of thunks and no thunks are returned.
+   * 
+   * @param descriptor The descriptor.
+   * @return The thunks.
+   */
+  private long[] readThunks(ImportDescriptor descriptor) {
+    if(descriptor.getLookupTableRva() != 0) {
+      return readThunks(descriptor.getLookupTableRva());
+    }
+
+    if(descriptor.getTimestamp() != 0) {
+      return new long[0];
+    }
+
+    return readThunks(descriptor.getAddressTableRva());
+  }
+
+  /**
+   * Read a table of thunks up to the terminating zero.
+   * 
+   * @param rva The RVA of the table.
+   * @return The thunks. Each is 32 or 64 bits, depending on the optional header type.
+   */
+  private long[] readThunks(long rva) {
+    long offset = toFileOffset(rva);
+    int size = thunkSize();
+    long[] thunks = new long[THUNKS_PER_READ];
+    int count = 0;
+    int batch = THUNKS_PER_READ;
+
+    while(true) {
+      int available = (int)Math.min(batch, (fileLength() - offset) / size);
+
+      if(available > 0) {
+        prefetch(offset, (long)available * size);
+
+        // The length of a stream is known only once the prefetch has reached its end
+        available = (int)Math.min(available, (fileLength() - offset) / size);
+      }
+
+      if(available <= 0) {
+        throw newReadError(null, offset, size);
+      }
+
+      ByteOrderBuffer buffer = readBuffer(offset, available * size);
+
+      for(int pos = 0; pos < available; pos++) {
+        long thunk = size == Long.BYTES ? buffer.getLong(pos * size)
+            : buffer.getUnsignedInt(pos * size);
+
+        if(thunk == 0) {
+          return Arrays.copyOf(thunks, count);
+        }
+
+        if(count == thunks.length) {
+          thunks = Arrays.copyOf(thunks, count * 2);
+        }
+
+        thunks[count++] = thunk;
+      }
+
+      offset += (long)available * size;
+      batch *= 2;
+    }
+  }
+
+  /**
+   * @param strings The string region.
+   * @param thunk The thunk.
+   * @param hintOffset The file offset of the hint/name entry, if the thunk has one.
+   * @param slot The RVA of the import address table slot.
+   * @return The imported function.
+   */
+  private ImportedFunction readImportedFunction(StringRegion strings, long thunk, long hintOffset,
+      long slot) {
+    if(isImportByOrdinal(thunk)) {
+      return new ImportedFunction(null, 0, (int)(thunk & ORDINAL_MASK), slot);
+    }
+
+    int hint = readHint(strings, hintOffset);
+    String name = readName(strings, hintOffset + Short.BYTES, FUNCTION_NAMES);
+
+    return new ImportedFunction(name, hint, 0, slot);
+  }
+
+  /**
+   * @param thunk
+   * @return
+   */
+  private boolean isImportByOrdinal(long thunk) {
+    return (thunk & (thunkSize() == Long.BYTES ? IMPORT_BY_ORDINAL_64 : IMPORT_BY_ORDINAL_32)) != 0;
+  }
+
+  /**
+   * @return The size of an import thunk: 8 bytes for PE32+ files and 4 bytes for PE32 files.
+   */
+  private int thunkSize() {
+    return peType == PEType.PLUS ? Long.BYTES : Integer.BYTES;
+  }
+
+  /**
+   * Read the hint of a hint/name entry from the region, or from the file if it is not in the
+   * region.
+   * 
+   * @param region The region.
+   * @param offset The file offset of the hint/name entry.
+   * @return The hint.
+   */
+  private int readHint(StringRegion region, long offset) {
+    long start = offset - region.getOffset();
+
+    if(offset != RvaResolver.UNMAPPED && start >= 0
+        && start + Short.BYTES <= region.getBuffer().size()) {
+      return region.getBuffer().getUnsignedShort((int)start);
+    }
+
+    if(offset == RvaResolver.UNMAPPED) {
+      throw new PEFileException("An import hint/name entry is not mapped to file data in "
+          + source.getName());
+    }
+
+    return readBuffer(offset, Short.BYTES).getUnsignedShort(0);
+  }
+
+  /**
+   * Read an interned null-terminated name. The name is interned straight from the bytes that were
+   * read, so a name that has been seen before costs no allocation if it is in the region.
+   * 
+   * @param region The region that most likely contains the name.
+   * @param offset The file offset of the name.
+   * @param names The interned names.
+   * @return The name.
+   */
+  private String readName(StringRegion region, long offset, NameInterner names) {
+    StringRegion strings = regionWithString(region, offset);
+    int start = (int)(offset - strings.getOffset());
+    int end = strings.getBuffer().indexOf((byte)0, start);
+
+    return names.intern(strings.getBuffer(), start, end - start);
+  }
+
+
+  /**
+   * Read the export address table with one read. The bytes of the export directory are only read
+   * (and kept) if the table has forwarders, whose strings are in the directory.
+   * 
+   * @param headerBuffer The export directory header.
+   * @param directory The export directory.
+   * @return The export address table.
+   */
+  private ExportAddressTable readExportAddressTable(ByteOrderBuffer headerBuffer,
+      Directory directory) {
+    int numAddresses = (int)headerBuffer.getUnsignedInt(EXPORT_NUM_ADDRESSES_OFFSET);
+    long tableAddress = headerBuffer.getUnsignedInt(EXPORT_ADDRESS_TABLE_OFFSET);
+    ByteOrderBuffer addressBuffer = readBufferAtRva(tableAddress, Integer.BYTES * numAddresses);
+    int[] addresses = new int[numAddresses];
+
+    for(int pos = 0; pos < numAddresses; pos++) {
+      addresses[pos] = addressBuffer.getInt(pos * Integer.BYTES);
+    }
+
+    long directorySize = Integer.toUnsignedLong(directory.size);
+    byte[] directoryData = null;
+
+    if(ExportAddressTable.hasForwarders(addresses, directory.offset, directorySize)) {
+      directoryData = readBufferAtRva(directory.offset, directory.size).getBytes();
+    }
+
+    return new ExportAddressTable(addresses, directory.offset, directorySize, directoryData);
+  }
+
+  /**
+   * @param names
+   * @param nameAddresses
+   * @param ordinals
    * @return
    */
-  private List<Long> readExportNameAddressTable(long namePointerTableOffset, int numNames) {
-    List<Long> nameAddressTable = new ArrayList<>();
-    byte[] addressBytes = readBytes(namePointerTableOffset, Integer.BYTES * numNames);
-    ByteOrderBuffer addressBuffer = new ByteOrderBuffer(addressBytes, byteOrder);
-    int offset = 0;
+  private Set<Export> readExports(StringRegion names, long[] nameAddresses, int[] ordinals) {
+    Set<Export> exports = new TreeSet<>();
 
-    for(int i = 0; i < numNames; i++) {
-      long address = addressBuffer.getUnsignedInt(offset);
-      offset += Integer.BYTES;
-      nameAddressTable.add(address);
+    for(int pos = 0; pos < nameAddresses.length; pos++) {
+      String name = readNullTerminatedString(names, nameAddresses[pos]);
+      exports.add(new Export(name, ordinals[pos]));
     }
 
-    return nameAddressTable;
+    return exports;
   }
 
   /**
    * @param headerBuffer
+   * @param numEntries
+   * @return
    */
-  private String readExportFileName(ByteOrderBuffer headerBuffer) {
-    long nameOffset = headerBuffer.getUnsignedInt(EXPORT_NAME_RVA);
-    return readNullTerminatedString(nameOffset);
+  private int[] readExportOrdinalTable(ByteOrderBuffer headerBuffer, int numEntries) {
+    long tableAddress = headerBuffer.getUnsignedInt(EXPORT_ORDINAL_TABLE_OFFSET);
+    ByteOrderBuffer ordinalBuffer = readBufferAtRva(tableAddress, Short.BYTES * numEntries);
+    int[] ordinals = new int[numEntries];
+
+    for(int pos = 0; pos < numEntries; pos++) {
+      ordinals[pos] = ordinalBuffer.getUnsignedShort(pos * Short.BYTES);
+    }
+
+    return ordinals;
   }
 
   /**
-   * @param offset
+   * @param headerBuffer
+   * @param numNames
    * @return
    */
-  private String readNullTerminatedString(final long offset) {
-    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+  private long[] readExportNameAddressTable(ByteOrderBuffer headerBuffer, int numNames) {
+    long tableAddress = headerBuffer.getUnsignedInt(EXPORT_NAME_POINTER_RVA_ADDRESS);
+    ByteOrderBuffer addressBuffer = readBufferAtRva(tableAddress, Integer.BYTES * numNames);
+    long[] addresses = new long[numNames];
 
-    seek(offset);
+    for(int pos = 0; pos < numNames; pos++) {
+      addresses[pos] = addressBuffer.getUnsignedInt(pos * Integer.BYTES);
+    }
 
-    try {
-      while(true) {
-        byte b = reader.readByte();
+    return addresses;
+  }
 
-        if(b == 0) {
-          break;
-        }
+  /**
+   * Read the region of the file that contains all of the strings at the given addresses with a
+   * single read. The region runs from the lowest address to {@value #STRING_READ_AHEAD} bytes past
+   * the highest address (or the end of the file). If the strings are spread over more than
+   * {@value #MAX_STRING_REGION_SIZE} bytes, an empty region is returned and each string is read on
+   * its own. Addresses that are {@link RvaResolver#UNMAPPED} are ignored.
+   * 
+   * @param addresses The string file offsets.
+   * @param otherAddress An additional string file offset to include in the region.
+   * @return The region.
+   */
+  private StringRegion readStringRegion(long[] addresses, long otherAddress) {
+    long first = Long.MAX_VALUE;
+    long last = RvaResolver.UNMAPPED;
+
+    for(long address : addresses) {
+      if(address != RvaResolver.UNMAPPED) {
+        first = Math.min(first, address);
+        last = Math.max(last, address);
+      }
+    }
 
-        baos.write(b);
+    if(otherAddress != RvaResolver.UNMAPPED) {
+      first = Math.min(first, otherAddress);
+      last = Math.max(last, otherAddress);
+    }
+
+    long end = last + STRING_READ_AHEAD;
+
+    if(first < end && end - first <= MAX_STRING_REGION_SIZE) {
+      prefetch(first, end - first);
+    }
+
+    end = Math.min(end, fileLength());
+
+    if(first >= end || end - first > MAX_STRING_REGION_SIZE) {
+      return new StringRegion(0, new ByteOrderBuffer(new byte[0], byteOrder));
+    }
+
+    return new StringRegion(first, readBuffer(first, (int)(end - first)));
+  }
+
+  /**
+   * Read a null-terminated string. If the entire string is in the region, it is decoded directly
+   * from the region. Otherwise it is read from the file.
+   * 
+   * @param region The region that most likely contains the string.
+   * @param offset The file offset of the string.
+   * @return The string.
+   */
+  private String readNullTerminatedString(StringRegion region, long offset) {
+    long start = offset - region.getOffset();
+
+    if(start >= 0 && start < region.getBuffer().size()) {
+      String value = region.getBuffer().getNullTerminatedString((int)start, STRING_CHARSET);
+
+      if(Objects.nonNull(value)) {
+        return value;
       }
     }
-    catch(IOException e) {
-      throw new PEFileException(
-          "Error reading null-terminated String at offset " + offset + " for file " + path, e);
+
+    return readNullTerminatedString(offset);
+  }
+
+  /**
+   * Read a null-terminated string that is not in a string region.
+   * 
+   * @param offset The file offset of the string.
+   * @return The string.
+   */
+  private String readNullTerminatedString(long offset) {
+    return readStringAt(offset).getBuffer().getNullTerminatedString(0, STRING_CHARSET);
+  }
+
+  /**
+   * Return a region that contains the entire null-terminated string at the given offset: the given
+   * region if the string and its terminating null are in it, otherwise a region read from the file
+   * (see {@link #readStringAt(long)}).
+   * 
+   * @param region The region that most likely contains the string.
+   * @param offset The file offset of the string.
+   * @return The region.
+   */
+  private StringRegion regionWithString(StringRegion region, long offset) {
+    long start = offset - region.getOffset();
+    ByteOrderBuffer buffer = region.getBuffer();
+
+    if(offset != RvaResolver.UNMAPPED && start >= 0 && start < buffer.size()
+        && buffer.indexOf((byte)0, (int)start) >= 0) {
+      return region;
     }
 
-    return new String(baos.toByteArray());
+    return readStringAt(offset);
   }
 
   /**
-   * @param offset
+   * Read a region that starts with the null-terminated string at the given offset. The file is read
+   * in chunks, doubling the chunk size until the terminating null is found. If the image is in
+   * memory, the rest of the image is searched directly.
+   * 
+   * @param offset The file offset of the string.
+   * @return A region that starts at the offset and contains the terminating null.
    */
-  private void seek(long offset) {
+  private StringRegion readStringAt(final long offset) {
     try {
-      reader.seek(offset);
+      if(offset == RvaResolver.UNMAPPED) {
+        throw new IndexOutOfBoundsException("The string is not mapped to file data");
+      }
+
+      long remaining = fileLength() - offset;
+      long chunkSize = isInMemory() ? remaining : STRING_READ_AHEAD;
+
+      while(true) {
+        int size = (int)Math.min(Math.min(chunkSize, remaining), Integer.MAX_VALUE);
+        ByteOrderBuffer buffer = readBuffer(offset, size);
+
+        if(buffer.indexOf((byte)0, 0) >= 0) {
+          return new StringRegion(offset, buffer);
+        }
+
+        if(size >= remaining) {
+          throw new IndexOutOfBoundsException("No terminating null before the end of the file");
+        }
+
+        chunkSize *= 2;
+      }
     }
-    catch(IOException e) {
-      throw new PEFileException(e);
+    catch(PEFileException | IndexOutOfBoundsException e) {
+      throw new PEFileException(
+          "Error reading null-terminated String at offset " + offset + " in " + source.getName(),
+          e);
     }
   }
 }
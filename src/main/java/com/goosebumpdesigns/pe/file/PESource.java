@@ -0,0 +1,107 @@
+// Copyright (c) 2023 Goosebump Designs LLC
+
+package com.goosebumpdesigns.pe.file;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+
+/**
+ * This is the source of the bytes of a Portable Executable image. {@link PEFileReader} reads all
+ * file data through a source, so an image can be parsed from a file or from memory. These
+ * implementations are supplied:
+ * 
+ * <ul>
+ * <li>{@link RandomAccessFileSource} reads a file with a seek and read for each request.</li>
+ * <li>{@link MappedFileSource} maps a file into memory.</li>
+ * <li>{@link MemorySource} wraps a byte array or a (heap or direct) {@link ByteBuffer} that already
+ * contains the image. No file system I/O is done.</li>
+ * <li>{@link InputStreamSource} reads an {@link java.io.InputStream} in a single forward pass.</li>
+ * </ul>
+ * 
+ * Sources whose data is in memory return it from {@link #asByteBuffer()}. The reader then creates
+ * views of that buffer instead of copying the data.
+ */
+public interface PESource extends AutoCloseable {
+
+  /**
+   * Open a file source using the given read mode.
+   * 
+   * @param path The path to the PE file in the local file system.
+   * @param readMode The method used to read file data.
+   * @return The source.
+   * @throws com.goosebumpdesigns.pe.exception.PEFileException thrown if the file cannot be opened.
+   */
+  static PESource open(Path path, ReadMode readMode) {
+    return readMode == ReadMode.MEMORY_MAPPED ? new MappedFileSource(path)
+        : new RandomAccessFileSource(path);
+  }
+
+  /**
+   * Returns a description of the source for use in error messages.
+   * 
+   * @return The file path or a description of the in-memory image.
+   */
+  String getName();
+
+  /**
+   * Returns the path of the file that is read by this source.
+   * 
+   * @return The path, or {@code null} if the source is not a file.
+   */
+  default Path getPath() {
+    return null;
+  }
+
+  /**
+   * Returns the length of the image. A source that cannot know the length until it has read the
+   * whole image returns {@link Long#MAX_VALUE} until then.
+   * 
+   * @return The number of bytes in the image.
+   */
+  long length();
+
+  /**
+   * Read bytes from the image. The caller has already checked that the range is inside the image.
+   * 
+   * @param offset The offset of the first byte to read.
+   * @param buffer The buffer to read into.
+   * @param start The index in the buffer of the first byte.
+   * @param length The number of bytes to read.
+   * @throws IOException thrown if the read fails.
+   */
+  void read(long offset, byte[] buffer, int start, int length) throws IOException;
+
+  /**
+   * Tell the source that the given range is about to be read. The reader calls this for the ranges
+   * it works out from the headers before it reads them, so that a source that cannot seek (see
+   * {@link InputStreamSource}) can read forward to the range and keep it. A range that extends past
+   * the end of the image is not an error. Sources that can read any range at any time ignore this.
+   * 
+   * @param offset The offset of the range.
+   * @param length The length of the range.
+   * @throws IOException thrown if the source fails to read the range.
+   */
+  default void prefetch(long offset, long length) throws IOException {}
+
+  /**
+   * Returns the entire image if it is in memory. Index zero of the buffer is the first byte of the
+   * image. The buffer must not be modified (including its position and limit), since it may be
+   * shared by several readers.
+   * 
+   * @return The image, or {@code null} if the image must be read with
+   *         {@link #read(long, byte[], int, int)}.
+   */
+  default ByteBuffer asByteBuffer() {
+    return null;
+  }
+
+  /**
+   * Release any resources held by the source. Sources whose data is in memory remain readable
+   * after they are closed.
+   * 
+   * @throws com.goosebumpdesigns.pe.exception.PEFileException thrown if the close fails.
+   */
+  @Override
+  void close();
+}
@@ -0,0 +1,84 @@
+// Copyright (c) 2023 Goosebump Designs LLC
+
+package com.goosebumpdesigns.pe.file;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.util.Objects;
+import com.goosebumpdesigns.pe.exception.PEFileException;
+import lombok.ToString;
+
+/**
+ * This source reads a file with a {@link RandomAccessFile}. Each read is a seek followed by a read.
+ * This is the source used for {@link ReadMode#RANDOM_ACCESS}.
+ */
+@ToString(onlyExplicitlyIncluded = true)
+public class RandomAccessFileSource implements PESource {
+  private static final String READ = "r";
+
+  @ToString.Include
+  private Path path;
+
+  /** The real path is only resolved if it is asked for, which is normally only for an error. */
+  private Path realPath;
+
+  private RandomAccessFile file;
+  private long length;
+
+  /**
+   * Open the file for reading.
+   * 
+   * @param path The path to the PE file in the local file system.
+   * @throws PEFileException thrown if the file cannot be opened.
+   */
+  public RandomAccessFileSource(Path path) {
+    this.path = path;
+
+    try {
+      this.file = new RandomAccessFile(path.toFile(), READ);
+      this.length = file.length();
+    }
+    catch(IOException e) {
+      close();
+      throw new PEFileException("Unable to open file " + getPath(), e);
+    }
+  }
+
+  @Override
+  public Path getPath() {
+    if(Objects.isNull(realPath)) {
+      realPath = FileSources.findRealPath(path);
+    }
+
+    return realPath;
+  }
+
+  @Override
+  public String getName() {
+    return getPath().toString();
+  }
+
+  @Override
+  public long length() {
+    return length;
+  }
+
+  @Override
+  public void read(long offset, byte[] buffer, int start, int length) throws IOException {
+    file.seek(offset);
+    file.readFully(buffer, start, length);
+  }
+
+  @Override
+  public void close() {
+    if(Objects.nonNull(file)) {
+      try {
+        file.close();
+      }
+      catch(IOException e) {
+        throw new PEFileException("Unable to close file " + getPath(), e);
+      }
+    }
+  }
+}
@@ -0,0 +1,65 @@
+// Copyright (c) 2023 Goosebump Designs LLC
+
+package com.goosebumpdesigns.pe.file;
+
+import java.nio.ByteBuffer;
+
+/**
+ * This is the scratch memory of a reusable {@link PEFileReader}. Buffers are carved out of a single
+ * chunk one after another and are all released at once by {@link #reset()} when the reader moves
+ * to the next file. If a file needs more than the chunk holds, a chunk twice the size replaces it,
+ * so after the first few files of a batch no more chunks are allocated. A request larger than
+ * {@value #MAX_CHUNK_SIZE} bytes gets an array of its own that is not kept, so one very large file
+ * does not pin its memory for the rest of the batch.
+ *
+ * An arena belongs to one reader and is not thread-safe.
+ */
+final class ReadArena {
+  private static final int MIN_CHUNK_SIZE = 64 * 1024;
+  private static final int MAX_CHUNK_SIZE = 16 * 1024 * 1024;
+
+  private byte[] chunk = new byte[MIN_CHUNK_SIZE];
+  private int position;
+
+  /**
+   * Allocate a buffer. The contents of the buffer are undefined. The buffer is valid until the next
+   * {@link #reset()}.
+   *
+   * @param length The length of the buffer.
+   * @return A buffer with position zero and a capacity of the given length. It is backed by an
+   *         array starting at {@link ByteBuffer#arrayOffset()}.
+   */
+  ByteBuffer allocate(int length) {
+    if(length > chunk.length - position) {
+      if(length > MAX_CHUNK_SIZE) {
+        return ByteBuffer.allocate(length);
+      }
+
+      grow(length);
+    }
+
+    ByteBuffer buffer = ByteBuffer.wrap(chunk, position, length).slice();
+    position += length;
+
+    return buffer;
+  }
+
+  /**
+   * Release every buffer. Buffers allocated before the reset are overwritten by later allocations.
+   */
+  void reset() {
+    position = 0;
+  }
+
+  /**
+   * Replace the chunk with a larger one. Buffers in the old chunk remain valid because they still
+   * refer to it.
+   *
+   * @param length The length of the allocation that did not fit.
+   */
+  private void grow(int length) {
+    long size = Math.max((long)chunk.length * 2, (long)position + length);
+    chunk = new byte[(int)Math.min(size, MAX_CHUNK_SIZE)];
+    position = 0;
+  }
+}
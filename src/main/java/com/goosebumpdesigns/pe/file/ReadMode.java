@@ -0,0 +1,21 @@
+// Copyright (c) 2023 Goosebump Designs LLC
+
+package com.goosebumpdesigns.pe.file;
+
+/**
+ * These define the ways that {@link PEFileReader} can read data from the Portable Executable file.
+ */
+public enum ReadMode {
+  /**
+   * Each read is a seek and read on a {@link java.io.RandomAccessFile}. This is the original (and
+   * default) read mode.
+   */
+  RANDOM_ACCESS,
+
+  /**
+   * The file is opened once and mapped into memory with a single
+   * {@link java.nio.channels.FileChannel#map} call. All reads are then served from the mapping, so
+   * no further system calls are needed to parse the file.
+   */
+  MEMORY_MAPPED
+}
@@ -0,0 +1,161 @@
+// Copyright (c) 2023 Goosebump Designs LLC
+
+package com.goosebumpdesigns.pe.file;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import com.goosebumpdesigns.pe.PESection;
+import com.goosebumpdesigns.pe.PESectionTable;
+
+/**
+ * This class translates relative virtual addresses (RVAs) to file offsets. Almost every address
+ * stored in the data directories of a Portable Executable file is an RVA, which is the address of
+ * the data once the file is loaded into memory, relative to the image base. To find the data in the
+ * file, the section that contains the RVA is located and the RVA is translated using the section's
+ * virtual address and raw data pointer.
+ *
+ * The resolver is built once from the section table. The section values are copied into parallel
+ * primitive arrays sorted by virtual address, so a lookup is a binary search with no allocation.
+ * Consecutive lookups usually fall in the same section (all export names are normally in one
+ * section, for example), so the section found by the last lookup is checked first. RVAs below the
+ * first section are in the headers, which are loaded at the same offsets as they have in the file.
+ *
+ * Instances are safe to share between threads. The last-hit index is only a hint, so a stale value
+ * seen by another thread costs a binary search but never produces a wrong result.
+ */
+public class RvaResolver {
+  /** This is returned when an RVA is not backed by data in the file. */
+  public static final long UNMAPPED = -1;
+
+  private final long[] virtualAddresses;
+  private final long[] virtualEnds;
+  private final long[] rawDataPointers;
+  private final long[] rawDataSizes;
+  private final long headerEnd;
+
+  private int lastHit;
+
+  /**
+   * Create a resolver from the sections in the section table.
+   *
+   * @param sectionTable The section table.
+   */
+  public RvaResolver(PESectionTable sectionTable) {
+    this(sectionTable.values());
+  }
+
+  /**
+   * Create a resolver from the given sections. The sections do not need to be in any particular
+   * order.
+   *
+   * @param sections The sections.
+   */
+  public RvaResolver(Collection<PESection> sections) {
+    PESection[] sorted = sections.toArray(PESection[]::new);
+    Arrays.sort(sorted, Comparator.comparingLong(PESection::getVirtualAddress));
+
+    int count = sorted.length;
+    virtualAddresses = new long[count];
+    virtualEnds = new long[count];
+    rawDataPointers = new long[count];
+    rawDataSizes = new long[count];
+
+    for(int pos = 0; pos < count; pos++) {
+      PESection section = sorted[pos];
+      long size = Math.max(section.getVirtualSize(), section.getRawDataSize());
+
+      virtualAddresses[pos] = section.getVirtualAddress();
+      virtualEnds[pos] = section.getVirtualAddress() + size;
+      rawDataPointers[pos] = section.getRawDataPointer();
+      rawDataSizes[pos] = section.getRawDataSize();
+    }
+
+    headerEnd = count == 0 ? Long.MAX_VALUE : virtualAddresses[0];
+  }
+
+  /**
+   * Translate an RVA to a file offset.
+   *
+   * @param rva The relative virtual address.
+   * @return The file offset, or {@link #UNMAPPED} if the RVA is not in a section or refers to the
+   *         uninitialized part of a section (which is not stored in the file).
+   */
+  public long toFileOffset(long rva) {
+    if(rva < 0) {
+      return UNMAPPED;
+    }
+
+    if(rva < headerEnd) {
+      return rva;
+    }
+
+    int hit = lastHit;
+
+    if(!contains(hit, rva)) {
+      hit = findSection(rva);
+
+      if(hit < 0) {
+        return UNMAPPED;
+      }
+
+      lastHit = hit;
+    }
+
+    long delta = rva - virtualAddresses[hit];
+
+    return delta < rawDataSizes[hit] ? rawDataPointers[hit] + delta : UNMAPPED;
+  }
+
+  /**
+   * Translate an array of RVAs to file offsets in one call. RVAs that cannot be translated are
+   * returned as {@link #UNMAPPED}.
+   *
+   * @param rvas The relative virtual addresses.
+   * @return A new array with the file offset of each RVA in the same position.
+   */
+  public long[] toFileOffsets(long[] rvas) {
+    long[] offsets = new long[rvas.length];
+
+    for(int pos = 0; pos < rvas.length; pos++) {
+      offsets[pos] = toFileOffset(rvas[pos]);
+    }
+
+    return offsets;
+  }
+
+  /**
+   * @param index
+   * @param rva
+   * @return
+   */
+  private boolean contains(int index, long rva) {
+    return index < virtualAddresses.length && rva >= virtualAddresses[index]
+        && rva < virtualEnds[index];
+  }
+
+  /**
+   * Find the section containing the given RVA. This is the last section whose virtual address is
+   * less than or equal to the RVA, if the RVA is inside that section.
+   *
+   * @param rva The relative virtual address.
+   * @return The section index or -1 if no section contains the RVA.
+   */
+  private int findSection(long rva) {
+    int low = 0;
+    int high = virtualAddresses.length - 1;
+
+    while(low <= high) {
+      int mid = (low + high) >>> 1;
+
+      if(virtualAddresses[mid] <= rva) {
+        low = mid + 1;
+      }
+      else {
+        high = mid - 1;
+      }
+    }
+
+    return high >= 0 && rva < virtualEnds[high] ? high : -1;
+  }
+}
@@ -18,4 +18,16 @@ public class SectionBuffer extends ByteOrderBuffer {
     super(buffer, byteOrder);
   }
 
+  /**
+   * Create a section buffer that is a view of one section header in the section table buffer. The
+   * section header bytes are not copied.
+   * 
+   * @param sectionTableBuffer The buffer containing all section headers.
+   * @param offset The offset of the section header in the section table buffer.
+   * @param size The size of a section header.
+   */
+  public SectionBuffer(ByteOrderBuffer sectionTableBuffer, int offset, int size) {
+    super(sectionTableBuffer, offset, size);
+  }
+
 }
@@ -3,6 +3,7 @@
 package com.goosebumpdesigns.pe.file;
 
 import java.util.Iterator;
+import java.util.NoSuchElementException;
 
 /**
  * This class iterates over the section header table buffer, providing sub-buffers for each section.
@@ -78,13 +79,16 @@ public class SectionTableBuffer implements Iterable<SectionBuffer> {
     }
 
     /**
-     * Returns the next section buffer.
+     * Returns the next section buffer. This is a view of the section table buffer, so the section
+     * header bytes are not copied.
      */
     @Override
     public SectionBuffer next() {
-      byte[] bytes = sectionTableBuffer.getBytes(curSection++ * sectionSize, sectionSize);
-      SectionBuffer buf = new SectionBuffer(bytes, sectionTableBuffer.getByteOrder());
-      return buf;
+      if(!hasNext()) {
+        throw new NoSuchElementException();
+      }
+
+      return new SectionBuffer(sectionTableBuffer, curSection++ * sectionSize, sectionSize);
     }
 
   }
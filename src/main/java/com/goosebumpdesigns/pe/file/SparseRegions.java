@@ -0,0 +1,114 @@
+// Copyright (c) 2023 Goosebump Designs LLC
+
+package com.goosebumpdesigns.pe.file;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * This holds the ranges of an image that a source has read, for sources that cannot (or should
+ * not) read any range at any time. Ranges are keyed by their offset and do not overlap.
+ */
+final class SparseRegions {
+  private final TreeMap<Long, byte[]> regions = new TreeMap<>();
+  private long retained;
+
+  /**
+   * Keep a range. The caller makes sure that it does not overlap a range that is already kept.
+   *
+   * @param offset The offset of the range.
+   * @param data The bytes of the range.
+   */
+  void put(long offset, byte[] data) {
+    if(data.length > 0) {
+      regions.put(offset, data);
+      retained += data.length;
+    }
+  }
+
+  /**
+   * @return The number of bytes kept.
+   */
+  long getRetained() {
+    return retained;
+  }
+
+  /**
+   * Copy bytes from the range that contains the offset. The copy stops at the end of that range.
+   *
+   * @param offset The offset of the first byte.
+   * @param buffer The buffer to copy into.
+   * @param start The index in the buffer of the first byte.
+   * @param length The maximum number of bytes to copy.
+   * @return The number of bytes copied, which is zero if the offset is not in a kept range.
+   */
+  int copy(long offset, byte[] buffer, int start, int length) {
+    Map.Entry<Long, byte[]> region = find(offset);
+
+    if(Objects.isNull(region)) {
+      return 0;
+    }
+
+    int from = (int)(offset - region.getKey());
+    int count = Math.min(region.getValue().length - from, length);
+
+    System.arraycopy(region.getValue(), from, buffer, start, count);
+    return count;
+  }
+
+  /**
+   * Find the first byte of a range that is not kept.
+   *
+   * @param offset The offset of the range.
+   * @param end The end of the range (exclusive).
+   * @return The offset of the first byte that is not kept, or {@code end} if the whole range is
+   *         kept.
+   */
+  long firstMissing(long offset, long end) {
+    long current = offset;
+
+    while(current < end) {
+      Map.Entry<Long, byte[]> region = find(current);
+
+      if(Objects.isNull(region)) {
+        return current;
+      }
+
+      current = region.getKey() + region.getValue().length;
+    }
+
+    return end;
+  }
+
+  /**
+   * @param offset The offset.
+   * @return The offset of the first kept byte after the offset, or {@link Long#MAX_VALUE}.
+   */
+  long nextStart(long offset) {
+    Long next = regions.higherKey(offset);
+    return Objects.isNull(next) ? Long.MAX_VALUE : next;
+  }
+
+  /**
+   * Release every range.
+   */
+  void clear() {
+    regions.clear();
+    retained = 0;
+  }
+
+  /**
+   * @param offset
+   * @return The kept range that contains the offset, or {@code null}.
+   */
+  private Map.Entry<Long, byte[]> find(long offset) {
+    Map.Entry<Long, byte[]> region = regions.floorEntry(offset);
+
+    if(Objects.nonNull(region) && offset < region.getKey() + region.getValue().length) {
+      return region;
+    }
+
+    return null;
+  }
+}
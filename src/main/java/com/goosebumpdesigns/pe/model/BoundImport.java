@@ -0,0 +1,24 @@
+// Copyright (c) 2023 Goosebump Designs LLC
+
+package com.goosebumpdesigns.pe.model;
+
+import java.util.List;
+import lombok.Value;
+
+/**
+ * This class describes one entry of the bound import directory: a DLL that the import address
+ * table was bound to, and the time stamp of the DLL it was bound against. If the DLL forwards some
+ * of the bound functions to other DLLs, those DLLs are listed as forwarders (forwarders have no
+ * forwarders of their own).
+ */
+@Value
+public class BoundImport {
+  /** The DLL name as it appears in the file, like "KERNEL32.dll". */
+  private String name;
+
+  /** The time stamp of the DLL. The binding is stale if the DLL's time stamp is different. */
+  private long timestamp;
+
+  /** The DLLs that bound functions are forwarded to. */
+  private List<BoundImport> forwarders;
+}
@@ -0,0 +1,52 @@
+// Copyright (c) 2023 Goosebump Designs LLC
+
+package com.goosebumpdesigns.pe.model;
+
+import java.util.List;
+import lombok.Value;
+
+/**
+ * This class describes one delay-load descriptor: a DLL that is loaded the first time one of its
+ * functions is called, and the functions imported from it. Descriptors written by old linkers hold
+ * virtual addresses instead of RVAs; their addresses are converted to RVAs here, so every address
+ * below is an RVA whichever kind of descriptor it came from.
+ */
+@Value
+public class DelayImportedLibrary {
+  /** The DLL name as it appears in the file, like "USER32.dll". */
+  private String name;
+
+  /** {@code true} if the descriptor holds RVAs, {@code false} if it holds virtual addresses. */
+  private boolean rvaBased;
+
+  /** The RVA of the variable that holds the module handle once the DLL is loaded. */
+  private long moduleHandleRva;
+
+  /** The RVA of the delay-load import address table. */
+  private long addressTableRva;
+
+  /** The RVA of the delay-load import name table, or zero if there is none. */
+  private long nameTableRva;
+
+  /** The RVA of the bound copy of the import address table, or zero if there is none. */
+  private long boundAddressTableRva;
+
+  /** The RVA of the copy of the import address table used to unload the DLL, or zero. */
+  private long unloadInformationTableRva;
+
+  /** The time stamp of the DLL the imports were bound to, or zero if they are not bound. */
+  private long timestamp;
+
+  /**
+   * The imported functions in import address table order. This is empty if the descriptor has no
+   * import name table.
+   */
+  private List<ImportedFunction> functions;
+
+  /**
+   * @return {@code true} if the import address table was bound to DLL addresses at link time.
+   */
+  public boolean isBound() {
+    return timestamp != 0;
+  }
+}
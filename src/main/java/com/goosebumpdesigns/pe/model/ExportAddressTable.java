@@ -0,0 +1,152 @@
+// Copyright (c) 2023 Goosebump Designs LLC
+
+package com.goosebumpdesigns.pe.model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+/**
+ * This class holds the export address table: the RVA of each exported function or variable,
+ * indexed by (ordinal - ordinal base). An entry of zero is an unused ordinal. An entry that points
+ * inside the export directory is a forwarder: it points to a string like "NTDLL.RtlAllocateHeap"
+ * (or "NTDLL.#12" for an ordinal) that names the export in another DLL. The bytes of the export
+ * directory are only kept if the table has forwarders, and each forwarder string is decoded the
+ * first time it is requested. The table is safe for concurrent use.
+ */
+@EqualsAndHashCode
+public class ExportAddressTable {
+  /** A table with no entries. */
+  public static final ExportAddressTable EMPTY = new ExportAddressTable(new int[0], 0, 0, null);
+
+  private final int[] addresses;
+
+  @Getter
+  private final long directoryAddress;
+
+  @Getter
+  private final long directorySize;
+
+  private final byte[] directoryData;
+
+  @EqualsAndHashCode.Exclude
+  private final AtomicReferenceArray<String> forwarders;
+
+  /**
+   * Create an export address table.
+   *
+   * @param addresses The table entries (unsigned RVAs).
+   * @param directoryAddress The RVA of the export directory.
+   * @param directorySize The size of the export directory.
+   * @param directoryData The bytes of the export directory, or {@code null} if the table has no
+   *        forwarders.
+   */
+  public ExportAddressTable(int[] addresses, long directoryAddress, long directorySize,
+      byte[] directoryData) {
+    this.addresses = addresses;
+    this.directoryAddress = directoryAddress;
+    this.directorySize = directorySize;
+    this.directoryData = directoryData;
+    this.forwarders =
+        Objects.isNull(directoryData) ? null : new AtomicReferenceArray<>(addresses.length);
+  }
+
+  /**
+   * Returns {@code true} if any entry is a forwarder. A table with forwarders must be created with
+   * the bytes of the export directory.
+   *
+   * @param addresses The table entries.
+   * @param directoryAddress The RVA of the export directory.
+   * @param directorySize The size of the export directory.
+   * @return {@code true} if any entry points inside the export directory.
+   */
+  public static boolean hasForwarders(int[] addresses, long directoryAddress,
+      long directorySize) {
+    for(int address : addresses) {
+      if(isInDirectory(Integer.toUnsignedLong(address), directoryAddress, directorySize)) {
+        return true;
+      }
+    }
+
+    return false;
+  }
+
+  /**
+   * @return The number of entries.
+   */
+  public int size() {
+    return addresses.length;
+  }
+
+  /**
+   * @param index The index of the entry (ordinal - ordinal base).
+   * @return The RVA of the entry, or zero if the ordinal is not used.
+   */
+  public long getAddress(int index) {
+    return Integer.toUnsignedLong(addresses[index]);
+  }
+
+  /**
+   * @return A copy of the table entries.
+   */
+  public int[] getAddresses() {
+    return addresses.clone();
+  }
+
+  /**
+   * @return The bytes of the export directory, or {@code null} if the table has no forwarders.
+   */
+  public byte[] getDirectoryData() {
+    return directoryData;
+  }
+
+  /**
+   * @param index The index of the entry (ordinal - ordinal base).
+   * @return {@code true} if the entry is a forwarder.
+   */
+  public boolean isForwarded(int index) {
+    return isInDirectory(getAddress(index), directoryAddress, directorySize);
+  }
+
+  /**
+   * Decode the forwarder string of an entry. The string is decoded on the first request. Threads
+   * that ask for the same forwarder at once may each decode it, but they all see a complete string.
+   *
+   * @param index The index of the entry (ordinal - ordinal base).
+   * @return The forwarder, like "NTDLL.RtlAllocateHeap", or {@code null} if the entry is not a
+   *         forwarder.
+   */
+  public String getForwarder(int index) {
+    if(!isForwarded(index) || Objects.isNull(directoryData)) {
+      return null;
+    }
+
+    String forwarder = forwarders.get(index);
+
+    if(Objects.isNull(forwarder)) {
+      int start = (int)(getAddress(index) - directoryAddress);
+      int end = start;
+
+      while(end < directoryData.length && directoryData[end] != 0) {
+        end++;
+      }
+
+      forwarder = new String(directoryData, start, end - start, StandardCharsets.UTF_8);
+      forwarders.set(index, forwarder);
+    }
+
+    return forwarder;
+  }
+
+  /**
+   * @param address
+   * @param directoryAddress
+   * @param directorySize
+   * @return
+   */
+  private static boolean isInDirectory(long address, long directoryAddress, long directorySize) {
+    return address >= directoryAddress && address < directoryAddress + directorySize;
+  }
+}
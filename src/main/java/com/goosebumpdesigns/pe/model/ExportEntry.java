@@ -0,0 +1,38 @@
+// Copyright (c) 2023 Goosebump Designs LLC
+
+package com.goosebumpdesigns.pe.model;
+
+import java.util.Objects;
+import lombok.Value;
+
+/**
+ * This class describes one entry of the export address table, with its name if it has one.
+ */
+@Value
+public class ExportEntry {
+  /** The ordinal, including the ordinal base. This is the ordinal used to import the entry. */
+  private long ordinal;
+
+  /** The name, or {@code null} if the entry is only exported by ordinal. */
+  private String name;
+
+  /** The RVA of the entry. For a forwarder, this is the RVA of the forwarder string. */
+  private long address;
+
+  /** The forwarder, like "NTDLL.RtlAllocateHeap", or {@code null} if the entry is not forwarded. */
+  private String forwarder;
+
+  /**
+   * @return {@code true} if the entry has a name.
+   */
+  public boolean isNamed() {
+    return Objects.nonNull(name);
+  }
+
+  /**
+   * @return {@code true} if the entry is forwarded to another DLL.
+   */
+  public boolean isForwarded() {
+    return Objects.nonNull(forwarder);
+  }
+}
@@ -0,0 +1,31 @@
+// Copyright (c) 2023 Goosebump Designs LLC
+
+package com.goosebumpdesigns.pe.model;
+
+import java.util.Objects;
+import lombok.Value;
+
+/**
+ * This class describes one function imported from a DLL, either by name or by ordinal.
+ */
+@Value
+public class ImportedFunction {
+  /** The name, or {@code null} if the function is imported by ordinal. */
+  private String name;
+
+  /** The hint (a guess at the index of the name in the DLL's export name table), or zero. */
+  private int hint;
+
+  /** The ordinal if the function is imported by ordinal, or zero. */
+  private int ordinal;
+
+  /** The RVA of the import address table slot that the loader fills with the address. */
+  private long addressTableRva;
+
+  /**
+   * @return {@code true} if the function is imported by ordinal.
+   */
+  public boolean isByOrdinal() {
+    return Objects.isNull(name);
+  }
+}
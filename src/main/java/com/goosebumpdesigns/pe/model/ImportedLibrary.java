@@ -0,0 +1,37 @@
+// Copyright (c) 2023 Goosebump Designs LLC
+
+package com.goosebumpdesigns.pe.model;
+
+import java.util.List;
+import lombok.Value;
+
+/**
+ * This class describes one import descriptor: a DLL and the functions imported from it.
+ */
+@Value
+public class ImportedLibrary {
+  /** The DLL name as it appears in the file, like "KERNEL32.dll". */
+  private String name;
+
+  /**
+   * The time stamp of the descriptor. It is zero unless the imports are bound, in which case it is
+   * -1 (new-style binding) or the time stamp of the DLL the addresses were bound to.
+   */
+  private long timestamp;
+
+  /** The index of the first forwarder reference, or -1 if there are none. */
+  private long forwarderChain;
+
+  /**
+   * The imported functions in import address table order. This is empty if the descriptor has no
+   * import lookup table and its import address table is bound, because the names are then lost.
+   */
+  private List<ImportedFunction> functions;
+
+  /**
+   * @return {@code true} if the import address table was bound to DLL addresses at link time.
+   */
+  public boolean isBound() {
+    return timestamp != 0;
+  }
+}
@@ -0,0 +1,86 @@
+// Copyright (c) 2023 Goosebump Designs LLC
+
+package com.goosebumpdesigns.pe.model;
+
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * This class holds a value that is computed the first time it is requested. It is used for the
+ * parts of a PE file that are expensive to decode (like the exports) so that they are only decoded
+ * if they are used. The value is computed at most once, even if it is requested by several threads
+ * at the same time. If the computation throws an exception, the exception is passed to the caller
+ * and the value is computed again on the next request.
+ *
+ * @param <T> The type of the value.
+ */
+public final class LazyValue<T> {
+  private Supplier<? extends T> supplier;
+  private volatile boolean loaded;
+  private T value;
+
+  private LazyValue(Supplier<? extends T> supplier, T value, boolean loaded) {
+    this.supplier = supplier;
+    this.value = value;
+    this.loaded = loaded;
+  }
+
+  /**
+   * Create a lazy value that is computed by the given supplier on first access.
+   *
+   * @param <T> The type of the value.
+   * @param supplier The supplier that computes the value.
+   * @return The lazy value.
+   */
+  public static <T> LazyValue<T> of(Supplier<? extends T> supplier) {
+    return new LazyValue<>(Objects.requireNonNull(supplier), null, false);
+  }
+
+  /**
+   * Create a lazy value that has already been computed.
+   *
+   * @param <T> The type of the value.
+   * @param value The value, which may be {@code null}.
+   * @return The lazy value.
+   */
+  public static <T> LazyValue<T> loaded(T value) {
+    return new LazyValue<>(null, value, true);
+  }
+
+  /**
+   * Returns the value, computing it if this is the first request.
+   *
+   * @return The value, which may be {@code null}.
+   */
+  public T get() {
+    if(!loaded) {
+      synchronized(this) {
+        if(!loaded) {
+          value = supplier.get();
+          supplier = null;
+          loaded = true;
+        }
+      }
+    }
+
+    return value;
+  }
+
+  /**
+   * Returns {@code true} if the value has been computed.
+   *
+   * @return {@code true} if {@link #get()} will return without computing the value.
+   */
+  public boolean isLoaded() {
+    return loaded;
+  }
+
+  /**
+   * Returns the value if it has been computed. The value is not computed by this method, so it is
+   * safe to call from {@code toString} methods.
+   */
+  @Override
+  public String toString() {
+    return loaded ? String.valueOf(value) : "(not loaded)";
+  }
+}
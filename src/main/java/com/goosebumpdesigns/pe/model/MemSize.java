@@ -3,14 +3,68 @@
 package com.goosebumpdesigns.pe.model;
 
 import java.math.BigInteger;
+import lombok.AllArgsConstructor;
 import lombok.Value;
 
 /**
  * This class contains a reserve and commit size. (This means something in the context of Portable
  * Executable file formats.)
+ * 
+ * The sizes are unsigned 64-bit values held in a long. Use {@link #getRawReserve()} and
+ * {@link #getRawCommit()} to get the values without allocating anything, together with the
+ * {@link Unsigned} helpers to compare or display them. The {@link BigInteger} getters are
+ * convenience methods derived from the raw values.
  */
 @Value
+@AllArgsConstructor
 public class MemSize {
-  private BigInteger reserve;
-  private BigInteger commit;
+  private long reserve;
+  private long commit;
+
+  /**
+   * Create a memory size from BigInteger values. Only the low 64 bits of each value are kept.
+   * 
+   * @param reserve The reserve size.
+   * @param commit The commit size.
+   */
+  public MemSize(BigInteger reserve, BigInteger commit) {
+    this(reserve.longValue(), commit.longValue());
+  }
+
+  /**
+   * @return The reserve size as a BigInteger.
+   */
+  public BigInteger getReserve() {
+    return Unsigned.toBigInteger(reserve);
+  }
+
+  /**
+   * @return The commit size as a BigInteger.
+   */
+  public BigInteger getCommit() {
+    return Unsigned.toBigInteger(commit);
+  }
+
+  /**
+   * @return The unsigned reserve size as a long.
+   */
+  public long getRawReserve() {
+    return reserve;
+  }
+
+  /**
+   * @return The unsigned commit size as a long.
+   */
+  public long getRawCommit() {
+    return commit;
+  }
+
+  /**
+   * Returns a String representation of this object with the sizes shown as unsigned values.
+   */
+  @Override
+  public String toString() {
+    return String.format("MemSize(reserve=%s, commit=%s)", Unsigned.toString(reserve),
+        Unsigned.toString(commit));
+  }
 }
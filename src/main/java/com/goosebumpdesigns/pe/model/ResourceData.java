@@ -0,0 +1,57 @@
+// Copyright (c) 2023 Goosebump Designs LLC
+
+package com.goosebumpdesigns.pe.model;
+
+import java.nio.ByteBuffer;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * This class holds a leaf of the resource directory tree (IMAGE_RESOURCE_DATA_ENTRY): the location
+ * of one resource in one language. The data itself is only touched when {@link #getData()} is
+ * called, and then it is a view of the image rather than a copy.
+ */
+@Getter
+@ToString
+public class ResourceData {
+  @Getter(AccessLevel.NONE)
+  @ToString.Exclude
+  private final ResourceTree tree;
+
+  /** The RVA of the data. */
+  private final long rva;
+
+  /** The size of the data in bytes. */
+  private final long size;
+
+  /** The code page used to decode code point values in the data, usually zero. */
+  private final long codePage;
+
+  /**
+   * @param tree The tree that contains the entry.
+   * @param rva The RVA of the data.
+   * @param size The size of the data.
+   * @param codePage The code page of the data.
+   */
+  ResourceData(ResourceTree tree, long rva, long size, long codePage) {
+    this.tree = tree;
+    this.rva = rva;
+    this.size = size;
+    this.codePage = codePage;
+  }
+
+  /**
+   * Return the resource data as a read-only view of the image. No data is copied, so this is as
+   * cheap for a resource of hundreds of megabytes as for one of a few bytes. If the image is a
+   * mapped file, the data is paged in as it is read.
+   *
+   * @return The data, between position zero and the limit of the buffer, in the byte order of the
+   *         image.
+   * @throws com.goosebumpdesigns.pe.exception.PEFileException thrown if the data is not inside the
+   *         image.
+   */
+  public ByteBuffer getData() {
+    return tree.slice(rva, size);
+  }
+}
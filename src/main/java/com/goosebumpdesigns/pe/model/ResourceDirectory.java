@@ -0,0 +1,139 @@
+// Copyright (c) 2023 Goosebump Designs LLC
+
+package com.goosebumpdesigns.pe.model;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+/**
+ * This class holds one node of the resource directory tree (IMAGE_RESOURCE_DIRECTORY). The entries
+ * of the root are the resource types, the entries of a type are the resource names and IDs, and
+ * the entries of a name are the languages, which lead to the data.
+ *
+ * The header is decoded when the directory is reached. Entries are decoded when they are
+ * requested. Named entries come first, sorted by name, followed by the ID entries in ascending
+ * order of ID, so an ID is found with a binary search as the Windows loader finds it.
+ */
+@Getter
+public class ResourceDirectory {
+  @Getter(AccessLevel.NONE)
+  private final ResourceTree tree;
+
+  /** The offset of the directory from the start of the resource directory. */
+  private final int offset;
+
+  private final long characteristics;
+  private final LocalDateTime timestamp;
+  private final Version version;
+  private final int namedEntryCount;
+  private final int idEntryCount;
+
+  /**
+   * @param tree The tree that contains the directory.
+   * @param offset The offset of the directory in the tree.
+   * @param characteristics The characteristics (always zero).
+   * @param timestamp The time the resource data was created.
+   * @param version The version, set by the user.
+   * @param namedEntryCount The number of entries that have names.
+   * @param idEntryCount The number of entries that have integer IDs.
+   */
+  ResourceDirectory(ResourceTree tree, int offset, long characteristics, LocalDateTime timestamp,
+      Version version, int namedEntryCount, int idEntryCount) {
+    this.tree = tree;
+    this.offset = offset;
+    this.characteristics = characteristics;
+    this.timestamp = timestamp;
+    this.version = version;
+    this.namedEntryCount = namedEntryCount;
+    this.idEntryCount = idEntryCount;
+  }
+
+  /**
+   * @return The number of entries.
+   */
+  public int size() {
+    return namedEntryCount + idEntryCount;
+  }
+
+  /**
+   * @param index The index of the entry. The named entries come first.
+   * @return The entry.
+   * @throws IndexOutOfBoundsException thrown if there is no entry with the index.
+   */
+  public ResourceEntry getEntry(int index) {
+    return tree.entry(entryOffset(Objects.checkIndex(index, size())));
+  }
+
+  /**
+   * @return All entries, named entries first. Only the entries themselves are decoded, not their
+   *         names or what they lead to.
+   */
+  public List<ResourceEntry> getEntries() {
+    List<ResourceEntry> entries = new ArrayList<>(size());
+
+    for(int index = 0; index < size(); index++) {
+      entries.add(tree.entry(entryOffset(index)));
+    }
+
+    return entries;
+  }
+
+  /**
+   * Find an entry by integer ID. Only the IDs that the binary search visits are read.
+   *
+   * @param id The ID, like a resource type or a language ID.
+   * @return The entry, or {@code null} if the directory has no entry with the ID.
+   */
+  public ResourceEntry findEntry(int id) {
+    int low = namedEntryCount;
+    int high = size() - 1;
+
+    while(low <= high) {
+      int middle = (low + high) >>> 1;
+      int found = tree.entryId(entryOffset(middle));
+
+      if(found < id) {
+        low = middle + 1;
+      }
+      else if(found > id) {
+        high = middle - 1;
+      }
+      else {
+        return tree.entry(entryOffset(middle));
+      }
+    }
+
+    return null;
+  }
+
+  /**
+   * Find an entry by name. Case is ignored, as it is by Windows. The names are compared where they
+   * are in the image, so no names are decoded.
+   *
+   * @param name The name.
+   * @return The entry, or {@code null} if the directory has no entry with the name.
+   */
+  public ResourceEntry findEntry(String name) {
+    for(int index = 0; index < namedEntryCount; index++) {
+      ResourceEntry entry = tree.entry(entryOffset(index));
+
+      if(entry.nameEquals(name)) {
+        return entry;
+      }
+    }
+
+    return null;
+  }
+
+  /**
+   * @param index
+   * @return The offset of the entry in the tree.
+   */
+  private int entryOffset(int index) {
+    return offset + ResourceTree.DIRECTORY_SIZE + index * ResourceTree.ENTRY_SIZE;
+  }
+}
@@ -0,0 +1,108 @@
+// Copyright (c) 2023 Goosebump Designs LLC
+
+package com.goosebumpdesigns.pe.model;
+
+import java.util.Objects;
+
+/**
+ * This class holds one entry of a resource directory (IMAGE_RESOURCE_DIRECTORY_ENTRY). An entry is
+ * identified by an integer ID or by a name, and leads either to another directory or to a data
+ * entry. The name is decoded the first time it is requested, and the directory or data entry is
+ * decoded each time it is requested.
+ */
+public class ResourceEntry {
+  private static final long OFFSET_MASK = ResourceTree.HIGH_BIT - 1;
+  private static final int ID_MASK = 0xffff;
+
+  private final ResourceTree tree;
+  private final long nameField;
+  private final long dataField;
+  private String name;
+
+  /**
+   * @param tree The tree that contains the entry.
+   * @param nameField The name offset (high bit set) or integer ID.
+   * @param dataField The directory offset (high bit set) or data entry offset.
+   */
+  ResourceEntry(ResourceTree tree, long nameField, long dataField) {
+    this.tree = tree;
+    this.nameField = nameField;
+    this.dataField = dataField;
+  }
+
+  /**
+   * @return {@code true} if the entry has a name instead of an integer ID.
+   */
+  public boolean isNamed() {
+    return (nameField & ResourceTree.HIGH_BIT) != 0;
+  }
+
+  /**
+   * @return The integer ID, or -1 if the entry has a name.
+   */
+  public int getId() {
+    return isNamed() ? -1 : (int)(nameField & ID_MASK);
+  }
+
+  /**
+   * Returns the name of the entry, decoding it on the first request.
+   *
+   * @return The name, or {@code null} if the entry has an integer ID.
+   * @throws com.goosebumpdesigns.pe.exception.PEFileException thrown if the name is not inside the
+   *         image.
+   */
+  public String getName() {
+    if(!isNamed()) {
+      return null;
+    }
+
+    if(Objects.isNull(name)) {
+      name = tree.name(nameField & OFFSET_MASK);
+    }
+
+    return name;
+  }
+
+  /**
+   * @return {@code true} if the entry leads to another directory, {@code false} if it leads to
+   *         data.
+   */
+  public boolean isDirectory() {
+    return (dataField & ResourceTree.HIGH_BIT) != 0;
+  }
+
+  /**
+   * @return The directory that the entry leads to, or {@code null} if the entry leads to data.
+   * @throws com.goosebumpdesigns.pe.exception.PEFileException thrown if the directory is not
+   *         inside the image.
+   */
+  public ResourceDirectory getDirectory() {
+    return isDirectory() ? tree.directory(dataField & OFFSET_MASK) : null;
+  }
+
+  /**
+   * @return The data entry that the entry leads to, or {@code null} if the entry leads to a
+   *         directory.
+   * @throws com.goosebumpdesigns.pe.exception.PEFileException thrown if the data entry is not
+   *         inside the image.
+   */
+  public ResourceData getData() {
+    return isDirectory() ? null : tree.data(dataField);
+  }
+
+  /**
+   * @param other
+   * @return {@code true} if the entry has the given name, ignoring case.
+   */
+  boolean nameEquals(String other) {
+    return isNamed() && tree.nameEquals(nameField & OFFSET_MASK, other);
+  }
+
+  /**
+   * @return The name, or "#" followed by the ID, as in resource scripts.
+   */
+  @Override
+  public String toString() {
+    return isNamed() ? getName() : "#" + getId();
+  }
+}
@@ -0,0 +1,234 @@
+// Copyright (c) 2023 Goosebump Designs LLC
+
+package com.goosebumpdesigns.pe.model;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import com.goosebumpdesigns.pe.exception.PEFileException;
+import com.goosebumpdesigns.pe.file.ByteOrderBuffer;
+import com.goosebumpdesigns.pe.file.RvaResolver;
+
+/**
+ * This class gives access to the resource directory tree of an image that is in memory (a mapped
+ * file or an in-memory image). Nothing is decoded when the tree is created. Each
+ * {@link ResourceDirectory} is decoded when it is reached, entry names are decoded when they are
+ * requested and resource data is returned as a read-only view of the image. So however large the
+ * resources are, navigating to one of them costs a few small objects for each level of the tree.
+ *
+ * Offsets within the tree are relative to the start of the resource directory. A data entry holds
+ * the RVA of its data, which is translated to a file offset with the {@link RvaResolver}.
+ *
+ * A tree is safe to share between threads.
+ */
+public final class ResourceTree {
+  static final int DIRECTORY_SIZE = 16;
+  static final int ENTRY_SIZE = 8;
+  static final int DATA_ENTRY_SIZE = 16;
+  static final long HIGH_BIT = 0x80000000L;
+
+  private static final int CHARACTERISTICS_OFFSET = 0;
+  private static final int TIMESTAMP_OFFSET = 4;
+  private static final int MAJOR_VERSION_OFFSET = 8;
+  private static final int MINOR_VERSION_OFFSET = 10;
+  private static final int NAMED_ENTRIES_OFFSET = 12;
+  private static final int ID_ENTRIES_OFFSET = 14;
+  private static final int DATA_RVA_OFFSET = 0;
+  private static final int DATA_SIZE_OFFSET = 4;
+  private static final int CODE_PAGE_OFFSET = 8;
+
+  private final ByteBuffer image;
+  private final ByteOrderBuffer tree;
+  private final RvaResolver resolver;
+  private final ByteOrder byteOrder;
+  private final Charset nameCharset;
+  private final String name;
+
+  /**
+   * Create a tree. Nothing is read from the image until the tree is navigated.
+   *
+   * @param image The whole image. Index zero is the first byte of the file. The buffer is not
+   *        copied and its position and limit are not changed.
+   * @param directoryOffset The file offset of the resource directory.
+   * @param resolver The resolver that translates the RVAs of the resource data.
+   * @param byteOrder The byte order of the image.
+   * @param name The name of the image, used in error messages.
+   * @throws PEFileException thrown if the resource directory is not inside the image.
+   */
+  public ResourceTree(ByteBuffer image, long directoryOffset, RvaResolver resolver,
+      ByteOrder byteOrder, String name) {
+    if(directoryOffset < 0 || directoryOffset + DIRECTORY_SIZE > image.limit()) {
+      throw new PEFileException(String.format(
+          "The resource directory at offset %d is outside of %s", directoryOffset, name));
+    }
+
+    int start = (int)directoryOffset;
+
+    this.image = image;
+    this.tree = new ByteOrderBuffer(image, start, image.limit() - start, byteOrder);
+    this.resolver = resolver;
+    this.byteOrder = byteOrder;
+    this.nameCharset = byteOrder == ByteOrder.LITTLE_ENDIAN ? StandardCharsets.UTF_16LE
+        : StandardCharsets.UTF_16BE;
+    this.name = name;
+  }
+
+  /**
+   * @return The root directory, whose entries are the resource types.
+   */
+  public ResourceDirectory getRoot() {
+    return directory(0);
+  }
+
+  /**
+   * Returns the number of bytes of heap memory that the tree holds on to. A tree over a mapped file
+   * or a direct buffer holds none.
+   *
+   * @return The length of the image if it is on the heap, or zero.
+   */
+  public long getHeapSize() {
+    return image.isDirect() ? 0 : image.capacity();
+  }
+
+  /**
+   * @param offset The offset of the directory in the tree.
+   * @return The directory.
+   * @throws PEFileException thrown if the directory is not inside the image.
+   */
+  ResourceDirectory directory(long offset) {
+    int start = check(offset, DIRECTORY_SIZE, "directory");
+    int named = tree.getUnsignedShort(start + NAMED_ENTRIES_OFFSET);
+    int ids = tree.getUnsignedShort(start + ID_ENTRIES_OFFSET);
+
+    check(offset + DIRECTORY_SIZE, (named + ids) * ENTRY_SIZE, "directory");
+
+    // @formatter:off
+    return new ResourceDirectory(this, start,
+        tree.getUnsignedInt(start + CHARACTERISTICS_OFFSET),
+        tree.getTimestamp(start + TIMESTAMP_OFFSET),
+        new Version(tree.getUnsignedShort(start + MAJOR_VERSION_OFFSET),
+            tree.getUnsignedShort(start + MINOR_VERSION_OFFSET)),
+        named,
+        ids);
+    // @formatter:on
+  }
+
+  /**
+   * @param offset The offset of the entry in the tree. The caller has checked that the entry is
+   *        inside the image.
+   * @return The entry.
+   */
+  ResourceEntry entry(int offset) {
+    return new ResourceEntry(this, tree.getUnsignedInt(offset),
+        tree.getUnsignedInt(offset + Integer.BYTES));
+  }
+
+  /**
+   * @param offset The offset of the entry in the tree. The caller has checked that the entry is
+   *        inside the image.
+   * @return The ID of the entry, or -1 if the entry is named.
+   */
+  int entryId(int offset) {
+    long value = tree.getUnsignedInt(offset);
+    return (value & HIGH_BIT) != 0 ? -1 : (int)(value & 0xffff);
+  }
+
+  /**
+   * @param offset The offset of the data entry in the tree.
+   * @return The data entry.
+   * @throws PEFileException thrown if the data entry is not inside the image.
+   */
+  ResourceData data(long offset) {
+    int start = check(offset, DATA_ENTRY_SIZE, "data entry");
+
+    // @formatter:off
+    return new ResourceData(this,
+        tree.getUnsignedInt(start + DATA_RVA_OFFSET),
+        tree.getUnsignedInt(start + DATA_SIZE_OFFSET),
+        tree.getUnsignedInt(start + CODE_PAGE_OFFSET));
+    // @formatter:on
+  }
+
+  /**
+   * Decode a name (a count of UTF-16 characters followed by the characters).
+   *
+   * @param offset The offset of the name in the tree.
+   * @return The name.
+   * @throws PEFileException thrown if the name is not inside the image.
+   */
+  String name(long offset) {
+    int start = check(offset, Short.BYTES, "name");
+    int length = tree.getUnsignedShort(start) * Character.BYTES;
+
+    check(offset + Short.BYTES, length, "name");
+    return tree.getString(start + Short.BYTES, length, nameCharset);
+  }
+
+  /**
+   * Compare a name in the tree with a string, ignoring case as Windows does, without decoding the
+   * name.
+   *
+   * @param offset The offset of the name in the tree.
+   * @param name The string.
+   * @return {@code true} if the name matches.
+   * @throws PEFileException thrown if the name is not inside the image.
+   */
+  boolean nameEquals(long offset, String name) {
+    int start = check(offset, Short.BYTES, "name");
+    int length = tree.getUnsignedShort(start);
+
+    if(length != name.length()) {
+      return false;
+    }
+
+    check(offset + Short.BYTES, length * Character.BYTES, "name");
+
+    for(int pos = 0; pos < length; pos++) {
+      char value = (char)tree.getUnsignedShort(start + Short.BYTES + pos * Character.BYTES);
+
+      if(Character.toUpperCase(value) != Character.toUpperCase(name.charAt(pos))) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * Return a read-only view of resource data. No data is copied.
+   *
+   * @param rva The RVA of the data.
+   * @param size The size of the data.
+   * @return The data, in the byte order of the image.
+   * @throws PEFileException thrown if the data is not inside the image.
+   */
+  ByteBuffer slice(long rva, long size) {
+    long offset = resolver.toFileOffset(rva);
+
+    if(offset == RvaResolver.UNMAPPED || offset + size > image.limit()) {
+      throw new PEFileException(String.format(
+          "Resource data of %d bytes at RVA 0x%08x is outside of %s", size, rva, name));
+    }
+
+    return image.slice((int)offset, (int)size).asReadOnlyBuffer().order(byteOrder);
+  }
+
+  /**
+   * Make sure that a structure is inside the image.
+   *
+   * @param offset The offset of the structure in the tree.
+   * @param length The length of the structure.
+   * @param what What the structure is, for the error message.
+   * @return The offset as an int.
+   * @throws PEFileException thrown if the structure is not inside the image.
+   */
+  private int check(long offset, int length, String what) {
+    if(offset < 0 || offset + length > tree.size()) {
+      throw new PEFileException(String.format(
+          "Resource %s at offset %d is outside of %s", what, offset, name));
+    }
+
+    return (int)offset;
+  }
+}
@@ -0,0 +1,68 @@
+// Copyright (c) 2023 Goosebump Designs LLC
+
+package com.goosebumpdesigns.pe.model;
+
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import com.goosebumpdesigns.pe.file.ByteOrderBuffer;
+
+/**
+ * This class contains helpers for string table resources (RT_STRING). Strings are stored in
+ * bundles of sixteen: string n is string n % 16 of the bundle with resource ID n / 16 + 1. A bundle
+ * holds sixteen counted UTF-16 strings, and a missing string has a count of zero.
+ */
+public final class StringBundle {
+  /** The number of strings in a bundle. */
+  public static final int STRINGS_PER_BUNDLE = 16;
+
+  private static final int MAX_STRING_ID = 0xffff;
+
+  private StringBundle() {}
+
+  /**
+   * @param id The string ID.
+   * @return The resource ID of the bundle that holds the string.
+   * @throws IllegalArgumentException thrown if the ID is not between 0 and 65535.
+   */
+  public static int bundleId(int id) {
+    if(id < 0 || id > MAX_STRING_ID) {
+      throw new IllegalArgumentException("String ID " + id + " is not between 0 and 65535");
+    }
+
+    return id / STRINGS_PER_BUNDLE + 1;
+  }
+
+  /**
+   * Decode one string of a bundle. The strings before it are skipped by their counts, so only the
+   * string itself is decoded.
+   *
+   * @param bundle The bundle data.
+   * @param id The string ID.
+   * @return The string, or {@code null} if it is empty or the bundle is too short to hold it.
+   */
+  public static String getString(ByteOrderBuffer bundle, int id) {
+    int pos = 0;
+
+    for(int index = 0; index < id % STRINGS_PER_BUNDLE; index++) {
+      if(pos + Character.BYTES > bundle.size()) {
+        return null;
+      }
+
+      pos += Character.BYTES + bundle.getUnsignedShort(pos) * Character.BYTES;
+    }
+
+    if(pos + Character.BYTES > bundle.size()) {
+      return null;
+    }
+
+    int size = bundle.getUnsignedShort(pos) * Character.BYTES;
+    int start = pos + Character.BYTES;
+
+    if(size == 0 || start + size > bundle.size()) {
+      return null;
+    }
+
+    return bundle.getString(start, size, bundle.getByteOrder() == ByteOrder.LITTLE_ENDIAN
+        ? StandardCharsets.UTF_16LE : StandardCharsets.UTF_16BE);
+  }
+}
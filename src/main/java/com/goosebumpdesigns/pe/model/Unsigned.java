@@ -0,0 +1,50 @@
+// Copyright (c) 2023 Goosebump Designs LLC
+
+package com.goosebumpdesigns.pe.model;
+
+import java.math.BigInteger;
+
+/**
+ * This class contains helpers for unsigned 64-bit values that are held in a (signed) Java long. The
+ * bits of the long are the bits of the unsigned value, so values above {@link Long#MAX_VALUE} are
+ * negative when treated as signed. Use these methods (or the unsigned methods of {@link Long}) to
+ * display, compare or convert the values.
+ */
+public final class Unsigned {
+  private static final BigInteger TWO_TO_THE_64 = BigInteger.ONE.shiftLeft(Long.SIZE);
+
+  private Unsigned() {}
+
+  /**
+   * Convert an unsigned 64-bit value to a {@link BigInteger}.
+   * 
+   * @param value The unsigned value.
+   * @return The value as a non-negative BigInteger.
+   */
+  public static BigInteger toBigInteger(long value) {
+    BigInteger result = BigInteger.valueOf(value);
+    return value >= 0 ? result : result.add(TWO_TO_THE_64);
+  }
+
+  /**
+   * Returns the decimal representation of an unsigned 64-bit value.
+   * 
+   * @param value The unsigned value.
+   * @return The value as a String.
+   */
+  public static String toString(long value) {
+    return Long.toUnsignedString(value);
+  }
+
+  /**
+   * Compare two unsigned 64-bit values.
+   * 
+   * @param x The first value.
+   * @param y The second value.
+   * @return A negative number, zero or a positive number if x is less than, equal to or greater
+   *         than y.
+   */
+  public static int compare(long x, long y) {
+    return Long.compareUnsigned(x, y);
+  }
+}
@@ -34,6 +34,15 @@ public enum HeaderCharacteristic {
     this.flag = flag;
   }
 
+  /**
+   * Returns the value of the characteristic.
+   * 
+   * @return The value
+   */
+  public int value() {
+    return flag;
+  }
+
   /**
    * Returns {@code true} if the given flag value has the characteristic. Usage:
    * 
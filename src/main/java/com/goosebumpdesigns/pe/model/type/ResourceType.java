@@ -0,0 +1,71 @@
+// Copyright (c) 2023 Goosebump Designs LLC
+
+package com.goosebumpdesigns.pe.model.type;
+
+/**
+ * This enum represents the predefined resource types, which are the integer IDs of the entries at
+ * the top level of the resource directory tree. This is taken from:
+ * <a href="https://learn.microsoft.com/en-us/windows/win32/menurc/resource-types">Windows
+ * documentation</a>. Applications can also use their own types, which have names or other IDs.
+ */
+public enum ResourceType {
+  // @formatter:off
+  RT_CURSOR(1),
+  RT_BITMAP(2),
+  RT_ICON(3),
+  RT_MENU(4),
+  RT_DIALOG(5),
+  RT_STRING(6),
+  RT_FONTDIR(7),
+  RT_FONT(8),
+  RT_ACCELERATOR(9),
+  RT_RCDATA(10),
+  RT_MESSAGETABLE(11),
+  RT_GROUP_CURSOR(12),
+  RT_GROUP_ICON(14),
+  RT_VERSION(16),
+  RT_DLGINCLUDE(17),
+  RT_PLUGPLAY(19),
+  RT_VXD(20),
+  RT_ANICURSOR(21),
+  RT_ANIICON(22),
+  RT_HTML(23),
+  RT_MANIFEST(24);
+  // @formatter:on
+
+  private int value;
+
+  /**
+   * Private constructor takes the value.
+   *
+   * @param value
+   */
+  private ResourceType(int value) {
+    this.value = value;
+  }
+
+  /**
+   * Return the resource type given the ID.
+   *
+   * @param value The type ID.
+   * @return The type, or {@code null} if the ID is not a predefined type.
+   */
+  public static ResourceType valueOf(int value) {
+    for(ResourceType type : ResourceType.values()) {
+      if(value == type.value) {
+        return type;
+      }
+    }
+
+    return null;
+  }
+
+  /**
+   * Returns the ID of the resource type.
+   *
+   * @return The ID.
+   */
+  public int value() {
+    return value;
+  }
+}
@@ -0,0 +1,61 @@
+// Copyright (c) 2023 Goosebump Designs LLC
+
+package com.goosebumpdesigns.pe.store;
+
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+import lombok.Value;
+
+/**
+ * This defines a column of a table: its name, its type and how the value is taken from a row.
+ * Numeric columns use the number function and the other columns use the text function.
+ *
+ * @param <T> The type of a row.
+ */
+@Value
+class ColumnSpec<T> {
+  private String name;
+  private ColumnType type;
+  private ToLongFunction<T> number;
+  private Function<T, String> text;
+
+  /**
+   * @param <T> The type of a row.
+   * @param name The column name.
+   * @param number Extracts the value.
+   * @return An {@link ColumnType#INT} column.
+   */
+  static <T> ColumnSpec<T> intColumn(String name, ToLongFunction<T> number) {
+    return new ColumnSpec<>(name, ColumnType.INT, number, null);
+  }
+
+  /**
+   * @param <T> The type of a row.
+   * @param name The column name.
+   * @param number Extracts the value.
+   * @return A {@link ColumnType#LONG} column.
+   */
+  static <T> ColumnSpec<T> longColumn(String name, ToLongFunction<T> number) {
+    return new ColumnSpec<>(name, ColumnType.LONG, number, null);
+  }
+
+  /**
+   * @param <T> The type of a row.
+   * @param name The column name.
+   * @param text Extracts the value, which may be {@code null}.
+   * @return A {@link ColumnType#DICTIONARY} column.
+   */
+  static <T> ColumnSpec<T> dictionaryColumn(String name, Function<T, String> text) {
+    return new ColumnSpec<>(name, ColumnType.DICTIONARY, null, text);
+  }
+
+  /**
+   * @param <T> The type of a row.
+   * @param name The column name.
+   * @param text Extracts the value.
+   * @return A {@link ColumnType#STRING} column.
+   */
+  static <T> ColumnSpec<T> stringColumn(String name, Function<T, String> text) {
+    return new ColumnSpec<>(name, ColumnType.STRING, null, text);
+  }
+}
@@ -0,0 +1,27 @@
+// Copyright (c) 2023 Goosebump Designs LLC
+
+package com.goosebumpdesigns.pe.store;
+
+/**
+ * These are the types of the columns in a {@link ColumnarStore}. Every column is stored in its own
+ * file of little-endian values, one per row.
+ */
+public enum ColumnType {
+  /** A 32-bit int per row in {@code <column>.col}. */
+  INT,
+
+  /** A 64-bit long per row in {@code <column>.col}. Unsigned 64-bit fields hold their raw bits. */
+  LONG,
+
+  /**
+   * A 32-bit dictionary code per row in {@code <column>.col}, with the distinct values in
+   * {@code <column>.dict}. A missing value has the code -1. Used for enums and section names.
+   */
+  DICTIONARY,
+
+  /**
+   * A 64-bit end offset per row in {@code <column>.col}, with the UTF-8 bytes of all values in
+   * {@code <column>.str}. Used for file paths.
+   */
+  STRING
+}
@@ -0,0 +1,205 @@
+// Copyright (c) 2023 Goosebump Designs LLC
+
+package com.goosebumpdesigns.pe.store;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * This writes one column of a table. Values are collected in a little-endian buffer and written to
+ * the column file when the buffer is full. Dictionary columns keep the distinct values in memory
+ * and write them when the column is closed.
+ *
+ * @param <T> The type of a row.
+ */
+class ColumnWriter<T> implements AutoCloseable {
+  static final String COLUMN_SUFFIX = ".col";
+  static final String DICTIONARY_SUFFIX = ".dict";
+  static final String STRING_SUFFIX = ".str";
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private final ColumnSpec<T> spec;
+  private final Path directory;
+  private final FileChannel column;
+  private final ByteBuffer buffer = newBuffer();
+  private final Map<String, Integer> dictionary;
+  private final FileChannel strings;
+  private final ByteBuffer stringBuffer;
+  private long stringEnd;
+
+  /**
+   * Create the column file (and the string file of a string column).
+   *
+   * @param spec The column.
+   * @param directory The table directory.
+   * @throws IOException thrown if a file cannot be created.
+   */
+  ColumnWriter(ColumnSpec<T> spec, Path directory) throws IOException {
+    this.spec = spec;
+    this.directory = directory;
+    this.column = create(directory.resolve(spec.getName() + COLUMN_SUFFIX));
+
+    boolean isString = spec.getType() == ColumnType.STRING;
+
+    this.dictionary = spec.getType() == ColumnType.DICTIONARY ? new LinkedHashMap<>() : null;
+    this.strings = isString ? create(directory.resolve(spec.getName() + STRING_SUFFIX)) : null;
+    this.stringBuffer = isString ? newBuffer() : null;
+  }
+
+  /**
+   * Append the value of the column in the given row.
+   *
+   * @param row The row.
+   * @throws IOException thrown if the buffer cannot be written.
+   */
+  void add(T row) throws IOException {
+    if(buffer.remaining() < Long.BYTES) {
+      flush(column, buffer);
+    }
+
+    switch(spec.getType()) {
+      case INT:
+        buffer.putInt((int)spec.getNumber().applyAsLong(row));
+        break;
+
+      case LONG:
+        buffer.putLong(spec.getNumber().applyAsLong(row));
+        break;
+
+      case DICTIONARY:
+        buffer.putInt(code(spec.getText().apply(row)));
+        break;
+
+      case STRING:
+        buffer.putLong(addString(spec.getText().apply(row)));
+        break;
+    }
+  }
+
+  /**
+   * Flush the buffers and write the dictionary.
+   *
+   * @throws IOException thrown if a file cannot be written.
+   */
+  @Override
+  public void close() throws IOException {
+    try(FileChannel column = this.column; FileChannel strings = this.strings) {
+      flush(column, buffer);
+
+      if(Objects.nonNull(strings)) {
+        flush(strings, stringBuffer);
+      }
+
+      if(Objects.nonNull(dictionary)) {
+        writeDictionary();
+      }
+    }
+  }
+
+  /**
+   * @param value The value, which may be {@code null}.
+   * @return The dictionary code of the value, which is -1 for {@code null}.
+   */
+  private int code(String value) {
+    if(Objects.isNull(value)) {
+      return -1;
+    }
+
+    return dictionary.computeIfAbsent(value, key -> dictionary.size());
+  }
+
+  /**
+   * @param value The value.
+   * @return The offset of the end of the value in the string file.
+   * @throws IOException thrown if the string buffer cannot be written.
+   */
+  private long addString(String value) throws IOException {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    int start = 0;
+
+    while(start < bytes.length) {
+      if(!stringBuffer.hasRemaining()) {
+        flush(strings, stringBuffer);
+      }
+
+      int length = Math.min(stringBuffer.remaining(), bytes.length - start);
+
+      stringBuffer.put(bytes, start, length);
+      start += length;
+    }
+
+    stringEnd += bytes.length;
+    return stringEnd;
+  }
+
+  /**
+   * Write the dictionary: the number of values, then the length and UTF-8 bytes of each value in
+   * code order.
+   *
+   * @throws IOException thrown if the file cannot be written.
+   */
+  private void writeDictionary() throws IOException {
+    try(FileChannel channel = create(directory.resolve(spec.getName() + DICTIONARY_SUFFIX))) {
+      ByteBuffer out = newBuffer();
+
+      out.putInt(dictionary.size());
+
+      for(String value : dictionary.keySet()) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+
+        if(out.remaining() < Integer.BYTES + bytes.length) {
+          flush(channel, out);
+        }
+
+        if(out.remaining() < Integer.BYTES + bytes.length) {
+          out = ByteBuffer.allocate(Integer.BYTES + bytes.length).order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        out.putInt(bytes.length).put(bytes);
+      }
+
+      flush(channel, out);
+    }
+  }
+
+  /**
+   * @param channel
+   * @param buffer
+   * @throws IOException
+   */
+  private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+    buffer.flip();
+
+    while(buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+
+    buffer.clear();
+  }
+
+  /**
+   * @param path
+   * @return
+   * @throws IOException
+   */
+  private static FileChannel create(Path path) throws IOException {
+    return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+        StandardOpenOption.TRUNCATE_EXISTING);
+  }
+
+  /**
+   * @return
+   */
+  private static ByteBuffer newBuffer() {
+    return ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+  }
+}
@@ -0,0 +1,287 @@
+// Copyright (c) 2023 Goosebump Designs LLC
+
+package com.goosebumpdesigns.pe.store;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import com.goosebumpdesigns.pe.exception.PEFileException;
+
+/**
+ * This reads a store written by {@link ColumnarStoreWriter}. The store holds the header fields of
+ * many files in columns, one file per column, so a query over a corpus reads only the columns that
+ * it uses. Each column is memory-mapped when it is requested. Columns are safe for concurrent use.
+ *
+ * There are two tables. The {@link #FILES} table has a row per file, with the path and the fields
+ * of the header and optional header. The {@link #SECTIONS} table has a row per section, with the
+ * fields of the section and, in the {@code file} column, the row of the file in the files table.
+ * Enum fields and section names are dictionary-encoded. Characteristics are stored as flag values
+ * and timestamps as seconds since the epoch (UTC). This query finds the 64-bit files that were
+ * linked with linker version 14 before 2020:
+ *
+ * <pre>
+ * ColumnarStore store = ColumnarStore.open(storeDirectory);
+ * DictionaryColumn machine = store.dictionaryColumn(ColumnarStore.FILES, "machineType");
+ * IntColumn linker = store.intColumn(ColumnarStore.FILES, "linkerMajorVersion");
+ * LongColumn timestamp = store.longColumn(ColumnarStore.FILES, "timestamp");
+ * StringColumn path = store.stringColumn(ColumnarStore.FILES, "path");
+ *
+ * int amd64 = machine.codeOf(MachineType.IMAGE_FILE_MACHINE_AMD64.name());
+ * long cutoff = LocalDateTime.of(2020, 1, 1, 0, 0).toEpochSecond(ZoneOffset.UTC);
+ *
+ * for(int row = 0; row &lt; machine.size(); row++) {
+ *   if(machine.getCode(row) == amd64 &amp;&amp; linker.get(row) == 14
+ *       &amp;&amp; timestamp.get(row) &lt; cutoff) {
+ *     System.out.println(path.get(row));
+ *   }
+ * }
+ * </pre>
+ *
+ * A column file is mapped as a whole, so a column (or the text of a string column) is limited to
+ * 2 GiB.
+ */
+public class ColumnarStore {
+  /** The table with a row per file. */
+  public static final String FILES = "files";
+
+  /** The table with a row per section. */
+  public static final String SECTIONS = "sections";
+
+  private final Path directory;
+  private final Map<String, Table> tables = new LinkedHashMap<>();
+
+  /**
+   * This is the row count and column types of a table.
+   */
+  private static class Table {
+    final Path directory;
+    final int rows;
+    final Map<String, ColumnType> columns = new LinkedHashMap<>();
+
+    /**
+     * @param directory
+     * @param rows
+     */
+    Table(Path directory, int rows) {
+      this.directory = directory;
+      this.rows = rows;
+    }
+  }
+
+  /**
+   * @param directory The store directory.
+   */
+  private ColumnarStore(Path directory) {
+    this.directory = directory;
+  }
+
+  /**
+   * Open a store. Only the table properties are read; columns are mapped when they are requested.
+   *
+   * @param directory The store directory.
+   * @return The store.
+   * @throws PEFileException thrown if the store is missing, incomplete or of another version.
+   */
+  public static ColumnarStore open(Path directory) {
+    ColumnarStore store = new ColumnarStore(directory);
+
+    store.tables.put(FILES, readTable(directory.resolve(FILES), Schema.FILE_COLUMNS));
+    store.tables.put(SECTIONS, readTable(directory.resolve(SECTIONS), Schema.SECTION_COLUMNS));
+
+    return store;
+  }
+
+  /**
+   * @param table The table name.
+   * @return The number of rows in the table.
+   * @throws IllegalArgumentException thrown if there is no such table.
+   */
+  public int getRowCount(String table) {
+    return table(table).rows;
+  }
+
+  /**
+   * @param table The table name.
+   * @return The columns of the table and their types, in schema order.
+   * @throws IllegalArgumentException thrown if there is no such table.
+   */
+  public Map<String, ColumnType> getColumns(String table) {
+    return Collections.unmodifiableMap(table(table).columns);
+  }
+
+  /**
+   * @param table The table name.
+   * @param column The column name.
+   * @return The column.
+   * @throws IllegalArgumentException thrown if there is no such {@link ColumnType#INT} column.
+   * @throws PEFileException thrown if the column cannot be mapped.
+   */
+  public IntColumn intColumn(String table, String column) {
+    Table t = table(table);
+    return new IntColumn(mapColumn(t, column, ColumnType.INT).asIntBuffer());
+  }
+
+  /**
+   * @param table The table name.
+   * @param column The column name.
+   * @return The column.
+   * @throws IllegalArgumentException thrown if there is no such {@link ColumnType#LONG} column.
+   * @throws PEFileException thrown if the column cannot be mapped.
+   */
+  public LongColumn longColumn(String table, String column) {
+    Table t = table(table);
+    return new LongColumn(mapColumn(t, column, ColumnType.LONG).asLongBuffer());
+  }
+
+  /**
+   * @param table The table name.
+   * @param column The column name.
+   * @return The column.
+   * @throws IllegalArgumentException thrown if there is no such {@link ColumnType#DICTIONARY}
+   *         column.
+   * @throws PEFileException thrown if the column cannot be mapped.
+   */
+  public DictionaryColumn dictionaryColumn(String table, String column) {
+    Table t = table(table);
+    IntColumn codes = new IntColumn(mapColumn(t, column, ColumnType.DICTIONARY).asIntBuffer());
+
+    return new DictionaryColumn(codes,
+        readDictionary(map(t.directory.resolve(column + ColumnWriter.DICTIONARY_SUFFIX))));
+  }
+
+  /**
+   * @param table The table name.
+   * @param column The column name.
+   * @return The column.
+   * @throws IllegalArgumentException thrown if there is no such {@link ColumnType#STRING} column.
+   * @throws PEFileException thrown if the column cannot be mapped.
+   */
+  public StringColumn stringColumn(String table, String column) {
+    Table t = table(table);
+    LongColumn ends = new LongColumn(mapColumn(t, column, ColumnType.STRING).asLongBuffer());
+
+    return new StringColumn(ends, map(t.directory.resolve(column + ColumnWriter.STRING_SUFFIX)));
+  }
+
+  /**
+   * @param name
+   * @return
+   */
+  private Table table(String name) {
+    Table table = tables.get(name);
+
+    if(Objects.isNull(table)) {
+      throw new IllegalArgumentException("There is no table " + name + " in " + directory);
+    }
+
+    return table;
+  }
+
+  /**
+   * Check the type of a column and map its column file.
+   *
+   * @param table The table.
+   * @param column The column name.
+   * @param type The expected type.
+   * @return The mapped column file, limited to the rows of the table.
+   */
+  private static ByteBuffer mapColumn(Table table, String column, ColumnType type) {
+    ColumnType actual = table.columns.get(column);
+
+    if(actual != type) {
+      throw new IllegalArgumentException("Column " + column + " in " + table.directory + " is "
+          + (Objects.isNull(actual) ? "missing" : actual) + ", not " + type);
+    }
+
+    int width =
+        type == ColumnType.INT || type == ColumnType.DICTIONARY ? Integer.BYTES : Long.BYTES;
+    ByteBuffer buffer = map(table.directory.resolve(column + ColumnWriter.COLUMN_SUFFIX));
+
+    if(buffer.capacity() < (long)table.rows * width) {
+      throw new PEFileException("Column " + column + " in " + table.directory + " is truncated");
+    }
+
+    return buffer.limit(table.rows * width).order(ByteOrder.LITTLE_ENDIAN);
+  }
+
+  /**
+   * @param path
+   * @return
+   */
+  private static ByteBuffer map(Path path) {
+    try(FileChannel channel = FileChannel.open(path)) {
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      return buffer.order(ByteOrder.LITTLE_ENDIAN);
+    }
+    catch(IOException e) {
+      throw new PEFileException("Unable to map " + path, e);
+    }
+  }
+
+  /**
+   * @param buffer The mapped dictionary file.
+   * @return The values, in code order.
+   */
+  private static List<String> readDictionary(ByteBuffer buffer) {
+    int count = buffer.getInt();
+    List<String> values = new ArrayList<>(count);
+
+    for(int index = 0; index < count; index++) {
+      byte[] bytes = new byte[buffer.getInt()];
+
+      buffer.get(bytes);
+      values.add(new String(bytes, StandardCharsets.UTF_8));
+    }
+
+    return Collections.unmodifiableList(values);
+  }
+
+  /**
+   * Read the properties of a table.
+   *
+   * @param directory The table directory.
+   * @param specs The columns of the table, in schema order.
+   * @return The table.
+   */
+  private static Table readTable(Path directory, List<? extends ColumnSpec<?>> specs) {
+    Properties properties = new Properties();
+
+    try(Reader reader = Files.newBufferedReader(directory.resolve(TableWriter.PROPERTIES),
+        StandardCharsets.UTF_8)) {
+      properties.load(reader);
+    }
+    catch(IOException e) {
+      throw new PEFileException("Unable to read the table in " + directory, e);
+    }
+
+    if(!Integer.toString(Schema.VERSION).equals(properties.getProperty(TableWriter.VERSION))) {
+      throw new PEFileException("The table in " + directory + " has version "
+          + properties.getProperty(TableWriter.VERSION) + ", not " + Schema.VERSION);
+    }
+
+    Table table = new Table(directory, Integer.parseInt(properties.getProperty(TableWriter.ROWS)));
+
+    for(ColumnSpec<?> spec : specs) {
+      String type = properties.getProperty(TableWriter.COLUMN_PREFIX + spec.getName());
+
+      if(Objects.nonNull(type)) {
+        table.columns.put(spec.getName(), ColumnType.valueOf(type));
+      }
+    }
+
+    return table;
+  }
+}
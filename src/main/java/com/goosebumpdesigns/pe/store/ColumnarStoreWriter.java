@@ -0,0 +1,174 @@
+// Copyright (c) 2023 Goosebump Designs LLC
+
+package com.goosebumpdesigns.pe.store;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+import com.goosebumpdesigns.pe.PEFile;
+import com.goosebumpdesigns.pe.PESection;
+import com.goosebumpdesigns.pe.builder.ScanResult;
+import com.goosebumpdesigns.pe.exception.PEFileException;
+import com.goosebumpdesigns.pe.store.Schema.FileRow;
+import com.goosebumpdesigns.pe.store.Schema.SectionRow;
+
+/**
+ * This writes parsed files to a {@link ColumnarStore}. Each file adds a row to the
+ * {@link ColumnarStore#FILES} table, and each of its sections adds a row to the
+ * {@link ColumnarStore#SECTIONS} table. The writer is a {@link Consumer} of scan results, so a scan
+ * can be written directly to a store:
+ *
+ * <pre>
+ * try(ColumnarStoreWriter writer = new ColumnarStoreWriter(storeDirectory)) {
+ *   PEFileBuilder.scan(corpusDirectory, writer);
+ * }
+ * </pre>
+ *
+ * Failed results are skipped. The writer is safe for concurrent use. The store is complete when the
+ * writer is closed. Any existing store in the directory is replaced.
+ *
+ * To build an {@link ExportIndex} of the same files, give the {@link ExportIndexWriter} to this
+ * writer rather than to the scan. Each file is then added to the index under the same lock as its
+ * row, so the file IDs of the index are the rows of the files table even when the scan calls the
+ * writer from several threads:
+ *
+ * <pre>
+ * try(ExportIndexWriter index = new ExportIndexWriter(indexFile);
+ *     ColumnarStoreWriter writer = new ColumnarStoreWriter(storeDirectory, index)) {
+ *   PEFileBuilder.scan(corpusDirectory, writer);
+ * }
+ * </pre>
+ */
+public class ColumnarStoreWriter implements Consumer<ScanResult>, AutoCloseable {
+  private final Path directory;
+  private final TableWriter<FileRow> files;
+  private final TableWriter<SectionRow> sections;
+  private final ExportIndexWriter exportIndex;
+
+  /**
+   * Create a store in the given directory.
+   *
+   * @param directory The store directory.
+   * @throws PEFileException thrown if the store cannot be created.
+   */
+  public ColumnarStoreWriter(Path directory) {
+    this(directory, null);
+  }
+
+  /**
+   * Create a store in the given directory that also adds the exports of each file to an export
+   * index. The index writer must not be given files in any other way, and it is closed by the
+   * caller.
+   *
+   * @param directory The store directory.
+   * @param exportIndex The export index writer, or {@code null} for none.
+   * @throws PEFileException thrown if the store cannot be created.
+   */
+  public ColumnarStoreWriter(Path directory, ExportIndexWriter exportIndex) {
+    this.directory = directory;
+    this.exportIndex = exportIndex;
+
+    try {
+      this.files = new TableWriter<>(directory.resolve(ColumnarStore.FILES), Schema.FILE_COLUMNS);
+    }
+    catch(IOException e) {
+      throw new PEFileException("Unable to create the store in " + directory, e);
+    }
+
+    try {
+      this.sections =
+          new TableWriter<>(directory.resolve(ColumnarStore.SECTIONS), Schema.SECTION_COLUMNS);
+    }
+    catch(IOException e) {
+      try {
+        files.close();
+      }
+      catch(IOException suppressed) {
+        e.addSuppressed(suppressed);
+      }
+
+      throw new PEFileException("Unable to create the store in " + directory, e);
+    }
+  }
+
+  /**
+   * Add a successfully parsed file. Failed results are ignored.
+   *
+   * @param result The scan result.
+   * @throws PEFileException thrown if the store cannot be written.
+   */
+  @Override
+  public void accept(ScanResult result) {
+    if(result.isSuccess()) {
+      add(result.getPath(), result.getFile());
+    }
+  }
+
+  /**
+   * Add a file and its sections, and its exports if there is an export index.
+   *
+   * @param path The path of the file.
+   * @param file The parsed file.
+   * @return The row of the file in the files table.
+   * @throws PEFileException thrown if the store cannot be written.
+   * @throws IllegalStateException thrown if the export index has been given files that are not in
+   *         the store.
+   */
+  public synchronized int add(Path path, PEFile file) {
+    int fileRow;
+
+    try {
+      fileRow = files.add(new FileRow(path, file));
+
+      if(Objects.nonNull(file.getSectionTable())) {
+        for(PESection section : file.getSectionTable().values()) {
+          sections.add(new SectionRow(fileRow, section));
+        }
+      }
+    }
+    catch(IOException e) {
+      throw new PEFileException("Unable to write " + path + " to the store in " + directory, e);
+    }
+
+    if(Objects.nonNull(exportIndex)) {
+      int fileId = exportIndex.add(path, file.getExports());
+
+      if(fileId != fileRow) {
+        throw new IllegalStateException("Export index file " + fileId + " is not store row "
+            + fileRow + " for " + path);
+      }
+    }
+
+    return fileRow;
+  }
+
+  /**
+   * Finish the store. Both tables are closed, even if closing the first one fails.
+   *
+   * @throws PEFileException thrown if the store cannot be written.
+   */
+  @Override
+  public synchronized void close() {
+    IOException error = null;
+
+    for(TableWriter<?> table : List.of(files, sections)) {
+      try {
+        table.close();
+      }
+      catch(IOException e) {
+        if(Objects.isNull(error)) {
+          error = e;
+        }
+        else {
+          error.addSuppressed(e);
+        }
+      }
+    }
+
+    if(Objects.nonNull(error)) {
+      throw new PEFileException("Unable to finish the store in " + directory, error);
+    }
+  }
+}
@@ -0,0 +1,66 @@
+// Copyright (c) 2023 Goosebump Designs LLC
+
+package com.goosebumpdesigns.pe.store;
+
+import java.util.List;
+
+/**
+ * This is a memory-mapped {@link ColumnType#DICTIONARY} column. Each row holds the code of its
+ * value in the dictionary. A query compares codes rather than strings: look up the code of the
+ * value once with {@link #codeOf(String)} and compare it with {@link #getCode(int)} in each row.
+ */
+public final class DictionaryColumn {
+  /** The code of a missing value. */
+  public static final int MISSING = -1;
+
+  private final IntColumn codes;
+  private final List<String> dictionary;
+
+  /**
+   * @param codes The mapped column file.
+   * @param dictionary The values, in code order.
+   */
+  DictionaryColumn(IntColumn codes, List<String> dictionary) {
+    this.codes = codes;
+    this.dictionary = dictionary;
+  }
+
+  /**
+   * @return The number of rows.
+   */
+  public int size() {
+    return codes.size();
+  }
+
+  /**
+   * @param row The row index.
+   * @return The code of the value in the given row, or {@link #MISSING}.
+   */
+  public int getCode(int row) {
+    return codes.get(row);
+  }
+
+  /**
+   * @param row The row index.
+   * @return The value in the given row, or {@code null} if it is missing.
+   */
+  public String get(int row) {
+    int code = codes.get(row);
+    return code == MISSING ? null : dictionary.get(code);
+  }
+
+  /**
+   * @param value The value.
+   * @return The code of the value, or {@link #MISSING} if no row has the value.
+   */
+  public int codeOf(String value) {
+    return dictionary.indexOf(value);
+  }
+
+  /**
+   * @return The distinct values of the column, in code order.
+   */
+  public List<String> getDictionary() {
+    return dictionary;
+  }
+}
@@ -0,0 +1,317 @@
+// Copyright (c) 2023 Goosebump Designs LLC
+
+package com.goosebumpdesigns.pe.store;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import com.goosebumpdesigns.pe.exception.PEFileException;
+
+/**
+ * This is an index of the symbols exported by many files, written by {@link ExportIndexWriter}. It
+ * answers "which files export this symbol?" and "which symbols start with this prefix, and who
+ * exports them?" without parsing any files.
+ *
+ * The index file is memory-mapped and nothing is loaded when it is opened: the symbols are sorted
+ * and front-coded in blocks, so a lookup binary searches the first symbol of each block and then
+ * decodes one block. The postings of a symbol are read directly from the mapping. An index is safe
+ * for concurrent use.
+ *
+ * <pre>
+ * ExportIndex index = ExportIndex.open(indexFile);
+ * ExportPostings postings = index.find("CreateFileW");
+ *
+ * for(int pos = 0; pos &lt; postings.size(); pos++) {
+ *   System.out.println(index.getPath(postings.getFileId(pos)));
+ * }
+ *
+ * Map&lt;String, ExportPostings&gt; ntSymbols = index.findPrefix("Nt");
+ * </pre>
+ *
+ * The index file is mapped as a whole, so it is limited to 2 GiB.
+ */
+public class ExportIndex {
+  private final Path file;
+  private final ByteBuffer buffer;
+  private final int symbolCount;
+  private final int fileCount;
+  private final int blockSize;
+  private final int blockCount;
+  private final int blocksOffset;
+  private final int postingsOffset;
+  private final int filesOffset;
+
+  /**
+   * @param file
+   * @param buffer
+   */
+  private ExportIndex(Path file, ByteBuffer buffer) {
+    this.file = file;
+    this.buffer = buffer;
+
+    if(buffer.capacity() < ExportIndexFormat.HEADER_SIZE
+        || buffer.getInt(0) != ExportIndexFormat.MAGIC) {
+      throw new PEFileException(file + " is not an export index");
+    }
+
+    if(buffer.getInt(4) != ExportIndexFormat.VERSION) {
+      throw new PEFileException("The export index " + file + " has version " + buffer.getInt(4)
+          + ", not " + ExportIndexFormat.VERSION);
+    }
+
+    this.symbolCount = buffer.getInt(ExportIndexFormat.SYMBOL_COUNT);
+    this.fileCount = buffer.getInt(ExportIndexFormat.FILE_COUNT);
+    this.blockSize = buffer.getInt(ExportIndexFormat.BLOCK_SIZE_OFFSET);
+    this.blockCount = buffer.getInt(ExportIndexFormat.BLOCK_COUNT);
+    this.blocksOffset = (int)buffer.getLong(ExportIndexFormat.BLOCKS_OFFSET);
+    this.postingsOffset = (int)buffer.getLong(ExportIndexFormat.POSTINGS_OFFSET);
+    this.filesOffset = (int)buffer.getLong(ExportIndexFormat.FILES_OFFSET);
+  }
+
+  /**
+   * Map an index file.
+   *
+   * @param file The index file.
+   * @return The index.
+   * @throws PEFileException thrown if the file cannot be mapped or is not an export index.
+   */
+  public static ExportIndex open(Path file) {
+    try(FileChannel channel = FileChannel.open(file)) {
+      ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      return new ExportIndex(file, buffer.order(ByteOrder.LITTLE_ENDIAN));
+    }
+    catch(IOException e) {
+      throw new PEFileException("Unable to map the export index " + file, e);
+    }
+  }
+
+  /**
+   * @return The number of distinct symbols.
+   */
+  public int getSymbolCount() {
+    return symbolCount;
+  }
+
+  /**
+   * @return The number of files. File IDs run from zero to one less than this.
+   */
+  public int getFileCount() {
+    return fileCount;
+  }
+
+  /**
+   * @param fileId The file ID.
+   * @return The path of the file, as it was given to the writer.
+   */
+  public String getPath(int fileId) {
+    if(fileId < 0 || fileId >= fileCount) {
+      throw new IndexOutOfBoundsException("There is no file " + fileId + " in " + file);
+    }
+
+    int start = fileId == 0 ? 0 : (int)buffer.getLong(filesOffset + (fileId - 1) * Long.BYTES);
+    int end = (int)buffer.getLong(filesOffset + fileId * Long.BYTES);
+    byte[] bytes = new byte[end - start];
+
+    buffer.get(filesOffset + fileCount * Long.BYTES + start, bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Find the files that export a symbol.
+   *
+   * @param symbol The exact symbol.
+   * @return The postings, which are empty if no file exports the symbol.
+   */
+  public ExportPostings find(String symbol) {
+    byte[] target = symbol.getBytes(StandardCharsets.UTF_8);
+    Cursor cursor = seek(target);
+
+    if(cursor.valid() && cursor.compareTo(target) == 0) {
+      return cursor.postings();
+    }
+
+    return ExportPostings.EMPTY;
+  }
+
+  /**
+   * Find every symbol that starts with a prefix, and the files that export it.
+   *
+   * @param prefix The prefix.
+   * @return The symbols and their postings, in sorted order.
+   */
+  public Map<String, ExportPostings> findPrefix(String prefix) {
+    byte[] target = prefix.getBytes(StandardCharsets.UTF_8);
+    Map<String, ExportPostings> found = new LinkedHashMap<>();
+
+    for(Cursor cursor = seek(target); cursor.valid() && cursor.startsWith(target); cursor.next()) {
+      found.put(cursor.symbol(), cursor.postings());
+    }
+
+    return found;
+  }
+
+  /**
+   * Position a cursor at the first symbol that is not less than the target. The block is found by
+   * binary search on the first symbol of each block, then the block is decoded.
+   *
+   * @param target The UTF-8 bytes of the target.
+   * @return The cursor, which is not valid if every symbol is less than the target.
+   */
+  private Cursor seek(byte[] target) {
+    int low = 0;
+    int high = blockCount - 1;
+    int block = 0;
+
+    while(low <= high) {
+      int mid = (low + high) >>> 1;
+
+      if(compareBlockStart(mid, target) <= 0) {
+        block = mid;
+        low = mid + 1;
+      }
+      else {
+        high = mid - 1;
+      }
+    }
+
+    Cursor cursor = new Cursor(block);
+
+    while(cursor.valid() && cursor.compareTo(target) < 0) {
+      cursor.next();
+    }
+
+    return cursor;
+  }
+
+  /**
+   * Compare the first symbol of a block with the target without copying it.
+   *
+   * @param block The block.
+   * @param target The target.
+   * @return The comparison of the symbol with the target.
+   */
+  private int compareBlockStart(int block, byte[] target) {
+    ByteBuffer entry = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+
+    entry.position((int)buffer.getLong(blocksOffset + block * ExportIndexFormat.BLOCK_ENTRY_SIZE));
+    ExportIndexFormat.getVarint(entry);
+
+    int length = ExportIndexFormat.getVarint(entry);
+    int start = entry.position();
+
+    for(int pos = 0; pos < length && pos < target.length; pos++) {
+      int diff = (buffer.get(start + pos) & 0xff) - (target[pos] & 0xff);
+
+      if(diff != 0) {
+        return diff;
+      }
+    }
+
+    return length - target.length;
+  }
+
+  /**
+   * This decodes the front-coded symbols in order, starting at the first symbol of a block.
+   */
+  private class Cursor {
+    private final ByteBuffer entries = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+    private byte[] symbol = new byte[64];
+    private int length;
+    private int index;
+    private long posting;
+    private int postingCount;
+
+    /**
+     * @param block The block to start at.
+     */
+    Cursor(int block) {
+      index = block * blockSize;
+
+      if(valid()) {
+        int entryOffset = blocksOffset + block * ExportIndexFormat.BLOCK_ENTRY_SIZE;
+
+        entries.position((int)buffer.getLong(entryOffset));
+        posting = buffer.getLong(entryOffset + Long.BYTES);
+        decode();
+      }
+    }
+
+    /**
+     * @return {@code true} if the cursor is at a symbol.
+     */
+    boolean valid() {
+      return index < symbolCount;
+    }
+
+    /**
+     * Move to the next symbol.
+     */
+    void next() {
+      index++;
+      posting += postingCount;
+
+      if(valid()) {
+        decode();
+      }
+    }
+
+    /**
+     * Decode the symbol at the current position, reusing the prefix of the previous symbol.
+     */
+    private void decode() {
+      int shared = ExportIndexFormat.getVarint(entries);
+      int suffix = ExportIndexFormat.getVarint(entries);
+
+      length = shared + suffix;
+
+      if(length > symbol.length) {
+        symbol = Arrays.copyOf(symbol, Math.max(length, symbol.length * 2));
+      }
+
+      entries.get(symbol, shared, suffix);
+      postingCount = ExportIndexFormat.getVarint(entries);
+    }
+
+    /**
+     * @param target
+     * @return
+     */
+    int compareTo(byte[] target) {
+      return Arrays.compareUnsigned(symbol, 0, length, target, 0, target.length);
+    }
+
+    /**
+     * @param prefix
+     * @return
+     */
+    boolean startsWith(byte[] prefix) {
+      return length >= prefix.length
+          && Arrays.equals(symbol, 0, prefix.length, prefix, 0, prefix.length);
+    }
+
+    /**
+     * @return
+     */
+    String symbol() {
+      return new String(symbol, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return
+     */
+    ExportPostings postings() {
+      ByteBuffer slice = buffer
+          .slice((int)(postingsOffset + posting * ExportIndexFormat.POSTING_SIZE),
+              postingCount * ExportIndexFormat.POSTING_SIZE)
+          .order(ByteOrder.LITTLE_ENDIAN);
+
+      return new ExportPostings(slice.asIntBuffer());
+    }
+  }
+}
@@ -0,0 +1,76 @@
+// Copyright (c) 2023 Goosebump Designs LLC
+
+package com.goosebumpdesigns.pe.store;
+
+import java.nio.ByteBuffer;
+
+/**
+ * This holds the layout of an export index file, which is shared by {@link ExportIndexWriter} and
+ * {@link ExportIndex}. All values are little-endian.
+ *
+ * <pre>
+ * header    magic, version, symbol count, file count, block size, block count (ints), then the
+ *           offsets of the block index, postings and files (longs)
+ * symbols   the sorted symbols, front-coded in blocks. Each symbol is the varint length of the
+ *           prefix it shares with the previous symbol, the varint length of the rest, the rest
+ *           (UTF-8) and the varint number of postings. The first symbol of a block shares nothing.
+ * blocks    for each block, the offset of its first symbol (long) and the index of its first
+ *           posting (long)
+ * postings  for each symbol in order, its postings: the file ID and the ordinal (ints)
+ * files     the end offset of each path (longs), then the UTF-8 bytes of the paths
+ * </pre>
+ */
+final class ExportIndexFormat {
+  static final int MAGIC = 0x50454958;
+  static final int VERSION = 1;
+  static final int BLOCK_SIZE = 16;
+  static final int HEADER_SIZE = 6 * Integer.BYTES + 3 * Long.BYTES;
+  static final int BLOCK_ENTRY_SIZE = 2 * Long.BYTES;
+  static final int POSTING_SIZE = 2 * Integer.BYTES;
+
+  static final int SYMBOL_COUNT = 8;
+  static final int FILE_COUNT = 12;
+  static final int BLOCK_SIZE_OFFSET = 16;
+  static final int BLOCK_COUNT = 20;
+  static final int BLOCKS_OFFSET = 24;
+  static final int POSTINGS_OFFSET = 32;
+  static final int FILES_OFFSET = 40;
+
+  private ExportIndexFormat() {}
+
+  /**
+   * Write an unsigned LEB128 varint.
+   *
+   * @param buffer The buffer.
+   * @param value The value, which must not be negative.
+   */
+  static void putVarint(ByteBuffer buffer, int value) {
+    while((value & ~0x7f) != 0) {
+      buffer.put((byte)((value & 0x7f) | 0x80));
+      value >>>= 7;
+    }
+
+    buffer.put((byte)value);
+  }
+
+  /**
+   * Read an unsigned LEB128 varint at the buffer position.
+   *
+   * @param buffer The buffer.
+   * @return The value.
+   */
+  static int getVarint(ByteBuffer buffer) {
+    int value = 0;
+    int shift = 0;
+    byte b;
+
+    do {
+      b = buffer.get();
+      value |= (b & 0x7f) << shift;
+      shift += 7;
+    }
+    while(b < 0);
+
+    return value;
+  }
+}
@@ -0,0 +1,334 @@
+// Copyright (c) 2023 Goosebump Designs LLC
+
+package com.goosebumpdesigns.pe.store;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+import com.goosebumpdesigns.pe.PEExports;
+import com.goosebumpdesigns.pe.builder.ScanResult;
+import com.goosebumpdesigns.pe.exception.PEFileException;
+import com.goosebumpdesigns.pe.model.Export;
+
+/**
+ * This writes an {@link ExportIndex}: the exported symbols of many files, each with the list of
+ * files (and ordinals) that export it. The writer is a {@link Consumer} of scan results:
+ *
+ * <pre>
+ * try(ExportIndexWriter writer = new ExportIndexWriter(indexFile)) {
+ *   PEFileBuilder.scan(corpusDirectory, writer);
+ * }
+ * </pre>
+ *
+ * Every successfully parsed file is given the next file ID, whether or not it has exports. A scan
+ * calls the writer from several threads, so the IDs follow the order in which the files finish
+ * parsing. To give the files the same IDs as the rows of a {@link ColumnarStore}, pass this writer
+ * to {@link ColumnarStoreWriter#ColumnarStoreWriter(Path, ExportIndexWriter)} instead of to the
+ * scan.
+ *
+ * The symbols are collected in memory and the index is written when the writer is closed. It is
+ * written to a temporary file and moved into place, so a reader never sees a partial index. The
+ * writer is safe for concurrent use.
+ */
+public class ExportIndexWriter implements Consumer<ScanResult>, AutoCloseable {
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private final Path file;
+  private final Map<String, Postings> symbols = new HashMap<>();
+  private final List<String> paths = new ArrayList<>();
+  private boolean closed;
+
+  /**
+   * This is the postings of a symbol while the index is being built: file ID and ordinal pairs.
+   */
+  private static class Postings {
+    int[] values = new int[2];
+    int size;
+
+    /**
+     * @param fileId
+     * @param ordinal
+     */
+    void add(int fileId, int ordinal) {
+      if(size == values.length) {
+        values = Arrays.copyOf(values, values.length * 2);
+      }
+
+      values[size++] = fileId;
+      values[size++] = ordinal;
+    }
+  }
+
+  /**
+   * This is a symbol ready to be written, with its UTF-8 bytes for sorting.
+   */
+  private static class Symbol {
+    final byte[] name;
+    final Postings postings;
+
+    /**
+     * @param name
+     * @param postings
+     */
+    Symbol(byte[] name, Postings postings) {
+      this.name = name;
+      this.postings = postings;
+    }
+  }
+
+  /**
+   * @param file The index file. It is replaced when the writer is closed.
+   */
+  public ExportIndexWriter(Path file) {
+    this.file = file;
+  }
+
+  /**
+   * Add a successfully parsed file. Failed results are ignored.
+   *
+   * @param result The scan result.
+   */
+  @Override
+  public void accept(ScanResult result) {
+    if(result.isSuccess()) {
+      add(result.getPath(), result.getFile().getExports());
+    }
+  }
+
+  /**
+   * Add the exports of a file.
+   *
+   * @param path The path of the file.
+   * @param exports The exports of the file, or {@code null} if it has none.
+   * @return The file ID.
+   */
+  public synchronized int add(Path path, PEExports exports) {
+    if(closed) {
+      throw new IllegalStateException("The export index writer is closed");
+    }
+
+    int fileId = paths.size();
+
+    paths.add(path.toString());
+
+    if(Objects.nonNull(exports)) {
+      for(Export export : exports.getExports()) {
+        symbols.computeIfAbsent(export.getName(), name -> new Postings()).add(fileId,
+            export.getOrdinal());
+      }
+    }
+
+    return fileId;
+  }
+
+  /**
+   * Write the index.
+   *
+   * @throws PEFileException thrown if the index cannot be written.
+   */
+  @Override
+  public synchronized void close() {
+    if(closed) {
+      return;
+    }
+
+    closed = true;
+
+    Path directory = Objects.requireNonNullElse(file.toAbsolutePath().getParent(), Path.of("."));
+    Path temp = null;
+
+    try {
+      Files.createDirectories(directory);
+      temp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+
+      try(FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+        write(channel, sortedSymbols());
+      }
+
+      Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    catch(IOException e) {
+      if(Objects.nonNull(temp)) {
+        try {
+          Files.deleteIfExists(temp);
+        }
+        catch(IOException suppressed) {
+          e.addSuppressed(suppressed);
+        }
+      }
+
+      throw new PEFileException("Unable to write the export index " + file, e);
+    }
+  }
+
+  /**
+   * Sort the symbols by their UTF-8 bytes (unsigned), so that the symbols with a given prefix are
+   * adjacent.
+   *
+   * @return The symbols.
+   */
+  private Symbol[] sortedSymbols() {
+    Symbol[] sorted = new Symbol[symbols.size()];
+    int pos = 0;
+
+    for(Map.Entry<String, Postings> entry : symbols.entrySet()) {
+      sorted[pos++] =
+          new Symbol(entry.getKey().getBytes(StandardCharsets.UTF_8), entry.getValue());
+    }
+
+    Arrays.sort(sorted, (a, b) -> Arrays.compareUnsigned(a.name, b.name));
+    return sorted;
+  }
+
+  /**
+   * Write the sections of the index in order, then the header.
+   *
+   * @param channel The temporary file.
+   * @param sorted The sorted symbols.
+   * @throws IOException thrown if the file cannot be written.
+   */
+  private void write(FileChannel channel, Symbol[] sorted) throws IOException {
+    int blockCount =
+        (sorted.length + ExportIndexFormat.BLOCK_SIZE - 1) / ExportIndexFormat.BLOCK_SIZE;
+    long[] blockOffsets = new long[blockCount];
+    long[] blockPostings = new long[blockCount];
+    ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+    channel.position(ExportIndexFormat.HEADER_SIZE);
+
+    byte[] previous = new byte[0];
+    long postings = 0;
+
+    for(int pos = 0; pos < sorted.length; pos++) {
+      byte[] name = sorted[pos].name;
+      int shared = 0;
+
+      if(pos % ExportIndexFormat.BLOCK_SIZE == 0) {
+        flush(channel, buffer);
+        blockOffsets[pos / ExportIndexFormat.BLOCK_SIZE] = channel.position();
+        blockPostings[pos / ExportIndexFormat.BLOCK_SIZE] = postings;
+      }
+      else {
+        shared = Arrays.mismatch(previous, name);
+      }
+
+      buffer = ensure(channel, buffer, 3 * 5 + name.length - shared);
+      ExportIndexFormat.putVarint(buffer, shared);
+      ExportIndexFormat.putVarint(buffer, name.length - shared);
+      buffer.put(name, shared, name.length - shared);
+      ExportIndexFormat.putVarint(buffer, sorted[pos].postings.size / 2);
+
+      postings += sorted[pos].postings.size / 2;
+      previous = name;
+    }
+
+    flush(channel, buffer);
+
+    long blocksOffset = channel.position();
+
+    for(int block = 0; block < blockCount; block++) {
+      buffer = ensure(channel, buffer, ExportIndexFormat.BLOCK_ENTRY_SIZE);
+      buffer.putLong(blockOffsets[block]).putLong(blockPostings[block]);
+    }
+
+    flush(channel, buffer);
+
+    long postingsOffset = channel.position();
+
+    for(Symbol symbol : sorted) {
+      for(int pos = 0; pos < symbol.postings.size; pos++) {
+        buffer = ensure(channel, buffer, Integer.BYTES);
+        buffer.putInt(symbol.postings.values[pos]);
+      }
+    }
+
+    flush(channel, buffer);
+
+    long filesOffset = channel.position();
+    List<byte[]> pathBytes = new ArrayList<>(paths.size());
+    long end = 0;
+
+    for(String path : paths) {
+      byte[] bytes = path.getBytes(StandardCharsets.UTF_8);
+
+      end += bytes.length;
+      pathBytes.add(bytes);
+      buffer = ensure(channel, buffer, Long.BYTES);
+      buffer.putLong(end);
+    }
+
+    for(byte[] bytes : pathBytes) {
+      buffer = ensure(channel, buffer, bytes.length);
+      buffer.put(bytes);
+    }
+
+    flush(channel, buffer);
+
+    // @formatter:off
+    buffer.putInt(ExportIndexFormat.MAGIC)
+        .putInt(ExportIndexFormat.VERSION)
+        .putInt(sorted.length)
+        .putInt(paths.size())
+        .putInt(ExportIndexFormat.BLOCK_SIZE)
+        .putInt(blockCount)
+        .putLong(blocksOffset)
+        .putLong(postingsOffset)
+        .putLong(filesOffset);
+    // @formatter:on
+
+    channel.position(0);
+    flush(channel, buffer);
+  }
+
+  /**
+   * Make room in the buffer, flushing it or (for a value larger than the buffer) replacing it.
+   *
+   * @param channel The file.
+   * @param buffer The buffer.
+   * @param length The number of bytes needed.
+   * @return The buffer to write to.
+   * @throws IOException thrown if the buffer cannot be flushed.
+   */
+  private static ByteBuffer ensure(FileChannel channel, ByteBuffer buffer, int length)
+      throws IOException {
+    if(buffer.remaining() >= length) {
+      return buffer;
+    }
+
+    flush(channel, buffer);
+
+    if(buffer.remaining() >= length) {
+      return buffer;
+    }
+
+    return ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+  }
+
+  /**
+   * @param channel
+   * @param buffer
+   * @throws IOException
+   */
+  private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+    buffer.flip();
+
+    while(buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+
+    buffer.clear();
+  }
+}
@@ -0,0 +1,52 @@
+// Copyright (c) 2023 Goosebump Designs LLC
+
+package com.goosebumpdesigns.pe.store;
+
+import java.nio.IntBuffer;
+
+/**
+ * These are the files that export a symbol, read directly from the mapped {@link ExportIndex}.
+ * Postings are in file ID order.
+ */
+public final class ExportPostings {
+  static final ExportPostings EMPTY = new ExportPostings(IntBuffer.allocate(0));
+
+  private final IntBuffer values;
+
+  /**
+   * @param values The file ID and ordinal pairs.
+   */
+  ExportPostings(IntBuffer values) {
+    this.values = values;
+  }
+
+  /**
+   * @return The number of files that export the symbol.
+   */
+  public int size() {
+    return values.limit() / 2;
+  }
+
+  /**
+   * @return {@code true} if no file exports the symbol.
+   */
+  public boolean isEmpty() {
+    return values.limit() == 0;
+  }
+
+  /**
+   * @param index The posting index.
+   * @return The ID of the file. Use {@link ExportIndex#getPath(int)} to find its path.
+   */
+  public int getFileId(int index) {
+    return values.get(index * 2);
+  }
+
+  /**
+   * @param index The posting index.
+   * @return The ordinal of the symbol in the file.
+   */
+  public int getOrdinal(int index) {
+    return values.get(index * 2 + 1);
+  }
+}
@@ -0,0 +1,34 @@
+// Copyright (c) 2023 Goosebump Designs LLC
+
+package com.goosebumpdesigns.pe.store;
+
+import java.nio.IntBuffer;
+
+/**
+ * This is a memory-mapped {@link ColumnType#INT} column.
+ */
+public final class IntColumn {
+  private final IntBuffer values;
+
+  /**
+   * @param values The mapped column file.
+   */
+  IntColumn(IntBuffer values) {
+    this.values = values;
+  }
+
+  /**
+   * @return The number of rows.
+   */
+  public int size() {
+    return values.limit();
+  }
+
+  /**
+   * @param row The row index.
+   * @return The value in the given row.
+   */
+  public int get(int row) {
+    return values.get(row);
+  }
+}
@@ -0,0 +1,34 @@
+// Copyright (c) 2023 Goosebump Designs LLC
+
+package com.goosebumpdesigns.pe.store;
+
+import java.nio.LongBuffer;
+
+/**
+ * This is a memory-mapped {@link ColumnType#LONG} column.
+ */
+public final class LongColumn {
+  private final LongBuffer values;
+
+  /**
+   * @param values The mapped column file.
+   */
+  LongColumn(LongBuffer values) {
+    this.values = values;
+  }
+
+  /**
+   * @return The number of rows.
+   */
+  public int size() {
+    return values.limit();
+  }
+
+  /**
+   * @param row The row index.
+   * @return The value in the given row.
+   */
+  public long get(int row) {
+    return values.get(row);
+  }
+}
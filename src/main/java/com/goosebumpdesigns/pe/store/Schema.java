@@ -0,0 +1,210 @@
+// Copyright (c) 2023 Goosebump Designs LLC
+
+package com.goosebumpdesigns.pe.store;
+
+import static com.goosebumpdesigns.pe.store.ColumnSpec.dictionaryColumn;
+import static com.goosebumpdesigns.pe.store.ColumnSpec.intColumn;
+import static com.goosebumpdesigns.pe.store.ColumnSpec.longColumn;
+import static com.goosebumpdesigns.pe.store.ColumnSpec.stringColumn;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+import com.goosebumpdesigns.pe.PEFile;
+import com.goosebumpdesigns.pe.PEHeader;
+import com.goosebumpdesigns.pe.PEOptionalHeader;
+import com.goosebumpdesigns.pe.PESection;
+import com.goosebumpdesigns.pe.model.type.HeaderCharacteristic;
+import com.goosebumpdesigns.pe.model.type.OptionalHeaderCharacteristic;
+import com.goosebumpdesigns.pe.model.type.SectionCharacteristic;
+import lombok.Value;
+
+/**
+ * This defines the tables of a {@link ColumnarStore}. The files table has one row per file, with a
+ * column for each field of the {@link PEHeader} and the {@link PEOptionalHeader}. The sections
+ * table has one row per section, with a column for each field of the {@link PESection} and the row
+ * of its file in the files table. Characteristics are stored as the flag value. Timestamps are
+ * stored as seconds since the epoch (UTC). If a part of the file was not parsed, its numeric
+ * columns are zero and its dictionary columns are missing.
+ */
+final class Schema {
+  static final int VERSION = 1;
+
+  /**
+   * This is a row of the files table.
+   */
+  @Value
+  static class FileRow {
+    private Path path;
+    private PEFile file;
+  }
+
+  /**
+   * This is a row of the sections table.
+   */
+  @Value
+  static class SectionRow {
+    private int fileRow;
+    private PESection section;
+  }
+
+  // @formatter:off
+  static final List<ColumnSpec<FileRow>> FILE_COLUMNS = List.of(
+      stringColumn("path", row -> row.getPath().toString()),
+      dictionaryColumn("machineType", headerText(h -> h.getMachineType().name())),
+      intColumn("numberOfSections", header(PEHeader::getNumberOfSections)),
+      longColumn("timestamp", header(h -> epochSeconds(h.getTimestamp()))),
+      intColumn("symbolTableOffset", header(PEHeader::getSymbolTableOffset)),
+      intColumn("numberOfSymbols", header(PEHeader::getNumberOfSymbols)),
+      intColumn("sizeOfOptionalHeader", header(PEHeader::getSizeOfOptionalHeader)),
+      intColumn("characteristics", header(h -> headerFlags(h.getCharacteristics()))),
+      dictionaryColumn("magicNumber", optionalText(o -> o.getMagicNumber().name())),
+      intColumn("linkerMajorVersion", optional(o -> o.getLinkerVersion().getMajor())),
+      intColumn("linkerMinorVersion", optional(o -> o.getLinkerVersion().getMinor())),
+      longColumn("codeSize", optional(PEOptionalHeader::getCodeSize)),
+      longColumn("initializedDataSize", optional(PEOptionalHeader::getInitializedDataSize)),
+      longColumn("uninitializedDataSize", optional(PEOptionalHeader::getUninitializedDataSize)),
+      longColumn("entryPointAddress", optional(PEOptionalHeader::getEntryPointAddress)),
+      longColumn("codeBaseAddress", optional(PEOptionalHeader::getCodeBaseAddress)),
+      longColumn("dataBaseAddress", optional(PEOptionalHeader::getDataBaseAddress)),
+      longColumn("imageBase", optional(PEOptionalHeader::getRawImageBase)),
+      longColumn("sectionAlignment", optional(PEOptionalHeader::getSectionAlignment)),
+      longColumn("fileAlignment", optional(PEOptionalHeader::getFileAlignment)),
+      intColumn("operatingSystemMajorVersion",
+          optional(o -> o.getOperatingSystemVersion().getMajor())),
+      intColumn("operatingSystemMinorVersion",
+          optional(o -> o.getOperatingSystemVersion().getMinor())),
+      intColumn("imageMajorVersion", optional(o -> o.getImageVersion().getMajor())),
+      intColumn("imageMinorVersion", optional(o -> o.getImageVersion().getMinor())),
+      intColumn("subsystemMajorVersion", optional(o -> o.getSubsystemVersion().getMajor())),
+      intColumn("subsystemMinorVersion", optional(o -> o.getSubsystemVersion().getMinor())),
+      longColumn("win32VersionValue", optional(PEOptionalHeader::getWin32VersionValue)),
+      longColumn("imageSize", optional(PEOptionalHeader::getImageSize)),
+      longColumn("headerSize", optional(PEOptionalHeader::getHeaderSize)),
+      longColumn("checksum", optional(PEOptionalHeader::getChecksum)),
+      dictionaryColumn("subsystem", optionalText(o -> o.getSubsystem().name())),
+      intColumn("dllCharacteristics", optional(o -> optionalFlags(o.getCharacteristics()))),
+      longColumn("stackReserve", optional(o -> o.getStackMemory().getRawReserve())),
+      longColumn("stackCommit", optional(o -> o.getStackMemory().getRawCommit())),
+      longColumn("heapReserve", optional(o -> o.getHeapMemory().getRawReserve())),
+      longColumn("heapCommit", optional(o -> o.getHeapMemory().getRawCommit())),
+      longColumn("loaderFlags", optional(PEOptionalHeader::getLoaderFlags)),
+      longColumn("numberOfRvaAndSizes", optional(PEOptionalHeader::getNumberOfRvaAndSizes))
+  );
+
+  static final List<ColumnSpec<SectionRow>> SECTION_COLUMNS = List.of(
+      intColumn("file", SectionRow::getFileRow),
+      dictionaryColumn("name", row -> row.getSection().getName()),
+      longColumn("virtualSize", row -> row.getSection().getVirtualSize()),
+      longColumn("virtualAddress", row -> row.getSection().getVirtualAddress()),
+      longColumn("rawDataSize", row -> row.getSection().getRawDataSize()),
+      longColumn("rawDataPointer", row -> row.getSection().getRawDataPointer()),
+      longColumn("relocationsPointer", row -> row.getSection().getRelocationsPointer()),
+      longColumn("lineNumbersPointer", row -> row.getSection().getLineNumbersPointer()),
+      intColumn("numberOfRelocations", row -> row.getSection().getNumberOfRelocations()),
+      intColumn("numberOfLineNumbers", row -> row.getSection().getNumberOfLineNumbers()),
+      intColumn("characteristics",
+          row -> sectionFlags(row.getSection().getCharacteristics()))
+  );
+  // @formatter:on
+
+  private Schema() {}
+
+  /**
+   * @param value Extracts a number from the header.
+   * @return A function that returns the number, or zero if the header was not parsed.
+   */
+  private static ToLongFunction<FileRow> header(ToLongFunction<PEHeader> value) {
+    return row -> {
+      PEHeader header = row.getFile().getHeader();
+      return Objects.isNull(header) ? 0 : value.applyAsLong(header);
+    };
+  }
+
+  /**
+   * @param value Extracts text from the header.
+   * @return A function that returns the text, or {@code null} if the header was not parsed.
+   */
+  private static Function<FileRow, String> headerText(Function<PEHeader, String> value) {
+    return row -> {
+      PEHeader header = row.getFile().getHeader();
+      return Objects.isNull(header) ? null : value.apply(header);
+    };
+  }
+
+  /**
+   * @param value Extracts a number from the optional header.
+   * @return A function that returns the number, or zero if the optional header was not parsed.
+   */
+  private static ToLongFunction<FileRow> optional(ToLongFunction<PEOptionalHeader> value) {
+    return row -> {
+      PEOptionalHeader header = row.getFile().getOptionalHeader();
+      return Objects.isNull(header) ? 0 : value.applyAsLong(header);
+    };
+  }
+
+  /**
+   * @param value Extracts text from the optional header.
+   * @return A function that returns the text, or {@code null} if the optional header was not
+   *         parsed.
+   */
+  private static Function<FileRow, String> optionalText(Function<PEOptionalHeader, String> value) {
+    return row -> {
+      PEOptionalHeader header = row.getFile().getOptionalHeader();
+      return Objects.isNull(header) ? null : value.apply(header);
+    };
+  }
+
+  /**
+   * @param timestamp
+   * @return
+   */
+  private static long epochSeconds(LocalDateTime timestamp) {
+    return timestamp.toEpochSecond(ZoneOffset.UTC);
+  }
+
+  /**
+   * @param characteristics
+   * @return
+   */
+  private static int headerFlags(List<HeaderCharacteristic> characteristics) {
+    int flags = 0;
+
+    for(HeaderCharacteristic characteristic : characteristics) {
+      flags |= characteristic.value();
+    }
+
+    return flags;
+  }
+
+  /**
+   * @param characteristics
+   * @return
+   */
+  private static int optionalFlags(List<OptionalHeaderCharacteristic> characteristics) {
+    int flags = 0;
+
+    for(OptionalHeaderCharacteristic characteristic : characteristics) {
+      flags |= characteristic.value();
+    }
+
+    return flags;
+  }
+
+  /**
+   * @param characteristics
+   * @return
+   */
+  private static int sectionFlags(List<SectionCharacteristic> characteristics) {
+    int flags = 0;
+
+    for(SectionCharacteristic characteristic : characteristics) {
+      flags |= characteristic.value();
+    }
+
+    return flags;
+  }
+}
@@ -0,0 +1,43 @@
+// Copyright (c) 2023 Goosebump Designs LLC
+
+package com.goosebumpdesigns.pe.store;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * This is a memory-mapped {@link ColumnType#STRING} column. A value is only decoded when it is
+ * requested.
+ */
+public final class StringColumn {
+  private final LongColumn ends;
+  private final ByteBuffer strings;
+
+  /**
+   * @param ends The mapped column file.
+   * @param strings The mapped string file.
+   */
+  StringColumn(LongColumn ends, ByteBuffer strings) {
+    this.ends = ends;
+    this.strings = strings;
+  }
+
+  /**
+   * @return The number of rows.
+   */
+  public int size() {
+    return ends.size();
+  }
+
+  /**
+   * @param row The row index.
+   * @return The value in the given row.
+   */
+  public String get(int row) {
+    int start = row == 0 ? 0 : (int)ends.get(row - 1);
+    byte[] bytes = new byte[(int)ends.get(row) - start];
+
+    strings.get(start, bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,126 @@
+// Copyright (c) 2023 Goosebump Designs LLC
+
+package com.goosebumpdesigns.pe.store;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Properties;
+
+/**
+ * This writes one table of a {@link ColumnarStore}: a column file per column and a
+ * {@code table.properties} file that holds the number of rows and the type of each column.
+ *
+ * @param <T> The type of a row.
+ */
+class TableWriter<T> implements AutoCloseable {
+  static final String PROPERTIES = "table.properties";
+  static final String VERSION = "version";
+  static final String ROWS = "rows";
+  static final String COLUMN_PREFIX = "column.";
+
+  private final Path directory;
+  private final List<ColumnSpec<T>> specs;
+  private final List<ColumnWriter<T>> columns = new ArrayList<>();
+  private int rows;
+
+  /**
+   * Create the table directory and the column files. The properties of a table that was written
+   * before are deleted first, so the table is incomplete until this writer is closed.
+   *
+   * @param directory The table directory.
+   * @param specs The columns.
+   * @throws IOException thrown if a file cannot be created.
+   */
+  TableWriter(Path directory, List<ColumnSpec<T>> specs) throws IOException {
+    this.directory = directory;
+    this.specs = specs;
+
+    Files.createDirectories(directory);
+    Files.deleteIfExists(directory.resolve(PROPERTIES));
+
+    try {
+      for(ColumnSpec<T> spec : specs) {
+        columns.add(new ColumnWriter<>(spec, directory));
+      }
+    }
+    catch(IOException e) {
+      closeColumns();
+      throw e;
+    }
+  }
+
+  /**
+   * Append a row.
+   *
+   * @param row The row.
+   * @return The index of the row.
+   * @throws IOException thrown if a column cannot be written.
+   */
+  int add(T row) throws IOException {
+    for(ColumnWriter<T> column : columns) {
+      column.add(row);
+    }
+
+    return rows++;
+  }
+
+  /**
+   * Close the column files and write the table properties. The properties are written last, so a
+   * table without them is incomplete.
+   *
+   * @throws IOException thrown if a file cannot be written.
+   */
+  @Override
+  public void close() throws IOException {
+    closeColumns();
+
+    Properties properties = new Properties();
+
+    properties.setProperty(VERSION, Integer.toString(Schema.VERSION));
+    properties.setProperty(ROWS, Integer.toString(rows));
+
+    for(ColumnSpec<T> spec : specs) {
+      properties.setProperty(COLUMN_PREFIX + spec.getName(), spec.getType().name());
+    }
+
+    try(Writer writer = Files.newBufferedWriter(directory.resolve(PROPERTIES),
+        StandardCharsets.UTF_8)) {
+      properties.store(writer, null);
+    }
+  }
+
+  /**
+   * Close every column, even if closing one of them fails.
+   *
+   * @throws IOException thrown if a column cannot be closed.
+   */
+  private void closeColumns() throws IOException {
+    IOException error = null;
+
+    for(ColumnWriter<T> column : columns) {
+      try {
+        column.close();
+      }
+      catch(IOException e) {
+        if(Objects.isNull(error)) {
+          error = e;
+        }
+        else {
+          error.addSuppressed(e);
+        }
+      }
+    }
+
+    columns.clear();
+
+    if(Objects.nonNull(error)) {
+      throw error;
+    }
+  }
+}
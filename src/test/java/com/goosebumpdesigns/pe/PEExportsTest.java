@@ -0,0 +1,149 @@
+// Copyright (c) 2023 Goosebump Designs LLC
+
+package com.goosebumpdesigns.pe;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import com.goosebumpdesigns.pe.builder.PEFileBuilder;
+import com.goosebumpdesigns.pe.file.ByteOrderBuffer;
+import com.goosebumpdesigns.pe.file.TestImageBuilder;
+import com.goosebumpdesigns.pe.model.Export;
+import com.goosebumpdesigns.pe.model.ExportAddressTable;
+import com.goosebumpdesigns.pe.model.ExportEntry;
+
+/**
+ * This class tests the lookups of {@link PEExports} and the forwarders of
+ * {@link ExportAddressTable}.
+ */
+class PEExportsTest {
+  private static final int ORDINAL_BASE = 5;
+
+  private PEExports exports;
+
+  /**
+   * Parse an image whose exports have an ordinal base of five: a named export, a forwarder, an
+   * export by ordinal only, an unused ordinal and a forwarder to an ordinal.
+   */
+  @BeforeEach
+  void init() {
+    // @formatter:off
+    exports = PEFileBuilder.build(TestImageBuilder.pe32()
+        .exports("test.dll", ORDINAL_BASE)
+        .export("Alpha")
+        .export("Beta", "NTDLL.RtlAllocateHeap")
+        .exportByOrdinal()
+        .unusedOrdinal()
+        .export("Delta", "NTDLL.#12")
+        .build()).getExports();
+    // @formatter:on
+  }
+
+  /**
+   * Test method for {@link PEExports#byOrdinal(long)}.
+   */
+  @Test
+  void testByOrdinal() {
+    // Given: the exports
+
+    // When: exports are found by ordinal
+    ExportEntry alpha = exports.byOrdinal(5);
+    ExportEntry beta = exports.byOrdinal(6);
+    ExportEntry unnamed = exports.byOrdinal(7);
+
+    // Then: the ordinal includes the base, and unused or out of range ordinals are not found
+    assertThat(alpha.getName()).isEqualTo("Alpha");
+    assertThat(alpha.getOrdinal()).isEqualTo(5);
+    assertThat(alpha.isForwarded()).isFalse();
+    assertThat(alpha.getAddress()).isNotZero();
+    assertThat(beta.getName()).isEqualTo("Beta");
+    assertThat(beta.getForwarder()).isEqualTo("NTDLL.RtlAllocateHeap");
+    assertThat(unnamed.isNamed()).isFalse();
+    assertThat(unnamed.getAddress()).isNotZero();
+    assertThat(exports.byOrdinal(4)).isNull();
+    assertThat(exports.byOrdinal(8)).isNull();
+    assertThat(exports.byOrdinal(10)).isNull();
+    assertThat(exports.byOrdinal(-1)).isNull();
+  }
+
+  /**
+   * Test method for {@link PEExports#byName(String)}.
+   */
+  @Test
+  void testByName() {
+    // Given: the exports
+
+    // When: exports are found by name
+    ExportEntry delta = exports.byName("Delta");
+
+    // Then: the entry has the ordinal and the decoded forwarder
+    assertThat(exports.byName("Alpha").getOrdinal()).isEqualTo(5);
+    assertThat(delta.getOrdinal()).isEqualTo(9);
+    assertThat(delta.isForwarded()).isTrue();
+    assertThat(delta.getForwarder()).isEqualTo("NTDLL.#12");
+    assertThat(exports.byName("Gamma")).isNull();
+    assertThat(exports.byName("alpha")).isNull();
+  }
+
+  /**
+   * Test method for {@link PEExports#getUnnamedExports()}.
+   */
+  @Test
+  void testGetUnnamedExports() {
+    // Given: the exports
+
+    // When: the unnamed exports are listed
+    List<ExportEntry> unnamed = exports.getUnnamedExports();
+
+    // Then: only the export by ordinal is listed; the unused ordinal is not
+    assertThat(unnamed).extracting(ExportEntry::getOrdinal).containsExactly(7L);
+  }
+
+  /**
+   * Test method for {@link ExportAddressTable#getForwarder(int)}.
+   */
+  @Test
+  void testGetForwarderFromManyThreads() {
+    // Given: an address table whose forwarders have not been decoded
+    ExportAddressTable table = exports.getAddressTable();
+    ExportAddressTable copy = new ExportAddressTable(table.getAddresses(),
+        table.getDirectoryAddress(), table.getDirectorySize(), table.getDirectoryData());
+
+    // When: the forwarders are decoded by many threads at once
+    List<String> forwarders = IntStream.range(0, 1000).parallel()
+        .mapToObj(n -> copy.getForwarder(n % copy.size())).toList();
+
+    // Then: every thread sees the complete forwarder
+    for(int n = 0; n < forwarders.size(); n++) {
+      assertThat(forwarders.get(n)).isEqualTo(table.getForwarder(n % table.size()));
+    }
+
+    assertThat(copy.isForwarded(0)).isFalse();
+    assertThat(copy.getForwarder(0)).isNull();
+    assertThat(copy.getForwarder(1)).isEqualTo("NTDLL.RtlAllocateHeap");
+  }
+
+  /**
+   * Test method for {@link PEExports#PEExports(ByteOrderBuffer, String, Set)}.
+   */
+  @Test
+  void testConstructorWithoutAddressTable() {
+    // Given: an empty export directory header and one export
+    ByteOrderBuffer header = new ByteOrderBuffer(ByteBuffer.allocate(40), ByteOrder.LITTLE_ENDIAN);
+
+    // When: the exports are created without an address table
+    PEExports created = new PEExports(header, "test.dll", Set.of(new Export("Alpha", 0)));
+
+    // Then: the exports are kept, but the lookups find nothing
+    assertThat(created.getExports()).containsExactly(new Export("Alpha", 0));
+    assertThat(created.getAddressTable().size()).isZero();
+    assertThat(created.byName("Alpha")).isNull();
+    assertThat(created.byOrdinal(0)).isNull();
+    assertThat(created.getUnnamedExports()).isEmpty();
+  }
+}
@@ -0,0 +1,104 @@
+// Copyright (c) 2023 Goosebump Designs LLC
+
+package com.goosebumpdesigns.pe;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import com.goosebumpdesigns.pe.builder.PEFileBuilder;
+import com.goosebumpdesigns.pe.builder.ParseOptions;
+import com.goosebumpdesigns.pe.file.TestImageBuilder;
+
+/**
+ * This class tests the value semantics of {@link PEFile}, whose exports and import directories may
+ * be decoded lazily.
+ */
+class PEFileTest {
+  @TempDir
+  Path directory;
+
+  /**
+   * Test method for {@link PEFile#equals(Object)} and {@link PEFile#hashCode()}.
+   */
+  @Test
+  void testTwoParsesOfOneImageAreEqual() {
+    // Given: an image with exports and all kinds of imports
+    byte[] image = image();
+
+    // When: the image is parsed twice
+    PEFile first = PEFileBuilder.build(image);
+    PEFile second = PEFileBuilder.build(image);
+
+    // Then: the files are equal
+    assertThat(first).isNotSameAs(second).isEqualTo(second);
+    assertThat(first.hashCode()).isEqualTo(second.hashCode());
+  }
+
+  /**
+   * Test method for {@link PEFile#equals(Object)}.
+   */
+  @Test
+  void testLazyAndEagerParsesAreEqual() {
+    // Given: an image in a file
+    Path path = TestImageBuilder.pe32().exports("test.dll", 1).export("Alpha").export("Beta")
+        .importLibrary("KERNEL32.dll", "Sleep").write(directory, "test.dll");
+
+    // When: the file is parsed eagerly and lazily
+    PEFile eager = PEFileBuilder.build(path);
+    PEFile lazy = PEFileBuilder.build(path, ParseOptions.LAZY);
+
+    // Then: the files are equal, and comparing them decodes the lazy parts
+    assertThat(lazy.isExportsLoaded()).isFalse();
+    assertThat(lazy).isEqualTo(eager);
+    assertThat(lazy.hashCode()).isEqualTo(eager.hashCode());
+    assertThat(lazy.isExportsLoaded()).isTrue();
+  }
+
+  /**
+   * Test method for {@link PEFile#equals(Object)}.
+   */
+  @Test
+  void testDifferentImagesAreNotEqual() {
+    // Given: two images that differ only in an export name
+    PEFile first = PEFileBuilder.build(TestImageBuilder.pe32().exports("test.dll", 1)
+        .export("Alpha").build());
+    PEFile second = PEFileBuilder.build(TestImageBuilder.pe32().exports("test.dll", 1)
+        .export("Gamma").build());
+
+    // When: the files are compared
+    // Then: they are not equal
+    assertThat(first).isNotEqualTo(second);
+  }
+
+  /**
+   * Test method for {@link PEFile#toString()}.
+   */
+  @Test
+  void testToStringPrintsTheDecodedValues() {
+    // Given: a parsed image
+    PEFile file = PEFileBuilder.build(image());
+
+    // When: the file is printed
+    String text = file.toString();
+
+    // Then: the decoded exports and imports are printed
+    assertThat(text).contains("exports=PEExports(").contains("Alpha")
+        .contains("imports=PEImports(").contains("KERNEL32.dll").doesNotContain("LazyValue");
+  }
+
+  /**
+   * @return An image with exports, imports, bound imports and delay-load imports.
+   */
+  private static byte[] image() {
+    // @formatter:off
+    return TestImageBuilder.pe32Plus()
+        .exports("test.dll", 1).export("Alpha").export("Beta", "KERNEL32.Sleep")
+        .importLibrary("KERNEL32.dll", "Sleep", "GetTickCount")
+        .importLibrary("WS2_32.dll", 3, "WSAStartup")
+        .boundLibrary("USER32.dll", TestImageBuilder.TIMESTAMP, 2)
+        .delayImportLibrary("SHELL32.dll", "ShellExecuteW")
+        .build();
+    // @formatter:on
+  }
+}
@@ -0,0 +1,98 @@
+// Copyright (c) 2023 Goosebump Designs LLC
+
+package com.goosebumpdesigns.pe;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import com.goosebumpdesigns.pe.file.ByteOrderBuffer;
+
+/**
+ * This class tests the decoding of application manifests by {@link PEManifest}.
+ */
+class PEManifestTest {
+  // @formatter:off
+  private static final String XML =
+      "<assembly xmlns=\"urn:schemas-microsoft-com:asm.v1\"><trustInfo><security>"
+      + "<requestedPrivileges>"
+      + "<requestedExecutionLevel level=\"requireAdministrator\" uiAccess='false'/>"
+      + "</requestedPrivileges></security></trustInfo></assembly>";
+  // @formatter:on
+
+  /**
+   * Test method for {@link PEManifest#PEManifest(ByteOrderBuffer)}.
+   *
+   * @param encoding The encoding of the manifest, with or without a byte order mark.
+   */
+  @ParameterizedTest
+  @ValueSource(strings = {"UTF-8", "UTF-8 BOM", "UTF-16LE BOM", "UTF-16BE BOM"})
+  void testByteOrderMarkSelectsTheEncoding(String encoding) {
+    // Given: a manifest in the encoding, followed by padding nulls
+    Charset charset = Charset.forName(encoding.split(" ")[0]);
+    ByteArrayOutputStream resource = new ByteArrayOutputStream();
+
+    if(encoding.endsWith("BOM")) {
+      resource.writeBytes("\uFEFF".getBytes(charset));
+    }
+
+    resource.writeBytes(XML.getBytes(charset));
+    resource.writeBytes("\0\0".getBytes(charset));
+
+    // When: the manifest is decoded
+    PEManifest manifest = new PEManifest(buffer(resource.toByteArray()));
+
+    // Then: the XML has no byte order mark or nulls, and the attributes are found
+    assertThat(manifest.getXml()).isEqualTo(XML);
+    assertThat(manifest.getRequestedExecutionLevel()).isEqualTo("requireAdministrator");
+    assertThat(manifest.getUiAccess()).isEqualTo("false");
+  }
+
+  /**
+   * Test method for {@link PEManifest#PEManifest(ByteOrderBuffer)}.
+   */
+  @Test
+  void testPrefixedElementWithoutUiAccess() {
+    // Given: a manifest with a namespace prefix and no uiAccess attribute
+    String xml = "<asmv3:requestedExecutionLevel  level = 'asInvoker' />";
+
+    // When: the manifest is decoded
+    PEManifest manifest = new PEManifest(buffer(xml.getBytes(StandardCharsets.UTF_8)));
+
+    // Then: the level is found and uiAccess is null
+    assertThat(manifest.getRequestedExecutionLevel()).isEqualTo("asInvoker");
+    assertThat(manifest.getUiAccess()).isNull();
+  }
+
+  /**
+   * Test method for {@link PEManifest#PEManifest(ByteOrderBuffer)}.
+   */
+  @Test
+  void testManifestWithoutExecutionLevel() {
+    // Given: a manifest with no requestedExecutionLevel, and a resource of a lone byte order mark
+    byte[] noLevel = "<assembly level=\"x\"/>".getBytes(StandardCharsets.UTF_8);
+    byte[] bomOnly = {(byte)0xff, (byte)0xfe};
+
+    // When: the manifests are decoded
+    PEManifest first = new PEManifest(buffer(noLevel));
+    PEManifest second = new PEManifest(buffer(bomOnly));
+
+    // Then: neither has an execution level
+    assertThat(first.getRequestedExecutionLevel()).isNull();
+    assertThat(first.getUiAccess()).isNull();
+    assertThat(second.getXml()).isEmpty();
+    assertThat(second.getRequestedExecutionLevel()).isNull();
+  }
+
+  /**
+   * @param bytes
+   * @return A little-endian buffer over the bytes.
+   */
+  private static ByteOrderBuffer buffer(byte[] bytes) {
+    return new ByteOrderBuffer(bytes, ByteOrder.LITTLE_ENDIAN);
+  }
+}
@@ -0,0 +1,292 @@
+// Copyright (c) 2023 Goosebump Designs LLC
+
+package com.goosebumpdesigns.pe;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.Test;
+import com.goosebumpdesigns.pe.exception.PEFileException;
+import com.goosebumpdesigns.pe.file.MemorySource;
+import com.goosebumpdesigns.pe.file.PEFileReader;
+import com.goosebumpdesigns.pe.file.TestImageBuilder;
+import com.goosebumpdesigns.pe.model.ResourceData;
+import com.goosebumpdesigns.pe.model.ResourceDirectory;
+import com.goosebumpdesigns.pe.model.ResourceEntry;
+import com.goosebumpdesigns.pe.model.ResourceTree;
+import com.goosebumpdesigns.pe.model.type.OptionalHeaderField;
+
+/**
+ * This class tests the navigation of the resource directory by {@link PEResources},
+ * {@link ResourceDirectory} and {@link ResourceTree}, and the bounds checks that keep a corrupt
+ * directory from being read outside of the image.
+ */
+class PEResourcesTest {
+  private static final int RT_RCDATA = 10;
+  private static final int ROOT_ENTRIES = 16;
+
+  /**
+   * The offset of the data entry in an image with one resource: it follows the root, type and name
+   * directories, each with one entry.
+   */
+  private static final int DATA_ENTRY = 3 * 24;
+
+  /**
+   * Test method for {@link PEResources#getTypes()} and {@link PEResources#getType(String)}.
+   */
+  @Test
+  void testNamedEntriesComeBeforeIds() {
+    // Given: an image with a named type and a type ID, each with named and ID resources
+    // @formatter:off
+    PEResources resources = resources(TestImageBuilder.pe32()
+        .resource(RT_RCDATA, 1, 0x409, bytes("one"))
+        .resource("MYTYPE", "Beta", 0, bytes("beta"))
+        .resource("MYTYPE", 5, 0, bytes("five"))
+        .resource("MYTYPE", "alpha", 0, bytes("alpha"))
+        .build());
+    // @formatter:on
+
+    // When: the types and the resources of the named type are listed
+    ResourceDirectory myType = resources.getType("mytype");
+
+    // Then: named entries come first, in name order ignoring case, followed by the IDs
+    assertThat(resources.getTypes()).extracting(ResourceEntry::toString)
+        .containsExactly("MYTYPE", "#10");
+    assertThat(myType.getNamedEntryCount()).isEqualTo(2);
+    assertThat(myType.getIdEntryCount()).isEqualTo(1);
+    assertThat(myType.getEntries()).extracting(ResourceEntry::getName)
+        .containsExactly("alpha", "Beta", null);
+    assertThat(myType.getEntry(2).getId()).isEqualTo(5);
+    assertThat(myType.getEntry(0).isDirectory()).isTrue();
+    assertThat(myType.getEntry(0).getData()).isNull();
+    assertThatThrownBy(() -> myType.getEntry(3)).isInstanceOf(IndexOutOfBoundsException.class);
+  }
+
+  /**
+   * Test method for {@link ResourceDirectory#findEntry(String)} and
+   * {@link ResourceDirectory#findEntry(int)}.
+   */
+  @Test
+  void testFindEntry() {
+    // Given: a type with named resources and twenty resource IDs
+    TestImageBuilder builder = TestImageBuilder.pe32Plus().resource("MYTYPE", "Beta", 0,
+        bytes("beta"));
+
+    for(int id = 2; id <= 40; id += 2) {
+      builder.resource("MYTYPE", id, 0, bytes("#" + id));
+    }
+
+    ResourceDirectory myType = resources(builder.build()).getType("MYTYPE");
+
+    // When: entries are found by name and by ID
+    // Then: names are matched ignoring case, IDs are found by binary search, and misses are null
+    assertThat(myType.findEntry("BETA").getName()).isEqualTo("Beta");
+    assertThat(myType.findEntry("Bet")).isNull();
+    assertThat(myType.findEntry("gamma")).isNull();
+
+    for(int id = 2; id <= 40; id += 2) {
+      assertThat(myType.findEntry(id).getId()).isEqualTo(id);
+      assertThat(myType.findEntry(id - 1)).isNull();
+    }
+
+    assertThat(myType.findEntry(41)).isNull();
+  }
+
+  /**
+   * Test method for {@link PEResources#find(int, int)} and {@link PEResources#find(int, int, int)}.
+   */
+  @Test
+  void testFindByLanguage() {
+    // Given: a resource in two languages
+    // @formatter:off
+    PEResources resources = resources(TestImageBuilder.pe32()
+        .resource(RT_RCDATA, 1, 0x409, bytes("english"))
+        .resource(RT_RCDATA, 1, 0x407, bytes("deutsch"))
+        .build());
+    // @formatter:on
+
+    // When: the resource is found with and without a language
+    // Then: the first language is the lowest ID, and a missing language, name or type is null
+    assertThat(text(resources.find(RT_RCDATA, 1))).isEqualTo("deutsch");
+    assertThat(text(resources.find(RT_RCDATA, 1, 0x409))).isEqualTo("english");
+    assertThat(resources.find(RT_RCDATA, 1, 0x40c)).isNull();
+    assertThat(resources.find(RT_RCDATA, 2)).isNull();
+    assertThat(resources.find(RT_RCDATA + 1, 1, 0x409)).isNull();
+    assertThat(resources.getType("RCDATA")).isNull();
+    assertThat(resources.find(RT_RCDATA, 1, 0x409).getSize()).isEqualTo(7);
+  }
+
+  /**
+   * Test method for {@link ResourceData#getData()}.
+   */
+  @Test
+  void testDataIsAReadOnlyViewOfTheImage() {
+    // Given: an image with a resource
+    byte[] image = TestImageBuilder.pe32().resource(RT_RCDATA, 1, 0, bytes("data")).build();
+    ResourceData data = resources(image).find(RT_RCDATA, 1);
+
+    // When: the data is read and the image is changed
+    ByteBuffer view = data.getData();
+    int offset = (int)data.getRva() - TestImageBuilder.SECTION_RVA + TestImageBuilder.HEADER_SIZE;
+
+    image[offset] = 'D';
+
+    // Then: the view is read-only and shows the change, since nothing was copied
+    assertThat(view.isReadOnly()).isTrue();
+    assertThat(view.order()).isEqualTo(ByteOrder.LITTLE_ENDIAN);
+    assertThat(StandardCharsets.US_ASCII.decode(view).toString()).isEqualTo("Data");
+  }
+
+  /**
+   * Test method for {@link ResourceTree#ResourceTree(ByteBuffer, long, RvaResolver, ByteOrder,
+   * String)}.
+   */
+  @Test
+  void testDirectoryOutsideOfTheImageIsRejected() {
+    // Given: an image
+    ByteBuffer image = ByteBuffer.wrap(TestImageBuilder.pe32().build());
+
+    // When: a tree is created at an offset without room for a directory
+    // Then: it fails
+    assertThatThrownBy(() -> new ResourceTree(image, image.limit() - 8, null,
+        ByteOrder.LITTLE_ENDIAN, "test.dll")).isInstanceOf(PEFileException.class)
+            .hasMessageContaining("outside of test.dll");
+    assertThatThrownBy(
+        () -> new ResourceTree(image, -1, null, ByteOrder.LITTLE_ENDIAN, "test.dll"))
+            .isInstanceOf(PEFileException.class);
+  }
+
+  /**
+   * Test method for {@link PEResources#getRoot()}.
+   */
+  @Test
+  void testEntryCountPastTheEndOfTheImageIsRejected() {
+    // Given: a root directory that claims more entries than the image holds
+    PEResources resources = corrupt(buffer -> buffer.putShort(14, (short)0xffff));
+
+    // When: the root is decoded
+    // Then: it fails
+    assertThatThrownBy(resources::getRoot).isInstanceOf(PEFileException.class)
+        .hasMessageContaining("Resource directory at offset 16 ");
+  }
+
+  /**
+   * Test method for {@link ResourceEntry#getDirectory()}.
+   */
+  @Test
+  void testDirectoryOffsetPastTheEndOfTheImageIsRejected() {
+    // Given: a type entry that leads past the end of the image
+    PEResources resources = corrupt(buffer -> buffer.putInt(ROOT_ENTRIES + 4, 0x8fff0000));
+
+    // When: the type is reached
+    // Then: it fails
+    assertThatThrownBy(() -> resources.getType(RT_RCDATA)).isInstanceOf(PEFileException.class)
+        .hasMessageContaining("Resource directory at offset " + 0x0fff0000);
+  }
+
+  /**
+   * Test method for {@link ResourceEntry#getName()} and
+   * {@link ResourceDirectory#findEntry(String)}.
+   */
+  @Test
+  void testNamePastTheEndOfTheImageIsRejected() {
+    // Given: a named type whose name is past the end of the image
+    PEResources resources = corrupt(TestImageBuilder.pe32().resource("MYTYPE", 1, 0, bytes("x")),
+        buffer -> buffer.putInt(ROOT_ENTRIES, 0x8fff0000));
+    ResourceEntry entry = resources.getTypes().get(0);
+
+    // When: the name is decoded or compared
+    // Then: it fails
+    assertThat(entry.isNamed()).isTrue();
+    assertThatThrownBy(entry::getName).isInstanceOf(PEFileException.class)
+        .hasMessageContaining("Resource name");
+    assertThatThrownBy(() -> resources.getType("MYTYPE")).isInstanceOf(PEFileException.class);
+  }
+
+  /**
+   * Test method for {@link ResourceData#getData()}.
+   */
+  @Test
+  void testDataPastTheEndOfTheImageIsRejected() {
+    // Given: a data entry whose size runs past the end of the image
+    PEResources resources = corrupt(buffer -> buffer.putInt(DATA_ENTRY + 4, Integer.MAX_VALUE));
+    ResourceData data = resources.find(RT_RCDATA, 1);
+
+    // When: the data is read
+    // Then: it fails
+    assertThat(data.getSize()).isEqualTo(Integer.MAX_VALUE);
+    assertThatThrownBy(data::getData).isInstanceOf(PEFileException.class)
+        .hasMessageContaining("Resource data of " + Integer.MAX_VALUE + " bytes");
+  }
+
+  /**
+   * Test method for {@link ResourceData#getData()}.
+   */
+  @Test
+  void testDataAtAnUnmappedRvaIsRejected() {
+    // Given: a data entry whose RVA is not in a section
+    PEResources resources = corrupt(buffer -> buffer.putInt(DATA_ENTRY, 0x7fff0000));
+    ResourceData data = resources.find(RT_RCDATA, 1);
+
+    // When: the data is read
+    // Then: it fails
+    assertThat(data.getRva()).isEqualTo(0x7fff0000);
+    assertThatThrownBy(data::getData).isInstanceOf(PEFileException.class)
+        .hasMessageContaining("RVA 0x7fff0000");
+  }
+
+  /**
+   * @param image
+   * @return The resources of the image.
+   */
+  private static PEResources resources(byte[] image) {
+    try(PEFileReader reader = new PEFileReader(new MemorySource(image))) {
+      return new PEResources(reader.readResourceTree());
+    }
+  }
+
+  /**
+   * @param change
+   * @return The resources of an image with one resource, after the resource directory is changed.
+   */
+  private static PEResources corrupt(Consumer<ByteBuffer> change) {
+    return corrupt(TestImageBuilder.pe32().resource(RT_RCDATA, 1, 0, bytes("x")), change);
+  }
+
+  /**
+   * @param builder
+   * @param change Changes the resource directory, which starts at index zero of the buffer.
+   * @return The resources of the image, after the resource directory is changed.
+   */
+  private static PEResources corrupt(TestImageBuilder builder, Consumer<ByteBuffer> change) {
+    byte[] image = builder.build();
+    long offset;
+
+    try(PEFileReader reader = new PEFileReader(new MemorySource(image))) {
+      offset = reader.findDirectoryFileOffset(OptionalHeaderField.RESOURCE_TABLE);
+    }
+
+    change.accept(ByteBuffer.wrap(image, (int)offset, image.length - (int)offset).slice()
+        .order(ByteOrder.LITTLE_ENDIAN));
+    return resources(image);
+  }
+
+  /**
+   * @param data
+   * @return The data decoded as ASCII.
+   */
+  private static String text(ResourceData data) {
+    return StandardCharsets.US_ASCII.decode(data.getData()).toString();
+  }
+
+  /**
+   * @param text
+   * @return The ASCII bytes of the text.
+   */
+  private static byte[] bytes(String text) {
+    return text.getBytes(StandardCharsets.US_ASCII);
+  }
+}
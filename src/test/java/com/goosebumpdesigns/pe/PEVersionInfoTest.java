@@ -0,0 +1,273 @@
+// Copyright (c) 2023 Goosebump Designs LLC
+
+package com.goosebumpdesigns.pe;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+import org.junit.jupiter.api.Test;
+import com.goosebumpdesigns.pe.file.ByteOrderBuffer;
+
+/**
+ * This class tests the decoding of version resources by {@link PEVersionInfo}, including the
+ * malformed blocks that it reads leniently.
+ */
+class PEVersionInfoTest {
+  private static final int BINARY = 0;
+  private static final int TEXT = 1;
+  private static final int SIGNATURE = 0xfeef04bd;
+  private static final int FIXED_INFO_SIZE = 52;
+
+  /**
+   * Test method for {@link PEVersionInfo#PEVersionInfo(ByteOrderBuffer)}.
+   */
+  @Test
+  void testWellFormedResource() {
+    // Given: a version resource with fixed information, a string table and a translation
+    // @formatter:off
+    byte[] resource = versionInfo(fixedInfo(SIGNATURE),
+        block("StringFileInfo", TEXT, 0, new byte[0],
+            block("040904B0", TEXT, 0, new byte[0],
+                string("FileVersion", "1.2.3.4"),
+                string("ProductName", "Test"))),
+        block("VarFileInfo", TEXT, 0, new byte[0],
+            block("Translation", BINARY, 4, new byte[] {0x09, 0x04, (byte)0xb0, 0x04})));
+    // @formatter:on
+
+    // When: the resource is decoded
+    PEVersionInfo info = new PEVersionInfo(buffer(resource));
+
+    // Then: every part is decoded, and the table key is lower-cased
+    assertThat(info.getFixedFileVersion()).isEqualTo("1.2.3.4");
+    assertThat(info.getFixedProductVersion()).isEqualTo("5.6.7.8");
+    assertThat(info.getFileType()).isEqualTo(2);
+    assertThat(info.getStringTables()).containsOnlyKeys("040904b0");
+    assertThat(info.getFileVersion()).isEqualTo("1.2.3.4");
+    assertThat(info.getProductName()).isEqualTo("Test");
+    assertThat(info.getString("CompanyName")).isNull();
+    assertThat(info.getTranslations()).containsExactly("040904b0");
+  }
+
+  /**
+   * Test method for {@link PEVersionInfo#PEVersionInfo(ByteOrderBuffer)}.
+   */
+  @Test
+  void testBlockLongerThanItsParentIsClamped() {
+    // Given: a resource whose root and last string claim to be longer than the data
+    byte[] resource = versionInfo(fixedInfo(SIGNATURE), block("StringFileInfo", TEXT, 0,
+        new byte[0], block("040904b0", TEXT, 0, new byte[0], string("FileVersion", "1.0"))));
+    ByteBuffer view = ByteBuffer.wrap(resource).order(ByteOrder.LITTLE_ENDIAN);
+
+    view.putShort(0, (short)0xffff);
+    view.putShort(resource.length - string("FileVersion", "1.0").length, (short)0xfff0);
+
+    // When: the resource is decoded
+    PEVersionInfo info = new PEVersionInfo(buffer(resource));
+
+    // Then: the blocks end with the data and are still decoded
+    assertThat(info.getFixedFileVersion()).isEqualTo("1.2.3.4");
+    assertThat(info.getFileVersion()).isEqualTo("1.0");
+  }
+
+  /**
+   * Test method for {@link PEVersionInfo#PEVersionInfo(ByteOrderBuffer)}.
+   */
+  @Test
+  void testChildTooShortForAHeaderEndsTheChildren() {
+    // Given: a string table whose second child has a length of two
+    byte[] bad = string("Comments", "lost");
+
+    bad[0] = 2;
+    bad[1] = 0;
+
+    // @formatter:off
+    byte[] resource = versionInfo(fixedInfo(SIGNATURE),
+        block("StringFileInfo", TEXT, 0, new byte[0],
+            block("040904b0", TEXT, 0, new byte[0],
+                string("FileVersion", "1.0"),
+                bad,
+                string("ProductName", "Test"))));
+    // @formatter:on
+
+    // When: the resource is decoded
+    PEVersionInfo info = new PEVersionInfo(buffer(resource));
+
+    // Then: the strings before the short child are kept and the rest are skipped
+    assertThat(info.getFileVersion()).isEqualTo("1.0");
+    assertThat(info.getString("Comments")).isNull();
+    assertThat(info.getProductName()).isNull();
+  }
+
+  /**
+   * Test method for {@link PEVersionInfo#PEVersionInfo(ByteOrderBuffer)}.
+   */
+  @Test
+  void testFixedInfoThatIsShortOrHasABadSignatureIsIgnored() {
+    // Given: resources with a short fixed information value and with a bad signature
+    byte[] shortInfo = versionInfo(Arrays.copyOf(fixedInfo(SIGNATURE), FIXED_INFO_SIZE - 4));
+    byte[] badSignature = versionInfo(fixedInfo(0x12345678));
+
+    // When: the resources are decoded
+    PEVersionInfo first = new PEVersionInfo(buffer(shortInfo));
+    PEVersionInfo second = new PEVersionInfo(buffer(badSignature));
+
+    // Then: neither has fixed versions
+    assertThat(first.getFixedFileVersion()).isNull();
+    assertThat(first.getFixedProductVersion()).isNull();
+    assertThat(second.getFixedFileVersion()).isNull();
+    assertThat(second.getFileType()).isZero();
+  }
+
+  /**
+   * Test method for {@link PEVersionInfo#PEVersionInfo(ByteOrderBuffer)}.
+   */
+  @Test
+  void testTextLengthInBytesEndsAtTheNull() {
+    // Given: a string whose value length counts bytes instead of characters
+    byte[] value = text("1.0");
+    byte[] string = block("FileVersion", TEXT, value.length, value);
+
+    // When: the resource is decoded
+    PEVersionInfo info = new PEVersionInfo(buffer(versionInfo(fixedInfo(SIGNATURE),
+        block("StringFileInfo", TEXT, 0, new byte[0],
+            block("040904b0", TEXT, 0, new byte[0], string)))));
+
+    // Then: the text ends at the null
+    assertThat(info.getFileVersion()).isEqualTo("1.0");
+  }
+
+  /**
+   * Test method for {@link PEVersionInfo#PEVersionInfo(ByteOrderBuffer)}.
+   */
+  @Test
+  void testResourceTooShortForABlockIsEmpty() {
+    // Given: a resource of four bytes
+
+    // When: the resource is decoded
+    PEVersionInfo info = new PEVersionInfo(buffer(new byte[] {8, 0, 0, 0}));
+
+    // Then: nothing is decoded
+    assertThat(info.getFixedFileVersion()).isNull();
+    assertThat(info.getStringTables()).isEmpty();
+    assertThat(info.getTranslations()).isEmpty();
+  }
+
+  /**
+   * Test method for {@link PEVersionInfo#PEVersionInfo(ByteOrderBuffer)}.
+   */
+  @Test
+  void testTableKeyIsLowerCasedWithoutTheDefaultLocale() {
+    // Given: a string table key with a capital I, and a Turkish default locale
+    Locale locale = Locale.getDefault();
+    byte[] resource = versionInfo(fixedInfo(SIGNATURE), block("StringFileInfo", TEXT, 0,
+        new byte[0], block("I40904B0", TEXT, 0, new byte[0], string("FileVersion", "1.0"))));
+    PEVersionInfo info;
+
+    // When: the resource is decoded
+    try {
+      Locale.setDefault(Locale.forLanguageTag("tr-TR"));
+      info = new PEVersionInfo(buffer(resource));
+    }
+    finally {
+      Locale.setDefault(locale);
+    }
+
+    // Then: the key is lower-cased as ASCII, not to a dotless i
+    assertThat(info.getStringTables()).containsOnlyKeys("i40904b0");
+  }
+
+  /**
+   * @param fixedInfo
+   * @param children
+   * @return A VS_VERSIONINFO block.
+   */
+  private static byte[] versionInfo(byte[] fixedInfo, byte[]... children) {
+    return block("VS_VERSION_INFO", BINARY, fixedInfo.length, fixedInfo, children);
+  }
+
+  /**
+   * @param signature
+   * @return A VS_FIXEDFILEINFO with file version 1.2.3.4, product version 5.6.7.8 and file type 2.
+   */
+  private static byte[] fixedInfo(int signature) {
+    ByteBuffer info = ByteBuffer.allocate(FIXED_INFO_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+    info.putInt(0, signature);
+    info.putInt(8, 0x00010002).putInt(12, 0x00030004);
+    info.putInt(16, 0x00050006).putInt(20, 0x00070008);
+    info.putInt(36, 2);
+
+    return info.array();
+  }
+
+  /**
+   * @param key
+   * @param value
+   * @return A String block, whose value length counts characters.
+   */
+  private static byte[] string(String key, String value) {
+    byte[] text = text(value);
+    return block(key, TEXT, text.length / Character.BYTES, text);
+  }
+
+  /**
+   * Build a block: the header, the key, the value and the children, each starting on a 32-bit
+   * boundary.
+   *
+   * @param key
+   * @param type
+   * @param valueLength
+   * @param value
+   * @param children
+   * @return The block, whose length does not include the padding after it.
+   */
+  private static byte[] block(String key, int type, int valueLength, byte[] value,
+      byte[]... children) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    out.writeBytes(new byte[6]);
+    out.writeBytes(text(key));
+    pad(out);
+    out.writeBytes(value);
+
+    for(byte[] child : children) {
+      pad(out);
+      out.writeBytes(child);
+    }
+
+    byte[] block = out.toByteArray();
+    ByteBuffer.wrap(block).order(ByteOrder.LITTLE_ENDIAN).putShort(0, (short)block.length)
+        .putShort(2, (short)valueLength).putShort(4, (short)type);
+
+    return block;
+  }
+
+  /**
+   * @param out
+   */
+  private static void pad(ByteArrayOutputStream out) {
+    while(out.size() % 4 != 0) {
+      out.write(0);
+    }
+  }
+
+  /**
+   * @param text
+   * @return The null-terminated UTF-16LE text.
+   */
+  private static byte[] text(String text) {
+    return (text + "\0").getBytes(StandardCharsets.UTF_16LE);
+  }
+
+  /**
+   * @param bytes
+   * @return A little-endian buffer over the bytes.
+   */
+  private static ByteOrderBuffer buffer(byte[] bytes) {
+    return new ByteOrderBuffer(bytes, ByteOrder.LITTLE_ENDIAN);
+  }
+}
@@ -0,0 +1,174 @@
+// Copyright (c) 2023 Goosebump Designs LLC
+
+package com.goosebumpdesigns.pe.builder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import com.goosebumpdesigns.pe.PEFile;
+import com.goosebumpdesigns.pe.exception.PEFileException;
+import com.goosebumpdesigns.pe.file.AsyncFileSource;
+import com.goosebumpdesigns.pe.file.AsyncFileSource.RegionNotLoadedException;
+import com.goosebumpdesigns.pe.file.TestImageBuilder;
+
+/**
+ * This class tests parsing files without blocking with {@link AsyncPEFileLoader}.
+ */
+class AsyncPEFileLoaderTest {
+  @TempDir
+  Path directory;
+
+  private final CountingExecutor executor = new CountingExecutor();
+
+  /**
+   * This runs the reads of the channel on a pool and counts them.
+   */
+  private static class CountingExecutor extends AbstractExecutorService {
+    final ExecutorService pool = Executors.newFixedThreadPool(2);
+    final AtomicInteger tasks = new AtomicInteger();
+
+    @Override
+    public void execute(Runnable command) {
+      tasks.incrementAndGet();
+      pool.execute(command);
+    }
+
+    @Override
+    public void shutdown() {
+      pool.shutdown();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+      return pool.shutdownNow();
+    }
+
+    @Override
+    public boolean isShutdown() {
+      return pool.isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated() {
+      return pool.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+      return pool.awaitTermination(timeout, unit);
+    }
+  }
+
+  /**
+   * Stop the pool.
+   */
+  @AfterEach
+  void shutdown() {
+    executor.shutdownNow();
+  }
+
+  /**
+   * Test method for {@link AsyncPEFileLoader#load(Path, ParseOptions, ExecutorService)}.
+   *
+   * @throws Exception if the parse fails.
+   */
+  @Test
+  void testLoadReturnsTheSameFileAsBuild() throws Exception {
+    // Given: a file with exports, imports and delay-load imports past the first block
+    // @formatter:off
+    Path path = TestImageBuilder.pe32Plus().pad(0x2000)
+        .exports("test.dll", 1).export("Alpha").export("Beta", "KERNEL32.Sleep")
+        .importLibrary("KERNEL32.dll", "Sleep", "GetTickCount")
+        .importLibrary("WS2_32.dll", 3, "WSAStartup")
+        .delayImportLibrary("SHELL32.dll", "ShellExecuteW")
+        .write(directory, "test.dll");
+    // @formatter:on
+
+    // When: the file is parsed without blocking
+    PEFile file =
+        AsyncPEFileLoader.load(path, ParseOptions.ALL, executor).get(10, TimeUnit.SECONDS);
+
+    // Then: the parse was restarted after each read, and the result is what build returns
+    assertThat(executor.tasks.get()).isGreaterThan(2);
+    assertThat(file).isEqualTo(PEFileBuilder.build(path));
+    assertThat(file.getImports().getLibraries()).hasSize(2);
+  }
+
+  /**
+   * Test method for {@link AsyncPEFileLoader#load(Path, ParseOptions, ExecutorService)}.
+   */
+  @Test
+  void testLoadFailsForATruncatedFile() {
+    // Given: a file whose import lookup table runs past the end of the file
+    Path path = TestImageBuilder.pe32().importLibrary("KERNEL32.dll", "Sleep")
+        .unterminatedLookupTable().write(directory, "test.dll");
+
+    // When: the file is parsed without blocking
+    // Then: the future fails with the parse error
+    assertThatThrownBy(
+        () -> AsyncPEFileLoader.load(path, ParseOptions.ALL, executor).get(10, TimeUnit.SECONDS))
+            .isInstanceOf(ExecutionException.class).hasCauseInstanceOf(PEFileException.class);
+  }
+
+  /**
+   * Test method for {@link AsyncPEFileLoader#load(Path, ParseOptions, ExecutorService)}.
+   */
+  @Test
+  void testLoadFailsForAMissingFile() {
+    // Given: a path with no file
+    Path path = directory.resolve("missing.dll");
+
+    // When: the file is parsed without blocking
+    // Then: the future fails without a read
+    assertThatThrownBy(
+        () -> AsyncPEFileLoader.load(path, ParseOptions.ALL, executor).get(10, TimeUnit.SECONDS))
+            .hasCauseInstanceOf(PEFileException.class);
+  }
+
+  /**
+   * Test method for {@link AsyncFileSource#read(long, byte[], int, int)} and
+   * {@link AsyncFileSource#load(long, long)}.
+   *
+   * @throws Exception if the file cannot be read.
+   */
+  @Test
+  void testReadOfARangeThatIsNotLoadedAsksForTheRange() throws Exception {
+    // Given: a source over a file, with nothing loaded
+    Path path = TestImageBuilder.pe32().write(directory, "test.dll");
+
+    try(AsynchronousFileChannel channel = AsynchronousFileChannel.open(path)) {
+      AsyncFileSource source = new AsyncFileSource(channel, path);
+      byte[] buffer = new byte[8];
+
+      // When: a range is read before and after it is loaded
+      // Then: the first read names the missing range, and the second read succeeds
+      assertThatThrownBy(() -> source.read(0, buffer, 0, 2))
+          .isInstanceOfSatisfying(RegionNotLoadedException.class, e -> {
+            assertThat(e.getOffset()).isZero();
+            assertThat(e.getLength()).isEqualTo(2);
+          });
+
+      source.load(0, 64).get(10, TimeUnit.SECONDS);
+      source.read(0, buffer, 0, 2);
+
+      assertThat(new String(buffer, 0, 2, StandardCharsets.US_ASCII)).isEqualTo("MZ");
+      assertThatThrownBy(() -> source.read(60, buffer, 0, 8))
+          .isInstanceOfSatisfying(RegionNotLoadedException.class,
+              e -> assertThat(e.getOffset()).isEqualTo(64));
+      assertThatThrownBy(() -> source.load(source.length(), 16).get(10, TimeUnit.SECONDS))
+          .isInstanceOf(ExecutionException.class);
+    }
+  }
+}
@@ -0,0 +1,256 @@
+// Copyright (c) 2023 Goosebump Designs LLC
+
+package com.goosebumpdesigns.pe.builder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntSupplier;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import com.goosebumpdesigns.pe.file.TestImageBuilder;
+
+/**
+ * This class tests the demand, completion and cancellation of the publisher created by
+ * {@link PEFileBuilder#publish(Stream, ScanOptions)}.
+ */
+class PEFilePublisherTest {
+  private static final int FILES = 100;
+  private static final long TIMEOUT_MILLIS = 10_000;
+
+  @TempDir
+  Path directory;
+
+  private Path image;
+  private final AtomicInteger taken = new AtomicInteger();
+  private final AtomicBoolean closed = new AtomicBoolean();
+
+  /**
+   * This records the signals that it receives.
+   */
+  private static class RecordingSubscriber implements Flow.Subscriber<ScanResult> {
+    final List<ScanResult> results = new CopyOnWriteArrayList<>();
+    final AtomicInteger completions = new AtomicInteger();
+    final CompletableFuture<Void> terminated = new CompletableFuture<>();
+    final long initialRequest;
+    volatile Flow.Subscription subscription;
+
+    /**
+     * @param initialRequest The number of results requested when the subscription arrives.
+     */
+    RecordingSubscriber(long initialRequest) {
+      this.initialRequest = initialRequest;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+      this.subscription = subscription;
+
+      if(initialRequest != 0) {
+        subscription.request(initialRequest);
+      }
+    }
+
+    @Override
+    public void onNext(ScanResult item) {
+      results.add(item);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+      terminated.completeExceptionally(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+      completions.incrementAndGet();
+      terminated.complete(null);
+    }
+  }
+
+  /**
+   * Write one image. The stream of paths names it {@value #FILES} times.
+   */
+  @BeforeEach
+  void init() {
+    image = TestImageBuilder.pe32().exports("test.dll", 1).export("Alpha")
+        .write(directory, "test.dll");
+  }
+
+  /**
+   * Test method for {@link PEFilePublisher#subscribe(Flow.Subscriber)}.
+   *
+   * @param prefetch The number of results parsed ahead of demand.
+   * @throws Exception if the publisher fails.
+   */
+  @ParameterizedTest
+  @ValueSource(ints = {0, 8, 32})
+  void testParsesAreBoundedByDemandAndPrefetch(int prefetch) throws Exception {
+    // Given: a subscriber that requests one result
+    ScanOptions options = ScanOptions.builder().parallelism(2).prefetch(prefetch).build();
+    RecordingSubscriber subscriber = new RecordingSubscriber(1);
+
+    // When: the results are published
+    PEFileBuilder.publish(paths(), options).subscribe(subscriber);
+
+    // Then: one result is delivered and no more than the prefetch is parsed ahead
+    awaitValue(() -> subscriber.results.size(), 1);
+    awaitValue(taken::get, 1 + prefetch);
+    Thread.sleep(100);
+    assertThat(taken.get()).isEqualTo(1 + prefetch);
+    assertThat(subscriber.results).hasSize(1);
+
+    // And: the rest of the stream is published when it is requested
+    subscriber.subscription.request(Long.MAX_VALUE);
+    subscriber.terminated.get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+
+    assertThat(subscriber.results).hasSize(FILES).allMatch(ScanResult::isSuccess);
+    assertThat(closed).isTrue();
+  }
+
+  /**
+   * Test method for {@link PEFilePublisher#subscribe(Flow.Subscriber)}.
+   *
+   * @throws Exception if the publisher fails.
+   */
+  @Test
+  void testCompletesOnce() throws Exception {
+    // Given: a subscriber that requests results a few at a time
+    RecordingSubscriber subscriber = new RecordingSubscriber(3) {
+      @Override
+      public void onNext(ScanResult item) {
+        super.onNext(item);
+
+        if(results.size() % 3 == 0) {
+          subscription.request(3);
+        }
+      }
+    };
+
+    // When: the results are published
+    PEFileBuilder.publish(paths(), ScanOptions.builder().parallelism(4).prefetch(8).build())
+        .subscribe(subscriber);
+
+    // Then: every result is delivered, followed by a single completion
+    subscriber.terminated.get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+    Thread.sleep(100);
+
+    assertThat(subscriber.results).hasSize(FILES);
+    assertThat(subscriber.completions).hasValue(1);
+    assertThat(closed).isTrue();
+  }
+
+  /**
+   * Test method for {@link Flow.Subscription#cancel()}.
+   *
+   * @throws Exception if the test is interrupted.
+   */
+  @Test
+  void testCancelStopsDelivery() throws Exception {
+    // Given: a subscriber that cancels after five results
+    RecordingSubscriber subscriber = new RecordingSubscriber(Long.MAX_VALUE) {
+      @Override
+      public void onNext(ScanResult item) {
+        super.onNext(item);
+
+        if(results.size() == 5) {
+          subscription.cancel();
+        }
+      }
+    };
+
+    // When: the results are published
+    PEFileBuilder.publish(paths(), ScanOptions.builder().parallelism(2).prefetch(4).build())
+        .subscribe(subscriber);
+
+    // Then: nothing is delivered after the cancel, and the stream is closed without a completion
+    awaitValue(() -> closed.get() ? 1 : 0, 1);
+    Thread.sleep(100);
+
+    assertThat(subscriber.results).hasSize(5);
+    assertThat(subscriber.completions).hasValue(0);
+    assertThat(subscriber.terminated).isNotDone();
+    assertThat(taken.get()).isLessThan(FILES);
+  }
+
+  /**
+   * Test method for {@link Flow.Subscription#request(long)}.
+   */
+  @Test
+  void testRequestOfZeroFailsTheSubscription() {
+    // Given: a subscriber that has not requested anything
+    RecordingSubscriber subscriber = new RecordingSubscriber(0);
+
+    PEFileBuilder.publish(paths()).subscribe(subscriber);
+
+    // When: the subscriber requests zero results
+    subscriber.subscription.request(0);
+
+    // Then: the subscription fails without parsing anything
+    assertThat(subscriber.terminated).isCompletedExceptionally();
+    assertThatThrownBy(subscriber.terminated::join)
+        .hasCauseInstanceOf(IllegalArgumentException.class);
+    assertThat(subscriber.results).isEmpty();
+    assertThat(taken).hasValue(0);
+    assertThat(closed).isTrue();
+  }
+
+  /**
+   * Test method for {@link PEFilePublisher#subscribe(Flow.Subscriber)}.
+   */
+  @Test
+  void testSecondSubscriberIsRejected() {
+    // Given: a publisher with a subscriber
+    Flow.Publisher<ScanResult> publisher = PEFileBuilder.publish(paths());
+    RecordingSubscriber first = new RecordingSubscriber(0);
+    RecordingSubscriber second = new RecordingSubscriber(0);
+
+    publisher.subscribe(first);
+
+    // When: a second subscriber subscribes
+    publisher.subscribe(second);
+
+    // Then: it is sent an error, and the first subscription is not affected
+    assertThatThrownBy(second.terminated::join).hasCauseInstanceOf(IllegalStateException.class);
+    assertThat(first.terminated).isNotDone();
+    first.subscription.cancel();
+  }
+
+  /**
+   * @return A stream that names the image {@value #FILES} times, and counts the paths taken from it
+   *         and whether it has been closed.
+   */
+  private Stream<Path> paths() {
+    return IntStream.range(0, FILES).mapToObj(n -> image).peek(path -> taken.incrementAndGet())
+        .onClose(() -> closed.set(true));
+  }
+
+  /**
+   * Wait until a value reaches the expected value.
+   *
+   * @param value Supplies the value.
+   * @param expected The expected value.
+   * @throws InterruptedException if the wait is interrupted.
+   */
+  private static void awaitValue(IntSupplier value, int expected) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+
+    while(value.getAsInt() < expected && System.currentTimeMillis() < deadline) {
+      Thread.sleep(5);
+    }
+
+    assertThat(value.getAsInt()).isEqualTo(expected);
+  }
+}
@@ -0,0 +1,248 @@
+// Copyright (c) 2023 Goosebump Designs LLC
+
+package com.goosebumpdesigns.pe.builder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import java.io.IOException;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import com.goosebumpdesigns.pe.PEFile;
+import com.goosebumpdesigns.pe.exception.PEException;
+import com.goosebumpdesigns.pe.exception.PEFileException;
+import com.goosebumpdesigns.pe.file.TestImageBuilder;
+
+/**
+ * This class tests the directory walk of {@link PEFileScanner}, which is used by
+ * {@link PEFileBuilder#scan(Path, ScanOptions, java.util.function.Consumer)}: the results reported
+ * for good and bad files, the handling of a failed consumer, and the limits on the parses in flight
+ * and the files open.
+ */
+class PEFileScannerTest {
+  private static final int FILES = 40;
+
+  /** The offset of the Win32VersionValue field, which must be zero, in a test image. */
+  private static final int WIN32_VERSION_OFFSET = 0x80 + 24 + 52;
+
+  @TempDir
+  Path directory;
+
+  private final ExecutorService pool = Executors.newFixedThreadPool(8);
+
+  /**
+   * Shut down the executor used by the tests.
+   */
+  @AfterEach
+  void shutdown() {
+    pool.shutdownNow();
+  }
+
+  /**
+   * This executor runs tasks on a pool and counts the tasks that have been submitted and whose
+   * results have not been delivered. Each task holds an in-flight permit until after its result
+   * has been delivered, so this count never exceeds the number of permits held.
+   */
+  private class RecordingExecutor implements Executor {
+    final AtomicInteger submitted = new AtomicInteger();
+    final AtomicInteger delivered = new AtomicInteger();
+    final AtomicInteger maxPending = new AtomicInteger();
+
+    @Override
+    public void execute(Runnable task) {
+      maxPending.accumulateAndGet(submitted.incrementAndGet() - delivered.get(), Math::max);
+      pool.execute(task);
+    }
+  }
+
+  /**
+   * Test method for {@link PEFileBuilder#scan(Path, ScanOptions, java.util.function.Consumer)}.
+   *
+   * @throws IOException if the files cannot be written.
+   */
+  @Test
+  void testGoodAndBadFilesAreReportedPerFile() throws IOException {
+    // Given: a tree with good files, a file that is not a PE file and a file that fails with an
+    // exception that is not a PEException
+    Path nested = Files.createDirectories(directory.resolve("a/b"));
+    byte[] image = TestImageBuilder.pe32().exports("test.dll", 1).export("Alpha").build();
+    byte[] bad = image.clone();
+
+    bad[WIN32_VERSION_OFFSET] = 1;
+    Files.write(directory.resolve("one.dll"), image);
+    Files.write(nested.resolve("two.dll"), image);
+    Files.write(nested.resolve("corrupt.dll"), new byte[] {'M', 'Z', 1, 2, 3});
+    Files.write(directory.resolve("a/version.dll"), bad);
+
+    List<ScanResult> results = new CopyOnWriteArrayList<>();
+
+    // When: the tree is scanned
+    PEFileBuilder.scan(directory, ScanOptions.builder().parallelism(2).build(), results::add);
+
+    // Then: each file has a result, and the unexpected exception is wrapped without stopping the
+    // scan
+    Map<String, ScanResult> byName = results.stream()
+        .collect(Collectors.toMap(result -> result.getPath().getFileName().toString(),
+            Function.identity()));
+
+    assertThat(byName).containsOnlyKeys("one.dll", "two.dll", "corrupt.dll", "version.dll");
+    assertThat(byName.get("one.dll").getFile()).isEqualTo(PEFileBuilder.build(image));
+    assertThat(byName.get("two.dll").isSuccess()).isTrue();
+    assertThat(byName.get("corrupt.dll").getError()).isInstanceOf(PEException.class);
+    assertThat(byName.get("version.dll").getError()).isInstanceOf(PEFileException.class)
+        .hasMessageStartingWith("Unable to parse").cause()
+        .isInstanceOf(IllegalStateException.class);
+  }
+
+  /**
+   * Test method for {@link PEFileBuilder#scan(Path, ScanOptions, java.util.function.Consumer)}.
+   */
+  @Test
+  void testMissingRootIsReported() {
+    // Given: a root that does not exist
+    Path root = directory.resolve("missing");
+    List<ScanResult> results = new CopyOnWriteArrayList<>();
+
+    // When: the root is scanned
+    PEFileBuilder.scan(root, results::add);
+
+    // Then: its failure is the only result
+    assertThat(results).singleElement().satisfies(result -> {
+      assertThat(result.getPath()).isEqualTo(root);
+      assertThat(result.getError()).isInstanceOf(PEFileException.class)
+          .hasMessage("Unable to read " + root);
+    });
+  }
+
+  /**
+   * Test method for {@link PEFileScanner.Visitor#visitFileFailed(Path, IOException)} and
+   * {@link PEFileScanner.Visitor#postVisitDirectory(Path, IOException)}.
+   */
+  @Test
+  void testUnreadableEntriesAreReported() {
+    // Given: the visitor of a scan
+    List<ScanResult> results = new CopyOnWriteArrayList<>();
+    PEFileScanner.Visitor visitor =
+        new PEFileScanner(ScanOptions.DEFAULTS, results::add).new Visitor(Runnable::run);
+    Path file = directory.resolve("secret.dll");
+    IOException denied = new AccessDeniedException(file.toString());
+    IOException listing = new IOException("Unable to list");
+
+    // When: a file cannot be read, a directory fails part way and a directory succeeds
+    FileVisitResult afterFile = visitor.visitFileFailed(file, denied);
+    FileVisitResult afterFailed = visitor.postVisitDirectory(directory, listing);
+    FileVisitResult afterGood = visitor.postVisitDirectory(directory, null);
+
+    // Then: each failure is reported and the walk continues
+    assertThat(afterFile).isEqualTo(FileVisitResult.CONTINUE);
+    assertThat(afterFailed).isEqualTo(FileVisitResult.CONTINUE);
+    assertThat(afterGood).isEqualTo(FileVisitResult.CONTINUE);
+    assertThat(results).hasSize(2);
+    assertThat(results.get(0).getPath()).isEqualTo(file);
+    assertThat(results.get(0).getError()).hasCause(denied);
+    assertThat(results.get(1).getPath()).isEqualTo(directory);
+    assertThat(results.get(1).getError()).hasCause(listing);
+  }
+
+  /**
+   * Test method for {@link PEFileBuilder#scan(Path, ScanOptions, java.util.function.Consumer)}.
+   *
+   * @throws IOException if the files cannot be written.
+   */
+  @Test
+  void testFailedConsumerStopsTheWalk() throws IOException {
+    // Given: a tree of files and a consumer that fails on the first result
+    writeFiles();
+
+    AtomicInteger calls = new AtomicInteger();
+    AtomicInteger parsed = new AtomicInteger();
+    RuntimeException failure = new IllegalStateException("Consumer failed");
+    ScanOptions options = ScanOptions.builder().executor(task -> {
+      parsed.incrementAndGet();
+      task.run();
+    }).build();
+
+    // When: the tree is scanned with the parses run on the walking thread
+    // Then: the consumer's exception is rethrown, and no file is parsed after it fails
+    assertThatThrownBy(() -> PEFileBuilder.scan(directory, options, result -> {
+      calls.incrementAndGet();
+      throw failure;
+    })).isSameAs(failure);
+    assertThat(calls).hasValue(1);
+    assertThat(parsed).hasValue(1);
+  }
+
+  /**
+   * Test method for {@link PEFileScanner#scan(Path)}.
+   *
+   * @throws IOException if the files cannot be written.
+   */
+  @Test
+  void testParsesInFlightAndOpenFilesAreLimited() throws IOException {
+    // Given: a tree of files, an executor with more threads than the limits, and a slow parser
+    writeFiles();
+
+    RecordingExecutor executor = new RecordingExecutor();
+    AtomicInteger open = new AtomicInteger();
+    AtomicInteger maxOpen = new AtomicInteger();
+    ScanOptions options =
+        ScanOptions.builder().executor(executor).maxInFlight(4).maxOpenFiles(2).build();
+    Function<Path, PEFile> parser = file -> {
+      maxOpen.accumulateAndGet(open.incrementAndGet(), Math::max);
+
+      try {
+        Thread.sleep(5);
+        return PEFileBuilder.build(file);
+      }
+      catch(InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException(e);
+      }
+      finally {
+        open.decrementAndGet();
+      }
+    };
+
+    List<ScanResult> results = new CopyOnWriteArrayList<>();
+
+    // When: the tree is scanned
+    new PEFileScanner(options, result -> {
+      results.add(result);
+      executor.delivered.incrementAndGet();
+    }, parser).scan(directory);
+
+    // Then: the limits are reached and never exceeded, and every result is delivered before the
+    // scan returns
+    assertThat(executor.maxPending).hasValue(4);
+    assertThat(maxOpen).hasValue(2);
+    assertThat(executor.submitted).hasValue(FILES);
+    assertThat(executor.delivered).hasValue(FILES);
+    assertThat(results).hasSize(FILES).allMatch(ScanResult::isSuccess);
+  }
+
+  /**
+   * Write {@value #FILES} images into the temporary directory.
+   *
+   * @throws IOException if the files cannot be written.
+   */
+  private void writeFiles() throws IOException {
+    byte[] image = TestImageBuilder.pe32().importLibrary("KERNEL32.dll", "Sleep").build();
+
+    for(int pos = 0; pos < FILES; pos++) {
+      Files.write(directory.resolve("file" + pos + ".dll"), image);
+    }
+  }
+}
@@ -0,0 +1,318 @@
+// Copyright (c) 2023 Goosebump Designs LLC
+
+package com.goosebumpdesigns.pe.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import com.goosebumpdesigns.pe.PEFile;
+import com.goosebumpdesigns.pe.builder.PEFileBuilder;
+import com.goosebumpdesigns.pe.builder.ParseOptions;
+import com.goosebumpdesigns.pe.exception.PEException;
+import com.goosebumpdesigns.pe.exception.PEFileException;
+import com.goosebumpdesigns.pe.file.TestImageBuilder;
+
+/**
+ * This class tests the lookups, eviction, single-flight parsing and counters of
+ * {@link PEFileCache}.
+ */
+class PEFileCacheTest {
+  private static final int RT_RCDATA = 10;
+  private static final int THREADS = 8;
+  private static final long TIMEOUT_MILLIS = 10_000;
+
+  @TempDir
+  Path directory;
+
+  private final ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+
+  /**
+   * Shut down the threads used by the tests.
+   */
+  @AfterEach
+  void shutdown() {
+    pool.shutdownNow();
+  }
+
+  /**
+   * Test method for {@link PEFileCache#get(byte[])}.
+   */
+  @Test
+  void testRepeatedRequestIsAHit() {
+    // Given: a cache and an image
+    PEFileCache cache = PEFileCache.builder().build();
+    byte[] image = TestImageBuilder.pe32().exports("test.dll", 1).export("Alpha").build();
+
+    // When: the image is requested twice
+    PEFile first = cache.get(image);
+    PEFile second = cache.get(image.clone());
+
+    // Then: the second request returns the cached file
+    assertThat(second).isSameAs(first);
+    assertThat(cache.stats().getMisses()).isEqualTo(1);
+    assertThat(cache.stats().getHits()).isEqualTo(1);
+  }
+
+  /**
+   * Test method for {@link PEFileCache#get(byte[])}.
+   */
+  @Test
+  void testFailedParseIsNotCachedOrCountedAsAHit() {
+    // Given: a cache and an image that is not a PE file
+    PEFileCache cache = PEFileCache.builder().build();
+    byte[] image = new byte[256];
+
+    // When: the image is requested twice
+    // Then: both requests fail and are counted as misses
+    assertThatThrownBy(() -> cache.get(image)).isInstanceOf(PEException.class);
+    assertThatThrownBy(() -> cache.get(image)).isInstanceOf(PEException.class);
+    assertThat(cache.stats().getMisses()).isEqualTo(2);
+    assertThat(cache.stats().getHits()).isZero();
+    assertThat(cache.stats().getEntries()).isZero();
+  }
+
+  /**
+   * Test method for {@link PEFileCache#get(byte[])}.
+   */
+  @Test
+  void testCachedFileDoesNotReadTheCallersArray() {
+    // Given: a cache and an image with a resource
+    PEFileCache cache = PEFileCache.builder().build();
+    byte[] image = TestImageBuilder.pe32()
+        .resource(RT_RCDATA, 1, 0x409, "data".getBytes(StandardCharsets.US_ASCII)).build();
+
+    // When: the image is cached and the caller reuses the array
+    PEFile file = cache.get(image);
+    Arrays.fill(image, (byte)0);
+
+    // Then: the resource still reads the original data
+    ByteBuffer data = file.getResources().find(RT_RCDATA, 1).getData();
+    assertThat(StandardCharsets.US_ASCII.decode(data).toString()).isEqualTo("data");
+  }
+
+  /**
+   * Test method for {@link PEFileCache#PEFileCache(Integer, Long, boolean,
+   * com.goosebumpdesigns.pe.file.ReadMode, ParseOptions)}.
+   */
+  @Test
+  void testLazyParseOptionsAreRejected() {
+    // Given: lazy parse options
+
+    // When: a cache is built with them
+    // Then: it fails
+    assertThatThrownBy(() -> PEFileCache.builder().parseOptions(ParseOptions.LAZY).build())
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  /**
+   * Test method for {@link PEFileCache#get(byte[])}.
+   */
+  @Test
+  void testLeastRecentlyUsedFileIsEvictedAtTheEntryLimit() {
+    // Given: a cache of two files that holds images A and B, with A used last
+    PEFileCache cache = PEFileCache.builder().maxEntries(2).build();
+    byte[] a = image("A");
+    byte[] b = image("B");
+    PEFile fileA = cache.get(a);
+
+    cache.get(b);
+    cache.get(a);
+
+    // When: image C is added
+    cache.get(image("C"));
+
+    // Then: B is evicted and A is still cached
+    assertThat(cache.stats().getEvictions()).isEqualTo(1);
+    assertThat(cache.stats().getEntries()).isEqualTo(2);
+    assertThat(cache.get(a)).isSameAs(fileA);
+    assertThat(cache.stats().getMisses()).isEqualTo(3);
+    cache.get(b);
+    assertThat(cache.stats().getMisses()).isEqualTo(4);
+  }
+
+  /**
+   * Test method for {@link PEFileCache#get(byte[])}.
+   */
+  @Test
+  void testLeastRecentlyUsedFileIsEvictedAtTheSizeLimit() {
+    // Given: a cache with room for the estimated size of two files, holding A and B with A used
+    // last
+    long size = SizeEstimator.estimate(PEFileBuilder.build(image("A")));
+    PEFileCache cache = PEFileCache.builder().maxRetainedBytes(2 * size).build();
+    byte[] a = image("A");
+    byte[] b = image("B");
+
+    cache.get(a);
+    cache.get(b);
+    cache.get(a);
+
+    // When: image C is added
+    cache.get(image("C"));
+
+    // Then: B is evicted to keep the retained size within the limit
+    assertThat(cache.stats().getRetainedBytes()).isEqualTo(2 * size);
+    assertThat(cache.stats().getEvictions()).isEqualTo(1);
+    cache.get(a);
+    assertThat(cache.stats().getMisses()).isEqualTo(3);
+  }
+
+  /**
+   * Test method for {@link PEFileCache#get(Path)}.
+   *
+   * @throws Exception if the files cannot be written.
+   */
+  @Test
+  void testFileIsLookedUpByIdentity() throws Exception {
+    // Given: a cache, a file and a hard link to the file
+    PEFileCache cache = PEFileCache.builder().build();
+    Path path = Files.write(directory.resolve("test.dll"), image("A"));
+    Path link = Files.createLink(directory.resolve("link.dll"), path);
+
+    // When: the file is requested by both names, and again after it is modified
+    PEFile first = cache.get(path);
+    PEFile linked = cache.get(link);
+
+    Files.setLastModifiedTime(path, FileTime.fromMillis(0));
+
+    PEFile modified = cache.get(path);
+
+    // Then: both names are the same file, and the modified file is parsed again
+    assertThat(linked).isSameAs(first);
+    assertThat(modified).isNotSameAs(first).isEqualTo(first);
+    assertThat(cache.stats().getHits()).isEqualTo(1);
+    assertThat(cache.stats().getMisses()).isEqualTo(2);
+  }
+
+  /**
+   * Test method for {@link PEFileCache#get(Object, Supplier)}.
+   *
+   * @throws Exception if a thread fails.
+   */
+  @Test
+  void testConcurrentRequestsShareOneParse() throws Exception {
+    // Given: a cache and a parse that waits until it is released
+    PEFileCache cache = PEFileCache.builder().build();
+    PEFile file = PEFileBuilder.build(image("A"));
+    CompletableFuture<PEFile> release = new CompletableFuture<>();
+    AtomicInteger parses = new AtomicInteger();
+
+    // When: several threads request the same key at once
+    List<Future<PEFile>> results = requestConcurrently(cache, () -> {
+      parses.incrementAndGet();
+      return release.join();
+    });
+
+    release.complete(file);
+
+    // Then: the file is parsed once, and every thread receives it
+    for(Future<PEFile> result : results) {
+      assertThat(result.get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)).isSameAs(file);
+    }
+
+    assertThat(parses).hasValue(1);
+    assertThat(cache.stats().getMisses()).isEqualTo(1);
+    assertThat(cache.stats().getHits()).isEqualTo(THREADS - 1);
+  }
+
+  /**
+   * Test method for {@link PEFileCache#get(Object, Supplier)}.
+   *
+   * @throws Exception if the test is interrupted.
+   */
+  @Test
+  void testFailedParseReachesEveryWaiter() throws Exception {
+    // Given: a cache and a parse that fails when it is released
+    PEFileCache cache = PEFileCache.builder().build();
+    PEFileException failure = new PEFileException("Parse failed");
+    CountDownLatch release = new CountDownLatch(1);
+    AtomicInteger parses = new AtomicInteger();
+
+    // When: several threads request the same key at once
+    List<Future<PEFile>> results = requestConcurrently(cache, () -> {
+      parses.incrementAndGet();
+      await(release);
+      throw failure;
+    });
+
+    release.countDown();
+
+    // Then: the file is parsed once, and every thread receives the failure
+    for(Future<PEFile> result : results) {
+      assertThatThrownBy(() -> result.get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS))
+          .hasCause(failure);
+    }
+
+    assertThat(parses).hasValue(1);
+    assertThat(cache.stats().getMisses()).isEqualTo(THREADS);
+    assertThat(cache.stats().getHits()).isZero();
+    assertThat(cache.stats().getEntries()).isZero();
+  }
+
+  /**
+   * Request one key from {@value #THREADS} threads and return once every thread has made its
+   * request and is either parsing or waiting for the parse.
+   *
+   * @param cache
+   * @param parser
+   * @return The results of the requests.
+   * @throws InterruptedException if the wait is interrupted.
+   */
+  private List<Future<PEFile>> requestConcurrently(PEFileCache cache, Supplier<PEFile> parser)
+      throws InterruptedException {
+    CountDownLatch started = new CountDownLatch(THREADS);
+    List<Future<PEFile>> results = new ArrayList<>();
+
+    for(int pos = 0; pos < THREADS; pos++) {
+      results.add(pool.submit(() -> {
+        started.countDown();
+        return cache.get("key", parser);
+      }));
+    }
+
+    started.await();
+
+    // A thread that has counted down is about to request the key; give it time to do so
+    Thread.sleep(200);
+
+    return results;
+  }
+
+  /**
+   * @param latch
+   */
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await();
+    }
+    catch(InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * @param exportName
+   * @return An image that exports one function with the given name.
+   */
+  private static byte[] image(String exportName) {
+    return TestImageBuilder.pe32().exports("test.dll", 1).export(exportName).build();
+  }
+}
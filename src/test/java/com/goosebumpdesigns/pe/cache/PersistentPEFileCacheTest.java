@@ -0,0 +1,185 @@
+// Copyright (c) 2023 Goosebump Designs LLC
+
+package com.goosebumpdesigns.pe.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import com.goosebumpdesigns.pe.PEFile;
+import com.goosebumpdesigns.pe.builder.PEFileBuilder;
+import com.goosebumpdesigns.pe.file.MemorySource;
+import com.goosebumpdesigns.pe.file.PEFileReader;
+import com.goosebumpdesigns.pe.file.TestImageBuilder;
+
+/**
+ * This class tests the files returned by {@link PersistentPEFileCache} and the compaction of its
+ * directory.
+ */
+class PersistentPEFileCacheTest {
+  private static final int RT_RCDATA = 10;
+
+  @TempDir
+  Path directory;
+
+  /**
+   * Test method for {@link PersistentPEFileCache#get(Path)}.
+   *
+   * @throws Exception if the files cannot be written.
+   */
+  @Test
+  void testCachedFileHasTheResourcesOfTheParsedFile() throws Exception {
+    // Given: a file with exports, imports and a resource
+    // @formatter:off
+    Path path = TestImageBuilder.pe32Plus()
+        .exports("test.dll", 1).export("Alpha")
+        .importLibrary("KERNEL32.dll", "Sleep")
+        .resource(RT_RCDATA, 1, 0x409, "data".getBytes(StandardCharsets.US_ASCII))
+        .write(directory, "test.dll");
+    // @formatter:on
+    Path cacheDirectory = Files.createDirectory(directory.resolve("cache"));
+
+    // When: the file is parsed into the cache and then read back by a new cache
+    PEFile parsed;
+    PEFile cached;
+
+    try(PersistentPEFileCache cache = new PersistentPEFileCache(cacheDirectory)) {
+      parsed = cache.get(path);
+    }
+
+    try(PersistentPEFileCache cache = new PersistentPEFileCache(cacheDirectory)) {
+      cached = cache.get(path);
+      assertThat(cache.getHits()).isEqualTo(1);
+    }
+
+    // Then: both files equal the built file, and both map the file for their resources
+    assertThat(parsed).isEqualTo(PEFileBuilder.build(path));
+    assertThat(cached).isEqualTo(parsed);
+
+    for(PEFile file : new PEFile[] {parsed, cached}) {
+      assertThat(file.isResourcesLoaded()).isFalse();
+      ByteBuffer data = file.getResources().find(RT_RCDATA, 1, 0x409).getData();
+      assertThat(StandardCharsets.US_ASCII.decode(data).toString()).isEqualTo("data");
+    }
+  }
+
+  /**
+   * Test method for {@link PersistentPEFileCache#get(Path)}.
+   *
+   * @throws Exception if the files cannot be written.
+   */
+  @Test
+  void testCachedFileWithoutResourceDirectoryHasNoResources() throws Exception {
+    // Given: a file with no resource directory
+    Path path = TestImageBuilder.pe32().importLibrary("KERNEL32.dll", "Sleep")
+        .write(directory, "test.dll");
+    Path cacheDirectory = Files.createDirectory(directory.resolve("cache"));
+
+    // When: the file is parsed into the cache and then read back
+    PEFile parsed;
+    PEFile cached;
+
+    try(PersistentPEFileCache cache = new PersistentPEFileCache(cacheDirectory)) {
+      parsed = cache.get(path);
+      cached = cache.get(path);
+    }
+
+    // Then: neither has resources, and nothing is mapped to find that out
+    assertThat(parsed.isResourcesLoaded()).isTrue();
+    assertThat(parsed.getResources()).isNull();
+    assertThat(cached.isResourcesLoaded()).isTrue();
+    assertThat(cached.getResources()).isNull();
+  }
+
+  /**
+   * Test method for {@link PEFileCodec#decode(byte[])}.
+   */
+  @Test
+  void testEncodingRecordsTheResourceDirectory() {
+    // Given: an image with a resource
+    byte[] image = TestImageBuilder.pe32()
+        .resource(RT_RCDATA, "NAMED", 0, new byte[] {1, 2, 3}).build();
+
+    // When: the raw image is encoded and decoded
+    PEFileCodec.RawImage raw;
+
+    try(PEFileReader reader = new PEFileReader(new MemorySource(image))) {
+      raw = PEFileCodec.read(reader);
+    }
+
+    PEFileCodec.RawImage decoded = PEFileCodec.decode(PEFileCodec.encode(raw));
+
+    // Then: the decoded image has a resource directory, but a file built without a path has none
+    assertThat(raw.hasResources()).isTrue();
+    assertThat(decoded.hasResources()).isTrue();
+    assertThat(PEFileCodec.toPEFile(decoded).getResources()).isNull();
+  }
+
+  /**
+   * Test method for {@link PersistentPEFileCache#PersistentPEFileCache(Path)}.
+   *
+   * @throws Exception if the files cannot be written.
+   */
+  @Test
+  void testOpenCompactsTheIndexAndDeletesUnreferencedEntries() throws Exception {
+    // Given: an index with a replaced line and an incomplete line, the entries of its hashes, an
+    // entry that no line refers to and a temporary file left by a crash
+    Path version = directory.resolve("v" + PEFileCodec.VERSION);
+    Path entries = Files.createDirectories(version.resolve("entries"));
+
+    Files.write(version.resolve("index"),
+        List.of("id1 aa01", "id2 bb02", "id1 aa03", "id3"), StandardCharsets.UTF_8);
+
+    for(String name : new String[] {"aa01.pec", "bb02.pec", "aa03.pec", "cc04.pec", "aa03.tmp"}) {
+      Files.write(Files.createDirectories(entries.resolve(name.substring(0, 2))).resolve(name),
+          new byte[] {1});
+    }
+
+    // When: the cache is opened
+    try(PersistentPEFileCache cache = new PersistentPEFileCache(directory)) {
+      // Then: the index has one line per identity, and only the entries it refers to are kept
+      assertThat(Files.readAllLines(version.resolve("index"), StandardCharsets.UTF_8))
+          .containsExactlyInAnyOrder("id1 aa03", "id2 bb02");
+
+      try(Stream<Path> files = Files.walk(entries)) {
+        assertThat(files.filter(Files::isRegularFile).map(file -> file.getFileName().toString()))
+            .containsExactlyInAnyOrder("aa03.pec", "bb02.pec");
+      }
+    }
+  }
+
+  /**
+   * Test method for {@link PersistentPEFileCache#get(Path)}.
+   *
+   * @throws Exception if the files cannot be written.
+   */
+  @Test
+  void testEntriesInTheIndexSurviveCompaction() throws Exception {
+    // Given: a cache that has stored a file
+    Path path = TestImageBuilder.pe32().exports("test.dll", 1).export("Alpha")
+        .write(directory, "test.dll");
+    Path cacheDirectory = Files.createDirectory(directory.resolve("cache"));
+    PEFile parsed;
+
+    try(PersistentPEFileCache cache = new PersistentPEFileCache(cacheDirectory)) {
+      parsed = cache.get(path);
+    }
+
+    // When: the cache is opened twice more
+    try(PersistentPEFileCache cache = new PersistentPEFileCache(cacheDirectory)) {
+      cache.get(path);
+    }
+
+    try(PersistentPEFileCache cache = new PersistentPEFileCache(cacheDirectory)) {
+      // Then: the file is still found without being parsed
+      assertThat(cache.get(path)).isEqualTo(parsed);
+      assertThat(cache.getHits()).isEqualTo(1);
+      assertThat(cache.getMisses()).isZero();
+    }
+  }
+}
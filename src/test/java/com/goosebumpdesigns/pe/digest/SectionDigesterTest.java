@@ -0,0 +1,93 @@
+// Copyright (c) 2023 Goosebump Designs LLC
+
+package com.goosebumpdesigns.pe.digest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import com.goosebumpdesigns.pe.file.TestImageBuilder;
+
+/**
+ * This class tests the section digests computed by {@link SectionDigester}.
+ */
+class SectionDigesterTest {
+  @TempDir
+  Path directory;
+
+  /**
+   * Test method for {@link SectionDigester#digest(byte[])}.
+   *
+   * @throws Exception if an algorithm is not available.
+   */
+  @Test
+  void testDigestMatchesTheSectionData() throws Exception {
+    // Given: an image with one section that runs to the end of the image
+    byte[] image = TestImageBuilder.pe32().exports("test.dll", 1).export("Alpha").build();
+    byte[] data = Arrays.copyOfRange(image, TestImageBuilder.HEADER_SIZE, image.length);
+    SectionDigester digester =
+        SectionDigester.builder().algorithm("SHA-256").algorithm("SHA-1").build();
+
+    // When: the sections are digested
+    Map<Integer, SectionDigest> digests = digester.digest(image);
+
+    // Then: each algorithm hashed the raw data of the section
+    SectionDigest digest = digests.values().iterator().next();
+
+    assertThat(digests).hasSize(1);
+    assertThat(digest.getName()).isEqualTo(".rdata");
+    assertThat(digest.getOffset()).isEqualTo(TestImageBuilder.HEADER_SIZE);
+    assertThat(digest.getSize()).isEqualTo(data.length);
+    assertThat(digest.getDigests().keySet()).containsExactly("SHA-256", "SHA-1");
+    assertThat(digest.getDigest("SHA-256"))
+        .isEqualTo(MessageDigest.getInstance("SHA-256").digest(data));
+    assertThat(digest.getHex("SHA-1"))
+        .isEqualTo(HexFormat.of().formatHex(MessageDigest.getInstance("SHA-1").digest(data)));
+    assertThat(digest.getDigest("MD5")).isNull();
+    assertThat(digest.getHex("MD5")).isNull();
+  }
+
+  /**
+   * Test method for {@link SectionDigest#equals(Object)}.
+   */
+  @Test
+  void testDigestsOfTheSameDataAreEqual() {
+    // Given: an image in memory and in a file
+    TestImageBuilder builder = TestImageBuilder.pe32Plus().importLibrary("KERNEL32.dll", "Sleep");
+    byte[] image = builder.build();
+    Path path = builder.write(directory, "test.dll");
+    SectionDigester digester = SectionDigester.builder().build();
+
+    // When: both are digested
+    Map<Integer, SectionDigest> fromMemory = digester.digest(image);
+    Map<Integer, SectionDigest> fromFile = digester.digest(path);
+
+    // Then: the digests are equal, and changing a returned array does not change the digest
+    assertThat(fromFile).isEqualTo(fromMemory);
+    assertThat(fromFile.hashCode()).isEqualTo(fromMemory.hashCode());
+
+    SectionDigest digest = fromMemory.get(fromMemory.keySet().iterator().next());
+    String hex = digest.getHex(SectionDigester.DEFAULT_ALGORITHM);
+
+    digest.getDigest(SectionDigester.DEFAULT_ALGORITHM)[0] ^= 1;
+    assertThat(digest.getHex(SectionDigester.DEFAULT_ALGORITHM)).isEqualTo(hex);
+  }
+
+  /**
+   * Test method for {@link SectionDigester#builder()}.
+   */
+  @Test
+  void testUnknownAlgorithmIsRejected() {
+    // Given: an algorithm that does not exist
+
+    // When: a digester is built with it
+    // Then: the builder fails
+    assertThatThrownBy(() -> SectionDigester.builder().algorithm("NO-SUCH-HASH").build())
+        .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("NO-SUCH-HASH");
+  }
+}
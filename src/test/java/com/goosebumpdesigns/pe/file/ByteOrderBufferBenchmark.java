@@ -0,0 +1,180 @@
+// Copyright (c) 2023 Goosebump Designs LLC
+
+package com.goosebumpdesigns.pe.file;
+
+import java.lang.management.ManagementFactory;
+import java.nio.ByteOrder;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.function.IntToLongFunction;
+
+/**
+ * This is a micro-benchmark that compares the primitive decode methods of {@link ByteOrderBuffer}
+ * with the original implementation (which copied the bytes of each value into a temporary array and
+ * assembled the value one byte at a time). It reports the time and the number of bytes allocated
+ * per operation. It is not a unit test, so it is not run by the build. Run it from the IDE or like
+ * this:
+ *
+ * <pre>
+ * mvn test-compile
+ * java -cp target/classes:target/test-classes com.goosebumpdesigns.pe.file.ByteOrderBufferBenchmark
+ * </pre>
+ */
+public class ByteOrderBufferBenchmark extends BufferSupport {
+  private static final int WARMUP_ROUNDS = 5;
+  private static final int MEASURED_ROUNDS = 5;
+  private static final int OPERATIONS = 10_000_000;
+
+  private static long sink;
+
+  /**
+   * This is the decode path as it was before the var handle rewrite. It is kept here so that the
+   * benchmark can show the before and after numbers side by side.
+   */
+  private static class LegacyDecoder {
+    private byte[] buffer;
+    private ByteOrder byteOrder;
+
+    LegacyDecoder(byte[] buffer, ByteOrder byteOrder) {
+      this.buffer = buffer;
+      this.byteOrder = byteOrder;
+    }
+
+    short getShort(int offset) {
+      byte[] buf = Arrays.copyOfRange(buffer, offset, offset + Short.BYTES);
+      short result = 0;
+
+      for(int i = 0; i < Short.BYTES; i++) {
+        int pos = byteOrder == ByteOrder.BIG_ENDIAN ? i : Short.BYTES - i - 1;
+        result = (short)((result << 8) + (short)(buf[pos] & 0xff));
+      }
+
+      return result;
+    }
+
+    int getInt(int offset) {
+      byte[] buf = Arrays.copyOfRange(buffer, offset, offset + Integer.BYTES);
+      int result = 0;
+
+      for(int i = 0; i < Integer.BYTES; i++) {
+        int pos = byteOrder == ByteOrder.BIG_ENDIAN ? i : Integer.BYTES - i - 1;
+        result = (int)((result << 8) + (buf[pos] & 0xff));
+      }
+
+      return result;
+    }
+
+    long getLong(int offset) {
+      byte[] buf = Arrays.copyOfRange(buffer, offset, offset + Long.BYTES);
+      long result = 0;
+
+      for(int i = 0; i < Long.BYTES; i++) {
+        int pos = byteOrder == ByteOrder.BIG_ENDIAN ? i : Long.BYTES - i - 1;
+        result = (long)((result << 8) + (buf[pos] & 0xff));
+      }
+
+      return result;
+    }
+
+    long getUnsignedInt(int offset) {
+      int value = getInt(offset);
+
+      if(value >= 0) {
+        return value;
+      }
+
+      long lo1 = ((value >>> 24) & (long)0xff) << 24;
+      long lo2 = ((value >>> 16) & (long)0xff) << 16;
+      long lo3 = ((value >>> 8) & (long)0xff) << 8;
+      long lo4 = value & (long)0xff;
+
+      return lo1 + lo2 + lo3 + lo4;
+    }
+
+    LocalDateTime getTimestamp(int offset) {
+      long seconds = getUnsignedInt(offset);
+      return Instant.ofEpochMilli(seconds * 1000).atZone(ZoneId.of("UTC")).toLocalDateTime();
+    }
+  }
+
+  /**
+   * Run the benchmark and print the results.
+   *
+   * @param args Unused.
+   */
+  public static void main(String[] args) {
+    new ByteOrderBufferBenchmark().run();
+  }
+
+  /**
+   * Run each operation against the legacy decoder and the current buffer.
+   */
+  private void run() {
+    byte[] bytes = initBuffer(ByteOrder.LITTLE_ENDIAN);
+    LegacyDecoder legacy = new LegacyDecoder(bytes, ByteOrder.LITTLE_ENDIAN);
+    ByteOrderBuffer current = new ByteOrderBuffer(bytes, ByteOrder.LITTLE_ENDIAN);
+
+    System.out.printf("%-16s %-8s %10s %10s%n", "operation", "impl", "ns/op", "bytes/op");
+
+    measure("getShort", "before", i -> legacy.getShort(shortPos));
+    measure("getShort", "after", i -> current.getShort(shortPos));
+    measure("getInt", "before", i -> legacy.getInt(negIntPos));
+    measure("getInt", "after", i -> current.getInt(negIntPos));
+    measure("getLong", "before", i -> legacy.getLong(negLongPos));
+    measure("getLong", "after", i -> current.getLong(negLongPos));
+    measure("getUnsignedInt", "before", i -> legacy.getUnsignedInt(negIntPos));
+    measure("getUnsignedInt", "after", i -> current.getUnsignedInt(negIntPos));
+    measure("getTimestamp", "before", i -> legacy.getTimestamp(timestampPos).getSecond());
+    measure("getTimestamp", "after", i -> current.getTimestamp(timestampPos).getSecond());
+  }
+
+  /**
+   * Warm up and then measure a single operation. The reported figures are the best of the measured
+   * rounds.
+   *
+   * @param name The operation name.
+   * @param impl The implementation name.
+   * @param operation The operation to measure.
+   */
+  private void measure(String name, String impl, IntToLongFunction operation) {
+    for(int round = 0; round < WARMUP_ROUNDS; round++) {
+      runRound(operation);
+    }
+
+    com.sun.management.ThreadMXBean threads =
+        (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+    long threadId = Thread.currentThread().getId();
+    double bestNanos = Double.MAX_VALUE;
+    double bestBytes = Double.MAX_VALUE;
+
+    for(int round = 0; round < MEASURED_ROUNDS; round++) {
+      long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+      long start = System.nanoTime();
+
+      runRound(operation);
+
+      long elapsed = System.nanoTime() - start;
+      long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+      bestNanos = Math.min(bestNanos, (double)elapsed / OPERATIONS);
+      bestBytes = Math.min(bestBytes, (double)allocated / OPERATIONS);
+    }
+
+    System.out.printf("%-16s %-8s %10.2f %10.2f%n", name, impl, bestNanos, bestBytes);
+  }
+
+  /**
+   * @param operation
+   */
+  private void runRound(IntToLongFunction operation) {
+    long total = 0;
+
+    for(int i = 0; i < OPERATIONS; i++) {
+      total += operation.applyAsLong(i);
+    }
+
+    sink += total;
+  }
+}
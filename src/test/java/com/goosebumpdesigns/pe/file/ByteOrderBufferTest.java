@@ -3,8 +3,11 @@
 package com.goosebumpdesigns.pe.file;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import org.junit.jupiter.api.BeforeEach;
@@ -211,6 +214,49 @@ class ByteOrderBufferTest extends BufferSupport {
     assertThat(actual).isEqualTo(expected);
   }
 
+  /**
+   * Test method for {@link ByteOrderBuffer#getUnsignedLongBits(int)}.
+   */
+  @Test
+  void testGetUnsignedLongBits() {
+    testGetUnsignedLongBits(ByteOrder.BIG_ENDIAN);
+    testGetUnsignedLongBits(ByteOrder.LITTLE_ENDIAN);
+  }
+
+  /**
+   * @param order
+   */
+  private void testGetUnsignedLongBits(ByteOrder order) {
+    // Given: a buffer with a negative long (an unsigned value above Long.MAX_VALUE)
+    ByteOrderBuffer buf = order == ByteOrder.BIG_ENDIAN ? bigEndianBuffer : littleEndianBuffer;
+
+    // When: the unsigned long is retrieved as a long
+    long actual = buf.getUnsignedLongBits(negLongPos);
+
+    // Then: the bits are the same as the BigInteger value
+    assertThat(Long.toUnsignedString(actual))
+        .isEqualTo(buf.getUnsignedLong(negLongPos).toString());
+  }
+
+  /**
+   * Test method for {@link ByteOrderBuffer#getUnsigned(int, int)}.
+   */
+  @Test
+  void testGetUnsigned() {
+    // Given: a little endian buffer
+    ByteOrderBuffer buf = littleEndianBuffer;
+
+    // When: unsigned values of each size are retrieved
+    // Then: the values are the same as the size-specific methods
+    assertThat(buf.getUnsigned(negBytePos, Byte.BYTES)).isEqualTo(buf.getUnsignedByte(negBytePos));
+    assertThat(buf.getUnsigned(negShortPos, Short.BYTES))
+        .isEqualTo(buf.getUnsignedShort(negShortPos));
+    assertThat(buf.getUnsigned(negIntPos, Integer.BYTES)).isEqualTo(buf.getUnsignedInt(negIntPos));
+    assertThat(buf.getUnsigned(negLongPos, Long.BYTES)).isEqualTo(negLong);
+    assertThatThrownBy(() -> buf.getUnsigned(intPos, 3))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
   /**
    * Test method for {@link ByteOrderBuffer#getUnsignedShort(int)}.
    */
@@ -346,6 +392,106 @@ class ByteOrderBufferTest extends BufferSupport {
     assertThat(actual).isEqualTo(expected);
   }
 
+  /**
+   * Test method for {@link ByteOrderBuffer#slice(int, int)}.
+   */
+  @Test
+  void testSlice() {
+    testSlice(ByteOrder.BIG_ENDIAN);
+    testSlice(ByteOrder.LITTLE_ENDIAN);
+  }
+
+  /**
+   * @param order
+   */
+  private void testSlice(ByteOrder order) {
+    // Given: a buffer with a long followed by a negative long
+    ByteOrderBuffer buf = order == ByteOrder.BIG_ENDIAN ? bigEndianBuffer : littleEndianBuffer;
+
+    // When: a slice is taken over the negative long
+    ByteOrderBuffer slice = buf.slice(negLongPos, Long.BYTES);
+
+    // Then: the slice reads the value at offset zero with the same byte order
+    assertThat(slice.size()).isEqualTo(Long.BYTES);
+    assertThat(slice.getByteOrder()).isEqualTo(order);
+    assertThat(slice.getLong(0)).isEqualTo(negLong);
+    assertThat(slice.getBytes()).isEqualTo(buf.getBytes(negLongPos, Long.BYTES));
+  }
+
+  /**
+   * Test that a slice cannot read outside of its window.
+   */
+  @Test
+  void testSliceIsBounded() {
+    // Given: a slice that holds a single short
+    ByteOrderBuffer slice = bigEndianBuffer.slice(shortPos, Short.BYTES);
+
+    // When: an int is read from the slice
+    // Then: the read fails rather than reading past the end of the window
+    assertThatThrownBy(() -> slice.getInt(0)).isInstanceOf(IndexOutOfBoundsException.class);
+    assertThatThrownBy(() -> bigEndianBuffer.slice(size - 1, 2))
+        .isInstanceOf(IndexOutOfBoundsException.class);
+  }
+
+  /**
+   * Test method for {@link ByteOrderBuffer#ByteOrderBuffer(ByteBuffer, int, int, ByteOrder)}.
+   */
+  @Test
+  void testByteBufferWindow() {
+    // Given: a direct byte buffer with the little-endian data at offset 3
+    ByteBuffer store = ByteBuffer.allocateDirect(size + 3);
+    store.position(3);
+    store.put(littleEndianBytes);
+
+    // When: a window is created over the data
+    ByteOrderBuffer buf = new ByteOrderBuffer(store, 3, size, ByteOrder.LITTLE_ENDIAN);
+
+    // Then: the values are read from the window and the store is unchanged
+    assertThat(buf.getInt(intPos)).isEqualTo(anInt);
+    assertThat(buf.getUnsignedInt(negIntPos)).isEqualTo(Integer.toUnsignedLong(negInt));
+    assertThat(buf.getTimestamp(timestampPos)).isEqualTo(timestamp);
+    assertThat(buf.getBytes()).isEqualTo(littleEndianBytes);
+    assertThat(store.position()).isEqualTo(size + 3);
+  }
+
+  /**
+   * Test method for {@link ByteOrderBuffer#indexOf(byte, int)}.
+   */
+  @Test
+  void testIndexOf() {
+    // Given: a buffer with values at positions inside and across eight-byte words
+    byte[] bytes = new byte[37];
+    Arrays.fill(bytes, (byte)'x');
+    bytes[3] = 0;
+    bytes[17] = 0;
+    bytes[36] = (byte)0x80;
+    ByteOrderBuffer buf = new ByteOrderBuffer(bytes, ByteOrder.LITTLE_ENDIAN).slice(1, 36);
+
+    // When: the values are searched for
+    // Then: the offset of the first value at or after the start is returned
+    assertThat(buf.indexOf((byte)0, 0)).isEqualTo(2);
+    assertThat(buf.indexOf((byte)0, 3)).isEqualTo(16);
+    assertThat(buf.indexOf((byte)0, 17)).isEqualTo(-1);
+    assertThat(buf.indexOf((byte)0x80, 0)).isEqualTo(35);
+    assertThat(buf.indexOf((byte)'x', 2)).isEqualTo(3);
+  }
+
+  /**
+   * Test method for {@link ByteOrderBuffer#getNullTerminatedString(int, java.nio.charset.Charset)}.
+   */
+  @Test
+  void testGetNullTerminatedString() {
+    // Given: a buffer with two null-terminated strings and an unterminated string
+    byte[] bytes = "kernel32.dll\0CreateFileW\0tail".getBytes(StandardCharsets.US_ASCII);
+    ByteOrderBuffer buf = new ByteOrderBuffer(bytes, ByteOrder.LITTLE_ENDIAN);
+
+    // When: the strings are decoded
+    // Then: the strings end at the terminating null and the unterminated string is null
+    assertThat(buf.getNullTerminatedString(0, StandardCharsets.US_ASCII)).isEqualTo("kernel32.dll");
+    assertThat(buf.getNullTerminatedString(13, StandardCharsets.US_ASCII)).isEqualTo("CreateFileW");
+    assertThat(buf.getNullTerminatedString(25, StandardCharsets.US_ASCII)).isNull();
+  }
+
   /**
    * Test method for {@link com.goosebumpdesigns.pe.file.ByteOrderBuffer#getByteOrder()}.
    */
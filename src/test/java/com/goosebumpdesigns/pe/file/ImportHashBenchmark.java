@@ -0,0 +1,211 @@
+// Copyright (c) 2023 Goosebump Designs LLC
+
+package com.goosebumpdesigns.pe.file;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.function.Supplier;
+import com.goosebumpdesigns.pe.PEFile;
+import com.goosebumpdesigns.pe.builder.PEFileBuilder;
+import com.goosebumpdesigns.pe.model.ImportedFunction;
+import com.goosebumpdesigns.pe.model.ImportedLibrary;
+
+/**
+ * This is a micro-benchmark that compares {@link PEFileBuilder#imphash(Path)}, which hashes the
+ * names straight from the file data, with the usual approach of parsing the file, materializing
+ * the imports and hashing strings built from them. It reports the time and the number of bytes
+ * allocated per hash. It is not a unit test, so it is not run by the build. Run it from the IDE or
+ * like this:
+ *
+ * <pre>
+ * mvn test-compile
+ * java -cp target/classes:target/test-classes com.goosebumpdesigns.pe.file.ImportHashBenchmark
+ * </pre>
+ */
+public class ImportHashBenchmark {
+  private static final int WARMUP_ROUNDS = 5;
+  private static final int MEASURED_ROUNDS = 5;
+  private static final int OPERATIONS = 2_000;
+  private static final int LIBRARIES = 40;
+  private static final int FUNCTIONS = 50;
+
+  private static long sink;
+
+  /**
+   * Run the benchmark and print the results.
+   *
+   * @param args Unused.
+   * @throws IOException if the test image cannot be written.
+   */
+  public static void main(String[] args) throws IOException {
+    Path directory = Files.createTempDirectory("imphash");
+
+    try {
+      new ImportHashBenchmark().run(directory);
+    }
+    finally {
+      try(var paths = Files.walk(directory)) {
+        paths.sorted((a, b) -> b.compareTo(a)).forEach(ImportHashBenchmark::delete);
+      }
+    }
+  }
+
+  /**
+   * Write an image with {@value #LIBRARIES} libraries of {@value #FUNCTIONS} functions each and
+   * hash it both ways.
+   *
+   * @param directory The directory that the image is written to.
+   */
+  private void run(Path directory) {
+    TestImageBuilder builder = TestImageBuilder.pe32Plus();
+
+    for(int library = 0; library < LIBRARIES; library++) {
+      Object[] functions = new Object[FUNCTIONS];
+
+      for(int function = 0; function < FUNCTIONS; function++) {
+        functions[function] = function % 10 == 9 ? (Object)(function + 1)
+            : String.format("Function%03dOfLibrary%02d", function, library);
+      }
+
+      builder.importLibrary(library % 4 == 3 ? "WS2_32.dll" : "LIBRARY" + library + ".dll",
+          functions);
+    }
+
+    Path path = builder.write(directory, "imports.dll");
+
+    if(!PEFileBuilder.imphash(path).equals(materializedImphash(PEFileBuilder.build(path)))) {
+      throw new IllegalStateException("The import hashes differ");
+    }
+
+    System.out.printf("%-12s %12s %12s%n", "impl", "us/op", "bytes/op");
+
+    measure("materialize", () -> materializedImphash(PEFileBuilder.build(path)));
+    measure("imphash", () -> PEFileBuilder.imphash(path));
+  }
+
+  /**
+   * Compute the import hash from the materialized imports of a parsed file, building a string for
+   * each entry. This is the baseline that {@link ImportHasher} replaces.
+   *
+   * @param file The parsed file.
+   * @return The import hash as 32 lower-case hex digits, or {@code null} if the file has no
+   *         imports.
+   */
+  static String materializedImphash(PEFile file) {
+    if(Objects.isNull(file.getImports())) {
+      return null;
+    }
+
+    StringBuilder entries = new StringBuilder();
+
+    for(ImportedLibrary library : file.getImports().getLibraries()) {
+      String name = library.getName().toLowerCase(Locale.ROOT);
+      byte[] bytes = name.getBytes(StandardCharsets.US_ASCII);
+      byte[][] ordinalNames = ImportOrdinals.forLibrary(bytes, bytes.length);
+      int dot = name.lastIndexOf('.');
+
+      if(dot >= 0 && List.of("dll", "ocx", "sys").contains(name.substring(dot + 1))) {
+        name = name.substring(0, dot);
+      }
+
+      for(ImportedFunction function : library.getFunctions()) {
+        String functionName = function.getName();
+
+        if(function.isByOrdinal()) {
+          int ordinal = function.getOrdinal();
+          boolean known = Objects.nonNull(ordinalNames) && ordinal < ordinalNames.length
+              && Objects.nonNull(ordinalNames[ordinal]);
+
+          functionName = known ? new String(ordinalNames[ordinal], StandardCharsets.US_ASCII)
+              : "ord" + ordinal;
+        }
+
+        if(!functionName.isEmpty()) {
+          if(entries.length() > 0) {
+            entries.append(',');
+          }
+
+          entries.append(name).append('.').append(functionName.toLowerCase(Locale.ROOT));
+        }
+      }
+    }
+
+    try {
+      byte[] digest = MessageDigest.getInstance("MD5")
+          .digest(entries.toString().getBytes(StandardCharsets.UTF_8));
+      return HexFormat.of().formatHex(digest);
+    }
+    catch(NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Warm up and then measure a single implementation. The reported figures are the best of the
+   * measured rounds.
+   *
+   * @param impl The implementation name.
+   * @param operation The operation to measure.
+   */
+  private void measure(String impl, Supplier<String> operation) {
+    for(int round = 0; round < WARMUP_ROUNDS; round++) {
+      runRound(operation);
+    }
+
+    com.sun.management.ThreadMXBean threads =
+        (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+    long threadId = Thread.currentThread().getId();
+    double bestMicros = Double.MAX_VALUE;
+    double bestBytes = Double.MAX_VALUE;
+
+    for(int round = 0; round < MEASURED_ROUNDS; round++) {
+      long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+      long start = System.nanoTime();
+
+      runRound(operation);
+
+      long elapsed = System.nanoTime() - start;
+      long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+      bestMicros = Math.min(bestMicros, elapsed / 1000.0 / OPERATIONS);
+      bestBytes = Math.min(bestBytes, (double)allocated / OPERATIONS);
+    }
+
+    System.out.printf("%-12s %12.2f %12.0f%n", impl, bestMicros, bestBytes);
+  }
+
+  /**
+   * @param operation
+   */
+  private void runRound(Supplier<String> operation) {
+    long total = 0;
+
+    for(int i = 0; i < OPERATIONS; i++) {
+      total += operation.get().hashCode();
+    }
+
+    sink += total;
+  }
+
+  /**
+   * @param path
+   */
+  private static void delete(Path path) {
+    try {
+      Files.delete(path);
+    }
+    catch(IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
@@ -0,0 +1,202 @@
+// Copyright (c) 2023 Goosebump Designs LLC
+
+package com.goosebumpdesigns.pe.file;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import com.goosebumpdesigns.pe.PEFile;
+import com.goosebumpdesigns.pe.builder.PEFileBuilder;
+
+/**
+ * This class tests the import hashes computed by {@link ImportHasher} and
+ * {@link PEFileBuilder#imphash(PEFileReader)} against known answers. Each expected hash is the MD5
+ * digest of the entry list shown next to it, as computed by other tools.
+ */
+class ImportHasherTest {
+  @TempDir
+  Path directory;
+
+  /**
+   * Test method for {@link ImportHasher#ordinal(int)}.
+   */
+  @Test
+  void testOrdinalsAreNamedForKnownLibraries() {
+    // Given: ordinals from ws2_32, wsock32 and oleaut32, and from a library with no table
+    ImportHasher hasher = new ImportHasher();
+
+    // When: they are hashed
+    library(hasher, "WS2_32.dll");
+    hasher.ordinal(3);
+    hasher.ordinal(23);
+    hasher.ordinal(115);
+    hasher.ordinal(9999);
+    library(hasher, "WSOCK32.DLL");
+    hasher.ordinal(3);
+    library(hasher, "OleAut32.dll");
+    hasher.ordinal(2);
+    hasher.ordinal(6);
+    library(hasher, "KERNEL32.dll");
+    hasher.ordinal(17);
+
+    // Then: known ordinals are named, and the others are "ord" followed by the number
+    // @formatter:off
+    assertThat(hex(hasher.digest())).isEqualTo(
+        md5("ws2_32.closesocket,ws2_32.socket,ws2_32.wsastartup,ws2_32.ord9999,"
+            + "wsock32.closesocket,oleaut32.sysallocstring,oleaut32.sysfreestring,kernel32.ord17"))
+        .isEqualTo("559517379e4b974451e4c93827044808");
+    // @formatter:on
+  }
+
+  /**
+   * Test method for {@link ImportHasher#library(ByteOrderBuffer, int, int)}.
+   */
+  @Test
+  void testOnlyKnownExtensionsAreStripped() {
+    // Given: libraries with ".ocx", ".sys", ".exe" and no extension, and an empty function name
+    ImportHasher hasher = new ImportHasher();
+
+    // When: they are hashed
+    library(hasher, "MSVBVM60.OCX");
+    function(hasher, "rtcMsgBox");
+    library(hasher, "driver.sys");
+    function(hasher, "IofCompleteRequest");
+    function(hasher, "");
+    library(hasher, "Helper.exe");
+    function(hasher, "Run");
+    library(hasher, "noext");
+    function(hasher, "Go");
+
+    // Then: ".ocx" and ".sys" are dropped, ".exe" is kept, and the empty name is left out
+    // @formatter:off
+    assertThat(hex(hasher.digest())).isEqualTo(
+        md5("msvbvm60.rtcmsgbox,driver.iofcompleterequest,helper.exe.run,noext.go"))
+        .isEqualTo("62df083a5aba6a1d4f2f512689383ed9");
+    // @formatter:on
+  }
+
+  /**
+   * Test method for {@link PEFileBuilder#imphash(PEFileReader)}.
+   *
+   * @param plus {@code true} for a PE32+ image.
+   */
+  @ParameterizedTest
+  @ValueSource(booleans = {false, true})
+  void testImphashOfAnImage(boolean plus) {
+    // Given: an image with imports by name and ordinal, a bound DLL and a delay-load DLL
+    // @formatter:off
+    byte[] image = new TestImageBuilder(plus)
+        .importLibrary("KERNEL32.dll", "Sleep", "GetTickCount")
+        .importLibrary("WS2_32.dll", 3, "WSAStartup")
+        .boundLibrary("USER32.dll", TestImageBuilder.TIMESTAMP, 2)
+        .delayImportLibrary("SHELL32.dll", "ShellExecuteW")
+        .build();
+    // @formatter:on
+
+    // When: the import hash is computed
+    String imphash;
+
+    try(PEFileReader reader = new PEFileReader(new MemorySource(image))) {
+      imphash = PEFileBuilder.imphash(reader);
+    }
+
+    // Then: only the import directory is hashed, and the bound DLL adds no entries
+    assertThat(imphash)
+        .isEqualTo(md5("kernel32.sleep,kernel32.gettickcount,ws2_32.closesocket,ws2_32.wsastartup"))
+        .isEqualTo("9c0bda847ac4c3bab0be269f9471f92f");
+  }
+
+  /**
+   * Test method for {@link PEFileBuilder#imphash(Path)}.
+   */
+  @Test
+  void testImphashMatchesTheParsedImports() {
+    // Given: a file with imports
+    // @formatter:off
+    Path path = TestImageBuilder.pe32Plus()
+        .importLibrary("ADVAPI32.dll", "RegOpenKeyExW", "RegCloseKey")
+        .importLibrary("OLEAUT32.dll", 8, 9, "VarBstrCmp")
+        .importLibrary("mfc42.dll", 6453)
+        .write(directory, "test.dll");
+    // @formatter:on
+
+    // When: the import hash is computed from the file and from the parsed imports
+    String imphash = PEFileBuilder.imphash(path);
+    PEFile file = PEFileBuilder.build(path);
+
+    // Then: the hash is the same as the one built from the parsed imports
+    // @formatter:off
+    assertThat(imphash).isEqualTo(ImportHashBenchmark.materializedImphash(file))
+        .isEqualTo(md5("advapi32.regopenkeyexw,advapi32.regclosekey,oleaut32.variantinit,"
+            + "oleaut32.variantclear,oleaut32.varbstrcmp,mfc42.ord6453"))
+        .isEqualTo("fe5f991c333e2fa7454565efb4b9d6b7");
+    // @formatter:on
+  }
+
+  /**
+   * Test method for {@link PEFileBuilder#imphash(Path)}.
+   */
+  @Test
+  void testImageWithoutImportsHasNoImphash() {
+    // Given: a file with no import directory
+    Path path = TestImageBuilder.pe32().exports("test.dll", 1).export("Alpha")
+        .write(directory, "test.dll");
+
+    // When: the import hash is computed
+    // Then: there is none
+    assertThat(PEFileBuilder.imphash(path)).isNull();
+  }
+
+  /**
+   * @param hasher
+   * @param name
+   */
+  private static void library(ImportHasher hasher, String name) {
+    hasher.library(buffer(name), 0, name.length());
+  }
+
+  /**
+   * @param hasher
+   * @param name
+   */
+  private static void function(ImportHasher hasher, String name) {
+    hasher.function(buffer(name), 0, name.length());
+  }
+
+  /**
+   * @param text
+   * @return A buffer that holds the ASCII bytes of the text.
+   */
+  private static ByteOrderBuffer buffer(String text) {
+    return new ByteOrderBuffer(text.getBytes(StandardCharsets.US_ASCII), ByteOrder.LITTLE_ENDIAN);
+  }
+
+  /**
+   * @param text
+   * @return The MD5 digest of the text as lower-case hex digits.
+   */
+  private static String md5(String text) {
+    try {
+      return hex(MessageDigest.getInstance("MD5").digest(text.getBytes(StandardCharsets.UTF_8)));
+    }
+    catch(NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * @param digest
+   * @return
+   */
+  private static String hex(byte[] digest) {
+    return HexFormat.of().formatHex(digest);
+  }
+}
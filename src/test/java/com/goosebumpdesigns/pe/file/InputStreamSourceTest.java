@@ -0,0 +1,201 @@
+// Copyright (c) 2023 Goosebump Designs LLC
+
+package com.goosebumpdesigns.pe.file;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import com.goosebumpdesigns.pe.PEFile;
+import com.goosebumpdesigns.pe.builder.PEFileBuilder;
+import com.goosebumpdesigns.pe.builder.ParseOptions;
+import com.goosebumpdesigns.pe.exception.PEFileException;
+
+/**
+ * This class tests parsing images in a single forward pass with {@link InputStreamSource} and
+ * {@link PEFileBuilder#build(InputStream)}. The streams cannot be rewound and never skip, so every
+ * byte before a kept range is read and thrown away.
+ */
+class InputStreamSourceTest {
+
+  /**
+   * This stream can only be read forward. It does not support mark and its skip method skips
+   * nothing, as a pipe or a decompression stream may do.
+   */
+  private static class ForwardOnlyStream extends InputStream {
+    private final byte[] data;
+    private int position;
+    private int skips;
+
+    /**
+     * @param data The content of the stream.
+     */
+    ForwardOnlyStream(byte[] data) {
+      this.data = data;
+    }
+
+    @Override
+    public int read() {
+      return position < data.length ? data[position++] & 0xff : -1;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) {
+      if(position >= data.length) {
+        return -1;
+      }
+
+      int count = Math.min(length, data.length - position);
+      System.arraycopy(data, position, buffer, offset, count);
+      position += count;
+
+      return count;
+    }
+
+    @Override
+    public long skip(long count) {
+      skips++;
+      return 0;
+    }
+
+    @Override
+    public boolean markSupported() {
+      return false;
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+      throw new IOException("mark/reset not supported");
+    }
+  }
+
+  /**
+   * Test method for {@link PEFileBuilder#build(InputStream)}.
+   *
+   * @param plus {@code true} for a PE32+ image.
+   */
+  @ParameterizedTest
+  @ValueSource(booleans = {false, true})
+  void testStreamParseEqualsInMemoryParse(boolean plus) {
+    // Given: an image whose directories are past the header block and not in directory order, with
+    // the import names after the import tables
+    // @formatter:off
+    byte[] image = new TestImageBuilder(plus).pad(0x2000)
+        .exports("test.dll", 1).export("Alpha").export("Beta", "KERNEL32.Sleep")
+        .importLibrary("KERNEL32.dll", "Sleep", "GetTickCount")
+        .importLibrary("WS2_32.dll", 3, "WSAStartup")
+        .delayImportLibrary("SHELL32.dll", "ShellExecuteW", 680)
+        .delayImportsFirst().namesLast()
+        .build();
+    // @formatter:on
+    ForwardOnlyStream stream = new ForwardOnlyStream(image);
+
+    // When: the image is parsed from a stream that can only be read forward
+    PEFile file = PEFileBuilder.build(stream);
+
+    // Then: the directories were read in file order, and the result is the in-memory result
+    assertThat(file).isEqualTo(PEFileBuilder.build(image));
+    assertThat(file.getDelayImports().getLibraries()).hasSize(1);
+    assertThat(stream.skips).isPositive();
+  }
+
+  /**
+   * Test method for {@link InputStreamSource#length()}.
+   *
+   * @throws IOException if the stream cannot be read.
+   */
+  @Test
+  void testLengthIsKnownOnlyAtTheEndOfTheStream() throws IOException {
+    // Given: a source over a stream of 100 bytes
+    byte[] data = new byte[100];
+    Arrays.fill(data, (byte)7);
+    InputStreamSource source = new InputStreamSource(new ForwardOnlyStream(data));
+    byte[] buffer = new byte[10];
+
+    // When: a range before the end and then a range past the end are read
+    source.read(20, buffer, 0, 10);
+    long before = source.length();
+    source.prefetch(90, 50);
+
+    // Then: the length is known only once the end has been reached, and the kept range is read
+    assertThat(before).isEqualTo(Long.MAX_VALUE);
+    assertThat(source.length()).isEqualTo(100);
+    assertThat(buffer).containsOnly(7);
+    source.read(90, buffer, 0, 10);
+    assertThatThrownBy(() -> source.read(95, buffer, 0, 10)).isInstanceOf(EOFException.class);
+  }
+
+  /**
+   * Test method for {@link InputStreamSource#read(long, byte[], int, int)}.
+   *
+   * @throws IOException if the stream cannot be read.
+   */
+  @Test
+  void testReadOfAPassedRangeFails() throws IOException {
+    // Given: a source that has read past offset 10 without keeping it
+    InputStreamSource source = new InputStreamSource(new ForwardOnlyStream(new byte[100]));
+    byte[] buffer = new byte[4];
+
+    source.read(50, buffer, 0, 4);
+
+    // When: the passed range is read
+    // Then: it fails, and the kept range can still be read
+    assertThatThrownBy(() -> source.read(10, buffer, 0, 4)).isInstanceOf(IOException.class)
+        .hasMessageContaining("Offset 10 has already been passed");
+    source.read(50, buffer, 0, 4);
+  }
+
+  /**
+   * Test method for {@link PEFileBuilder#build(PESource, ParseOptions)}.
+   */
+  @Test
+  void testExportTablesBeforeTheDirectoryFail() {
+    // Given: an image whose export tables come before the export directory, past the header block
+    byte[] image = TestImageBuilder.pe32().pad(0x1000).exports("test.dll", 1).export("Alpha")
+        .exportTablesFirst().build();
+
+    // When: the image is parsed from a stream
+    // Then: the tables have been passed when they are read, although the image itself is valid
+    assertThat(PEFileBuilder.build(image).getExports().getExports()).hasSize(1);
+    assertThatThrownBy(() -> PEFileBuilder.build(new ForwardOnlyStream(image)))
+        .isInstanceOf(PEFileException.class).rootCause()
+        .hasMessageContaining("has already been passed");
+  }
+
+  /**
+   * Test method for {@link InputStreamSource#InputStreamSource(InputStream, String, int)}.
+   */
+  @Test
+  void testRetainedLimitIsEnforced() {
+    // Given: a source that may keep fewer bytes than the header block
+    byte[] image = TestImageBuilder.pe32().importLibrary("KERNEL32.dll", "Sleep").build();
+    InputStreamSource source = new InputStreamSource(new ForwardOnlyStream(image), "test.dll", 512);
+
+    // When: the image is parsed
+    // Then: it fails rather than keep more than the limit
+    assertThatThrownBy(() -> PEFileBuilder.build(source, ParseOptions.ALL))
+        .isInstanceOf(PEFileException.class).hasRootCauseMessage(
+            "Keeping 4096 more bytes of test.dll would exceed the 512 byte limit");
+  }
+
+  /**
+   * Test method for {@link PEFileBuilder#build(InputStream)}.
+   */
+  @Test
+  void testTruncatedStreamFails() {
+    // Given: an image cut off in the middle of its import tables
+    byte[] image = TestImageBuilder.pe32().pad(0x2000)
+        .importLibrary("KERNEL32.dll", "Sleep", "GetTickCount").namesLast().build();
+    byte[] truncated = Arrays.copyOf(image, image.length - 24);
+
+    // When: the truncated image is parsed from a stream
+    // Then: it fails
+    assertThatThrownBy(() -> PEFileBuilder.build(new ForwardOnlyStream(truncated)))
+        .isInstanceOf(PEFileException.class).hasMessageContaining("Error reading");
+  }
+}
@@ -0,0 +1,118 @@
+// Copyright (c) 2023 Goosebump Designs LLC
+
+package com.goosebumpdesigns.pe.file;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class tests the sharing of names by {@link NameInterner}.
+ */
+class NameInternerTest {
+
+  /**
+   * Test method for {@link NameInterner#intern(ByteOrderBuffer, int, int)}.
+   */
+  @Test
+  void testNameReadTwiceIsShared() {
+    // Given: an interner and a buffer that holds a name twice
+    NameInterner interner = new NameInterner(64);
+    ByteOrderBuffer buffer = buffer("xSleep\0Sleep");
+
+    // When: both copies are interned
+    String first = interner.intern(buffer, 1, 5);
+    String second = interner.intern(buffer, 7, 5);
+
+    // Then: the same string is returned, and it equals the string of the same name
+    assertThat(first).isEqualTo("Sleep");
+    assertThat(second).isSameAs(first);
+    assertThat(interner.intern(new String("Sleep"))).isSameAs(first);
+  }
+
+  /**
+   * Test method for {@link NameInterner#intern(ByteOrderBuffer, int, int)}.
+   */
+  @Test
+  void testSlotCollisionsReplaceTheName() {
+    // Given: an interner with one slot, so that every name collides
+    NameInterner interner = new NameInterner(1);
+    ByteOrderBuffer buffer = buffer("AlphaBetaAlphaAlph");
+
+    // When: names are interned in turn
+    String alpha = interner.intern(buffer, 0, 5);
+    String beta = interner.intern(buffer, 5, 4);
+    String alphaAgain = interner.intern(buffer, 9, 5);
+    String prefix = interner.intern(buffer, 14, 4);
+
+    // Then: each name is right, and a replaced name is read again
+    assertThat(alpha).isEqualTo("Alpha");
+    assertThat(beta).isEqualTo("Beta");
+    assertThat(alphaAgain).isEqualTo("Alpha").isNotSameAs(alpha);
+    assertThat(prefix).isEqualTo("Alph");
+    assertThat(interner.intern(buffer, 14, 4)).isSameAs(prefix);
+  }
+
+  /**
+   * Test method for {@link NameInterner#intern(ByteOrderBuffer, int, int)}.
+   */
+  @Test
+  void testNamesWithTheSameHashAreNotConfused() {
+    // Given: an interner and two names with the same String hash code
+    NameInterner interner = new NameInterner(1024);
+    ByteOrderBuffer buffer = buffer("AaBB");
+
+    // When: both names are interned
+    String first = interner.intern(buffer, 0, 2);
+    String second = interner.intern(buffer, 2, 2);
+
+    // Then: each name is decoded from its own bytes
+    assertThat("Aa".hashCode()).isEqualTo("BB".hashCode());
+    assertThat(first).isEqualTo("Aa");
+    assertThat(second).isEqualTo("BB");
+  }
+
+  /**
+   * Test method for {@link NameInterner#intern(ByteOrderBuffer, int, int)}.
+   */
+  @Test
+  void testNonAsciiNamesAreDecodedButNotShared() {
+    // Given: an interner and a buffer that holds a UTF-8 name twice
+    NameInterner interner = new NameInterner(64);
+    ByteOrderBuffer buffer = buffer("Grüße|Grüße");
+    int length = "Grüße".getBytes(StandardCharsets.UTF_8).length;
+
+    // When: both copies are interned
+    String first = interner.intern(buffer, 0, length);
+    String second = interner.intern(buffer, length + 1, length);
+
+    // Then: the names are decoded as UTF-8 and are not shared
+    assertThat(first).isEqualTo("Grüße");
+    assertThat(second).isEqualTo("Grüße").isNotSameAs(first);
+  }
+
+  /**
+   * Test method for {@link NameInterner#intern(String)}.
+   */
+  @Test
+  void testInternString() {
+    // Given: an interner
+    NameInterner interner = new NameInterner(16);
+
+    // When: strings are interned
+    String first = interner.intern(new String("KERNEL32.dll"));
+
+    // Then: equal strings share the first copy, and null is passed through
+    assertThat(interner.intern(new String("KERNEL32.dll"))).isSameAs(first);
+    assertThat(interner.intern((String)null)).isNull();
+  }
+
+  /**
+   * @param text
+   * @return A buffer that holds the UTF-8 bytes of the text.
+   */
+  private static ByteOrderBuffer buffer(String text) {
+    return new ByteOrderBuffer(text.getBytes(StandardCharsets.UTF_8), ByteOrder.LITTLE_ENDIAN);
+  }
+}
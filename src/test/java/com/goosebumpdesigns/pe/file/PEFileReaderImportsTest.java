@@ -0,0 +1,308 @@
+// Copyright (c) 2023 Goosebump Designs LLC
+
+package com.goosebumpdesigns.pe.file;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import com.goosebumpdesigns.pe.exception.PEFileException;
+import com.goosebumpdesigns.pe.model.BoundImport;
+import com.goosebumpdesigns.pe.model.DelayImportedLibrary;
+import com.goosebumpdesigns.pe.model.ImportedFunction;
+import com.goosebumpdesigns.pe.model.ImportedLibrary;
+import com.goosebumpdesigns.pe.model.type.OptionalHeaderField;
+
+/**
+ * This class tests the decoding of the import, delay-load import and bound import directories by
+ * {@link PEFileReader}, using synthetic images.
+ */
+class PEFileReaderImportsTest {
+
+  /**
+   * Test method for {@link PEFileReader#readImports()}.
+   *
+   * @param plus {@code true} for a PE32+ image, whose thunks are 64 bits wide.
+   */
+  @ParameterizedTest
+  @ValueSource(booleans = {false, true})
+  void testReadImportsByNameAndOrdinal(boolean plus) {
+    // Given: an image that imports by name and by ordinal, including the largest ordinal
+    // @formatter:off
+    byte[] image = new TestImageBuilder(plus)
+        .importLibrary("KERNEL32.dll", "Sleep", "GetTickCount")
+        .importLibrary("WS2_32.dll", 3, "WSAStartup", 0xffff)
+        .build();
+    // @formatter:on
+
+    // When: the imports are read
+    List<ImportedLibrary> libraries = readImports(image);
+
+    // Then: names have their hints, ordinals have no name, and the thunks have the image's width
+    assertThat(libraries).extracting(ImportedLibrary::getName).containsExactly("KERNEL32.dll",
+        "WS2_32.dll");
+    assertThat(libraries.get(0).isBound()).isFalse();
+
+    List<ImportedFunction> kernel32 = libraries.get(0).getFunctions();
+    List<ImportedFunction> ws2 = libraries.get(1).getFunctions();
+    int thunkSize = plus ? Long.BYTES : Integer.BYTES;
+
+    assertThat(kernel32).extracting(ImportedFunction::getName).containsExactly("Sleep",
+        "GetTickCount");
+    assertThat(kernel32).extracting(ImportedFunction::getHint).containsExactly(0, 1);
+    assertThat(kernel32.get(1).getAddressTableRva() - kernel32.get(0).getAddressTableRva())
+        .isEqualTo(thunkSize);
+
+    assertThat(ws2).extracting(ImportedFunction::isByOrdinal).containsExactly(true, false, true);
+    assertThat(ws2.get(0).getOrdinal()).isEqualTo(3);
+    assertThat(ws2.get(0).getHint()).isZero();
+    assertThat(ws2.get(1).getName()).isEqualTo("WSAStartup");
+    assertThat(ws2.get(1).getOrdinal()).isZero();
+    assertThat(ws2.get(1).getHint()).isEqualTo(1);
+    assertThat(ws2.get(2).getOrdinal()).isEqualTo(0xffff);
+    assertThat(ws2.get(2).getAddressTableRva() - ws2.get(0).getAddressTableRva())
+        .isEqualTo(2 * thunkSize);
+  }
+
+  /**
+   * Test method for {@link PEFileReader#readImports()}.
+   */
+  @Test
+  void testBoundImportWithoutLookupTableHasNoFunctions() {
+    // Given: an image with a DLL that was bound without an import lookup table
+    byte[] image = TestImageBuilder.pe32().importLibrary("KERNEL32.dll", "Sleep")
+        .boundLibrary("USER32.dll", TestImageBuilder.TIMESTAMP, 3).build();
+
+    // When: the imports are read
+    List<ImportedLibrary> libraries = readImports(image);
+
+    // Then: the bound DLL is listed, but its function names are lost
+    ImportedLibrary user32 = libraries.get(1);
+
+    assertThat(libraries.get(0).getFunctions()).hasSize(1);
+    assertThat(user32.getName()).isEqualTo("USER32.dll");
+    assertThat(user32.isBound()).isTrue();
+    assertThat(user32.getTimestamp()).isEqualTo(TestImageBuilder.TIMESTAMP);
+    assertThat(user32.getFunctions()).isEmpty();
+  }
+
+  /**
+   * Test method for {@link PEFileReader#readImports()}.
+   */
+  @Test
+  void testUnterminatedLookupTableIsReadToTheEndOfTheFile() {
+    // Given: an image whose last import lookup table runs into the end of the file
+    byte[] image = TestImageBuilder.pe32().importLibrary("KERNEL32.dll", "Sleep")
+        .unterminatedLookupTable().build();
+
+    // When: the imports are read
+    // Then: the read fails at the end of the file rather than looping or reading garbage
+    assertThatThrownBy(() -> readImports(image)).isInstanceOf(PEFileException.class)
+        .hasMessageContaining("Error reading");
+  }
+
+  /**
+   * Test method for {@link PEFileReader#readImports()}.
+   */
+  @Test
+  void testImageWithoutImportsHasNone() {
+    // Given: an image with no import directory
+    byte[] image = TestImageBuilder.pe32Plus().build();
+
+    // When: the imports are read
+    // Then: there are none
+    assertThat(readImports(image)).isNull();
+  }
+
+  /**
+   * Test method for {@link PEFileReader#readImports()}.
+   */
+  @Test
+  void testRepeatedNamesAreShared() {
+    // Given: an image that imports the same function from two DLLs, parsed twice
+    byte[] image = TestImageBuilder.pe32().importLibrary("KERNEL32.dll", "Sleep")
+        .importLibrary("KERNELBASE.dll", "Sleep").build();
+
+    // When: the imports are read
+    List<ImportedLibrary> first = readImports(image);
+    List<ImportedLibrary> second = readImports(image);
+
+    // Then: the names are the same strings
+    String sleep = first.get(0).getFunctions().get(0).getName();
+
+    assertThat(first.get(1).getFunctions().get(0).getName()).isSameAs(sleep);
+    assertThat(second.get(0).getFunctions().get(0).getName()).isSameAs(sleep);
+    assertThat(second.get(0).getName()).isSameAs(first.get(0).getName());
+  }
+
+  /**
+   * Test method for {@link PEFileReader#readDelayImports()}.
+   *
+   * @param plus {@code true} for a PE32+ image.
+   */
+  @ParameterizedTest
+  @ValueSource(booleans = {false, true})
+  void testReadDelayImports(boolean plus) {
+    // Given: an image with delay-load imports by name and by ordinal
+    byte[] image = new TestImageBuilder(plus)
+        .delayImportLibrary("SHELL32.dll", "ShellExecuteW", 680).build();
+
+    // When: the delay-load imports are read
+    List<DelayImportedLibrary> libraries;
+
+    try(PEFileReader reader = new PEFileReader(new MemorySource(image))) {
+      libraries = reader.readDelayImports();
+    }
+
+    // Then: the DLL and its functions are decoded
+    assertThat(libraries).hasSize(1);
+    assertThat(libraries.get(0).getName()).isEqualTo("SHELL32.dll");
+    assertThat(libraries.get(0).getFunctions()).extracting(ImportedFunction::getName)
+        .containsExactly("ShellExecuteW", null);
+    assertThat(libraries.get(0).getFunctions().get(1).getOrdinal()).isEqualTo(680);
+  }
+
+  /**
+   * Test method for {@link PEFileReader#readDelayImports()}.
+   */
+  @Test
+  void testReadDelayImportsWithVirtualAddresses() {
+    // Given: the same delay-load imports with RVA-based descriptors and with descriptors and name
+    // tables that hold virtual addresses
+    TestImageBuilder builder = TestImageBuilder.pe32()
+        .delayImportLibrary("SHELL32.dll", "ShellExecuteW", 680, "DragQueryFileW");
+    DelayImportedLibrary rvaBased = readDelayImports(builder.build()).get(0);
+
+    // When: the delay-load imports with virtual addresses are read
+    List<DelayImportedLibrary> libraries =
+        readDelayImports(builder.virtualAddressDelayImports().build());
+
+    // Then: the image base is subtracted from every address, so they match the RVA-based imports
+    DelayImportedLibrary library = libraries.get(0);
+
+    assertThat(libraries).hasSize(1);
+    assertThat(library.isRvaBased()).isFalse();
+    assertThat(rvaBased.isRvaBased()).isTrue();
+    assertThat(library.getName()).isEqualTo("SHELL32.dll");
+    assertThat(library.getNameTableRva()).isEqualTo(rvaBased.getNameTableRva());
+    assertThat(library.getAddressTableRva()).isEqualTo(rvaBased.getAddressTableRva());
+    assertThat(library.getModuleHandleRva()).isZero();
+    assertThat(library.getFunctions()).isEqualTo(rvaBased.getFunctions());
+    assertThat(library.getFunctions()).extracting(ImportedFunction::getName)
+        .containsExactly("ShellExecuteW", null, "DragQueryFileW");
+    assertThat(library.getFunctions().get(2).getHint()).isEqualTo(2);
+  }
+
+  /**
+   * Test method for {@link PEFileReader#readBoundImports()}.
+   *
+   * @param plus {@code true} for a PE32+ image.
+   */
+  @ParameterizedTest
+  @ValueSource(booleans = {false, true})
+  void testReadBoundImports(boolean plus) {
+    // Given: a bound import directory in which the first DLL has two forwarder references
+    // @formatter:off
+    byte[] image = new TestImageBuilder(plus)
+        .boundImport("USER32.dll", 0x11111111).boundForwarder("GDI32.dll", 0x22222222)
+            .boundForwarder("NTDLL.dll", 0x33333333)
+        .boundImport("KERNEL32.dll", 0x44444444)
+        .build();
+    // @formatter:on
+
+    // When: the bound imports are read
+    List<BoundImport> imports = readBoundImports(image);
+
+    // Then: each DLL is listed once, with its forwarders
+    assertThat(imports).extracting(BoundImport::getName).containsExactly("USER32.dll",
+        "KERNEL32.dll");
+    assertThat(imports).extracting(BoundImport::getTimestamp).containsExactly(0x11111111L,
+        0x44444444L);
+    assertThat(imports.get(0).getForwarders()).extracting(BoundImport::getName)
+        .containsExactly("GDI32.dll", "NTDLL.dll");
+    assertThat(imports.get(0).getForwarders()).extracting(BoundImport::getTimestamp)
+        .containsExactly(0x22222222L, 0x33333333L);
+    assertThat(imports.get(0).getForwarders().get(0).getForwarders()).isEmpty();
+    assertThat(imports.get(1).getForwarders()).isEmpty();
+    assertThat(readBoundImports(TestImageBuilder.pe32().build())).isNull();
+  }
+
+  /**
+   * Test method for {@link PEFileReader#readBoundImports()}.
+   */
+  @Test
+  void testBoundImportNameOutsideOfTheDirectory() {
+    // Given: a bound import whose name offset points past the directory, at a DLL name in the
+    // section
+    byte[] image = TestImageBuilder.pe32().importLibrary("ADVAPI32.dll", "RegCloseKey")
+        .boundImport("USER32.dll", 0x11111111).build();
+    long directory;
+
+    try(PEFileReader reader = new PEFileReader(new MemorySource(image))) {
+      directory = reader.findDirectoryFileOffset(OptionalHeaderField.BOUND_IMPORT_TABLE);
+    }
+
+    int name = indexOf(image, "ADVAPI32.dll\0");
+    ByteBuffer.wrap(image).order(ByteOrder.LITTLE_ENDIAN).putShort((int)directory + 4,
+        (short)(name - directory));
+
+    // When: the bound imports are read
+    List<BoundImport> imports = readBoundImports(image);
+
+    // Then: the name is read from the file
+    assertThat(name - directory).isGreaterThan(0xff).isLessThan(0x10000);
+    assertThat(imports).extracting(BoundImport::getName).containsExactly("ADVAPI32.dll");
+  }
+
+  /**
+   * @param image
+   * @return The delay-load imports of the image.
+   */
+  private static List<DelayImportedLibrary> readDelayImports(byte[] image) {
+    try(PEFileReader reader = new PEFileReader(new MemorySource(image))) {
+      return reader.readDelayImports();
+    }
+  }
+
+  /**
+   * @param image
+   * @return The bound imports of the image.
+   */
+  private static List<BoundImport> readBoundImports(byte[] image) {
+    try(PEFileReader reader = new PEFileReader(new MemorySource(image))) {
+      return reader.readBoundImports();
+    }
+  }
+
+  /**
+   * @param image
+   * @param text
+   * @return The offset of the first copy of the ASCII text in the image.
+   */
+  private static int indexOf(byte[] image, String text) {
+    byte[] bytes = text.getBytes(StandardCharsets.US_ASCII);
+
+    for(int pos = 0; pos + bytes.length <= image.length; pos++) {
+      if(ByteBuffer.wrap(image, pos, bytes.length).equals(ByteBuffer.wrap(bytes))) {
+        return pos;
+      }
+    }
+
+    throw new IllegalArgumentException(text + " is not in the image");
+  }
+
+  /**
+   * @param image
+   * @return The imports of the image.
+   */
+  private static List<ImportedLibrary> readImports(byte[] image) {
+    try(PEFileReader reader = new PEFileReader(new MemorySource(image))) {
+      return reader.readImports();
+    }
+  }
+}
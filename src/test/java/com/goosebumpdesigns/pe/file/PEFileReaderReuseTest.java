@@ -0,0 +1,100 @@
+// Copyright (c) 2023 Goosebump Designs LLC
+
+package com.goosebumpdesigns.pe.file;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import com.goosebumpdesigns.pe.PEFile;
+import com.goosebumpdesigns.pe.builder.PEFileBuilder;
+import com.goosebumpdesigns.pe.builder.ParseOptions;
+
+/**
+ * This class tests a reader created by {@link PEFileReader#reusable()} that is moved from file to
+ * file with {@link PEFileReader#reopen(Path, ReadMode)}.
+ */
+class PEFileReaderReuseTest {
+  private static final int RT_RCDATA = 10;
+
+  @TempDir
+  Path directory;
+
+  /**
+   * Test method for {@link PEFileReader#reopen(Path, ReadMode)}.
+   *
+   * @param readMode The read mode.
+   */
+  @ParameterizedTest
+  @EnumSource(ReadMode.class)
+  void testFilesParsedEarlierAreNotChangedByLaterReopens(ReadMode readMode) {
+    // Given: different files, one with enough exports to make the scratch memory grow
+    TestImageBuilder many = TestImageBuilder.pe32Plus().exports("many.dll", 1);
+
+    for(int pos = 0; pos < 3000; pos++) {
+      many.export("Function" + pos + "WithAName");
+    }
+
+    // @formatter:off
+    List<Path> paths = List.of(
+        TestImageBuilder.pe32().exports("one.dll", 1).export("Alpha").export("Beta", "TWO.Gamma")
+            .write(directory, "one.dll"),
+        TestImageBuilder.pe32Plus()
+            .importLibrary("KERNEL32.dll", "Sleep", 17)
+            .delayImportLibrary("SHELL32.dll", "ShellExecuteW")
+            .write(directory, "two.dll"),
+        many.write(directory, "many.dll"),
+        TestImageBuilder.pe32().boundLibrary("USER32.dll", TestImageBuilder.TIMESTAMP, 3)
+            .resource(RT_RCDATA, 1, 0, "data".getBytes(StandardCharsets.US_ASCII))
+            .write(directory, "three.dll"));
+    // @formatter:on
+
+    List<Path> parsedPaths = new ArrayList<>();
+    List<PEFile> parsed = new ArrayList<>();
+
+    // When: one reader parses each file in turn, twice over
+    try(PEFileReader reader = PEFileReader.reusable()) {
+      for(int round = 0; round < 2; round++) {
+        for(Path path : paths) {
+          parsed.add(PEFileBuilder.build(reader.reopen(path, readMode), ParseOptions.ALL));
+          parsedPaths.add(path);
+
+          // Then: every file parsed so far still equals a file parsed on its own
+          for(int pos = 0; pos < parsed.size(); pos++) {
+            assertThat(parsed.get(pos)).isEqualTo(PEFileBuilder.build(parsedPaths.get(pos)));
+          }
+        }
+      }
+    }
+
+    assertThat(parsed.get(2).getExports().getExports()).hasSize(3000);
+  }
+
+  /**
+   * Test method for {@link PEFileReader#reopen(Path, ReadMode)}.
+   */
+  @Test
+  void testReopenReleasesTheScratchMemory() {
+    // Given: a reusable reader that has read the headers of a PE32 file
+    Path first = TestImageBuilder.pe32().write(directory, "first.dll");
+    Path second = TestImageBuilder.pe32Plus().write(directory, "second.dll");
+
+    try(PEFileReader reader = PEFileReader.reusable()) {
+      ByteOrderBuffer header = reader.reopen(first).readHeaderBuffer();
+      byte[] before = header.getBytes();
+
+      // When: the reader is reopened on a PE32+ file
+      byte[] after = reader.reopen(second).readHeaderBuffer().getBytes();
+
+      // Then: the header block of the new file is read into the same memory from the start, so the
+      // buffer of the first file now shows the header of the second
+      assertThat(after).isNotEqualTo(before);
+      assertThat(header.getBytes()).isEqualTo(after);
+    }
+  }
+}
@@ -0,0 +1,116 @@
+// Copyright (c) 2023 Goosebump Designs LLC
+
+package com.goosebumpdesigns.pe.file;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import java.nio.ByteBuffer;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class tests the allocation, growth and reuse of the scratch memory in {@link ReadArena}.
+ */
+class ReadArenaTest {
+  private static final int MIN_CHUNK_SIZE = 64 * 1024;
+  private static final int MAX_CHUNK_SIZE = 16 * 1024 * 1024;
+
+  /**
+   * Test method for {@link ReadArena#allocate(int)}.
+   */
+  @Test
+  void testBuffersFollowEachOtherInTheChunk() {
+    // Given: a new arena
+    ReadArena arena = new ReadArena();
+
+    // When: two buffers are allocated
+    ByteBuffer first = arena.allocate(100);
+    ByteBuffer second = arena.allocate(50);
+
+    // Then: they are adjacent slices of the same chunk
+    assertThat(first.array()).hasSize(MIN_CHUNK_SIZE);
+    assertThat(second.array()).isSameAs(first.array());
+    assertThat(second.arrayOffset()).isEqualTo(first.arrayOffset() + 100);
+    assertThat(first.position()).isZero();
+    assertThat(first.capacity()).isEqualTo(100);
+    assertThat(second.capacity()).isEqualTo(50);
+  }
+
+  /**
+   * Test method for {@link ReadArena#allocate(int)}.
+   */
+  @Test
+  void testFullChunkIsReplacedByOneTwiceTheSize() {
+    // Given: an arena whose chunk is full
+    ReadArena arena = new ReadArena();
+    ByteBuffer full = arena.allocate(MIN_CHUNK_SIZE);
+
+    full.put(0, (byte)1);
+
+    // When: another buffer is allocated, and then one that does not fit in twice the chunk
+    ByteBuffer doubled = arena.allocate(1);
+    ByteBuffer larger = arena.allocate(5 * MIN_CHUNK_SIZE);
+
+    // Then: each new chunk is at least twice the size, and the earlier buffer is not overwritten
+    assertThat(doubled.array()).hasSize(2 * MIN_CHUNK_SIZE).isNotSameAs(full.array());
+    assertThat(doubled.arrayOffset()).isZero();
+    assertThat(larger.array()).hasSize(1 + 5 * MIN_CHUNK_SIZE);
+    assertThat(full.get(0)).isEqualTo((byte)1);
+  }
+
+  /**
+   * Test method for {@link ReadArena#allocate(int)}.
+   */
+  @Test
+  void testChunkGrowthStopsAtTheMaximum() {
+    // Given: an arena with a chunk of the maximum size
+    ReadArena arena = new ReadArena();
+    ByteBuffer maximum = arena.allocate(MAX_CHUNK_SIZE);
+
+    // When: more is allocated than the chunk holds
+    ByteBuffer next = arena.allocate(1);
+
+    // Then: the new chunk is no larger than the maximum
+    assertThat(maximum.array()).hasSize(MAX_CHUNK_SIZE);
+    assertThat(next.array()).hasSize(MAX_CHUNK_SIZE).isNotSameAs(maximum.array());
+  }
+
+  /**
+   * Test method for {@link ReadArena#allocate(int)}.
+   */
+  @Test
+  void testLargeRequestBypassesTheChunk() {
+    // Given: an arena with a buffer in its chunk
+    ReadArena arena = new ReadArena();
+    ByteBuffer small = arena.allocate(10);
+
+    // When: a buffer larger than the maximum chunk size is allocated, followed by a small one
+    ByteBuffer large = arena.allocate(MAX_CHUNK_SIZE + 1);
+    ByteBuffer after = arena.allocate(10);
+
+    // Then: the large buffer has an array of its own and the chunk is kept
+    assertThat(large.array()).hasSize(MAX_CHUNK_SIZE + 1);
+    assertThat(large.arrayOffset()).isZero();
+    assertThat(after.array()).isSameAs(small.array());
+    assertThat(after.arrayOffset()).isEqualTo(10);
+  }
+
+  /**
+   * Test method for {@link ReadArena#reset()}.
+   */
+  @Test
+  void testResetReusesTheChunkFromTheStart() {
+    // Given: an arena that has grown and allocated several buffers
+    ReadArena arena = new ReadArena();
+
+    arena.allocate(MIN_CHUNK_SIZE);
+    ByteBuffer grown = arena.allocate(100);
+    arena.allocate(200);
+
+    // When: the arena is reset and a buffer is allocated
+    arena.reset();
+    ByteBuffer reused = arena.allocate(50);
+
+    // Then: the buffer starts the grown chunk, over the first buffer allocated before the reset
+    assertThat(reused.array()).isSameAs(grown.array());
+    assertThat(reused.arrayOffset()).isZero();
+  }
+}
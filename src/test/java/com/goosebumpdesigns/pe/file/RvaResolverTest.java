@@ -0,0 +1,90 @@
+// Copyright (c) 2023 Goosebump Designs LLC
+
+package com.goosebumpdesigns.pe.file;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import com.goosebumpdesigns.pe.PESection;
+
+/**
+ * This class tests the translation of relative virtual addresses to file offsets by
+ * {@link RvaResolver}.
+ */
+class RvaResolverTest {
+  private RvaResolver resolver;
+
+  /**
+   * Create a resolver with three sections. The sections are given out of order, and the last
+   * section has more virtual data than raw data.
+   */
+  @BeforeEach
+  void init() {
+    // @formatter:off
+    resolver = new RvaResolver(List.of(
+        section(".rdata", 0x2000, 0x0800, 0x0c00, 0x0800),
+        section(".text", 0x1000, 0x0400, 0x0400, 0x0400),
+        section(".data", 0x3000, 0x1000, 0x1400, 0x0200)));
+    // @formatter:on
+  }
+
+  /**
+   * Test method for {@link RvaResolver#toFileOffset(long)}.
+   */
+  @Test
+  void testToFileOffset() {
+    // Given: a resolver with three sections
+
+    // When: RVAs in the headers, the sections and the gaps are translated
+    // Then: the RVAs are translated relative to the containing section, or not at all
+    assertThat(resolver.toFileOffset(0x0040)).isEqualTo(0x0040);
+    assertThat(resolver.toFileOffset(0x1000)).isEqualTo(0x0400);
+    assertThat(resolver.toFileOffset(0x13ff)).isEqualTo(0x07ff);
+    assertThat(resolver.toFileOffset(0x1400)).isEqualTo(RvaResolver.UNMAPPED);
+    assertThat(resolver.toFileOffset(0x2010)).isEqualTo(0x0c10);
+    assertThat(resolver.toFileOffset(0x3100)).isEqualTo(0x1500);
+    assertThat(resolver.toFileOffset(0x3400)).isEqualTo(RvaResolver.UNMAPPED);
+    assertThat(resolver.toFileOffset(0x9000)).isEqualTo(RvaResolver.UNMAPPED);
+  }
+
+  /**
+   * Test method for {@link RvaResolver#toFileOffsets(long[])}.
+   */
+  @Test
+  void testToFileOffsets() {
+    // Given: RVAs that alternate between sections
+    long[] rvas = {0x2000, 0x2004, 0x1008, 0x2008, 0x5000};
+
+    // When: the RVAs are translated in one call
+    long[] offsets = resolver.toFileOffsets(rvas);
+
+    // Then: each RVA is translated in place
+    assertThat(offsets).containsExactly(0x0c00, 0x0c04, 0x0408, 0x0c08, RvaResolver.UNMAPPED);
+  }
+
+  /**
+   * Create a section with the given values.
+   *
+   * @param name The section name.
+   * @param virtualAddress The section RVA.
+   * @param virtualSize The size of the section in memory.
+   * @param rawDataPointer The file offset of the section data.
+   * @param rawDataSize The size of the section data in the file.
+   * @return The section.
+   */
+  private PESection section(String name, int virtualAddress, int virtualSize, int rawDataPointer,
+      int rawDataSize) {
+    ByteBuffer bytes = ByteBuffer.allocate(40).order(ByteOrder.LITTLE_ENDIAN);
+
+    bytes.put(name.getBytes());
+    bytes.putInt(8, virtualSize);
+    bytes.putInt(12, virtualAddress);
+    bytes.putInt(16, rawDataSize);
+    bytes.putInt(20, rawDataPointer);
+
+    return new PESection(new SectionBuffer(bytes.array(), ByteOrder.LITTLE_ENDIAN));
+  }
+}
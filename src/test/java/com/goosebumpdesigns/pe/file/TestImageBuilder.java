@@ -0,0 +1,985 @@
+// Copyright (c) 2023 Goosebump Designs LLC
+
+package com.goosebumpdesigns.pe.file;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * This builds small synthetic Portable Executable images for the tests. An image has the headers
+ * in its first {@value #HEADER_SIZE} bytes and a single ".rdata" section that holds everything
+ * else: the export directory, the import and delay-load import directories and the resource
+ * directory, in that order. Nothing is padded after the section, so the last table of the section
+ * ends the file. The bound import directory, whose address is a file offset, follows the section
+ * table in the header area.
+ *
+ * <pre>
+ * byte[] image = TestImageBuilder.pe32Plus()
+ *     .exports("test.dll", 1).export("Alpha").export("Beta", "KERNEL32.Sleep")
+ *     .importLibrary("KERNEL32.dll", "Sleep", 17)
+ *     .build();
+ * </pre>
+ *
+ * A function given to an import method as a String is imported by name (with a hint equal to its
+ * position) and an Integer is imported by ordinal.
+ */
+public class TestImageBuilder {
+  /** The size of the headers. The section starts here in the file. */
+  public static final int HEADER_SIZE = 0x400;
+
+  /** The RVA of the section. */
+  public static final int SECTION_RVA = 0x1000;
+
+  /** The timestamp in the COFF header, 2020-09-13. */
+  public static final int TIMESTAMP = 0x5f5e1000;
+
+  private static final int PE_OFFSET = 0x80;
+  private static final long IMAGE_BASE_STD = 0x10000000L;
+  private static final long IMAGE_BASE_PLUS = 0x180000000L;
+  private static final int EXPORT_DIRECTORY = 0;
+  private static final int IMPORT_DIRECTORY = 1;
+  private static final int RESOURCE_DIRECTORY = 2;
+  private static final int BOUND_IMPORT_DIRECTORY = 11;
+  private static final int DELAY_IMPORT_DIRECTORY = 13;
+
+  /** Named entries first, ordered by name, then ID entries in ascending order. */
+  private static final Comparator<Object> KEY_ORDER = (left, right) -> {
+    if(left instanceof String && right instanceof String) {
+      return ((String)left).compareToIgnoreCase((String)right);
+    }
+
+    if(left instanceof Integer && right instanceof Integer) {
+      return Integer.compare((Integer)left, (Integer)right);
+    }
+
+    return left instanceof String ? -1 : 1;
+  };
+
+  private final boolean plus;
+  private Section section;
+  private final int[] directories = new int[32];
+
+  private String exportFileName;
+  private int ordinalBase;
+  private final List<ExportSpec> exports = new ArrayList<>();
+  private final List<LibrarySpec> imports = new ArrayList<>();
+  private final List<LibrarySpec> delayImports = new ArrayList<>();
+  private final List<ResourceSpec> resources = new ArrayList<>();
+  private final List<BoundSpec> boundImports = new ArrayList<>();
+  private boolean unterminatedLookupTable;
+  private boolean delayImportsFirst;
+  private boolean exportTablesFirst;
+  private boolean namesLast;
+  private boolean virtualAddressDelayImports;
+  private final List<Runnable> deferredNames = new ArrayList<>();
+  private int padding;
+
+  /**
+   * An export address table entry. An entry without a name is exported by ordinal only and an
+   * unused entry has address zero.
+   */
+  private static class ExportSpec {
+    String name;
+    String forwarder;
+    boolean used;
+  }
+
+  /**
+   * An imported DLL.
+   */
+  private static class LibrarySpec {
+    String name;
+    Object[] functions;
+    long timestamp;
+  }
+
+  /**
+   * An entry of the bound import directory, or one of its forwarder references.
+   */
+  private static class BoundSpec {
+    String name;
+    long timestamp;
+    final List<BoundSpec> forwarders = new ArrayList<>();
+  }
+
+  /**
+   * A resource. The type and name are Integer IDs or String names.
+   */
+  private static class ResourceSpec {
+    Object type;
+    Object name;
+    int language;
+    byte[] data;
+  }
+
+  /**
+   * This is the growing content of the section.
+   */
+  private static class Section {
+    byte[] data = new byte[4096];
+    int size;
+
+    /**
+     * @param length
+     * @param alignment
+     * @return The offset of a new zero-filled block in the section.
+     */
+    int allocate(int length, int alignment) {
+      int offset = (size + alignment - 1) / alignment * alignment;
+
+      if(offset + length > data.length) {
+        data = Arrays.copyOf(data, Math.max(data.length * 2, offset + length));
+      }
+
+      size = offset + length;
+      return offset;
+    }
+
+    /**
+     * @param bytes
+     * @param alignment
+     * @return The offset of the bytes in the section.
+     */
+    int put(byte[] bytes, int alignment) {
+      int offset = allocate(bytes.length, alignment);
+      System.arraycopy(bytes, 0, data, offset, bytes.length);
+      return offset;
+    }
+
+    /**
+     * @return A little-endian view of the section for patching.
+     */
+    ByteBuffer view() {
+      return ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+    }
+  }
+
+  /**
+   * @param plus {@code true} for a PE32+ image, {@code false} for a PE32 image.
+   */
+  public TestImageBuilder(boolean plus) {
+    this.plus = plus;
+  }
+
+  /**
+   * @return A builder of a PE32 image.
+   */
+  public static TestImageBuilder pe32() {
+    return new TestImageBuilder(false);
+  }
+
+  /**
+   * @return A builder of a PE32+ image.
+   */
+  public static TestImageBuilder pe32Plus() {
+    return new TestImageBuilder(true);
+  }
+
+  /**
+   * @param fileName The DLL name in the export directory.
+   * @param base The ordinal base.
+   * @return This builder.
+   */
+  public TestImageBuilder exports(String fileName, int base) {
+    this.exportFileName = fileName;
+    this.ordinalBase = base;
+    return this;
+  }
+
+  /**
+   * @param name The name of the next export.
+   * @return This builder.
+   */
+  public TestImageBuilder export(String name) {
+    return export(name, null, true);
+  }
+
+  /**
+   * @param name The name of the next export.
+   * @param forwarder The forwarder, like "KERNEL32.Sleep".
+   * @return This builder.
+   */
+  public TestImageBuilder export(String name, String forwarder) {
+    return export(name, forwarder, true);
+  }
+
+  /**
+   * @return This builder, with the next export exported by ordinal only.
+   */
+  public TestImageBuilder exportByOrdinal() {
+    return export(null, null, true);
+  }
+
+  /**
+   * @return This builder, with the next ordinal unused.
+   */
+  public TestImageBuilder unusedOrdinal() {
+    return export(null, null, false);
+  }
+
+  /**
+   * @param name The DLL name.
+   * @param functions The imported functions: names or ordinals.
+   * @return This builder.
+   */
+  public TestImageBuilder importLibrary(String name, Object... functions) {
+    imports.add(library(name, 0, functions));
+    return this;
+  }
+
+  /**
+   * Import a DLL that was bound without an import lookup table. The import address table holds
+   * bound addresses instead of thunks.
+   *
+   * @param name The DLL name.
+   * @param timestamp The timestamp of the bound DLL.
+   * @param functions The number of functions.
+   * @return This builder.
+   */
+  public TestImageBuilder boundLibrary(String name, long timestamp, int functions) {
+    imports.add(library(name, timestamp, new Object[functions]));
+    return this;
+  }
+
+  /**
+   * Add a DLL to the bound import directory.
+   *
+   * @param name The DLL name.
+   * @param timestamp The timestamp of the DLL that the imports were bound against.
+   * @return This builder.
+   */
+  public TestImageBuilder boundImport(String name, long timestamp) {
+    boundImports.add(bound(name, timestamp));
+    return this;
+  }
+
+  /**
+   * Add a forwarder reference to the DLL that was last added to the bound import directory.
+   *
+   * @param name The name of the DLL that functions are forwarded to.
+   * @param timestamp The timestamp of that DLL.
+   * @return This builder.
+   */
+  public TestImageBuilder boundForwarder(String name, long timestamp) {
+    boundImports.get(boundImports.size() - 1).forwarders.add(bound(name, timestamp));
+    return this;
+  }
+
+  /**
+   * Put zeros at the start of the section, so that the tables are further into the file than the
+   * block of headers that a reader reads first.
+   *
+   * @param size The number of zeros.
+   * @return This builder.
+   */
+  public TestImageBuilder pad(int size) {
+    this.padding = size;
+    return this;
+  }
+
+  /**
+   * Leave out the zero that ends the import lookup table of the last imported DLL, and put the
+   * table at the end of the file.
+   *
+   * @return This builder.
+   */
+  public TestImageBuilder unterminatedLookupTable() {
+    this.unterminatedLookupTable = true;
+    return this;
+  }
+
+  /**
+   * Write the delay-load import directory before the export and import directories, which is the
+   * reverse of the order in which the data directories are listed in the optional header.
+   *
+   * @return This builder.
+   */
+  public TestImageBuilder delayImportsFirst() {
+    this.delayImportsFirst = true;
+    return this;
+  }
+
+  /**
+   * Write the export address, name pointer and ordinal tables before the export directory header
+   * instead of after it.
+   *
+   * @return This builder.
+   */
+  public TestImageBuilder exportTablesFirst() {
+    this.exportTablesFirst = true;
+    return this;
+  }
+
+  /**
+   * Write the hint/name entries and DLL names of the import and delay-load import directories after
+   * all of the tables of the directory, as linkers do, instead of before each lookup table.
+   *
+   * @return This builder.
+   */
+  public TestImageBuilder namesLast() {
+    this.namesLast = true;
+    return this;
+  }
+
+  /**
+   * Write the delay-load descriptors as old linkers did: with attributes of zero and with virtual
+   * addresses instead of RVAs, both in the descriptors and in the name tables. The descriptor
+   * fields are 32 bits wide, so this is only meaningful for PE32 images.
+   *
+   * @return This builder.
+   */
+  public TestImageBuilder virtualAddressDelayImports() {
+    this.virtualAddressDelayImports = true;
+    return this;
+  }
+
+  /**
+   * @param name The DLL name.
+   * @param functions The imported functions: names or ordinals.
+   * @return This builder.
+   */
+  public TestImageBuilder delayImportLibrary(String name, Object... functions) {
+    delayImports.add(library(name, 0, functions));
+    return this;
+  }
+
+  /**
+   * @param type The resource type: an Integer ID or a String name.
+   * @param name The resource name: an Integer ID or a String name.
+   * @param language The language ID.
+   * @param data The resource data.
+   * @return This builder.
+   */
+  public TestImageBuilder resource(Object type, Object name, int language, byte[] data) {
+    ResourceSpec spec = new ResourceSpec();
+
+    spec.type = type;
+    spec.name = name;
+    spec.language = language;
+    spec.data = data;
+    resources.add(spec);
+
+    return this;
+  }
+
+  /**
+   * @return The image. Each call builds the image again, so it may be called more than once.
+   */
+  public byte[] build() {
+    section = new Section();
+    section.allocate(padding, 1);
+    Arrays.fill(directories, 0);
+
+    if(delayImportsFirst && !delayImports.isEmpty()) {
+      writeDelayImports();
+    }
+
+    if(Objects.nonNull(exportFileName)) {
+      writeExports();
+    }
+
+    if(!imports.isEmpty()) {
+      writeImports();
+    }
+
+    if(!delayImportsFirst && !delayImports.isEmpty()) {
+      writeDelayImports();
+    }
+
+    if(!resources.isEmpty()) {
+      writeResources();
+    }
+
+    if(unterminatedLookupTable) {
+      writeUnterminatedLookupTable();
+    }
+
+    return writeImage();
+  }
+
+  /**
+   * Build the image and write it to a file.
+   *
+   * @param directory The directory of the file.
+   * @param name The file name.
+   * @return The path of the file.
+   */
+  public Path write(Path directory, String name) {
+    try {
+      return Files.write(directory.resolve(name), build());
+    }
+    catch(IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * @param name
+   * @param forwarder
+   * @param used
+   * @return
+   */
+  private TestImageBuilder export(String name, String forwarder, boolean used) {
+    ExportSpec spec = new ExportSpec();
+
+    spec.name = name;
+    spec.forwarder = forwarder;
+    spec.used = used;
+    exports.add(spec);
+
+    return this;
+  }
+
+  /**
+   * @param name
+   * @param timestamp
+   * @return A bound import directory entry without forwarders.
+   */
+  private static BoundSpec bound(String name, long timestamp) {
+    BoundSpec spec = new BoundSpec();
+    spec.name = name;
+    spec.timestamp = timestamp;
+    return spec;
+  }
+
+  /**
+   * @param name
+   * @param timestamp
+   * @param functions
+   * @return
+   */
+  private static LibrarySpec library(String name, long timestamp, Object[] functions) {
+    LibrarySpec spec = new LibrarySpec();
+
+    spec.name = name;
+    spec.timestamp = timestamp;
+    spec.functions = functions;
+
+    return spec;
+  }
+
+  /**
+   * Write the export directory: the header, the address, name pointer and ordinal tables, the DLL
+   * name, the export names and the forwarder strings.
+   */
+  private void writeExports() {
+    List<Integer> named = new ArrayList<>();
+
+    for(int index = 0; index < exports.size(); index++) {
+      if(Objects.nonNull(exports.get(index).name)) {
+        named.add(index);
+      }
+    }
+
+    named.sort(Comparator.comparing(index -> exports.get(index).name));
+
+    int header = exportTablesFirst ? 0 : section.allocate(40, 4);
+    int addressTable = section.allocate(4 * exports.size(), 4);
+    int namePointers = section.allocate(4 * named.size(), 4);
+    int ordinalTable = section.allocate(2 * named.size(), 2);
+
+    if(exportTablesFirst) {
+      header = section.allocate(40, 4);
+    }
+
+    int fileName = putString(exportFileName);
+    ByteBuffer view;
+
+    for(int pos = 0; pos < named.size(); pos++) {
+      int nameOffset = putString(exports.get(named.get(pos)).name);
+      view = section.view();
+      view.putInt(namePointers + 4 * pos, rva(nameOffset));
+      view.putShort(ordinalTable + 2 * pos, (short)(int)named.get(pos));
+    }
+
+    for(int index = 0; index < exports.size(); index++) {
+      ExportSpec spec = exports.get(index);
+      int address = spec.used ? 0x2000 + 0x10 * index : 0;
+
+      if(Objects.nonNull(spec.forwarder)) {
+        address = rva(putString(spec.forwarder));
+      }
+
+      section.view().putInt(addressTable + 4 * index, address);
+    }
+
+    view = section.view();
+    view.putInt(header + 4, TIMESTAMP);
+    view.putShort(header + 8, (short)1);
+    view.putShort(header + 10, (short)2);
+    view.putInt(header + 12, rva(fileName));
+    view.putInt(header + 16, ordinalBase);
+    view.putInt(header + 20, exports.size());
+    view.putInt(header + 24, named.size());
+    view.putInt(header + 28, rva(addressTable));
+    view.putInt(header + 32, rva(namePointers));
+    view.putInt(header + 36, rva(ordinalTable));
+    directory(EXPORT_DIRECTORY, rva(header), section.size - header);
+  }
+
+  /**
+   * Write the import descriptors, followed by the lookup table, address table, name and hint/name
+   * entries of each DLL.
+   */
+  private void writeImports() {
+    int descriptors = section.allocate(20 * (imports.size() + 1), 4);
+
+    for(int pos = 0; pos < imports.size(); pos++) {
+      LibrarySpec library = imports.get(pos);
+      boolean last = pos == imports.size() - 1;
+      int start = descriptors + 20 * pos;
+      ByteBuffer view;
+
+      if(library.timestamp != 0) {
+        int addressTable = writeBoundAddresses(library.functions.length);
+        putName(start + 12, library.name, 0);
+        view = section.view();
+        view.putInt(start + 4, (int)library.timestamp);
+        view.putInt(start + 16, rva(addressTable));
+        continue;
+      }
+
+      int addressTable = writeThunks(library.functions, true, 0);
+      putName(start + 12, library.name, 0);
+      section.view().putInt(start + 16, rva(addressTable));
+
+      if(!(last && unterminatedLookupTable)) {
+        int lookupTable = writeThunks(library.functions, true, 0);
+        section.view().putInt(start, rva(lookupTable));
+      }
+    }
+
+    writeDeferredNames();
+    directory(IMPORT_DIRECTORY, rva(descriptors), 20 * (imports.size() + 1));
+  }
+
+  /**
+   * Write the delay-load descriptors (RVA-based unless they use virtual addresses), followed by the
+   * name table, address table and names of each DLL.
+   */
+  private void writeDelayImports() {
+    int descriptors = section.allocate(32 * (delayImports.size() + 1), 4);
+    long base = virtualAddressDelayImports ? imageBase() : 0;
+
+    for(int pos = 0; pos < delayImports.size(); pos++) {
+      LibrarySpec library = delayImports.get(pos);
+      int nameTable = writeThunks(library.functions, true, base);
+      int addressTable = writeThunks(library.functions, true, base);
+      int start = descriptors + 32 * pos;
+
+      putName(start + 4, library.name, base);
+      ByteBuffer view = section.view();
+      view.putInt(start, virtualAddressDelayImports ? 0 : 1);
+      view.putInt(start + 12, (int)(base + rva(addressTable)));
+      view.putInt(start + 16, (int)(base + rva(nameTable)));
+    }
+
+    writeDeferredNames();
+    directory(DELAY_IMPORT_DIRECTORY, rva(descriptors), 32 * (delayImports.size() + 1));
+  }
+
+  /**
+   * Write the lookup table of the last imported DLL, without its terminating zero, at the end of
+   * the file.
+   */
+  private void writeUnterminatedLookupTable() {
+    LibrarySpec library = imports.get(imports.size() - 1);
+    int lookupTable = writeThunks(library.functions, false, 0);
+    writeDeferredNames();
+    int descriptors = directories[2 * IMPORT_DIRECTORY] - SECTION_RVA;
+
+    section.view().putInt(descriptors + 20 * (imports.size() - 1), rva(lookupTable));
+  }
+
+  /**
+   * @param functions
+   * @param terminated
+   * @param base The image base to add to the hint/name addresses, or zero for RVAs.
+   * @return The offset of a table of thunks for the functions. Their hint/name entries are written
+   *         before the table, so the table is the last thing in the section, unless the names are
+   *         written last.
+   */
+  private int writeThunks(Object[] functions, boolean terminated, long base) {
+    int size = plus ? 8 : 4;
+    int length = size * (functions.length + (terminated ? 1 : 0));
+
+    if(namesLast) {
+      int table = section.allocate(length, size);
+
+      for(int pos = 0; pos < functions.length; pos++) {
+        int entry = table + size * pos;
+        int hint = pos;
+        Object function = functions[pos];
+        deferredNames.add(() -> putThunk(entry, thunk(function, hint, base)));
+      }
+
+      return table;
+    }
+
+    long[] thunks = new long[functions.length];
+
+    for(int pos = 0; pos < functions.length; pos++) {
+      thunks[pos] = thunk(functions[pos], pos, base);
+    }
+
+    int table = section.allocate(length, size);
+
+    for(int pos = 0; pos < thunks.length; pos++) {
+      putThunk(table + size * pos, thunks[pos]);
+    }
+
+    return table;
+  }
+
+  /**
+   * @param function
+   * @param hint
+   * @param base
+   * @return The thunk that imports the function by ordinal, or by name with a hint/name entry that
+   *         is written here.
+   */
+  private long thunk(Object function, int hint, long base) {
+    if(function instanceof Integer) {
+      return (plus ? Long.MIN_VALUE : 0x80000000L) | (Integer)function;
+    }
+
+    int entry = section.allocate(2, 2);
+    section.view().putShort(entry, (short)hint);
+    putString((String)function);
+
+    return base + rva(entry);
+  }
+
+  /**
+   * Write a DLL name and put its address in a descriptor field, now or with the other deferred
+   * names.
+   *
+   * @param field
+   * @param name
+   * @param base The image base to add to the address, or zero for an RVA.
+   */
+  private void putName(int field, String name, long base) {
+    Runnable write = () -> {
+      int offset = putString(name);
+      section.view().putInt(field, (int)(base + rva(offset)));
+    };
+
+    if(namesLast) {
+      deferredNames.add(write);
+    }
+    else {
+      write.run();
+    }
+  }
+
+  /**
+   * Write the names that were deferred until the tables of a directory had been written.
+   */
+  private void writeDeferredNames() {
+    deferredNames.forEach(Runnable::run);
+    deferredNames.clear();
+  }
+
+  /**
+   * @param count
+   * @return The offset of an import address table of bound addresses.
+   */
+  private int writeBoundAddresses(int count) {
+    int size = plus ? 8 : 4;
+    int table = section.allocate(size * (count + 1), size);
+
+    for(int pos = 0; pos < count; pos++) {
+      putThunk(table + size * pos, 0x77001000L + 0x10 * pos);
+    }
+
+    return table;
+  }
+
+  /**
+   * Write the resource directory: the root, a directory for each type, a directory for each name,
+   * the data entries, the names and the data.
+   */
+  private void writeResources() {
+    Map<Object, Map<Object, Map<Integer, ResourceSpec>>> tree = new TreeMap<>(KEY_ORDER);
+
+    for(ResourceSpec spec : resources) {
+      tree.computeIfAbsent(spec.type, key -> new TreeMap<>(KEY_ORDER))
+          .computeIfAbsent(spec.name, key -> new TreeMap<>()).put(spec.language, spec);
+    }
+
+    Map<Object, Integer> names = new TreeMap<>(KEY_ORDER);
+    List<Runnable> patches = new ArrayList<>();
+    int root = writeResourceDirectory(tree.keySet());
+    int rootEntries = root + 16;
+    int pos = 0;
+
+    for(Map.Entry<Object, Map<Object, Map<Integer, ResourceSpec>>> type : tree.entrySet()) {
+      int typeDirectory = writeResourceDirectory(type.getValue().keySet());
+      int typeEntries = typeDirectory + 16;
+      patchEntry(rootEntries + 8 * pos++, type.getKey(), typeDirectory - root, true, names,
+          patches);
+      int namePos = 0;
+
+      for(Map.Entry<Object, Map<Integer, ResourceSpec>> name : type.getValue().entrySet()) {
+        int nameDirectory = writeResourceDirectory(name.getValue().keySet());
+        int languageEntries = nameDirectory + 16;
+        patchEntry(typeEntries + 8 * namePos++, name.getKey(), nameDirectory - root, true, names,
+            patches);
+        int languagePos = 0;
+
+        for(ResourceSpec spec : name.getValue().values()) {
+          int dataEntry = section.allocate(16, 4);
+          int data = section.put(spec.data, 8);
+          ByteBuffer view = section.view();
+
+          view.putInt(dataEntry, rva(data));
+          view.putInt(dataEntry + 4, spec.data.length);
+          patchEntry(languageEntries + 8 * languagePos++, spec.language, dataEntry - root, false,
+              names, patches);
+        }
+      }
+    }
+
+    for(Object name : names.keySet()) {
+      String text = (String)name;
+      byte[] bytes = text.getBytes(StandardCharsets.UTF_16LE);
+      int offset = section.allocate(2 + bytes.length, 2);
+      ByteBuffer view = section.view();
+
+      view.putShort(offset, (short)text.length());
+      view.position(offset + 2);
+      view.put(bytes);
+      names.put(name, offset - root);
+    }
+
+    patches.forEach(Runnable::run);
+    directory(RESOURCE_DIRECTORY, rva(root), section.size - root);
+  }
+
+  /**
+   * @param keys
+   * @return The offset of a new directory with the given keys.
+   */
+  private int writeResourceDirectory(Iterable<?> keys) {
+    int named = 0;
+    int ids = 0;
+
+    for(Object key : keys) {
+      if(key instanceof String) {
+        named++;
+      }
+      else {
+        ids++;
+      }
+    }
+
+    int directory = section.allocate(16 + 8 * (named + ids), 4);
+    ByteBuffer view = section.view();
+
+    view.putShort(directory + 12, (short)named);
+    view.putShort(directory + 14, (short)ids);
+
+    return directory;
+  }
+
+  /**
+   * Fill in a directory entry. The offset of a name is not known until the names are written, so
+   * the name field of a named entry is filled in afterwards.
+   *
+   * @param entry
+   * @param key
+   * @param target
+   * @param isDirectory
+   * @param names
+   * @param patches
+   */
+  private void patchEntry(int entry, Object key, int target, boolean isDirectory,
+      Map<Object, Integer> names, List<Runnable> patches) {
+    section.view().putInt(entry + 4, isDirectory ? target | 0x80000000 : target);
+
+    if(key instanceof String) {
+      names.put(key, 0);
+      patches.add(() -> section.view().putInt(entry, names.get(key) | 0x80000000));
+    }
+    else {
+      section.view().putInt(entry, (Integer)key);
+    }
+  }
+
+  /**
+   * @return The image: the headers followed by the section.
+   */
+  private byte[] writeImage() {
+    int optionalHeaderSize = plus ? 240 : 224;
+    int sectionTable = PE_OFFSET + 4 + 20 + optionalHeaderSize;
+    ByteBuffer image =
+        ByteBuffer.allocate(HEADER_SIZE + section.size).order(ByteOrder.LITTLE_ENDIAN);
+
+    image.put(0, (byte)'M').put(1, (byte)'Z');
+    image.putInt(0x3c, PE_OFFSET);
+    image.put(PE_OFFSET, (byte)'P').put(PE_OFFSET + 1, (byte)'E');
+
+    int coff = PE_OFFSET + 4;
+    image.putShort(coff, (short)(plus ? 0x8664 : 0x14c));
+    image.putShort(coff + 2, (short)1);
+    image.putInt(coff + 4, TIMESTAMP);
+    image.putShort(coff + 16, (short)optionalHeaderSize);
+    image.putShort(coff + 18, (short)0x2022);
+
+    int optional = coff + 20;
+    image.putShort(optional, (short)(plus ? 0x20b : 0x10b));
+    image.put(optional + 2, (byte)14);
+    image.put(optional + 3, (byte)30);
+
+    if(plus) {
+      image.putLong(optional + 24, IMAGE_BASE_PLUS);
+    }
+    else {
+      image.putInt(optional + 28, (int)IMAGE_BASE_STD);
+    }
+
+    image.putInt(optional + 32, 0x1000);
+    image.putInt(optional + 36, 0x200);
+    image.putShort(optional + 40, (short)6);
+    image.putShort(optional + 48, (short)6);
+    image.putInt(optional + 56, SECTION_RVA + (section.size + 0xfff) / 0x1000 * 0x1000);
+    image.putInt(optional + 60, HEADER_SIZE);
+    image.putShort(optional + 68, (short)2);
+    image.putShort(optional + 70, (short)0x160);
+
+    int directoryTable = optional + (plus ? 112 : 96);
+    image.putInt(directoryTable - 4, 16);
+
+    if(!boundImports.isEmpty()) {
+      int start = sectionTable + 40;
+      directory(BOUND_IMPORT_DIRECTORY, start, writeBoundImports(image, start));
+    }
+
+    for(int pos = 0; pos < directories.length; pos++) {
+      image.putInt(directoryTable + 4 * pos, directories[pos]);
+    }
+
+    image.put(sectionTable, ".rdata".getBytes(StandardCharsets.US_ASCII));
+    image.putInt(sectionTable + 8, section.size);
+    image.putInt(sectionTable + 12, SECTION_RVA);
+    image.putInt(sectionTable + 16, section.size);
+    image.putInt(sectionTable + 20, HEADER_SIZE);
+    image.putInt(sectionTable + 36, 0x40000040);
+
+    image.position(HEADER_SIZE);
+    image.put(section.data, 0, section.size);
+
+    return image.array();
+  }
+
+  /**
+   * Write the bound import directory: a descriptor for each DLL followed by its forwarder
+   * references, a terminating zero descriptor, and then the names. Name offsets are relative to the
+   * start of the directory.
+   *
+   * @param image
+   * @param start The file offset of the directory.
+   * @return The size of the directory.
+   */
+  private int writeBoundImports(ByteBuffer image, int start) {
+    int descriptors = boundImports.size();
+
+    for(BoundSpec spec : boundImports) {
+      descriptors += spec.forwarders.size();
+    }
+
+    int names = 8 * (descriptors + 1);
+    int descriptor = start;
+
+    for(BoundSpec spec : boundImports) {
+      names = putBoundDescriptor(image, start, descriptor, names, spec);
+      image.putShort(descriptor + 6, (short)spec.forwarders.size());
+      descriptor += 8;
+
+      for(BoundSpec forwarder : spec.forwarders) {
+        names = putBoundDescriptor(image, start, descriptor, names, forwarder);
+        descriptor += 8;
+      }
+    }
+
+    return names;
+  }
+
+  /**
+   * @param image
+   * @param start
+   * @param descriptor
+   * @param names
+   * @param spec
+   * @return The offset after the name of the descriptor, relative to the start of the directory.
+   */
+  private static int putBoundDescriptor(ByteBuffer image, int start, int descriptor, int names,
+      BoundSpec spec) {
+    byte[] name = spec.name.getBytes(StandardCharsets.US_ASCII);
+
+    image.putInt(descriptor, (int)spec.timestamp);
+    image.putShort(descriptor + 4, (short)names);
+    image.put(start + names, name);
+
+    return names + name.length + 1;
+  }
+
+  /**
+   * @return The image base in the optional header.
+   */
+  private long imageBase() {
+    return plus ? IMAGE_BASE_PLUS : IMAGE_BASE_STD;
+  }
+
+  /**
+   * @param index
+   * @param address
+   * @param size
+   */
+  private void directory(int index, int address, int size) {
+    directories[2 * index] = address;
+    directories[2 * index + 1] = size;
+  }
+
+  /**
+   * @param offset
+   * @param thunk
+   */
+  private void putThunk(int offset, long thunk) {
+    if(plus) {
+      section.view().putLong(offset, thunk);
+    }
+    else {
+      section.view().putInt(offset, (int)thunk);
+    }
+  }
+
+  /**
+   * @param text
+   * @return The offset of the null-terminated ASCII string in the section.
+   */
+  private int putString(String text) {
+    byte[] bytes = text.getBytes(StandardCharsets.US_ASCII);
+    return section.put(Arrays.copyOf(bytes, bytes.length + 1), 1);
+  }
+
+  /**
+   * @param offset
+   * @return The RVA of an offset in the section.
+   */
+  private static int rva(int offset) {
+    return SECTION_RVA + offset;
+  }
+}
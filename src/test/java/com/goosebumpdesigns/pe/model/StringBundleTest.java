@@ -0,0 +1,117 @@
+// Copyright (c) 2023 Goosebump Designs LLC
+
+package com.goosebumpdesigns.pe.model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+import com.goosebumpdesigns.pe.file.ByteOrderBuffer;
+
+/**
+ * This class tests the string table helpers in {@link StringBundle}.
+ */
+class StringBundleTest {
+
+  /**
+   * Test method for {@link StringBundle#bundleId(int)}.
+   */
+  @Test
+  void testBundleId() {
+    // Given: string IDs at the ends of bundles and of the ID range
+
+    // When: their bundle IDs are computed
+    // Then: each bundle holds sixteen strings, and IDs out of range are rejected
+    assertThat(StringBundle.bundleId(0)).isEqualTo(1);
+    assertThat(StringBundle.bundleId(15)).isEqualTo(1);
+    assertThat(StringBundle.bundleId(16)).isEqualTo(2);
+    assertThat(StringBundle.bundleId(0xffff)).isEqualTo(4096);
+    assertThatThrownBy(() -> StringBundle.bundleId(-1))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> StringBundle.bundleId(0x10000))
+        .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("65536");
+  }
+
+  /**
+   * Test method for {@link StringBundle#getString(ByteOrderBuffer, int)}.
+   */
+  @Test
+  void testGetString() {
+    // Given: a bundle in which string 1 is empty
+    ByteOrderBuffer bundle = bundle(ByteOrder.LITTLE_ENDIAN, "zero", "", "two");
+
+    // When: strings are looked up by ID
+    // Then: the ID is taken modulo sixteen, and empty and missing strings are null
+    assertThat(StringBundle.getString(bundle, 0)).isEqualTo("zero");
+    assertThat(StringBundle.getString(bundle, 32)).isEqualTo("zero");
+    assertThat(StringBundle.getString(bundle, 2)).isEqualTo("two");
+    assertThat(StringBundle.getString(bundle, 1)).isNull();
+    assertThat(StringBundle.getString(bundle, 15)).isNull();
+  }
+
+  /**
+   * Test method for {@link StringBundle#getString(ByteOrderBuffer, int)}.
+   */
+  @Test
+  void testBigEndianBundle() {
+    // Given: a big-endian bundle
+    ByteOrderBuffer bundle = bundle(ByteOrder.BIG_ENDIAN, "zero", "one");
+
+    // When: a string is looked up
+    // Then: it is decoded as UTF-16BE
+    assertThat(StringBundle.getString(bundle, 1)).isEqualTo("one");
+  }
+
+  /**
+   * Test method for {@link StringBundle#getString(ByteOrderBuffer, int)}.
+   */
+  @Test
+  void testShortBundle() {
+    // Given: a bundle that ends after string 1, and one cut off in the middle of string 1
+    byte[] full = bytes(ByteOrder.LITTLE_ENDIAN, "zero", "one");
+    ByteOrderBuffer truncated = new ByteOrderBuffer(full, ByteOrder.LITTLE_ENDIAN);
+    ByteOrderBuffer cut =
+        new ByteOrderBuffer(Arrays.copyOf(full, full.length - 2), ByteOrder.LITTLE_ENDIAN);
+    ByteOrderBuffer odd = new ByteOrderBuffer(new byte[] {4}, ByteOrder.LITTLE_ENDIAN);
+
+    // When: strings are looked up
+    // Then: strings past the end, and the string that runs past the end, are null
+    assertThat(StringBundle.getString(truncated, 1)).isEqualTo("one");
+    assertThat(StringBundle.getString(truncated, 2)).isNull();
+    assertThat(StringBundle.getString(truncated, 9)).isNull();
+    assertThat(StringBundle.getString(cut, 0)).isEqualTo("zero");
+    assertThat(StringBundle.getString(cut, 1)).isNull();
+    assertThat(StringBundle.getString(odd, 0)).isNull();
+  }
+
+  /**
+   * @param order
+   * @param strings
+   * @return A bundle of sixteen strings, starting with the given strings.
+   */
+  private static ByteOrderBuffer bundle(ByteOrder order, String... strings) {
+    String[] all = Arrays.copyOf(strings, StringBundle.STRINGS_PER_BUNDLE);
+    Arrays.fill(all, strings.length, all.length, "");
+    return new ByteOrderBuffer(bytes(order, all), order);
+  }
+
+  /**
+   * @param order
+   * @param strings
+   * @return The counted UTF-16 strings.
+   */
+  private static byte[] bytes(ByteOrder order, String... strings) {
+    ByteBuffer bundle = ByteBuffer.allocate(1024).order(order);
+
+    for(String string : strings) {
+      bundle.putShort((short)string.length());
+      bundle.put(string.getBytes(order == ByteOrder.LITTLE_ENDIAN ? StandardCharsets.UTF_16LE
+          : StandardCharsets.UTF_16BE));
+    }
+
+    return Arrays.copyOf(bundle.array(), bundle.position());
+  }
+}
@@ -0,0 +1,77 @@
+// Copyright (c) 2023 Goosebump Designs LLC
+
+package com.goosebumpdesigns.pe.store;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import com.goosebumpdesigns.pe.PEFile;
+import com.goosebumpdesigns.pe.builder.PEFileBuilder;
+import com.goosebumpdesigns.pe.exception.PEFileException;
+import com.goosebumpdesigns.pe.file.TestImageBuilder;
+
+/**
+ * This class tests writing a {@link ColumnarStore} with {@link ColumnarStoreWriter} and reading it
+ * back.
+ */
+class ColumnarStoreTest {
+  @TempDir
+  Path directory;
+
+  /**
+   * Test method for {@link ColumnarStore#open(Path)}.
+   */
+  @Test
+  void testWrittenStoreCanBeRead() {
+    // Given: a store with two files
+    PEFile file = PEFileBuilder.build(TestImageBuilder.pe32().build());
+
+    try(ColumnarStoreWriter writer = new ColumnarStoreWriter(directory)) {
+      writer.add(Path.of("a.dll"), file);
+      writer.add(Path.of("b.dll"), file);
+    }
+
+    // When: the store is opened
+    ColumnarStore store = ColumnarStore.open(directory);
+
+    // Then: the files and their sections are in the store
+    StringColumn path = store.stringColumn(ColumnarStore.FILES, "path");
+    IntColumn section = store.intColumn(ColumnarStore.SECTIONS, "file");
+
+    assertThat(store.getRowCount(ColumnarStore.FILES)).isEqualTo(2);
+    assertThat(path.get(0)).isEqualTo("a.dll");
+    assertThat(path.get(1)).isEqualTo("b.dll");
+    assertThat(store.getRowCount(ColumnarStore.SECTIONS)).isEqualTo(2);
+    assertThat(section.get(1)).isEqualTo(1);
+  }
+
+  /**
+   * Test method for {@link ColumnarStoreWriter#ColumnarStoreWriter(Path)}.
+   */
+  @Test
+  void testRewrittenStoreIsIncompleteUntilClosed() {
+    // Given: a complete store with one file
+    PEFile file = PEFileBuilder.build(TestImageBuilder.pe32().build());
+
+    try(ColumnarStoreWriter writer = new ColumnarStoreWriter(directory)) {
+      writer.add(Path.of("old.dll"), file);
+    }
+
+    // When: the store is rewritten
+    try(ColumnarStoreWriter writer = new ColumnarStoreWriter(directory)) {
+      writer.add(Path.of("new.dll"), file);
+
+      // Then: the old table properties are gone while the store is written
+      assertThatThrownBy(() -> ColumnarStore.open(directory))
+          .isInstanceOf(PEFileException.class);
+    }
+
+    // And: the new store replaces the old one when the writer is closed
+    ColumnarStore store = ColumnarStore.open(directory);
+
+    assertThat(store.getRowCount(ColumnarStore.FILES)).isEqualTo(1);
+    assertThat(store.stringColumn(ColumnarStore.FILES, "path").get(0)).isEqualTo("new.dll");
+  }
+}
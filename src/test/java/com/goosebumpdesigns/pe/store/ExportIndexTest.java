@@ -0,0 +1,163 @@
+// Copyright (c) 2023 Goosebump Designs LLC
+
+package com.goosebumpdesigns.pe.store;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import com.goosebumpdesigns.pe.PEExports;
+import com.goosebumpdesigns.pe.PEFile;
+import com.goosebumpdesigns.pe.builder.PEFileBuilder;
+import com.goosebumpdesigns.pe.file.TestImageBuilder;
+
+/**
+ * This class tests writing an {@link ExportIndex} with {@link ExportIndexWriter} and looking up
+ * symbols in it.
+ */
+class ExportIndexTest {
+  @TempDir
+  Path directory;
+
+  /**
+   * Test method for {@link ExportIndex#find(String)}.
+   */
+  @Test
+  void testFindReturnsEveryFileThatExportsTheSymbol() {
+    // Given: an index of two files that share a symbol
+    Path file = directory.resolve("exports.idx");
+
+    try(ExportIndexWriter writer = new ExportIndexWriter(file)) {
+      writer.add(Path.of("a.dll"), exports("Alpha", "Shared"));
+      writer.add(Path.of("b.dll"), null);
+      writer.add(Path.of("c.dll"), exports("Shared", "Gamma"));
+    }
+
+    // When: the index is opened
+    ExportIndex index = ExportIndex.open(file);
+
+    // Then: each symbol is found with its files and ordinals
+    ExportPostings shared = index.find("Shared");
+
+    assertThat(index.getSymbolCount()).isEqualTo(3);
+    assertThat(index.getFileCount()).isEqualTo(3);
+    assertThat(shared.size()).isEqualTo(2);
+    assertThat(index.getPath(shared.getFileId(0))).isEqualTo("a.dll");
+    assertThat(shared.getOrdinal(0)).isEqualTo(1);
+    assertThat(index.getPath(shared.getFileId(1))).isEqualTo("c.dll");
+    assertThat(shared.getOrdinal(1)).isEqualTo(0);
+    assertThat(index.find("Gamma").size()).isEqualTo(1);
+    assertThat(index.find("Shar").isEmpty()).isTrue();
+    assertThat(index.find("Zeta").isEmpty()).isTrue();
+    assertThat(index.getPath(1)).isEqualTo("b.dll");
+  }
+
+  /**
+   * Test method for {@link ExportIndex#find(String)} and {@link ExportIndex#findPrefix(String)}.
+   */
+  @Test
+  void testLookupsAcrossFrontCodedBlocks() {
+    // Given: an index with symbols that fill several blocks
+    Path file = directory.resolve("exports.idx");
+    int count = ExportIndexFormat.BLOCK_SIZE * 3 + 5;
+    String[] names = IntStream.range(0, count).mapToObj(n -> String.format("Sym%03d", n))
+        .toArray(String[]::new);
+
+    try(ExportIndexWriter writer = new ExportIndexWriter(file)) {
+      writer.add(Path.of("a.dll"), exports(names));
+    }
+
+    // When: the index is opened
+    ExportIndex index = ExportIndex.open(file);
+
+    // Then: every symbol is found, including the first and last symbol of each block
+    for(int ordinal = 0; ordinal < count; ordinal++) {
+      ExportPostings postings = index.find(names[ordinal]);
+
+      assertThat(postings.size()).as(names[ordinal]).isEqualTo(1);
+      assertThat(postings.getOrdinal(0)).isEqualTo(ordinal);
+    }
+
+    // And: a prefix that spans a block boundary finds every symbol with the prefix, in order
+    Map<String, ExportPostings> found = index.findPrefix("Sym01");
+
+    assertThat(found.keySet()).containsExactly("Sym010", "Sym011", "Sym012", "Sym013", "Sym014",
+        "Sym015", "Sym016", "Sym017", "Sym018", "Sym019");
+    assertThat(found.get("Sym016").getOrdinal(0)).isEqualTo(16);
+    assertThat(index.findPrefix("Sym").size()).isEqualTo(count);
+    assertThat(index.findPrefix("Sym1")).isEmpty();
+    assertThat(index.findPrefix("")).hasSize(count);
+  }
+
+  /**
+   * Test method for {@link ExportIndex#open(Path)}.
+   */
+  @Test
+  void testEmptyIndex() {
+    // Given: an index with no files
+    Path file = directory.resolve("exports.idx");
+
+    new ExportIndexWriter(file).close();
+
+    // When: the index is opened
+    ExportIndex index = ExportIndex.open(file);
+
+    // Then: nothing is found
+    assertThat(index.getSymbolCount()).isZero();
+    assertThat(index.getFileCount()).isZero();
+    assertThat(index.find("Alpha").isEmpty()).isTrue();
+    assertThat(index.findPrefix("")).isEmpty();
+  }
+
+  /**
+   * Test method for {@link ColumnarStoreWriter#ColumnarStoreWriter(Path, ExportIndexWriter)}.
+   */
+  @Test
+  void testFileIdsAreStoreRowsWhenWrittenConcurrently() {
+    // Given: a store writer that also writes an export index
+    Path store = directory.resolve("store");
+    Path file = directory.resolve("exports.idx");
+    List<PEFile> files = new ArrayList<>();
+
+    for(int n = 0; n < 64; n++) {
+      files.add(PEFileBuilder.build(TestImageBuilder.pe32().exports("f" + n + ".dll", 1)
+          .export("Export" + n).build()));
+    }
+
+    // When: the files are added from several threads
+    try(ExportIndexWriter indexWriter = new ExportIndexWriter(file);
+        ColumnarStoreWriter writer = new ColumnarStoreWriter(store, indexWriter)) {
+      IntStream.range(0, files.size()).parallel()
+          .forEach(n -> writer.add(Path.of("f" + n + ".dll"), files.get(n)));
+    }
+
+    // Then: the file of each symbol is the store row with the same path
+    ExportIndex index = ExportIndex.open(file);
+    StringColumn paths = ColumnarStore.open(store).stringColumn(ColumnarStore.FILES, "path");
+
+    for(int n = 0; n < files.size(); n++) {
+      int fileId = index.find("Export" + n).getFileId(0);
+
+      assertThat(paths.get(fileId)).isEqualTo("f" + n + ".dll");
+      assertThat(index.getPath(fileId)).isEqualTo("f" + n + ".dll");
+    }
+  }
+
+  /**
+   * @param names The export names.
+   * @return The exports of an image that exports the names.
+   */
+  private static PEExports exports(String... names) {
+    TestImageBuilder builder = TestImageBuilder.pe32().exports("test.dll", 1);
+
+    for(String name : names) {
+      builder.export(name);
+    }
+
+    return PEFileBuilder.build(builder.build()).getExports();
+  }
+}